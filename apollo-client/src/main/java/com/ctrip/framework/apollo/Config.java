@@ -17,11 +17,20 @@
 package com.ctrip.framework.apollo;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.internals.SubsetConfig;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
+import com.ctrip.framework.apollo.property.BooleanProperty;
+import com.ctrip.framework.apollo.property.ConfigBinding;
+import com.ctrip.framework.apollo.property.DoubleProperty;
+import com.ctrip.framework.apollo.property.IntProperty;
+import com.ctrip.framework.apollo.property.LongProperty;
+import com.ctrip.framework.apollo.property.StringProperty;
 import com.google.common.base.Function;
 
 import java.util.Date;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -232,6 +241,8 @@ public interface Config {
 
   /**
    * Return the user-defined property value with the given key, or {@code defaultValue} if the key doesn't exist.
+   * The result is cached per function instance until the config is changed, so the function should be reused
+   * and the result should not be modified.
    *
    * @param key          the property name
    * @param function     the transform {@link Function}. from String to user-defined type
@@ -251,4 +262,206 @@ public interface Config {
    * @since 1.1.0
    */
   ConfigSourceType getSourceType();
+
+  /**
+   * Return a handle of the string property with the given key, the handle value is refreshed only
+   * when the key is changed in this namespace. Handles with the same key and default value are
+   * shared, while the default implementation creates a new handle refreshed by a change listener.
+   *
+   * @param key          the property name
+   * @param defaultValue the default value when key is not found
+   * @return the property handle
+   *
+   * @since 2.4.0
+   */
+  default StringProperty stringHandle(String key, String defaultValue) {
+    StringProperty handle = new StringProperty(key, defaultValue);
+    handle.subscribe(this);
+    return handle;
+  }
+
+  /**
+   * Return a handle of the integer property with the given key, the handle value is re-parsed only
+   * when the key is changed in this namespace. Handles with the same key and default value are
+   * shared, while the default implementation creates a new handle refreshed by a change listener.
+   *
+   * @param key          the property name
+   * @param defaultValue the default value when key is not found or any error occurred
+   * @return the property handle
+   *
+   * @since 2.4.0
+   */
+  default IntProperty intHandle(String key, int defaultValue) {
+    IntProperty handle = new IntProperty(key, defaultValue);
+    handle.subscribe(this);
+    return handle;
+  }
+
+  /**
+   * Return a handle of the long property with the given key, the handle value is re-parsed only
+   * when the key is changed in this namespace. Handles with the same key and default value are
+   * shared, while the default implementation creates a new handle refreshed by a change listener.
+   *
+   * @param key          the property name
+   * @param defaultValue the default value when key is not found or any error occurred
+   * @return the property handle
+   *
+   * @since 2.4.0
+   */
+  default LongProperty longHandle(String key, long defaultValue) {
+    LongProperty handle = new LongProperty(key, defaultValue);
+    handle.subscribe(this);
+    return handle;
+  }
+
+  /**
+   * Return a handle of the double property with the given key, the handle value is re-parsed only
+   * when the key is changed in this namespace. Handles with the same key and default value are
+   * shared, while the default implementation creates a new handle refreshed by a change listener.
+   *
+   * @param key          the property name
+   * @param defaultValue the default value when key is not found or any error occurred
+   * @return the property handle
+   *
+   * @since 2.4.0
+   */
+  default DoubleProperty doubleHandle(String key, double defaultValue) {
+    DoubleProperty handle = new DoubleProperty(key, defaultValue);
+    handle.subscribe(this);
+    return handle;
+  }
+
+  /**
+   * Return a handle of the boolean property with the given key, the handle value is re-parsed only
+   * when the key is changed in this namespace. Handles with the same key and default value are
+   * shared, while the default implementation creates a new handle refreshed by a change listener.
+   *
+   * @param key          the property name
+   * @param defaultValue the default value when key is not found or any error occurred
+   * @return the property handle
+   *
+   * @since 2.4.0
+   */
+  default BooleanProperty booleanHandle(String key, boolean defaultValue) {
+    BooleanProperty handle = new BooleanProperty(key, defaultValue);
+    handle.subscribe(this);
+    return handle;
+  }
+
+  /**
+   * Return a read-only view of the properties whose keys start with the given prefix, the keys of
+   * the view are relative to the prefix, e.g. "url" of {@code subset("datasource.orders.")} is
+   * "datasource.orders.url" of this config. Change listeners of the view are only notified when
+   * keys with the prefix are changed.
+   * <p>
+   * The default implementation creates a new view on each call, notified by a change listener of
+   * the prefix.
+   *
+   * @param prefix the key prefix, e.g. "datasource.orders."
+   * @return the subset view, views with the same prefix are shared
+   *
+   * @since 2.4.0
+   */
+  default Config subset(String prefix) {
+    if (prefix == null || prefix.isEmpty()) {
+      return this;
+    }
+    return SubsetConfig.of(this, prefix);
+  }
+
+  /**
+   * Bind the properties with the given prefix to a POJO of the given type, e.g. property
+   * "datasource.orders.maxActive" is bound to {@code setMaxActive} or field {@code maxActive} with
+   * prefix "datasource.orders.". A new POJO is published whenever any bound property is changed.
+   * <p>
+   * The default implementation creates a new binding on each call, refreshed by a change listener
+   * of the bound properties.
+   *
+   * @param prefix the key prefix, e.g. "datasource.orders."
+   * @param type   the POJO type, which should have a no-arg constructor
+   * @param <T>    the POJO type
+   * @return the live binding, bindings with the same prefix and type are shared
+   *
+   * @since 2.4.0
+   */
+  default <T> ConfigBinding<T> bind(String prefix, Class<T> type) {
+    ConfigBinding<T> binding = new ConfigBinding<>(prefix == null ? "" : prefix, type);
+    binding.subscribe(this);
+    return binding;
+  }
+
+  /**
+   * Return the watermark of the applied config versions, i.e. all the changes up to this version
+   * have been handled by the matched change listeners. The config version is increased whenever
+   * the properties of this namespace are changed.
+   * <p>
+   * The default implementation doesn't track the versions and always returns 0.
+   *
+   * @return the applied config version
+   *
+   * @since 2.4.0
+   */
+  default long getAppliedVersion() {
+    return 0L;
+  }
+
+  /**
+   * Wait for the changes up to the given config version to be handled by the matched change
+   * listeners.
+   * <p>
+   * The default implementation returns a completed future, see {@link #getAppliedVersion()}.
+   *
+   * @param version the config version
+   * @return the future completed with the applied config version
+   *
+   * @since 2.4.0
+   */
+  default CompletableFuture<Long> awaitAppliedVersion(long version) {
+    return CompletableFuture.completedFuture(getAppliedVersion());
+  }
+
+  /**
+   * Wait for the changes received so far to be handled by the matched change listeners, e.g. for
+   * readiness checks.
+   * <p>
+   * The default implementation returns a completed future, see {@link #getAppliedVersion()}.
+   *
+   * @return the future completed with the applied config version
+   *
+   * @since 2.4.0
+   */
+  default CompletableFuture<Long> awaitApplied() {
+    return CompletableFuture.completedFuture(getAppliedVersion());
+  }
+
+  /**
+   * Return the current config version, which is increased whenever the properties of this
+   * namespace are changed.
+   * <p>
+   * The default implementation doesn't track the versions and always returns 0.
+   *
+   * @return the config version
+   *
+   * @since 2.4.0
+   */
+  default long getVersion() {
+    return 0L;
+  }
+
+  /**
+   * Return the net changes since the given config version, so that the callers could poll the
+   * changes without registering listeners. The changes are kept in a bounded journal, when they
+   * are no longer known the result tells the caller to reload the whole config.
+   * <p>
+   * The default implementation keeps no journal and always tells the caller to reload the whole
+   * config.
+   *
+   * @param version the config version returned by {@link #getVersion()} or the last result
+   * @return the net changes since the version
+   *
+   * @since 2.4.0
+   */
+  default VersionedConfigChanges getChangesSince(long version) {
+    return VersionedConfigChanges.fullReload(version, getVersion());
+  }
 }
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo;
 
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -68,4 +69,46 @@ public interface ConfigFile {
    * @return the config's source type
    */
   ConfigSourceType getSourceType();
+
+  /**
+   * Return the watermark of the applied versions, i.e. all the changes up to this version have been
+   * handled by the change listeners. The version is increased whenever the content is changed.
+   * <p>
+   * The default implementation doesn't track the versions and always returns 0.
+   *
+   * @return the applied version
+   *
+   * @since 2.4.0
+   */
+  default long getAppliedVersion() {
+    return 0L;
+  }
+
+  /**
+   * Wait for the changes up to the given version to be handled by the change listeners.
+   * <p>
+   * The default implementation returns a completed future, see {@link #getAppliedVersion()}.
+   *
+   * @param version the version
+   * @return the future completed with the applied version
+   *
+   * @since 2.4.0
+   */
+  default CompletableFuture<Long> awaitAppliedVersion(long version) {
+    return CompletableFuture.completedFuture(getAppliedVersion());
+  }
+
+  /**
+   * Wait for the changes received so far to be handled by the change listeners, e.g. for readiness
+   * checks.
+   * <p>
+   * The default implementation returns a completed future, see {@link #getAppliedVersion()}.
+   *
+   * @return the future completed with the applied version
+   *
+   * @since 2.4.0
+   */
+  default CompletableFuture<Long> awaitApplied() {
+    return CompletableFuture.completedFuture(getAppliedVersion());
+  }
 }
@@ -24,6 +24,7 @@ import com.ctrip.framework.apollo.internals.ConfigMonitorInitializer;
 import com.ctrip.framework.apollo.monitor.api.ConfigMonitor;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigRegistry;
+import java.util.Collection;
 
 /**
  * Entry point for client config use
@@ -91,6 +92,17 @@ public class ConfigService {
     return s_instance.getManager().getConfig(namespace);
   }
 
+  /**
+   * Load the config instances for the namespaces in parallel, so that the following getConfig calls
+   * for them return at once.
+   *
+   * @param namespaces the namespaces of the config
+   * @since 2.4.0
+   */
+  public static void preload(Collection<String> namespaces) {
+    s_instance.getManager().preload(namespaces);
+  }
+
   public static ConfigFile getConfigFile(String namespace, ConfigFileFormat configFileFormat) {
     return s_instance.getManager().getConfigFile(namespace, configFileFormat);
   }
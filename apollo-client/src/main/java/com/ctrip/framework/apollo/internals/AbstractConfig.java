@@ -16,24 +16,32 @@
  */
 package com.ctrip.framework.apollo.internals;
 
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.APOLLO_CLIENT_NAMESPACE_APPLY_SPEND;
+
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.build.ApolloInjector;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
+import com.ctrip.framework.apollo.property.BooleanProperty;
+import com.ctrip.framework.apollo.property.ConfigBinding;
+import com.ctrip.framework.apollo.property.DoubleProperty;
+import com.ctrip.framework.apollo.property.IntProperty;
+import com.ctrip.framework.apollo.property.LongProperty;
+import com.ctrip.framework.apollo.property.PropertyHandle;
+import com.ctrip.framework.apollo.property.StringProperty;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import com.ctrip.framework.apollo.util.function.Functions;
+import com.ctrip.framework.apollo.util.parser.ParserException;
 import com.ctrip.framework.apollo.util.parser.Parsers;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -43,47 +51,55 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
 public abstract class AbstractConfig implements Config {
   private static final Logger logger = LoggerFactory.getLogger(AbstractConfig.class);
+  private static final int MAX_PARSED_VALUES_PER_KEY = 32;
+  private static final int MAX_FUNCTION_VALUES_PER_KEY = 8;
 
+  protected static final ConfigChangeDispatcher m_changeDispatcher;
   protected static final ExecutorService m_executorService;
 
-  private final List<ConfigChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
-  private final Map<ConfigChangeListener, Set<String>> m_interestedKeys = Maps.newConcurrentMap();
-  private final Map<ConfigChangeListener, Set<String>> m_interestedKeyPrefixes = Maps.newConcurrentMap();
+  private final ConfigChangeListenerIndex m_listenerIndex = new ConfigChangeListenerIndex();
+  private final AppliedVersionTracker m_appliedVersionTracker = new AppliedVersionTracker();
   private final ConfigUtil m_configUtil;
-  private volatile Cache<String, Integer> m_integerCache;
-  private volatile Cache<String, Long> m_longCache;
-  private volatile Cache<String, Short> m_shortCache;
-  private volatile Cache<String, Float> m_floatCache;
-  private volatile Cache<String, Double> m_doubleCache;
-  private volatile Cache<String, Byte> m_byteCache;
-  private volatile Cache<String, Boolean> m_booleanCache;
-  private volatile Cache<String, Date> m_dateCache;
-  private volatile Cache<String, Long> m_durationCache;
-  private final Map<String, Cache<String, String[]>> m_arrayCache;
-  private final List<Cache> allCaches;
+  /**
+   * parsed values of all types keyed by property, entries of older config versions are ignored and
+   * replaced lazily, so no expiration is needed
+   */
+  private final ConcurrentMap<String, ParsedValues> m_parsedValueCache = new ConcurrentHashMap<>();
+  private final long m_maxParsedValueCacheSize;
   private final AtomicLong m_configVersion; //indicate config version
+  private final ConcurrentMap<PropertyHandleKey, PropertyHandle> m_propertyHandles = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, List<PropertyHandle>> m_propertyHandlesByKey = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, SubsetConfig> m_subsets = Maps.newConcurrentMap();
+  private final ConcurrentMap<PropertyHandleKey, ConfigBinding<?>> m_bindings = Maps.newConcurrentMap();
+  private volatile SortedKeyIndex m_sortedKeyIndex;
 
   protected PropertiesFactory propertiesFactory;
 
   static {
-    m_executorService = Executors.newCachedThreadPool(ApolloThreadFactory
-        .create("Config", true));
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_changeDispatcher = new ConfigChangeDispatcher("Config",
+        configUtil.getListenerDispatchThreads(), configUtil.getListenerDispatchQueueSize(),
+        configUtil.isListenerEventCoalescingEnabled(), configUtil.getSlowListenerThresholdInMillis());
+    m_executorService = m_changeDispatcher.getExecutorService();
   }
 
   public AbstractConfig() {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_maxParsedValueCacheSize = m_configUtil.getMaxConfigCacheSize();
     m_configVersion = new AtomicLong();
-    m_arrayCache = Maps.newConcurrentMap();
-    allCaches = Lists.newArrayList();
     propertiesFactory = ApolloInjector.getInstance(PropertiesFactory.class);
   }
 
@@ -99,36 +115,18 @@ public abstract class AbstractConfig implements Config {
 
   @Override
   public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys, Set<String> interestedKeyPrefixes) {
-    if (!m_listeners.contains(listener)) {
-      m_listeners.add(listener);
-      if (interestedKeys != null && !interestedKeys.isEmpty()) {
-        m_interestedKeys.put(listener, Sets.newHashSet(interestedKeys));
-      }
-      if (interestedKeyPrefixes != null && !interestedKeyPrefixes.isEmpty()) {
-        m_interestedKeyPrefixes.put(listener, Sets.newHashSet(interestedKeyPrefixes));
-      }
-    }
+    m_listenerIndex.add(listener, interestedKeys, interestedKeyPrefixes);
   }
 
   @Override
   public boolean removeChangeListener(ConfigChangeListener listener) {
-    m_interestedKeys.remove(listener);
-    m_interestedKeyPrefixes.remove(listener);
-    return m_listeners.remove(listener);
+    return m_listenerIndex.remove(listener);
   }
 
   @Override
   public Integer getIntProperty(String key, Integer defaultValue) {
     try {
-      if (m_integerCache == null) {
-        synchronized (this) {
-          if (m_integerCache == null) {
-            m_integerCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_INT_FUNCTION, m_integerCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_INT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getIntProperty for %s failed, return default value %d", key,
@@ -140,15 +138,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Long getLongProperty(String key, Long defaultValue) {
     try {
-      if (m_longCache == null) {
-        synchronized (this) {
-          if (m_longCache == null) {
-            m_longCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_LONG_FUNCTION, m_longCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_LONG_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getLongProperty for %s failed, return default value %d", key,
@@ -160,15 +150,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Short getShortProperty(String key, Short defaultValue) {
     try {
-      if (m_shortCache == null) {
-        synchronized (this) {
-          if (m_shortCache == null) {
-            m_shortCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_SHORT_FUNCTION, m_shortCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_SHORT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getShortProperty for %s failed, return default value %d", key,
@@ -180,15 +162,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Float getFloatProperty(String key, Float defaultValue) {
     try {
-      if (m_floatCache == null) {
-        synchronized (this) {
-          if (m_floatCache == null) {
-            m_floatCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_FLOAT_FUNCTION, m_floatCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_FLOAT_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getFloatProperty for %s failed, return default value %f", key,
@@ -200,15 +174,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Double getDoubleProperty(String key, Double defaultValue) {
     try {
-      if (m_doubleCache == null) {
-        synchronized (this) {
-          if (m_doubleCache == null) {
-            m_doubleCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DOUBLE_FUNCTION, m_doubleCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DOUBLE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDoubleProperty for %s failed, return default value %f", key,
@@ -220,15 +186,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Byte getByteProperty(String key, Byte defaultValue) {
     try {
-      if (m_byteCache == null) {
-        synchronized (this) {
-          if (m_byteCache == null) {
-            m_byteCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BYTE_FUNCTION, m_byteCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_BYTE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getByteProperty for %s failed, return default value %d", key,
@@ -240,15 +198,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Boolean getBooleanProperty(String key, Boolean defaultValue) {
     try {
-      if (m_booleanCache == null) {
-        synchronized (this) {
-          if (m_booleanCache == null) {
-            m_booleanCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_BOOLEAN_FUNCTION, m_booleanCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_BOOLEAN_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getBooleanProperty for %s failed, return default value %b", key,
@@ -260,27 +210,19 @@ public abstract class AbstractConfig implements Config {
   @Override
   public String[] getArrayProperty(String key, final String delimiter, String[] defaultValue) {
     try {
-      if (!m_arrayCache.containsKey(delimiter)) {
-        synchronized (this) {
-          if (!m_arrayCache.containsKey(delimiter)) {
-            m_arrayCache.put(delimiter, this.newCache());
-          }
-        }
-      }
-
-      Cache<String, String[]> cache = m_arrayCache.get(delimiter);
-      String[] result = cache.getIfPresent(key);
+      ParsedValueKey parsedValueKey = new ParsedValueKey(String[].class, delimiter);
+      String[] result = getValueFromCache(key, parsedValueKey);
 
       if (result != null) {
         return result;
       }
 
-      return getValueAndStoreToCache(key, new Function<String, String[]>() {
+      return getValueAndStoreToCache(key, parsedValueKey, new Function<String, String[]>() {
         @Override
         public String[] apply(String input) {
           return input.split(delimiter);
         }
-      }, cache, defaultValue);
+      }, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getArrayProperty for %s failed, return default value", key), ex));
@@ -289,13 +231,21 @@ public abstract class AbstractConfig implements Config {
   }
 
   @Override
-  public <T extends Enum<T>> T getEnumProperty(String key, Class<T> enumType, T defaultValue) {
+  public <T extends Enum<T>> T getEnumProperty(String key, final Class<T> enumType, T defaultValue) {
     try {
-      String value = getProperty(key, null);
+      ParsedValueKey parsedValueKey = new ParsedValueKey(enumType);
+      T result = getValueFromCache(key, parsedValueKey);
 
-      if (value != null) {
-        return Enum.valueOf(enumType, value);
+      if (result != null) {
+        return result;
       }
+
+      return getValueAndStoreToCache(key, parsedValueKey, new Function<String, T>() {
+        @Override
+        public T apply(String input) {
+          return Enum.valueOf(enumType, input);
+        }
+      }, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getEnumProperty for %s failed, return default value %s", key,
@@ -308,15 +258,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public Date getDateProperty(String key, Date defaultValue) {
     try {
-      if (m_dateCache == null) {
-        synchronized (this) {
-          if (m_dateCache == null) {
-            m_dateCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DATE_FUNCTION, m_dateCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DATE_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -327,13 +269,25 @@ public abstract class AbstractConfig implements Config {
   }
 
   @Override
-  public Date getDateProperty(String key, String format, Date defaultValue) {
+  public Date getDateProperty(String key, final String format, Date defaultValue) {
     try {
-      String value = getProperty(key, null);
+      ParsedValueKey parsedValueKey = new ParsedValueKey(Date.class, format);
+      Date result = getValueFromCache(key, parsedValueKey);
 
-      if (value != null) {
-        return Parsers.forDate().parse(value, format);
+      if (result != null) {
+        return result;
       }
+
+      return getValueAndStoreToCache(key, parsedValueKey, new Function<String, Date>() {
+        @Override
+        public Date apply(String input) {
+          try {
+            return Parsers.forDate().parse(input, format);
+          } catch (ParserException ex) {
+            throw new ApolloConfigException("Parse date failed", ex);
+          }
+        }
+      }, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -344,13 +298,26 @@ public abstract class AbstractConfig implements Config {
   }
 
   @Override
-  public Date getDateProperty(String key, String format, Locale locale, Date defaultValue) {
+  public Date getDateProperty(String key, final String format, final Locale locale,
+      Date defaultValue) {
     try {
-      String value = getProperty(key, null);
+      ParsedValueKey parsedValueKey = new ParsedValueKey(Date.class, format, locale);
+      Date result = getValueFromCache(key, parsedValueKey);
 
-      if (value != null) {
-        return Parsers.forDate().parse(value, format, locale);
+      if (result != null) {
+        return result;
       }
+
+      return getValueAndStoreToCache(key, parsedValueKey, new Function<String, Date>() {
+        @Override
+        public Date apply(String input) {
+          try {
+            return Parsers.forDate().parse(input, format, locale);
+          } catch (ParserException ex) {
+            throw new ApolloConfigException("Parse date failed", ex);
+          }
+        }
+      }, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDateProperty for %s failed, return default value %s", key,
@@ -363,15 +330,7 @@ public abstract class AbstractConfig implements Config {
   @Override
   public long getDurationProperty(String key, long defaultValue) {
     try {
-      if (m_durationCache == null) {
-        synchronized (this) {
-          if (m_durationCache == null) {
-            m_durationCache = newCache();
-          }
-        }
-      }
-
-      return getValueFromCache(key, Functions.TO_DURATION_FUNCTION, m_durationCache, defaultValue);
+      return getValueFromCache(key, Functions.TO_DURATION_FUNCTION, defaultValue);
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
           String.format("getDurationProperty for %s failed, return default value %d", key,
@@ -384,10 +343,23 @@ public abstract class AbstractConfig implements Config {
   @Override
   public <T> T getProperty(String key, Function<String, T> function, T defaultValue) {
     try {
+      // the function itself identifies the parsed value
+      T result = getFunctionValueFromCache(key, function);
+
+      if (result != null) {
+        return result;
+      }
+
+      long currentConfigVersion = m_configVersion.get();
       String value = getProperty(key, null);
 
       if (value != null) {
-        return function.apply(value);
+        result = function.apply(value);
+
+        if (result != null) {
+          storeFunctionValueToCache(key, function, currentConfigVersion, result);
+        }
+        return result;
       }
     } catch (Throwable ex) {
       Tracer.logError(new ApolloConfigException(
@@ -398,29 +370,283 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> T getValueFromCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    T result = cache.getIfPresent(key);
+  @Override
+  public StringProperty stringHandle(final String key, final String defaultValue) {
+    return getOrCreatePropertyHandle(StringProperty.class, key, defaultValue,
+        () -> new StringProperty(key, defaultValue));
+  }
+
+  @Override
+  public IntProperty intHandle(final String key, final int defaultValue) {
+    return getOrCreatePropertyHandle(IntProperty.class, key, defaultValue,
+        () -> new IntProperty(key, defaultValue));
+  }
+
+  @Override
+  public LongProperty longHandle(final String key, final long defaultValue) {
+    return getOrCreatePropertyHandle(LongProperty.class, key, defaultValue,
+        () -> new LongProperty(key, defaultValue));
+  }
+
+  @Override
+  public DoubleProperty doubleHandle(final String key, final double defaultValue) {
+    return getOrCreatePropertyHandle(DoubleProperty.class, key, defaultValue,
+        () -> new DoubleProperty(key, defaultValue));
+  }
+
+  @Override
+  public BooleanProperty booleanHandle(final String key, final boolean defaultValue) {
+    return getOrCreatePropertyHandle(BooleanProperty.class, key, defaultValue,
+        () -> new BooleanProperty(key, defaultValue));
+  }
+
+  private <H extends PropertyHandle> H getOrCreatePropertyHandle(Class<H> handleType, String key,
+      Object defaultValue, Supplier<H> handleFactory) {
+    PropertyHandleKey handleKey = new PropertyHandleKey(handleType, key, defaultValue);
+    PropertyHandle handle = m_propertyHandles.get(handleKey);
+
+    if (handle == null) {
+      handle = m_propertyHandles.computeIfAbsent(handleKey, k -> {
+        H newHandle = handleFactory.get();
+        // register before the first refresh, so that changes in between won't be missed
+        m_propertyHandlesByKey.computeIfAbsent(key, kk -> Lists.newCopyOnWriteArrayList())
+            .add(newHandle);
+        refreshPropertyHandle(newHandle);
+        return newHandle;
+      });
+    }
+
+    return handleType.cast(handle);
+  }
+
+  private void refreshPropertyHandle(PropertyHandle handle) {
+    // the value is read under the handle lock, so the last update always wins
+    synchronized (handle) {
+      handle.update(getProperty(handle.getKey(), null));
+    }
+  }
+
+  /**
+   * Refresh the property handles of the changed keys.
+   */
+  private void refreshPropertyHandles(ConfigChangeEvent changeEvent) {
+    if (m_propertyHandlesByKey.isEmpty()) {
+      return;
+    }
+
+    for (String changedKey : changeEvent.changedKeys()) {
+      List<PropertyHandle> handles = m_propertyHandlesByKey.get(changedKey);
+      if (handles == null) {
+        continue;
+      }
+
+      for (PropertyHandle handle : handles) {
+        try {
+          refreshPropertyHandle(handle);
+        } catch (Throwable ex) {
+          Tracer.logError(new ApolloConfigException(
+              String.format("Refresh property handle of %s failed", changedKey), ex));
+        }
+      }
+    }
+  }
+
+  /**
+   * Notify the listeners of the property handles of the changed keys.
+   */
+  private void notifyPropertyHandles(ConfigChangeEvent changeEvent,
+      List<CompletableFuture<Void>> completions) {
+    if (m_propertyHandlesByKey.isEmpty()) {
+      return;
+    }
+
+    for (String changedKey : changeEvent.changedKeys()) {
+      List<PropertyHandle> handles = m_propertyHandlesByKey.get(changedKey);
+      if (handles == null) {
+        continue;
+      }
+
+      ConfigChangeEvent handleChangeEvent = null;
+      for (PropertyHandle handle : handles) {
+        for (ConfigChangeListener listener : handle.getChangeListeners()) {
+          if (handleChangeEvent == null) {
+            handleChangeEvent = new ConfigChangeEvent(changeEvent.getNamespace(),
+                Collections.singletonMap(changedKey, changeEvent.getChange(changedKey)));
+          }
+          completions.add(this.notifyAsync(listener, handleChangeEvent));
+        }
+      }
+    }
+  }
+
+  @Override
+  public Config subset(String prefix) {
+    if (prefix == null || prefix.isEmpty()) {
+      return this;
+    }
+    SubsetConfig subset = m_subsets.get(prefix);
+    if (subset == null) {
+      subset = m_subsets.computeIfAbsent(prefix, k -> new SubsetConfig(this, k));
+    }
+    return subset;
+  }
+
+  /**
+   * Return the property names with the given prefix in ascending order, the names are looked up in
+   * a sorted index which is rebuilt lazily once per config version.
+   *
+   * @param prefix the key prefix
+   * @return the sorted property names
+   */
+  List<String> getSortedPropertyNames(String prefix) {
+    long currentConfigVersion = m_configVersion.get();
+    SortedKeyIndex index = m_sortedKeyIndex;
+
+    if (index == null || index.m_configVersion != currentConfigVersion) {
+      Set<String> propertyNames = getPropertyNames();
+      String[] keys = propertyNames.toArray(new String[0]);
+      Arrays.sort(keys);
+      m_sortedKeyIndex = index = new SortedKeyIndex(currentConfigVersion, keys);
+    }
+
+    return index.withPrefix(prefix);
+  }
+
+  @Override
+  public <T> ConfigBinding<T> bind(String prefix, Class<T> type) {
+    final String bindingPrefix = prefix == null ? "" : prefix;
+    PropertyHandleKey bindingKey = new PropertyHandleKey(type, bindingPrefix, null);
+    ConfigBinding<?> binding = m_bindings.get(bindingKey);
+
+    if (binding == null) {
+      ConfigBinding<T> newBinding = new ConfigBinding<>(bindingPrefix, type);
+      newBinding.bind(this);
+      binding = m_bindings.putIfAbsent(bindingKey, newBinding);
+      if (binding == null) {
+        // bind again in case of changes before the binding is registered
+        newBinding.bind(this);
+        binding = newBinding;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    ConfigBinding<T> result = (ConfigBinding<T>) binding;
+    return result;
+  }
+
+  /**
+   * Rebind the bindings affected by the changed keys.
+   */
+  private void refreshBindings(ConfigChangeEvent changeEvent) {
+    if (m_bindings.isEmpty()) {
+      return;
+    }
+
+    for (ConfigBinding<?> binding : m_bindings.values()) {
+      try {
+        binding.update(this, changeEvent.changedKeys());
+      } catch (Throwable ex) {
+        Tracer.logError(new ApolloConfigException(
+            String.format("Refresh binding of prefix %s failed", binding.getPrefix()), ex));
+      }
+    }
+  }
+
+  /**
+   * Notify the listeners of the bindings affected by the changed keys.
+   */
+  private void notifyBindings(ConfigChangeEvent changeEvent,
+      List<CompletableFuture<Void>> completions) {
+    if (m_bindings.isEmpty()) {
+      return;
+    }
+
+    for (ConfigBinding<?> binding : m_bindings.values()) {
+      if (binding.getChangeListeners().isEmpty()
+          || Collections.disjoint(binding.getPropertyKeys(), changeEvent.changedKeys())) {
+        continue;
+      }
+      for (ConfigChangeListener listener : binding.getChangeListeners()) {
+        completions.add(this.notifyAsync(listener, changeEvent));
+      }
+    }
+  }
+
+  private void refreshSubsets(ConfigChangeEvent changeEvent) {
+    if (m_subsets.isEmpty()) {
+      return;
+    }
+    for (SubsetConfig subset : m_subsets.values()) {
+      try {
+        subset.applyParentChange(changeEvent);
+      } catch (Throwable ex) {
+        Tracer.logError(new ApolloConfigException(
+            String.format("Refresh subset of prefix %s failed", subset.getPrefix()), ex));
+      }
+    }
+  }
+
+  private void notifySubsets(ConfigChangeEvent changeEvent,
+      List<CompletableFuture<Void>> completions) {
+    if (m_subsets.isEmpty()) {
+      return;
+    }
+    for (SubsetConfig subset : m_subsets.values()) {
+      try {
+        completions.add(subset.publishParentChange(changeEvent));
+      } catch (Throwable ex) {
+        Tracer.logError(new ApolloConfigException(
+            String.format("Notify subset of prefix %s failed", subset.getPrefix()), ex));
+      }
+    }
+  }
+
+  private <T> T getValueFromCache(String key, Function<String, T> parser, T defaultValue) {
+    T result = getValueFromCache(key, parser);
 
     if (result != null) {
       return result;
     }
 
-    return getValueAndStoreToCache(key, parser, cache, defaultValue);
+    return getValueAndStoreToCache(key, parser, parser, defaultValue);
   }
 
-  private <T> T getValueAndStoreToCache(String key, Function<String, T> parser, Cache<String, T> cache, T defaultValue) {
-    long currentConfigVersion = m_configVersion.get();
+  /**
+   * @param parsedValueKey identifies the type of the parsed value, e.g. the parser function
+   * @return the parsed value of current config version, or null if not cached
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getValueFromCache(String key, Object parsedValueKey) {
+    ParsedValues parsedValues = m_parsedValueCache.get(key);
+
+    if (parsedValues != null && parsedValues.m_configVersion == m_configVersion.get()) {
+      return (T) parsedValues.m_values.get(parsedValueKey);
+    }
+
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getFunctionValueFromCache(String key, Function<String, T> function) {
+    ParsedValues parsedValues = m_parsedValueCache.get(key);
+
+    if (parsedValues != null && parsedValues.m_configVersion == m_configVersion.get()) {
+      return (T) parsedValues.m_functionValues.get(function);
+    }
+
+    return null;
+  }
+
+  private <T> T getValueAndStoreToCache(String key, Object parsedValueKey, Function<String, T> parser,
+      T defaultValue) {
+    final long currentConfigVersion = m_configVersion.get();
     String value = getProperty(key, null);
 
     if (value != null) {
       T result = parser.apply(value);
 
       if (result != null) {
-        synchronized (this) {
-          if (m_configVersion.get() == currentConfigVersion) {
-            cache.put(key, result);
-          }
-        }
+        storeToCache(key, parsedValueKey, currentConfigVersion, result);
         return result;
       }
     }
@@ -428,183 +654,459 @@ public abstract class AbstractConfig implements Config {
     return defaultValue;
   }
 
-  private <T> Cache<String, T> newCache() {
-    Cache<String, T> cache = CacheBuilder.newBuilder()
-        .maximumSize(m_configUtil.getMaxConfigCacheSize())
-        .expireAfterAccess(m_configUtil.getConfigCacheExpireTime(), m_configUtil.getConfigCacheExpireTimeUnit())
-        .build();
-    allCaches.add(cache);
-    return cache;
+  private void storeToCache(String key, Object parsedValueKey, long configVersion, Object result) {
+    ParsedValues parsedValues = parsedValuesOf(key, configVersion);
+
+    // the parsed value keys are bounded, in case that new formats are passed on every call
+    if (parsedValues != null && parsedValues.m_values.size() < MAX_PARSED_VALUES_PER_KEY) {
+      parsedValues.m_values.put(parsedValueKey, result);
+    }
   }
 
   /**
-   * Clear config cache
+   * The values of caller functions are kept apart from the typed ones, so that new functions passed
+   * on every call, e.g. capturing lambdas, could not take the slots of the typed getters.
    */
-  protected void clearConfigCache() {
-    synchronized (this) {
-      for (Cache c : allCaches) {
-        if (c != null) {
-          c.invalidateAll();
+  private void storeFunctionValueToCache(String key, Function<?, ?> function, long configVersion,
+      Object result) {
+    ParsedValues parsedValues = parsedValuesOf(key, configVersion);
+
+    if (parsedValues != null
+        && parsedValues.m_functionValues.size() < MAX_FUNCTION_VALUES_PER_KEY) {
+      parsedValues.m_functionValues.put(function, result);
+    }
+  }
+
+  /**
+   * Find or create the parsed values of the given config version without locking, entries of older
+   * versions are replaced, while the ones of newer versions are kept.
+   *
+   * @return the parsed values of the given version, or null if the entry is of a newer version
+   */
+  private ParsedValues parsedValuesOf(String key, long configVersion) {
+    ParsedValues existing = m_parsedValueCache.get(key);
+
+    while (true) {
+      if (existing == null) {
+        evictIfFull();
+        ParsedValues created = new ParsedValues(configVersion);
+        existing = m_parsedValueCache.putIfAbsent(key, created);
+        if (existing == null) {
+          return created;
+        }
+      } else if (existing.m_configVersion >= configVersion) {
+        return existing.m_configVersion == configVersion ? existing : null;
+      } else {
+        ParsedValues created = new ParsedValues(configVersion);
+        if (m_parsedValueCache.replace(key, existing, created)) {
+          return created;
         }
+        existing = m_parsedValueCache.get(key);
       }
-      m_configVersion.incrementAndGet();
     }
   }
 
+  /**
+   * Keep the table within the max cache size by evicting an arbitrary entry before adding a new one
+   */
+  private void evictIfFull() {
+    if (m_parsedValueCache.size() < m_maxParsedValueCacheSize) {
+      return;
+    }
+    Iterator<String> keys = m_parsedValueCache.keySet().iterator();
+    while (keys.hasNext() && m_parsedValueCache.size() >= m_maxParsedValueCacheSize) {
+      keys.next();
+      keys.remove();
+    }
+  }
+
+  /**
+   * Clear config cache, the cached values of previous versions will be ignored and replaced lazily
+   */
+  protected void clearConfigCache() {
+    m_configVersion.incrementAndGet();
+  }
+
+  /**
+   * Apply the change to the values derived from the properties, i.e. the property handles, the
+   * bindings and the subsets, without invoking any listener.
+   */
+  protected void applyConfigChange(ConfigChangeEvent changeEvent) {
+    this.refreshPropertyHandles(changeEvent);
+    this.refreshBindings(changeEvent);
+    this.refreshSubsets(changeEvent);
+  }
+
   /**
    * @param changes map's key is config property's key
+   * @return the future completed when all the matched listeners have handled the change
    */
-  protected void fireConfigChange(String namespace, Map<String, ConfigChange> changes) {
-    final Set<String> changedKeys = changes.keySet();
-    final List<ConfigChangeListener> listeners = this.findMatchedConfigChangeListeners(changedKeys);
+  protected CompletableFuture<Void> fireConfigChange(String namespace,
+      Map<String, ConfigChange> changes) {
+    this.applyConfigChange(new ConfigChangeEvent(namespace, changes));
+    return this.publishConfigChange(namespace, changes);
+  }
 
-    // notify those listeners
-    for (ConfigChangeListener listener : listeners) {
-      Set<String> interestedChangedKeys = resolveInterestedChangedKeys(listener, changedKeys);
-      InterestedConfigChangeEvent interestedConfigChangeEvent = new InterestedConfigChangeEvent(
-          namespace, changes, interestedChangedKeys);
-      this.notifyAsync(listener, interestedConfigChangeEvent);
+  /**
+   * Notify the listeners of a change already applied by
+   * {@link #applyConfigChange(ConfigChangeEvent)}.
+   *
+   * @param changes map's key is config property's key
+   * @return the future completed when all the matched listeners have handled the change
+   */
+  protected CompletableFuture<Void> publishConfigChange(String namespace,
+      Map<String, ConfigChange> changes) {
+    final long version = m_configVersion.get();
+    final long startTime = System.nanoTime();
+    m_appliedVersionTracker.begin(version);
+
+    List<CompletableFuture<Void>> completions = Lists.newArrayList();
+    CompletableFuture<Void> completion;
+    try {
+      ConfigChangeEvent changeEvent = new ConfigChangeEvent(namespace, changes);
+      this.notifyPropertyHandles(changeEvent, completions);
+      this.notifyBindings(changeEvent, completions);
+      this.notifySubsets(changeEvent, completions);
+
+      final Map<ConfigChangeListener, Set<String>> listeners = m_listenerIndex
+          .match(changes.keySet());
+
+      // notify those listeners
+      for (Map.Entry<ConfigChangeListener, Set<String>> entry : listeners.entrySet()) {
+        InterestedConfigChangeEvent interestedConfigChangeEvent = new InterestedConfigChangeEvent(
+            namespace, changes, entry.getValue());
+        completions.add(this.notifyAsync(entry.getKey(), interestedConfigChangeEvent));
+      }
+    } finally {
+      // always end the version once begun, otherwise the applied version would be stuck
+      completion = this.completeConfigChange(namespace, version, startTime, completions);
     }
+
+    return completion;
   }
 
   /**
    * Fire the listeners by event.
+   *
+   * @return the future completed when all the matched listeners have handled the change
    */
-  protected void fireConfigChange(final ConfigChangeEvent changeEvent) {
-    final List<ConfigChangeListener> listeners = this
-        .findMatchedConfigChangeListeners(changeEvent.changedKeys());
+  protected CompletableFuture<Void> fireConfigChange(final ConfigChangeEvent changeEvent) {
+    final long version = m_configVersion.get();
+    final long startTime = System.nanoTime();
+    m_appliedVersionTracker.begin(version);
+
+    List<CompletableFuture<Void>> completions = Lists.newArrayList();
+    CompletableFuture<Void> completion;
+    try {
+      this.applyConfigChange(changeEvent);
+      this.notifyPropertyHandles(changeEvent, completions);
+      this.notifyBindings(changeEvent, completions);
+      this.notifySubsets(changeEvent, completions);
 
-    // notify those listeners
-    for (ConfigChangeListener listener : listeners) {
-      this.notifyAsync(listener, changeEvent);
+      final Set<ConfigChangeListener> listeners = m_listenerIndex.match(changeEvent.changedKeys())
+          .keySet();
+
+      // notify those listeners
+      for (ConfigChangeListener listener : listeners) {
+        completions.add(this.notifyAsync(listener, changeEvent));
+      }
+    } finally {
+      // always end the version once begun, otherwise the applied version would be stuck
+      completion = this.completeConfigChange(changeEvent.getNamespace(), version, startTime,
+          completions);
     }
+
+    return completion;
   }
 
-  private List<ConfigChangeListener> findMatchedConfigChangeListeners(Set<String> changedKeys) {
-    final List<ConfigChangeListener> configChangeListeners = new ArrayList<>();
-    for (ConfigChangeListener configChangeListener : this.m_listeners) {
-      // check whether the listener is interested in this change event
-      if (this.isConfigChangeListenerInterested(configChangeListener, changedKeys)) {
-        configChangeListeners.add(configChangeListener);
-      }
+  /**
+   * Mark the current config version as applied when there is no change to fire, e.g. the changes
+   * of the repository are overridden by system properties.
+   */
+  protected void skipConfigChange() {
+    m_appliedVersionTracker.skip(m_configVersion.get());
+  }
+
+  private CompletableFuture<Void> completeConfigChange(final String namespace, final long version,
+      final long startTime, List<CompletableFuture<Void>> completions) {
+    return CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0]))
+        .whenComplete((result, ex) -> {
+          m_appliedVersionTracker.end(version);
+          long spendTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+          Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_APPLY_SPEND + ":" + namespace,
+              String.valueOf(spendTime));
+        });
+  }
+
+  @Override
+  public long getVersion() {
+    return m_configVersion.get();
+  }
+
+  /**
+   * No journal by default, only the callers already up to date are answered without a full reload.
+   */
+  @Override
+  public VersionedConfigChanges getChangesSince(long version) {
+    long currentVersion = getVersion();
+    if (version == currentVersion) {
+      return new VersionedConfigChanges(version, currentVersion, false,
+          Collections.<String, ConfigChange>emptyMap());
     }
-    return configChangeListeners;
+    return VersionedConfigChanges.fullReload(version, currentVersion);
   }
 
-  private void notifyAsync(final ConfigChangeListener listener, final ConfigChangeEvent changeEvent) {
-    m_executorService.submit(new Runnable() {
-      @Override
-      public void run() {
-        String listenerName = listener.getClass().getName();
-        Transaction transaction = Tracer.newTransaction("Apollo.ConfigChangeListener", listenerName);
-        try {
-          listener.onChange(changeEvent);
-          transaction.setStatus(Transaction.SUCCESS);
-        } catch (Throwable ex) {
-          transaction.setStatus(ex);
-          Tracer.logError(ex);
-          logger.error("Failed to invoke config change listener {}", listenerName, ex);
-        } finally {
-          transaction.complete();
-        }
-      }
-    });
+  @Override
+  public long getAppliedVersion() {
+    return m_appliedVersionTracker.getAppliedVersion();
+  }
+
+  @Override
+  public CompletableFuture<Long> awaitAppliedVersion(long version) {
+    return m_appliedVersionTracker.await(version);
+  }
+
+  @Override
+  public CompletableFuture<Long> awaitApplied() {
+    return m_appliedVersionTracker.await(m_configVersion.get());
+  }
+
+  private CompletableFuture<Void> notifyAsync(final ConfigChangeListener listener,
+      final ConfigChangeEvent changeEvent) {
+    return m_changeDispatcher.dispatch(this, listener, changeEvent,
+        event -> notify(listener, event), AbstractConfig::mergeConfigChangeEvents);
   }
 
-  private boolean isConfigChangeListenerInterested(ConfigChangeListener configChangeListener, Set<String> changedKeys) {
-    Set<String> interestedKeys = m_interestedKeys.get(configChangeListener);
-    Set<String> interestedKeyPrefixes = m_interestedKeyPrefixes.get(configChangeListener);
+  private void notify(ConfigChangeListener listener, ConfigChangeEvent changeEvent) {
+    if (changeEvent.changedKeys().isEmpty()) {
+      // the coalesced changes are reverted
+      return;
+    }
+    String listenerName = listener.getClass().getName();
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigChangeListener", listenerName);
+    try {
+      listener.onChange(changeEvent);
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      Tracer.logError(ex);
+      logger.error("Failed to invoke config change listener {}", listenerName, ex);
+    } finally {
+      transaction.complete();
+    }
+  }
 
-    if ((interestedKeys == null || interestedKeys.isEmpty())
-        && (interestedKeyPrefixes == null || interestedKeyPrefixes.isEmpty())) {
-      return true; // no interested keys means interested in all keys
+  /**
+   * Merge the pending change events of a listener, the changes of the same key are merged into one
+   * change from the old value of the previous event to the new value of the next event.
+   *
+   * @return the merged event, or null if the events are of different namespaces
+   */
+  static ConfigChangeEvent mergeConfigChangeEvents(ConfigChangeEvent previous,
+      ConfigChangeEvent next) {
+    String namespace = previous.getNamespace();
+    if (!Objects.equal(namespace, next.getNamespace())) {
+      return null;
     }
 
-    if (interestedKeys != null) {
-      for (String interestedKey : interestedKeys) {
-        if (changedKeys.contains(interestedKey)) {
-          return true;
-        }
+    Map<String, ConfigChange> changes = Maps.newLinkedHashMap();
+    for (String key : previous.changedKeys()) {
+      changes.put(key, previous.getChange(key));
+    }
+    for (String key : next.changedKeys()) {
+      ConfigChange nextChange = next.getChange(key);
+      ConfigChange previousChange = changes.get(key);
+      if (previousChange == null) {
+        changes.put(key, nextChange);
+        continue;
+      }
+      String oldValue = previousChange.getOldValue();
+      String newValue = nextChange.getNewValue();
+      if (Objects.equal(oldValue, newValue)) {
+        changes.remove(key);
+        continue;
       }
+      PropertyChangeType changeType = PropertyChangeType.MODIFIED;
+      if (oldValue == null) {
+        changeType = PropertyChangeType.ADDED;
+      } else if (newValue == null) {
+        changeType = PropertyChangeType.DELETED;
+      }
+      changes.put(key, new ConfigChange(namespace, key, oldValue, newValue, changeType));
     }
 
-    if (interestedKeyPrefixes != null) {
-      for (String prefix : interestedKeyPrefixes) {
-        for (final String changedKey : changedKeys) {
-          if (changedKey.startsWith(prefix)) {
-            return true;
-          }
-        }
+    if (!(previous instanceof InterestedConfigChangeEvent)
+        && !(next instanceof InterestedConfigChangeEvent)) {
+      return new ConfigChangeEvent(namespace, changes);
+    }
+    Set<String> interestedChangedKeys = Sets.newHashSet(previous.interestedChangedKeys());
+    interestedChangedKeys.addAll(next.interestedChangedKeys());
+    if (!interestedChangedKeys.isEmpty()) {
+      interestedChangedKeys.retainAll(changes.keySet());
+      if (interestedChangedKeys.isEmpty()) {
+        // none of the interested keys is changed after all
+        changes.clear();
       }
     }
+    return new InterestedConfigChangeEvent(namespace, changes, interestedChangedKeys);
+  }
+
 
-    return false;
+  /**
+   * All the parsed values of one property for a specific config version
+   */
+  private static class ParsedValues {
+    private final long m_configVersion;
+    private final Map<Object, Object> m_values = new ConcurrentHashMap<>(4);
+    private final Map<Object, Object> m_functionValues = new ConcurrentHashMap<>(2);
+
+    ParsedValues(long configVersion) {
+      m_configVersion = configVersion;
+    }
   }
 
-  private Set<String> resolveInterestedChangedKeys(ConfigChangeListener configChangeListener, Set<String> changedKeys) {
-    Set<String> interestedChangedKeys = new HashSet<>();
+  /**
+   * Identifies parsed values which depend on additional arguments, e.g. the array delimiter
+   */
+  private static class ParsedValueKey {
+    private final Class<?> m_type;
+    private final Object[] m_arguments;
 
-    if (this.m_interestedKeys.containsKey(configChangeListener)) {
-      Set<String> interestedKeys = this.m_interestedKeys.get(configChangeListener);
-      for (String interestedKey : interestedKeys) {
-        if (changedKeys.contains(interestedKey)) {
-          interestedChangedKeys.add(interestedKey);
-        }
-      }
+    ParsedValueKey(Class<?> type, Object... arguments) {
+      m_type = type;
+      m_arguments = arguments;
     }
 
-    if (this.m_interestedKeyPrefixes.containsKey(configChangeListener)) {
-      Set<String> interestedKeyPrefixes = this.m_interestedKeyPrefixes.get(configChangeListener);
-      for (String interestedKeyPrefix : interestedKeyPrefixes) {
-        for (String changedKey : changedKeys) {
-          if (changedKey.startsWith(interestedKeyPrefix)) {
-            interestedChangedKeys.add(changedKey);
-          }
-        }
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
       }
+      if (!(o instanceof ParsedValueKey)) {
+        return false;
+      }
+      ParsedValueKey that = (ParsedValueKey) o;
+      return m_type == that.m_type && Arrays.equals(m_arguments, that.m_arguments);
     }
 
-    return Collections.unmodifiableSet(interestedChangedKeys);
+    @Override
+    public int hashCode() {
+      return 31 * m_type.hashCode() + Arrays.hashCode(m_arguments);
+    }
   }
 
-  List<ConfigChange> calcPropertyChanges(String namespace, Properties previous,
-                                         Properties current) {
-    if (previous == null) {
-      previous = propertiesFactory.getPropertiesInstance();
+  /**
+   * Sorted property names of a specific config version
+   */
+  private static class SortedKeyIndex {
+    private final long m_configVersion;
+    private final String[] m_keys;
+
+    SortedKeyIndex(long configVersion, String[] keys) {
+      m_configVersion = configVersion;
+      m_keys = keys;
     }
 
-    if (current == null) {
-      current =  propertiesFactory.getPropertiesInstance();
+    List<String> withPrefix(String prefix) {
+      int from = Arrays.binarySearch(m_keys, prefix);
+      if (from < 0) {
+        from = -from - 1;
+      }
+      int to = from;
+      while (to < m_keys.length && m_keys[to].startsWith(prefix)) {
+        to++;
+      }
+      return Collections.unmodifiableList(Arrays.asList(m_keys).subList(from, to));
     }
+  }
 
-    Set<String> previousKeys = previous.stringPropertyNames();
-    Set<String> currentKeys = current.stringPropertyNames();
+  private static class PropertyHandleKey {
+    private final Class<?> m_handleType;
+    private final String m_key;
+    private final Object m_defaultValue;
 
-    Set<String> commonKeys = Sets.intersection(previousKeys, currentKeys);
-    Set<String> newKeys = Sets.difference(currentKeys, commonKeys);
-    Set<String> removedKeys = Sets.difference(previousKeys, commonKeys);
+    PropertyHandleKey(Class<?> handleType, String key, Object defaultValue) {
+      m_handleType = handleType;
+      m_key = key;
+      m_defaultValue = defaultValue;
+    }
 
-    List<ConfigChange> changes = Lists.newArrayList();
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PropertyHandleKey)) {
+        return false;
+      }
+      PropertyHandleKey that = (PropertyHandleKey) o;
+      return m_handleType == that.m_handleType && m_key.equals(that.m_key)
+          && Objects.equal(m_defaultValue, that.m_defaultValue);
+    }
 
-    for (String newKey : newKeys) {
-      changes.add(new ConfigChange(namespace, newKey, null, current.getProperty(newKey),
-          PropertyChangeType.ADDED));
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(m_handleType, m_key, m_defaultValue);
     }
+  }
 
-    for (String removedKey : removedKeys) {
-      changes.add(new ConfigChange(namespace, removedKey, previous.getProperty(removedKey), null,
-          PropertyChangeType.DELETED));
+  List<ConfigChange> calcPropertyChanges(String namespace, Properties previous,
+                                         Properties current) {
+    PropertyChanges.Builder changedProperties = calcChangedProperties(previous, current);
+
+    List<ConfigChange> changes = Lists.newArrayListWithCapacity(changedProperties.size());
+    for (int i = 0; i < changedProperties.size(); i++) {
+      changes.add(new ConfigChange(namespace, changedProperties.getKey(i),
+          changedProperties.getOldValue(i), changedProperties.getNewValue(i),
+          changedProperties.getChangeType(i)));
     }
 
-    for (String commonKey : commonKeys) {
-      String previousValue = previous.getProperty(commonKey);
-      String currentValue = current.getProperty(commonKey);
-      if (Objects.equal(previousValue, currentValue)) {
+    return changes;
+  }
+
+  /**
+   * Calculate the changed properties in one pass over the current properties, the previous
+   * properties are only scanned again when some keys are deleted. The changes are ordered as
+   * before, the added keys first, then the deleted and the modified ones.
+   * <p>
+   * The values of both properties cache their own hash codes, so the hash codes are compared before
+   * the values and unchanged values from the same snapshot are skipped by identity.
+   *
+   * @param previous the previous properties, null means empty
+   * @param current  the current properties, null means empty
+   * @return the changed properties
+   */
+  PropertyChanges.Builder calcChangedProperties(Properties previous, Properties current) {
+    PropertyChanges.Builder changes = new PropertyChanges.Builder();
+    PropertyChanges.Builder modifiedChanges = new PropertyChanges.Builder();
+    Set<String> currentKeys =
+        current == null ? Collections.<String>emptySet() : current.stringPropertyNames();
+    int commonKeys = 0;
+
+    for (String key : currentKeys) {
+      String currentValue = current.getProperty(key);
+      String previousValue = previous == null ? null : previous.getProperty(key);
+      if (previousValue == null) {
+        changes.add(key, null, currentValue, PropertyChangeType.ADDED);
         continue;
       }
-      changes.add(new ConfigChange(namespace, commonKey, previousValue, currentValue,
-          PropertyChangeType.MODIFIED));
+      commonKeys++;
+      if (previousValue != currentValue && (previousValue.hashCode() != currentValue.hashCode()
+          || !previousValue.equals(currentValue))) {
+        modifiedChanges.add(key, previousValue, currentValue, PropertyChangeType.MODIFIED);
+      }
+    }
+
+    Set<String> previousKeys =
+        previous == null ? Collections.<String>emptySet() : previous.stringPropertyNames();
+    if (previousKeys.size() > commonKeys) {
+      for (String key : previousKeys) {
+        if (current == null || current.getProperty(key) == null) {
+          changes.add(key, previous.getProperty(key), null, PropertyChangeType.DELETED);
+        }
+      }
     }
+    changes.addAll(modifiedChanges);
 
     return changes;
   }
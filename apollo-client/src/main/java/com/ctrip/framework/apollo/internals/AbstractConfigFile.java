@@ -21,18 +21,21 @@ import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorCon
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 
 import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.ConfigFileChangeListener;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigFileChangeEvent;
 import com.ctrip.framework.apollo.tracer.Tracer;
@@ -45,18 +48,28 @@ import com.google.common.collect.Lists;
  */
 public abstract class AbstractConfigFile implements ConfigFile, RepositoryChangeListener {
   private static final Logger logger = DeferredLoggerFactory.getLogger(AbstractConfigFile.class);
+  protected static final ConfigChangeDispatcher m_changeDispatcher;
   protected static ExecutorService m_executorService;
   protected final ConfigRepository m_configRepository;
   protected final String m_namespace;
   protected final AtomicReference<Properties> m_configProperties;
   private final List<ConfigFileChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
+  private final AtomicLong m_version = new AtomicLong();
+  private final AppliedVersionTracker m_appliedVersionTracker = new AppliedVersionTracker();
   protected final PropertiesFactory propertiesFactory;
 
+  /**
+   * the last snapshot applied, so that repeated snapshots are skipped without comparing the content
+   */
+  private volatile ConfigSnapshot m_configSnapshot;
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.NONE;
 
   static {
-    m_executorService = Executors.newCachedThreadPool(ApolloThreadFactory
-        .create("ConfigFile", true));
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_changeDispatcher = new ConfigChangeDispatcher("ConfigFile",
+        configUtil.getListenerDispatchThreads(), configUtil.getListenerDispatchQueueSize(),
+        configUtil.isListenerEventCoalescingEnabled(), configUtil.getSlowListenerThresholdInMillis());
+    m_executorService = m_changeDispatcher.getExecutorService();
   }
 
   public AbstractConfigFile(String namespace, ConfigRepository configRepository) {
@@ -69,7 +82,11 @@ public abstract class AbstractConfigFile implements ConfigFile, RepositoryChange
 
   private void initialize() {
     try {
-      m_configProperties.set(m_configRepository.getConfig());
+      Properties properties = m_configRepository.getConfig();
+      m_configProperties.set(properties);
+      if (properties != null) {
+        m_configSnapshot = new ConfigSnapshot(properties, null);
+      }
       m_sourceType = m_configRepository.getSourceType();
     } catch (Throwable ex) {
       Tracer.logError(ex);
@@ -90,16 +107,22 @@ public abstract class AbstractConfigFile implements ConfigFile, RepositoryChange
   protected abstract void update(Properties newProperties);
 
   @Override
-  public synchronized void onRepositoryChange(String namespace, Properties newProperties) {
-    if (newProperties.equals(m_configProperties.get())) {
+  public void onRepositoryChange(String namespace, Properties newProperties) {
+    this.onRepositoryChange(namespace, new ConfigSnapshot(newProperties, null));
+  }
+
+  @Override
+  public synchronized void onRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
+    if (newSnapshot.isSameAs(m_configSnapshot)) {
       return;
     }
-    Properties newConfigProperties = propertiesFactory.getPropertiesInstance();
-    newConfigProperties.putAll(newProperties);
+    Properties newProperties = newSnapshot.getProperties();
 
     String oldValue = getContent();
 
     update(newProperties);
+    m_version.incrementAndGet();
+    m_configSnapshot = newSnapshot;
     m_sourceType = m_configRepository.getSourceType();
 
     String newValue = getContent();
@@ -134,25 +157,79 @@ public abstract class AbstractConfigFile implements ConfigFile, RepositoryChange
     return m_sourceType;
   }
 
-  private void fireConfigChange(final ConfigFileChangeEvent changeEvent) {
+  @Override
+  public long getAppliedVersion() {
+    return m_appliedVersionTracker.getAppliedVersion();
+  }
+
+  @Override
+  public CompletableFuture<Long> awaitAppliedVersion(long version) {
+    return m_appliedVersionTracker.await(version);
+  }
+
+  @Override
+  public CompletableFuture<Long> awaitApplied() {
+    return m_appliedVersionTracker.await(m_version.get());
+  }
+
+  private CompletableFuture<Void> fireConfigChange(final ConfigFileChangeEvent changeEvent) {
+    final long version = m_version.get();
+    final long startTime = System.nanoTime();
+    m_appliedVersionTracker.begin(version);
+
+    List<CompletableFuture<Void>> completions = Lists.newArrayList();
     for (final ConfigFileChangeListener listener : m_listeners) {
-      m_executorService.submit(new Runnable() {
-        @Override
-        public void run() {
-          String listenerName = listener.getClass().getName();
-          Transaction transaction = Tracer.newTransaction("Apollo.ConfigFileChangeListener", listenerName);
-          try {
-            listener.onChange(changeEvent);
-            transaction.setStatus(Transaction.SUCCESS);
-          } catch (Throwable ex) {
-            transaction.setStatus(ex);
-            Tracer.logError(ex);
-            logger.error("Failed to invoke config file change listener {}", listenerName, ex);
-          } finally {
-            transaction.complete();
-          }
-        }
-      });
+      completions.add(m_changeDispatcher.dispatch(this, listener, changeEvent,
+          event -> notify(listener, event), AbstractConfigFile::mergeConfigFileChangeEvents));
+    }
+
+    return CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0]))
+        .whenComplete((result, ex) -> {
+          m_appliedVersionTracker.end(version);
+          long spendTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+          Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_APPLY_SPEND + ":" + m_namespace,
+              String.valueOf(spendTime));
+        });
+  }
+
+  private void notify(ConfigFileChangeListener listener, ConfigFileChangeEvent changeEvent) {
+    if (Objects.equals(changeEvent.getOldValue(), changeEvent.getNewValue())) {
+      // the coalesced changes are reverted
+      return;
+    }
+    String listenerName = listener.getClass().getName();
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigFileChangeListener", listenerName);
+    try {
+      listener.onChange(changeEvent);
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      Tracer.logError(ex);
+      logger.error("Failed to invoke config file change listener {}", listenerName, ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  /**
+   * Merge the pending change events of a listener into one change from the old value of the previous
+   * event to the new value of the next event.
+   *
+   * @return the merged event, or null if the events are of different namespaces
+   */
+  static ConfigFileChangeEvent mergeConfigFileChangeEvents(ConfigFileChangeEvent previous,
+      ConfigFileChangeEvent next) {
+    if (!Objects.equals(previous.getNamespace(), next.getNamespace())) {
+      return null;
+    }
+    String oldValue = previous.getOldValue();
+    String newValue = next.getNewValue();
+    PropertyChangeType changeType = PropertyChangeType.MODIFIED;
+    if (oldValue == null) {
+      changeType = PropertyChangeType.ADDED;
+    } else if (newValue == null) {
+      changeType = PropertyChangeType.DELETED;
     }
+    return new ConfigFileChangeEvent(previous.getNamespace(), oldValue, newValue, changeType);
   }
 }
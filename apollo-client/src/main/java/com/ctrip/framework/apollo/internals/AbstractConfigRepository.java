@@ -65,9 +65,13 @@ public abstract class AbstractConfigRepository implements ConfigRepository {
   }
 
   protected void fireRepositoryChange(String namespace, Properties newProperties) {
+    this.fireRepositoryChange(namespace, new ConfigSnapshot(newProperties, null));
+  }
+
+  protected void fireRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
     for (RepositoryChangeListener listener : m_listeners) {
       try {
-        listener.onRepositoryChange(namespace, newProperties);
+        listener.onRepositoryChange(namespace, newSnapshot);
       } catch (Throwable ex) {
         Tracer.logError(ex);
         logger.error("Failed to invoke repository change listener {}", listener.getClass(), ex);
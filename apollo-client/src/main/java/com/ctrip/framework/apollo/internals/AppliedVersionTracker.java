@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Track the watermark of the applied config versions, i.e. the highest version whose change and all
+ * the changes before it have been handled by the matched listeners.
+ */
+final class AppliedVersionTracker {
+
+  /**
+   * version -> number of the changes in progress, guarded by this
+   */
+  private final NavigableMap<Long, Integer> m_inProgress = Maps.newTreeMap();
+  /**
+   * version -> futures waiting for the version to be applied, guarded by this
+   */
+  private final NavigableMap<Long, List<CompletableFuture<Long>>> m_waiters = Maps.newTreeMap();
+  /**
+   * the highest version whose change is published to the listeners, guarded by this
+   */
+  private long m_publishedVersion;
+
+  /**
+   * Mark the change of the version is published and in progress.
+   */
+  synchronized void begin(long version) {
+    m_inProgress.merge(version, 1, Integer::sum);
+    m_publishedVersion = Math.max(m_publishedVersion, version);
+  }
+
+  /**
+   * Mark the change of the version begun before is handled.
+   */
+  void end(long version) {
+    List<CompletableFuture<Long>> applied;
+    long appliedVersion;
+    synchronized (this) {
+      m_inProgress.computeIfPresent(version, (k, count) -> count > 1 ? count - 1 : null);
+      appliedVersion = getAppliedVersion();
+      applied = pollWaiters(appliedVersion);
+    }
+    complete(applied, appliedVersion);
+  }
+
+  /**
+   * Mark the version is applied without any change to publish.
+   */
+  void skip(long version) {
+    List<CompletableFuture<Long>> applied;
+    long appliedVersion;
+    synchronized (this) {
+      m_publishedVersion = Math.max(m_publishedVersion, version);
+      appliedVersion = getAppliedVersion();
+      applied = pollWaiters(appliedVersion);
+    }
+    complete(applied, appliedVersion);
+  }
+
+  synchronized long getAppliedVersion() {
+    return m_inProgress.isEmpty() ? m_publishedVersion : m_inProgress.firstKey() - 1;
+  }
+
+  /**
+   * @return the future completed with the applied version when the given version is applied
+   */
+  CompletableFuture<Long> await(long version) {
+    CompletableFuture<Long> future = new CompletableFuture<>();
+    long appliedVersion;
+    synchronized (this) {
+      appliedVersion = getAppliedVersion();
+      if (appliedVersion < version) {
+        m_waiters.computeIfAbsent(version, k -> Lists.newArrayList()).add(future);
+        return future;
+      }
+    }
+    future.complete(appliedVersion);
+    return future;
+  }
+
+  private List<CompletableFuture<Long>> pollWaiters(long appliedVersion) {
+    if (m_waiters.isEmpty() || m_waiters.firstKey() > appliedVersion) {
+      return null;
+    }
+    List<CompletableFuture<Long>> applied = Lists.newArrayList();
+    Iterator<Map.Entry<Long, List<CompletableFuture<Long>>>> iterator =
+        m_waiters.headMap(appliedVersion, true).entrySet().iterator();
+    while (iterator.hasNext()) {
+      applied.addAll(iterator.next().getValue());
+      iterator.remove();
+    }
+    return applied;
+  }
+
+  private void complete(List<CompletableFuture<Long>> futures, long appliedVersion) {
+    if (futures == null) {
+      return;
+    }
+    for (CompletableFuture<Long> future : futures) {
+      future.complete(appliedVersion);
+    }
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatch the change events to the listeners with bounded concurrency.
+ * <p>
+ * The events of each listener of a config are queued in a lane, which is run by at most one thread
+ * at a time, so that the listener sees the events of the config in order. A listener registered
+ * with several configs, e.g. a shared Spring listener, has one lane per config, so a slow config
+ * doesn't delay the others. If coalescing is enabled, the events pending in the lane of a listener
+ * which falls behind are coalesced into one event before it is invoked.
+ * <p>
+ * The lanes wait for the threads in a bounded queue. When the queue is full, the thread firing the
+ * change runs the lane itself, which slows the source of the changes down instead of queueing
+ * without bound.
+ * <p>
+ * The execution time of the listeners is recorded per listener class, and a warning is logged,
+ * at most once per minute, when a listener takes longer than the slow listener threshold.
+ */
+public class ConfigChangeDispatcher {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigChangeDispatcher.class);
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+  private final String m_name;
+  private final ThreadPoolExecutor m_executorService;
+  private final boolean m_coalescingEnabled;
+  private final ConcurrentMap<LaneKey, Lane> m_lanes = Maps.newConcurrentMap();
+  private final AtomicInteger m_pendingEventCount = new AtomicInteger();
+  private final AtomicLong m_dispatchedEventCount = new AtomicLong();
+  private final AtomicLong m_coalescedEventCount = new AtomicLong();
+  private final AtomicLong m_callerRunCount = new AtomicLong();
+  private final ConcurrentMap<String, ListenerLatencyHistogram> m_listenerLatencies =
+      Maps.newConcurrentMap();
+  private final long m_slowListenerThresholdInNanos;
+  private final RateLimiter m_slowListenerWarnRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
+
+  /**
+   * @param name the name of the dispatcher threads
+   * @param maxThreads the max number of the threads invoking listeners
+   * @param coalescingEnabled whether to coalesce the pending events of a listener
+   */
+  public ConfigChangeDispatcher(String name, int maxThreads, boolean coalescingEnabled) {
+    this(name, maxThreads, DEFAULT_QUEUE_SIZE, coalescingEnabled, 0);
+  }
+
+  /**
+   * @param name the name of the dispatcher threads
+   * @param maxThreads the max number of the threads invoking listeners
+   * @param coalescingEnabled whether to coalesce the pending events of a listener
+   * @param slowListenerThresholdInMillis the execution time beyond which a listener is reported as
+   * slow, 0 means no report
+   */
+  public ConfigChangeDispatcher(String name, int maxThreads, boolean coalescingEnabled,
+      long slowListenerThresholdInMillis) {
+    this(name, maxThreads, DEFAULT_QUEUE_SIZE, coalescingEnabled, slowListenerThresholdInMillis);
+  }
+
+  /**
+   * @param name the name of the dispatcher threads
+   * @param maxThreads the max number of the threads invoking listeners
+   * @param queueSize the max number of the listeners waiting for a thread
+   * @param coalescingEnabled whether to coalesce the pending events of a listener
+   * @param slowListenerThresholdInMillis the execution time beyond which a listener is reported as
+   * slow, 0 means no report
+   */
+  public ConfigChangeDispatcher(String name, int maxThreads, int queueSize,
+      boolean coalescingEnabled, long slowListenerThresholdInMillis) {
+    m_name = name;
+    m_executorService = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize), ApolloThreadFactory.create(name, true));
+    m_executorService.allowCoreThreadTimeOut(true);
+    m_coalescingEnabled = coalescingEnabled;
+    m_slowListenerThresholdInNanos = TimeUnit.MILLISECONDS.toNanos(slowListenerThresholdInMillis);
+  }
+
+  /**
+   * Dispatch the event to the listener, after the events of the same source dispatched to the same
+   * listener before.
+   *
+   * @param source the source of the event, e.g. the config
+   * @param listener the listener, whose events of the source are dispatched in order
+   * @param event the event
+   * @param handler invokes the listener with the event
+   * @param coalescer merges an event with the next event of the same listener, or returns null if
+   * they could not be merged
+   * @return the future completed when the listener is invoked with the event, or with a later event
+   * merged from it, no matter whether the listener succeeds
+   */
+  public <E> CompletableFuture<Void> dispatch(Object source, Object listener, E event,
+      Consumer<E> handler, BinaryOperator<E> coalescer) {
+    PendingEvent<E> pendingEvent = new PendingEvent<>(event, handler,
+        m_coalescingEnabled ? coalescer : null);
+    m_pendingEventCount.incrementAndGet();
+    m_dispatchedEventCount.incrementAndGet();
+    LaneKey laneKey = new LaneKey(source, listener);
+    while (!m_lanes.computeIfAbsent(laneKey, Lane::new).offer(pendingEvent)) {
+      // the lane is just closed, retry with a new one
+    }
+    return pendingEvent.m_completion;
+  }
+
+  public ExecutorService getExecutorService() {
+    return m_executorService;
+  }
+
+  /**
+   * @return the number of the events waiting for the listeners
+   */
+  public int getPendingEventCount() {
+    return m_pendingEventCount.get();
+  }
+
+  /**
+   * @return how long the oldest pending event has been waiting, in milliseconds
+   */
+  public long getMaxPendingEventLagInMs() {
+    long now = System.nanoTime();
+    long maxLag = 0;
+    for (Lane lane : m_lanes.values()) {
+      maxLag = Math.max(maxLag, lane.getLag(now));
+    }
+    return TimeUnit.NANOSECONDS.toMillis(maxLag);
+  }
+
+  /**
+   * @return the number of the listeners with events in progress or pending, counted once per source
+   */
+  public int getActiveListenerCount() {
+    return m_lanes.size();
+  }
+
+  public long getDispatchedEventCount() {
+    return m_dispatchedEventCount.get();
+  }
+
+  /**
+   * @return the number of the events merged into their next events
+   */
+  public long getCoalescedEventCount() {
+    return m_coalescedEventCount.get();
+  }
+
+  /**
+   * @return the number of the times the thread firing the change ran a lane, as the queue was full
+   */
+  public long getCallerRunCount() {
+    return m_callerRunCount.get();
+  }
+
+  /**
+   * @return the execution time histograms of the listeners, keyed by the listener class name
+   */
+  public Map<String, ListenerLatencyHistogram> getListenerLatencies() {
+    return Collections.unmodifiableMap(m_listenerLatencies);
+  }
+
+  private void recordListenerLatency(Object listener, long timeInNanos) {
+    String listenerName = listener.getClass().getName();
+    ListenerLatencyHistogram histogram = m_listenerLatencies.get(listenerName);
+    if (histogram == null) {
+      histogram = m_listenerLatencies.computeIfAbsent(listenerName,
+          key -> new ListenerLatencyHistogram());
+    }
+    histogram.record(timeInNanos);
+
+    if (m_slowListenerThresholdInNanos > 0 && timeInNanos > m_slowListenerThresholdInNanos
+        && m_slowListenerWarnRateLimiter.tryAcquire()) {
+      logger.warn("Config change listener {} took {} ms in {}, which exceeds the slow listener "
+              + "threshold {} ms and delays the following changes", listenerName,
+          TimeUnit.NANOSECONDS.toMillis(timeInNanos), m_name,
+          TimeUnit.NANOSECONDS.toMillis(m_slowListenerThresholdInNanos));
+    }
+  }
+
+  private static class PendingEvent<E> {
+    private final long m_enqueueTime = System.nanoTime();
+    private final E m_event;
+    private final Consumer<E> m_handler;
+    private final BinaryOperator<E> m_coalescer;
+    private final CompletableFuture<Void> m_completion;
+    /**
+     * the completions of the events merged into this event
+     */
+    private final List<CompletableFuture<Void>> m_mergedCompletions;
+
+    PendingEvent(E event, Consumer<E> handler, BinaryOperator<E> coalescer) {
+      this(event, handler, coalescer, new CompletableFuture<Void>(),
+          Collections.<CompletableFuture<Void>>emptyList());
+    }
+
+    private PendingEvent(E event, Consumer<E> handler, BinaryOperator<E> coalescer,
+        CompletableFuture<Void> completion, List<CompletableFuture<Void>> mergedCompletions) {
+      m_event = event;
+      m_handler = handler;
+      m_coalescer = coalescer;
+      m_completion = completion;
+      m_mergedCompletions = mergedCompletions;
+    }
+
+    /**
+     * @return the merged event, or null if the events could not be merged
+     */
+    @SuppressWarnings("unchecked")
+    PendingEvent<E> coalesce(PendingEvent<?> next) {
+      if (m_coalescer == null || m_coalescer != next.m_coalescer) {
+        return null;
+      }
+      PendingEvent<E> typedNext = (PendingEvent<E>) next;
+      E merged = m_coalescer.apply(m_event, typedNext.m_event);
+      if (merged == null) {
+        return null;
+      }
+      List<CompletableFuture<Void>> mergedCompletions = Lists.newArrayList(m_mergedCompletions);
+      mergedCompletions.add(m_completion);
+      mergedCompletions.addAll(typedNext.m_mergedCompletions);
+      return new PendingEvent<>(merged, typedNext.m_handler, typedNext.m_coalescer,
+          typedNext.m_completion, mergedCompletions);
+    }
+
+    void handle() {
+      m_handler.accept(m_event);
+    }
+
+    void complete() {
+      for (CompletableFuture<Void> mergedCompletion : m_mergedCompletions) {
+        mergedCompletion.complete(null);
+      }
+      m_completion.complete(null);
+    }
+  }
+
+  private static class LaneKey {
+    private final Object m_source;
+    private final Object m_listener;
+
+    LaneKey(Object source, Object listener) {
+      m_source = source;
+      m_listener = listener;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof LaneKey)) {
+        return false;
+      }
+      LaneKey that = (LaneKey) o;
+      return Objects.equals(m_source, that.m_source) && Objects.equals(m_listener, that.m_listener);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(m_source, m_listener);
+    }
+  }
+
+  private class Lane implements Runnable {
+    private final LaneKey m_key;
+    private final Deque<PendingEvent<?>> m_pendingEvents = new ArrayDeque<>();
+    private boolean m_scheduled;
+    private boolean m_closed;
+
+    Lane(LaneKey key) {
+      m_key = key;
+    }
+
+    boolean offer(PendingEvent<?> pendingEvent) {
+      synchronized (this) {
+        if (m_closed) {
+          return false;
+        }
+        m_pendingEvents.addLast(pendingEvent);
+        if (m_scheduled) {
+          return true;
+        }
+        m_scheduled = true;
+      }
+      if (!trySchedule()) {
+        m_callerRunCount.incrementAndGet();
+        run();
+      }
+      return true;
+    }
+
+    /**
+     * @return false if the queue of the lanes is full
+     */
+    private boolean trySchedule() {
+      try {
+        m_executorService.execute(this);
+        return true;
+      } catch (RejectedExecutionException ex) {
+        return false;
+      }
+    }
+
+    synchronized long getLag(long now) {
+      PendingEvent<?> oldest = m_pendingEvents.peekFirst();
+      return oldest == null ? 0 : now - oldest.m_enqueueTime;
+    }
+
+    @Override
+    public void run() {
+      do {
+        runPendingEvents();
+      } while (!closeOrYield());
+    }
+
+    private void runPendingEvents() {
+      List<PendingEvent<?>> pendingEvents;
+      synchronized (this) {
+        pendingEvents = Lists.newArrayList(m_pendingEvents);
+        m_pendingEvents.clear();
+      }
+      m_pendingEventCount.addAndGet(-pendingEvents.size());
+
+      PendingEvent<?> current = null;
+      for (PendingEvent<?> next : pendingEvents) {
+        PendingEvent<?> merged = current == null ? null : current.coalesce(next);
+        if (merged != null) {
+          m_coalescedEventCount.incrementAndGet();
+          current = merged;
+          continue;
+        }
+        if (current != null) {
+          handle(current);
+        }
+        current = next;
+      }
+      if (current != null) {
+        handle(current);
+      }
+    }
+
+    /**
+     * @return false if the lane is to be run again in the current thread, as the queue is full
+     */
+    private boolean closeOrYield() {
+      synchronized (this) {
+        if (m_pendingEvents.isEmpty()) {
+          m_scheduled = false;
+          m_closed = true;
+          m_lanes.remove(m_key, this);
+          return true;
+        }
+      }
+      // yield to the other lanes, the pending events are coalesced in the next run
+      return trySchedule();
+    }
+
+    private void handle(PendingEvent<?> pendingEvent) {
+      long start = System.nanoTime();
+      try {
+        pendingEvent.handle();
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.error("Failed to dispatch change event in {}", m_name, ex);
+      } finally {
+        recordListenerLatency(m_key.m_listener, System.nanoTime() - start);
+        pendingEvent.complete();
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded ring buffer of the changes applied to a config, tagged with the config version.
+ * <p>
+ * The changes are appended by one writer at a time, while the readers merge them without locking:
+ * an entry overwritten during the read is detected by its sequence, and the reader is told to
+ * reload the whole config instead. The versions without changes take no entry.
+ */
+final class ConfigChangeJournal {
+
+  private final String m_namespace;
+  private final int m_capacity;
+  private final AtomicReferenceArray<Entry> m_entries;
+  /**
+   * the version of the last appended changes
+   */
+  private volatile long m_latestVersion;
+  /**
+   * the sequence of the last entry, i.e. the number of the non-empty changes appended
+   */
+  private volatile long m_lastSequence;
+  /**
+   * the version of the last entry
+   */
+  private long m_lastEntryVersion;
+  /**
+   * the version the retained changes start from, older versions need a full reload
+   */
+  private volatile long m_baseVersion;
+
+  ConfigChangeJournal(String namespace, int capacity, long initialVersion) {
+    m_namespace = namespace;
+    m_capacity = capacity;
+    m_entries = new AtomicReferenceArray<>(capacity);
+    m_latestVersion = initialVersion;
+    m_lastEntryVersion = initialVersion;
+    m_baseVersion = initialVersion;
+  }
+
+  /**
+   * Append the changes of the version, which is expected to follow the latest version. Empty changes
+   * only advance the latest version.
+   */
+  synchronized void append(long version, Map<String, ConfigChange> changes) {
+    if (version != m_latestVersion + 1) {
+      // the versions in between are not journaled
+      m_baseVersion = version - 1;
+    }
+    if (!changes.isEmpty()) {
+      long sequence = m_lastSequence + 1;
+      m_entries.set(index(sequence), new Entry(sequence, version, m_lastEntryVersion, changes));
+      m_lastEntryVersion = version;
+      m_lastSequence = sequence;
+    }
+    m_latestVersion = version;
+  }
+
+  long getLatestVersion() {
+    return m_latestVersion;
+  }
+
+  /**
+   * @return the net changes since the version, or null if the version is not reached yet
+   */
+  VersionedConfigChanges getChangesSince(long version) {
+    long latestVersion = m_latestVersion;
+    if (version > latestVersion) {
+      return null;
+    }
+    if (version == latestVersion) {
+      return new VersionedConfigChanges(version, latestVersion, false,
+          Collections.<String, ConfigChange>emptyMap());
+    }
+    if (version < m_baseVersion) {
+      return VersionedConfigChanges.fullReload(version, latestVersion);
+    }
+
+    // walk the entries back from the last one, the newest first
+    List<Entry> entries = Lists.newArrayList();
+    for (long sequence = m_lastSequence; sequence > 0; sequence--) {
+      Entry entry = m_entries.get(index(sequence));
+      if (entry == null || entry.m_sequence != sequence) {
+        // overwritten by the later changes
+        return VersionedConfigChanges.fullReload(version, latestVersion);
+      }
+      if (entry.m_version <= version) {
+        break;
+      }
+      if (entry.m_version <= latestVersion) {
+        // otherwise appended after the latest version is read
+        entries.add(entry);
+      }
+      if (entry.m_previousVersion <= version) {
+        // the previous entry is not needed, which may be overwritten already
+        break;
+      }
+    }
+
+    if (entries.isEmpty()) {
+      return new VersionedConfigChanges(version, latestVersion, false,
+          Collections.<String, ConfigChange>emptyMap());
+    }
+
+    ConfigChangeEvent merged = null;
+    for (Entry entry : Lists.reverse(entries)) {
+      ConfigChangeEvent event = new ConfigChangeEvent(m_namespace, entry.m_changes);
+      merged = merged == null ? event : AbstractConfig.mergeConfigChangeEvents(merged, event);
+    }
+
+    Map<String, ConfigChange> changes = Maps.newLinkedHashMap();
+    for (String key : merged.changedKeys()) {
+      changes.put(key, merged.getChange(key));
+    }
+    return new VersionedConfigChanges(version, latestVersion, false,
+        Collections.unmodifiableMap(changes));
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % m_capacity);
+  }
+
+  private static class Entry {
+    private final long m_sequence;
+    private final long m_version;
+    /**
+     * the version of the previous entry
+     */
+    private final long m_previousVersion;
+    private final Map<String, ConfigChange> m_changes;
+
+    Entry(long sequence, long version, long previousVersion, Map<String, ConfigChange> changes) {
+      m_sequence = sequence;
+      m_version = version;
+      m_previousVersion = previousVersion;
+      m_changes = changes;
+    }
+  }
+}
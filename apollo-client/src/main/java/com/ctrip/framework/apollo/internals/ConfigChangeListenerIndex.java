@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the config change listeners by their interested keys and key prefixes, so that the
+ * listeners of a change are resolved by looking up each changed key once in a hash index and once
+ * in a prefix trie, instead of matching every listener against every changed key.
+ * <p>
+ * The index is updated incrementally when listeners are added or removed and could be read
+ * concurrently without locking. Updates of the prefix trie are serialized, so that the nodes left
+ * empty by a removal could be pruned safely.
+ */
+final class ConfigChangeListenerIndex {
+
+  private static final Comparator<Registration> REGISTRATION_ORDER =
+      Comparator.comparingLong(registration -> registration.m_sequence);
+
+  private final AtomicLong m_sequence = new AtomicLong();
+  private final ConcurrentMap<ConfigChangeListener, Registration> m_registrations =
+      Maps.newConcurrentMap();
+  /**
+   * listeners without interested keys or key prefixes, which are interested in all keys
+   */
+  private final List<Registration> m_allKeysRegistrations = Lists.newCopyOnWriteArrayList();
+  private final ConcurrentMap<String, List<Registration>> m_keyRegistrations =
+      Maps.newConcurrentMap();
+  private final PrefixNode m_prefixRoot = new PrefixNode();
+
+  /**
+   * @return false if the listener is already added
+   */
+  boolean add(ConfigChangeListener listener, Set<String> interestedKeys,
+      Set<String> interestedKeyPrefixes) {
+    Registration registration = new Registration(listener, m_sequence.incrementAndGet(),
+        interestedKeys, interestedKeyPrefixes);
+    if (m_registrations.putIfAbsent(listener, registration) != null) {
+      return false;
+    }
+
+    if (registration.m_keys.isEmpty() && registration.m_keyPrefixes.isEmpty()) {
+      m_allKeysRegistrations.add(registration);
+      return true;
+    }
+    for (String key : registration.m_keys) {
+      m_keyRegistrations.compute(key, (k, registrations) -> {
+        List<Registration> result =
+            registrations == null ? Lists.<Registration>newCopyOnWriteArrayList() : registrations;
+        result.add(registration);
+        return result;
+      });
+    }
+    if (!registration.m_keyPrefixes.isEmpty()) {
+      synchronized (m_prefixRoot) {
+        for (String keyPrefix : registration.m_keyPrefixes) {
+          PrefixNode node = m_prefixRoot;
+          for (int i = 0; i < keyPrefix.length(); i++) {
+            node = node.m_children.computeIfAbsent(keyPrefix.charAt(i), c -> new PrefixNode());
+          }
+          node.m_registrations.add(registration);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return false if the listener is not found
+   */
+  boolean remove(ConfigChangeListener listener) {
+    Registration registration = m_registrations.remove(listener);
+    if (registration == null) {
+      return false;
+    }
+
+    m_allKeysRegistrations.remove(registration);
+    for (String key : registration.m_keys) {
+      m_keyRegistrations.computeIfPresent(key, (k, registrations) -> {
+        registrations.remove(registration);
+        return registrations.isEmpty() ? null : registrations;
+      });
+    }
+    if (!registration.m_keyPrefixes.isEmpty()) {
+      synchronized (m_prefixRoot) {
+        for (String keyPrefix : registration.m_keyPrefixes) {
+          removePrefix(keyPrefix, registration);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remove the registration of the key prefix and prune the nodes left without registrations and
+   * children, from the deepest one up.
+   */
+  private void removePrefix(String keyPrefix, Registration registration) {
+    PrefixNode[] path = new PrefixNode[keyPrefix.length() + 1];
+    path[0] = m_prefixRoot;
+    for (int i = 0; i < keyPrefix.length(); i++) {
+      path[i + 1] = path[i].m_children.get(keyPrefix.charAt(i));
+      if (path[i + 1] == null) {
+        return;
+      }
+    }
+
+    path[keyPrefix.length()].m_registrations.remove(registration);
+    for (int i = keyPrefix.length(); i > 0; i--) {
+      PrefixNode node = path[i];
+      if (!node.m_registrations.isEmpty() || !node.m_children.isEmpty()) {
+        break;
+      }
+      path[i - 1].m_children.remove(keyPrefix.charAt(i - 1), node);
+    }
+  }
+
+  // for test only
+  int getPrefixNodeCount() {
+    int count = 0;
+    Deque<PrefixNode> nodes = new ArrayDeque<>();
+    nodes.push(m_prefixRoot);
+    while (!nodes.isEmpty()) {
+      PrefixNode node = nodes.pop();
+      count++;
+      for (PrefixNode child : node.m_children.values()) {
+        nodes.push(child);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Resolve the listeners interested in the changed keys.
+   *
+   * @param changedKeys the changed keys
+   * @return the interested listeners in the order of registration, mapped to their interested
+   * changed keys, which are empty for the listeners interested in all keys
+   */
+  Map<ConfigChangeListener, Set<String>> match(Set<String> changedKeys) {
+    Map<Registration, Set<String>> matched = Maps.newHashMap();
+
+    if (!m_keyRegistrations.isEmpty()) {
+      for (String changedKey : changedKeys) {
+        List<Registration> registrations = m_keyRegistrations.get(changedKey);
+        if (registrations != null) {
+          addMatched(matched, registrations, changedKey);
+        }
+      }
+    }
+
+    if (!m_prefixRoot.m_children.isEmpty() || !m_prefixRoot.m_registrations.isEmpty()) {
+      for (String changedKey : changedKeys) {
+        PrefixNode node = m_prefixRoot;
+        addMatched(matched, node.m_registrations, changedKey);
+        for (int i = 0; i < changedKey.length(); i++) {
+          node = node.m_children.get(changedKey.charAt(i));
+          if (node == null) {
+            break;
+          }
+          addMatched(matched, node.m_registrations, changedKey);
+        }
+      }
+    }
+
+    List<Registration> registrations =
+        new ArrayList<>(matched.size() + m_allKeysRegistrations.size());
+    registrations.addAll(matched.keySet());
+    registrations.addAll(m_allKeysRegistrations);
+    registrations.sort(REGISTRATION_ORDER);
+
+    Map<ConfigChangeListener, Set<String>> result =
+        Maps.newLinkedHashMapWithExpectedSize(registrations.size());
+    for (Registration registration : registrations) {
+      Set<String> interestedChangedKeys = matched.get(registration);
+      result.put(registration.m_listener, interestedChangedKeys == null
+          ? Collections.<String>emptySet() : Collections.unmodifiableSet(interestedChangedKeys));
+    }
+    return result;
+  }
+
+  private void addMatched(Map<Registration, Set<String>> matched,
+      List<Registration> registrations, String changedKey) {
+    for (Registration registration : registrations) {
+      matched.computeIfAbsent(registration, r -> Sets.newHashSet()).add(changedKey);
+    }
+  }
+
+  private static class Registration {
+    private final ConfigChangeListener m_listener;
+    private final long m_sequence;
+    private final Set<String> m_keys;
+    private final Set<String> m_keyPrefixes;
+
+    Registration(ConfigChangeListener listener, long sequence, Set<String> keys,
+        Set<String> keyPrefixes) {
+      m_listener = listener;
+      m_sequence = sequence;
+      m_keys = keys == null ? ImmutableSet.<String>of() : ImmutableSet.copyOf(keys);
+      m_keyPrefixes =
+          keyPrefixes == null ? ImmutableSet.<String>of() : ImmutableSet.copyOf(keyPrefixes);
+    }
+  }
+
+  private static class PrefixNode {
+    private final ConcurrentMap<Character, PrefixNode> m_children = Maps.newConcurrentMap();
+    /**
+     * listeners interested in the prefix ending at this node
+     */
+    private final List<Registration> m_registrations = Lists.newCopyOnWriteArrayList();
+  }
+}
@@ -19,6 +19,7 @@ package com.ctrip.framework.apollo.internals;
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import java.util.Collection;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -38,4 +39,15 @@ public interface ConfigManager {
    * @return the config file instance for the namespace
    */
   ConfigFile getConfigFile(String namespace, ConfigFileFormat configFileFormat);
+
+  /**
+   * Load the config instances for the namespaces specified, in parallel if supported.
+   * @param namespaces the namespaces
+   * @since 2.4.0
+   */
+  default void preload(Collection<String> namespaces) {
+    for (String namespace : namespaces) {
+      getConfig(namespace);
+    }
+  }
 }
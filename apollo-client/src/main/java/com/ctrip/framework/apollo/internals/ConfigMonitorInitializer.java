@@ -86,8 +86,8 @@ public class ConfigMonitorInitializer {
     DefaultApolloClientNamespaceApi defaultApolloClientNamespaceApi = new DefaultApolloClientNamespaceApi(
         configManager);
     DefaultApolloClientThreadPoolApi defaultApolloClientThreadPoolApi = new DefaultApolloClientThreadPoolApi(
-        RemoteConfigRepository.m_executorService,
-        AbstractConfig.m_executorService, AbstractConfigFile.m_executorService,
+        ApolloInjector.getInstance(RemoteConfigRefreshScheduler.class).getExecutorService(),
+        AbstractConfig.m_changeDispatcher, AbstractConfigFile.m_changeDispatcher,
         AbstractApolloClientMetricsExporter.m_executorService);
 
     MONITOR_CONTEXT.setApolloClientBootstrapArgsMonitorApi(defaultApolloClientBootstrapArgsApi);
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.internals;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import java.util.Properties;
 
 /**
@@ -58,4 +59,14 @@ public interface ConfigRepository {
    * Initialize the repository.
    */
   default void initialize() {}
+
+  /**
+   * Get the config from this repository along with its release key.
+   *
+   * @return the config snapshot, whose release key is null if unknown
+   * @since 2.4.0
+   */
+  default ConfigSnapshot getConfigSnapshot() {
+    return new ConfigSnapshot(ImmutableProperties.copyOf(getConfig()), null);
+  }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.google.common.collect.Maps;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Shares one repository chain between all the views of a namespace, e.g. {@code Config("x")} and
+ * {@code ConfigFile("x", Properties)}, so that the namespace is fetched, refreshed, long polled
+ * and cached to file only once.
+ * <p>
+ * The repositories are keyed by the effective namespace, i.e. the namespace as seen by the config
+ * service, and reference counted by their views. A repository is created outside the lock of the
+ * map, by the caller which registers it first, so that creating one namespace, which may load the
+ * config, blocks neither the other namespaces nor the map. The other callers of the same namespace
+ * wait for the creation.
+ *
+ * @since 2.4.0
+ */
+public class ConfigRepositoryRegistry {
+  private final ConcurrentMap<String, RegisteredRepository> m_repositories = Maps.newConcurrentMap();
+
+  /**
+   * Get the repository of the namespace, creating it if the namespace has none yet, and add one
+   * reference to it.
+   *
+   * @param namespace the effective namespace
+   * @param repositoryFactory creates the repository chain of the namespace
+   * @return the shared repository of the namespace
+   */
+  public ConfigRepository acquire(String namespace, Supplier<ConfigRepository> repositoryFactory) {
+    while (true) {
+      RegisteredRepository registered = m_repositories.get(namespace);
+      if (registered == null) {
+        RegisteredRepository created = new RegisteredRepository(namespace, repositoryFactory);
+        registered = m_repositories.putIfAbsent(namespace, created);
+        if (registered == null) {
+          registered = created;
+          created.m_creation.run();
+        }
+      }
+      if (registered.retain()) {
+        return registered.get();
+      }
+      // released by the last view meanwhile, register a new one
+    }
+  }
+
+  /**
+   * Remove one reference to the repository of the namespace. The repository is dropped from the
+   * registry once no view references it, so the next acquire creates a new chain.
+   *
+   * @param namespace the effective namespace
+   * @param repository the repository acquired before
+   * @return true if this was the last reference to the repository
+   */
+  public boolean release(String namespace, ConfigRepository repository) {
+    RegisteredRepository registered = m_repositories.get(namespace);
+    if (repository == null || registered == null || registered.getIfCreated() != repository) {
+      return false;
+    }
+    return registered.release();
+  }
+
+  /**
+   * @param namespace the effective namespace
+   * @return the number of views referencing the repository of the namespace
+   */
+  public int getReferenceCount(String namespace) {
+    RegisteredRepository registered = m_repositories.get(namespace);
+    return registered == null ? 0 : registered.getReferenceCount();
+  }
+
+  private class RegisteredRepository {
+    private final String m_namespace;
+    private final FutureTask<ConfigRepository> m_creation;
+    //guarded by this
+    private int m_referenceCount;
+    //guarded by this, no more references once released
+    private boolean m_released;
+
+    private RegisteredRepository(String namespace, Supplier<ConfigRepository> repositoryFactory) {
+      m_namespace = namespace;
+      m_creation = new FutureTask<>(repositoryFactory::get);
+    }
+
+    synchronized boolean retain() {
+      if (m_released) {
+        return false;
+      }
+      m_referenceCount++;
+      return true;
+    }
+
+    synchronized boolean release() {
+      if (m_released || --m_referenceCount > 0) {
+        return false;
+      }
+      m_released = true;
+      m_repositories.remove(m_namespace, this);
+      return true;
+    }
+
+    synchronized int getReferenceCount() {
+      return m_referenceCount;
+    }
+
+    /**
+     * Wait for the creation, the reference is released if the creation fails, so that the next
+     * acquire tries again.
+     */
+    ConfigRepository get() {
+      try {
+        return m_creation.get();
+      } catch (ExecutionException ex) {
+        release();
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new ApolloConfigException(
+            String.format("Create config repository failed - namespace: %s", m_namespace), cause);
+      } catch (InterruptedException ex) {
+        release();
+        Thread.currentThread().interrupt();
+        throw new ApolloConfigException(
+            String.format("Create config repository interrupted - namespace: %s", m_namespace),
+            ex);
+      }
+    }
+
+    /**
+     * @return the repository, or null if it is not created yet or failed to be created
+     */
+    ConfigRepository getIfCreated() {
+      if (!m_creation.isDone()) {
+        return null;
+      }
+      try {
+        return m_creation.get();
+      } catch (Throwable ex) {
+        return null;
+      }
+    }
+  }
+}
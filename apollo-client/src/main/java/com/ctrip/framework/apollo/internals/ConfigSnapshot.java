@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.google.common.base.Preconditions;
+import java.util.Properties;
+
+/**
+ * An immutable view of the config of one namespace, shared by reference through the repository
+ * chain. The properties must not be modified once the snapshot is created.
+ *
+ * @since 2.4.0
+ */
+public final class ConfigSnapshot {
+
+  private final Properties m_properties;
+  private final String m_releaseKey;
+
+  /**
+   * @param properties the properties, which are owned by the snapshot since then
+   * @param releaseKey the release key of the properties, null if unknown
+   */
+  public ConfigSnapshot(Properties properties, String releaseKey) {
+    m_properties = Preconditions.checkNotNull(properties, "Properties cannot be null");
+    m_releaseKey = releaseKey;
+  }
+
+  /**
+   * @return the shared properties, which must not be modified
+   */
+  public Properties getProperties() {
+    return m_properties;
+  }
+
+  /**
+   * @return the release key of the properties, null if unknown
+   */
+  public String getReleaseKey() {
+    return m_releaseKey;
+  }
+
+  /**
+   * Check whether the other snapshot holds the same config. Identical snapshots or properties are
+   * the same and known release keys identify the release, so the content is only compared when
+   * either release key is unknown.
+   *
+   * @param other the other snapshot, could be null
+   * @return true if the other snapshot holds the same config
+   */
+  public boolean isSameAs(ConfigSnapshot other) {
+    if (other == this) {
+      return true;
+    }
+    if (other == null) {
+      return false;
+    }
+    if (m_properties == other.m_properties) {
+      return true;
+    }
+    if (m_releaseKey != null && other.m_releaseKey != null) {
+      return m_releaseKey.equals(other.m_releaseKey);
+    }
+    return m_properties.equals(other.m_properties);
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigSnapshot{" +
+        "releaseKey='" + m_releaseKey + '\'' +
+        ", size=" + m_properties.size() +
+        '}';
+  }
+}
@@ -17,6 +17,8 @@
 package com.ctrip.framework.apollo.internals;
 
 import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.google.common.collect.Maps;
@@ -24,11 +26,14 @@ import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -36,9 +41,12 @@ import org.slf4j.Logger;
 import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
-import com.google.common.collect.ImmutableMap;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import com.google.common.util.concurrent.RateLimiter;
 
 /**
@@ -47,14 +55,42 @@ import com.google.common.util.concurrent.RateLimiter;
 public class DefaultConfig extends AbstractConfig implements RepositoryChangeListener {
 
   private static final Logger logger = DeferredLoggerFactory.getLogger(DefaultConfig.class);
+  private static final int MAX_ABSENT_KEYS = 10000;
+  private static final ScheduledExecutorService m_debounceExecutorService =
+      Executors.newScheduledThreadPool(1, ApolloThreadFactory.create("ConfigDebounce", true));
   private final String m_namespace;
   private final Properties m_resourceProperties;
-  private final AtomicReference<Properties> m_configProperties;
+  private final AtomicReference<ConfigSnapshot> m_configSnapshot;
   private final ConfigRepository m_configRepository;
   private final RateLimiter m_warnLogRateLimiter;
+  private final boolean m_propertySnapshotEnabled;
+  /**
+   * merged view of all the property sources, only maintained when property snapshot is enabled
+   */
+  private volatile Map<String, String> m_propertySnapshot;
+  private final boolean m_negativeCacheEnabled;
+  /**
+   * keys not found in any property source, only maintained when negative cache is enabled
+   */
+  private volatile Set<String> m_absentKeys;
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.NONE;
 
+  private final long m_debounceWindowInMillis;
+  private final long m_debounceMaxDelayInMillis;
+  /**
+   * the net changes not published yet in the debounce window, guarded by this
+   */
+  private ConfigChangeEvent m_pendingChangeEvent;
+  private long m_pendingSince;
+  private long m_pendingGeneration;
+  private ScheduledFuture<?> m_pendingPublication;
+  private final int m_changeJournalSize;
+  /**
+   * the applied changes for pulling, created by the first pull, null if disabled or not pulled yet
+   */
+  private volatile ConfigChangeJournal m_changeJournal;
+
   /**
    * Constructor.
    *
@@ -65,15 +101,34 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     m_namespace = namespace;
     m_resourceProperties = loadFromResource(m_namespace);
     m_configRepository = configRepository;
-    m_configProperties = new AtomicReference<>();
+    m_configSnapshot = new AtomicReference<>();
     m_warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
+    m_propertySnapshotEnabled = ApolloInjector.getInstance(ConfigUtil.class)
+        .isPropertySnapshotEnabled();
+    if (m_propertySnapshotEnabled) {
+      m_propertySnapshot = buildPropertySnapshot(null);
+    }
+    // the snapshot already answers absent keys with one lookup
+    m_negativeCacheEnabled = !m_propertySnapshotEnabled && ApolloInjector.getInstance(ConfigUtil.class)
+        .isPropertyNegativeCacheEnabled();
+    if (m_negativeCacheEnabled) {
+      m_absentKeys = Sets.newConcurrentHashSet();
+    }
+    m_debounceWindowInMillis = ApolloInjector.getInstance(ConfigUtil.class)
+        .getConfigChangeDebounceWindowInMillis();
+    m_debounceMaxDelayInMillis = ApolloInjector.getInstance(ConfigUtil.class)
+        .getConfigChangeDebounceMaxDelayInMillis();
+    m_changeJournalSize = ApolloInjector.getInstance(ConfigUtil.class).getConfigChangeJournalSize();
     initialize();
   }
 
   private void initialize() {
     try {
       m_configRepository.initialize();
-      updateConfig(m_configRepository.getConfig(), m_configRepository.getSourceType());
+      Properties properties = m_configRepository.getConfig();
+      ConfigSnapshot snapshot = properties == null ? null
+          : new ConfigSnapshot(ImmutableProperties.copyOf(properties), null);
+      updateConfig(snapshot, m_configRepository.getSourceType());
     } catch (Throwable ex) {
       Tracer.logError(ex);
       logger.warn("Init Apollo Local Config failed - namespace: {}, reason: {}.",
@@ -85,6 +140,11 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
     }
   }
 
+  private Properties getRepositoryProperties() {
+    ConfigSnapshot snapshot = m_configSnapshot.get();
+    return snapshot == null ? null : snapshot.getProperties();
+  }
+
   /**
    * get property from cached repository properties file
    *
@@ -92,7 +152,7 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @return value
    */
   protected String getPropertyFromRepository(String key) {
-    Properties properties = m_configProperties.get();
+    Properties properties = this.getRepositoryProperties();
     if (properties != null) {
       return properties.getProperty(key);
     }
@@ -119,7 +179,7 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @param value value
    */
   protected void tryWarnLog(String value) {
-    if (value == null && m_configProperties.get() == null && m_warnLogRateLimiter.tryAcquire()) {
+    if (value == null && m_configSnapshot.get() == null && m_warnLogRateLimiter.tryAcquire()) {
       logger.warn(
           "Could not load config for namespace {} from Apollo, please check whether the configs are released in Apollo! Return default value now!",
           m_namespace);
@@ -132,7 +192,7 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
    * @return property names
    */
   protected Set<String> getPropertyNamesFromRepository() {
-    Properties properties = m_configProperties.get();
+    Properties properties = this.getRepositoryProperties();
     if (properties == null) {
       return Collections.emptySet();
     }
@@ -154,9 +214,22 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
 
   @Override
   public String getProperty(String key, String defaultValue) {
+    if (m_propertySnapshotEnabled) {
+      return this.getPropertyFromSnapshot(key, defaultValue);
+    }
+
+    // read the reference first, so that a miss on old properties is never recorded in a new set
+    Set<String> absentKeys = m_absentKeys;
+
     // step 1: check system properties, i.e. -Dkey=value
+    // checked before the absent keys, as system properties could be set at runtime
     String value = System.getProperty(key);
 
+    if (value == null && absentKeys != null && absentKeys.contains(key)) {
+      this.tryWarnLog(null);
+      return defaultValue;
+    }
+
     // step 2: check local cached properties file
     if (value == null) {
       value = this.getPropertyFromRepository(key);
@@ -176,11 +249,69 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
       value = this.getPropertyFromAdditional(key);
     }
 
+    if (value == null && absentKeys != null && absentKeys.size() < MAX_ABSENT_KEYS) {
+      absentKeys.add(key);
+    }
+
     this.tryWarnLog(value);
 
     return value == null ? defaultValue : value;
   }
 
+  /**
+   * get property from the merged snapshot, which is rebuilt whenever the repository changes
+   *
+   * @param key          property key
+   * @param defaultValue the default value when key is not found
+   * @return value
+   */
+  private String getPropertyFromSnapshot(String key, String defaultValue) {
+    String value = m_propertySnapshot.get(key);
+
+    this.tryWarnLog(value);
+
+    return value == null ? defaultValue : value;
+  }
+
+  /**
+   * Merge all the property sources into one immutable map. The sources are put in reverse order of
+   * {@link #getProperty(String, String)}, so that the higher priority ones win.
+   *
+   * @param repositoryProperties the properties from config repository, may be null
+   * @return the merged snapshot
+   */
+  private Map<String, String> buildPropertySnapshot(Properties repositoryProperties) {
+    Map<String, String> snapshot = Maps.newHashMap();
+    // step 4: properties file from classpath
+    this.putStringProperties(snapshot, m_resourceProperties);
+    // step 3: env variables
+    snapshot.putAll(System.getenv());
+    // step 2: local cached properties file
+    this.putStringProperties(snapshot, repositoryProperties);
+    // step 1: system properties
+    Properties systemProperties = System.getProperties();
+    for (String key : systemProperties.stringPropertyNames()) {
+      String value = systemProperties.getProperty(key);
+      if (value != null) {
+        snapshot.put(key, value);
+      }
+    }
+    return Collections.unmodifiableMap(snapshot);
+  }
+
+  private void putStringProperties(Map<String, String> target, Properties properties) {
+    if (properties == null) {
+      return;
+    }
+    for (Map.Entry<Object, Object> e : properties.entrySet()) {
+      Object k = e.getKey();
+      Object v = e.getValue();
+      if (k instanceof String && v instanceof String) {
+        target.put((String) k, (String) v);
+      }
+    }
+  }
+
   @Override
   public Set<String> getPropertyNames() {
     // propertyNames include system property and system env might cause some compatibility issues, though that looks like the correct implementation.
@@ -205,6 +336,10 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   }
 
   private Set<String> stringPropertyNames(Properties properties) {
+    if (properties instanceof ImmutableProperties) {
+      // already immutable, no need to copy
+      return properties.stringPropertyNames();
+    }
     //jdk9以下版本Properties#enumerateStringProperties方法存在性能问题，keys() + get(k) 重复迭代, jdk9之后改为entrySet遍历.
     Map<String, String> h = Maps.newLinkedHashMapWithExpectedSize(properties.size());
     for (Map.Entry<Object, Object> e : properties.entrySet()) {
@@ -218,85 +353,192 @@ public class DefaultConfig extends AbstractConfig implements RepositoryChangeLis
   }
 
   @Override
-  public synchronized void onRepositoryChange(String namespace, Properties newProperties) {
-    if (newProperties.equals(m_configProperties.get())) {
+  public void onRepositoryChange(String namespace, Properties newProperties) {
+    this.onRepositoryChange(namespace,
+        new ConfigSnapshot(ImmutableProperties.copyOf(newProperties), null));
+  }
+
+  @Override
+  public synchronized void onRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
+    if (newSnapshot.isSameAs(m_configSnapshot.get())) {
       return;
     }
 
     ConfigSourceType sourceType = m_configRepository.getSourceType();
-    Properties newConfigProperties = propertiesFactory.getPropertiesInstance();
-    newConfigProperties.putAll(newProperties);
 
-    Map<String, ConfigChange> actualChanges = updateAndCalcConfigChanges(newConfigProperties,
-        sourceType);
+    Map<String, ConfigChange> actualChanges = updateAndCalcConfigChanges(newSnapshot, sourceType);
+    ConfigChangeJournal changeJournal = m_changeJournal;
+    if (changeJournal != null) {
+      changeJournal.append(getVersion(), actualChanges);
+    }
 
     //check double checked result
     if (actualChanges.isEmpty()) {
+      if (m_pendingChangeEvent == null) {
+        // otherwise the version is applied when the pending changes are published
+        this.skipConfigChange();
+      }
+      return;
+    }
+
+    if (m_debounceWindowInMillis <= 0) {
+      this.fireConfigChange(m_namespace, actualChanges);
+      Tracer.logEvent(APOLLO_CLIENT_CONFIGCHANGES, m_namespace);
+      return;
+    }
+
+    ConfigChangeEvent changeEvent = new ConfigChangeEvent(m_namespace, actualChanges);
+    this.applyConfigChange(changeEvent);
+    this.debounceConfigChange(changeEvent);
+  }
+
+  /**
+   * Accumulate the changes and publish them as one event when no more changes arrive in the
+   * debounce window, or when the max delay since the first accumulated change is reached. The
+   * changes are already applied, so the changed values are visible through getProperty, the
+   * property handles, the bindings and the subsets immediately, only the listeners are deferred.
+   */
+  private void debounceConfigChange(ConfigChangeEvent changeEvent) {
+    long now = System.currentTimeMillis();
+    if (m_pendingChangeEvent == null) {
+      m_pendingChangeEvent = changeEvent;
+      m_pendingSince = now;
+    } else {
+      m_pendingChangeEvent = mergeConfigChangeEvents(m_pendingChangeEvent, changeEvent);
+      m_pendingPublication.cancel(false);
+    }
+
+    long delay = Math.min(m_debounceWindowInMillis, m_pendingSince + m_debounceMaxDelayInMillis - now);
+    final long generation = ++m_pendingGeneration;
+    m_pendingPublication = m_debounceExecutorService.schedule(new Runnable() {
+      @Override
+      public void run() {
+        publishPendingConfigChange(generation);
+      }
+    }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void publishPendingConfigChange(long generation) {
+    if (generation != m_pendingGeneration || m_pendingChangeEvent == null) {
+      // rescheduled by a later change
       return;
     }
+    ConfigChangeEvent changeEvent = m_pendingChangeEvent;
+    m_pendingChangeEvent = null;
+    m_pendingPublication = null;
 
-    this.fireConfigChange(m_namespace, actualChanges);
+    if (changeEvent.changedKeys().isEmpty()) {
+      // the accumulated changes are reverted
+      this.skipConfigChange();
+      return;
+    }
+    Map<String, ConfigChange> changes = Maps.newLinkedHashMap();
+    for (String key : changeEvent.changedKeys()) {
+      changes.put(key, changeEvent.getChange(key));
+    }
+    this.publishConfigChange(m_namespace, changes);
 
     Tracer.logEvent(APOLLO_CLIENT_CONFIGCHANGES, m_namespace);
   }
 
-  private void updateConfig(Properties newConfigProperties, ConfigSourceType sourceType) {
-    m_configProperties.set(newConfigProperties);
+  private void updateConfig(ConfigSnapshot newSnapshot, ConfigSourceType sourceType) {
+    if (m_propertySnapshotEnabled) {
+      m_propertySnapshot = buildPropertySnapshot(
+          newSnapshot == null ? null : newSnapshot.getProperties());
+    }
+    m_configSnapshot.set(newSnapshot);
+    if (m_negativeCacheEnabled) {
+      m_absentKeys = Sets.newConcurrentHashSet();
+    }
     m_sourceType = sourceType;
   }
 
-  private Map<String, ConfigChange> updateAndCalcConfigChanges(Properties newConfigProperties,
+  @Override
+  public VersionedConfigChanges getChangesSince(long version) {
+    ConfigChangeJournal changeJournal = getOrCreateChangeJournal();
+    if (changeJournal == null) {
+      return super.getChangesSince(version);
+    }
+    VersionedConfigChanges changes = changeJournal.getChangesSince(version);
+    if (changes != null) {
+      return changes;
+    }
+    if (version <= getVersion()) {
+      // the changes of the version are applied but not journaled yet, the caller sees them already
+      return new VersionedConfigChanges(version, version, false,
+          Collections.<String, ConfigChange>emptyMap());
+    }
+    return VersionedConfigChanges.fullReload(version, changeJournal.getLatestVersion());
+  }
+
+  /**
+   * The journal is created by the first pull, so the configs never pulled don't keep their changes.
+   * The changes before the first pull are answered with a full reload.
+   */
+  private ConfigChangeJournal getOrCreateChangeJournal() {
+    if (m_changeJournalSize <= 0) {
+      return null;
+    }
+    ConfigChangeJournal changeJournal = m_changeJournal;
+    if (changeJournal == null) {
+      synchronized (this) {
+        changeJournal = m_changeJournal;
+        if (changeJournal == null) {
+          // synchronized with onRepositoryChange, so no version is missed after the journal starts
+          m_changeJournal = changeJournal = new ConfigChangeJournal(m_namespace,
+              m_changeJournalSize, getVersion());
+        }
+      }
+    }
+    return changeJournal;
+  }
+
+  private Map<String, ConfigChange> updateAndCalcConfigChanges(ConfigSnapshot newSnapshot,
       ConfigSourceType sourceType) {
-    List<ConfigChange> configChanges =
-        calcPropertyChanges(m_namespace, m_configProperties.get(), newConfigProperties);
+    PropertyChanges.Builder configChanges =
+        calcChangedProperties(this.getRepositoryProperties(), newSnapshot.getProperties());
 
-    ImmutableMap.Builder<String, ConfigChange> actualChanges =
-        new ImmutableMap.Builder<>();
+    PropertyChanges.Builder actualChanges = new PropertyChanges.Builder();
 
     /** === Double check since DefaultConfig has multiple config sources ==== **/
 
     //1. use getProperty to update configChanges's old value
-    for (ConfigChange change : configChanges) {
-      change.setOldValue(this.getProperty(change.getPropertyName(), change.getOldValue()));
+    for (int i = 0; i < configChanges.size(); i++) {
+      configChanges.setOldValue(i,
+          this.getProperty(configChanges.getKey(i), configChanges.getOldValue(i)));
     }
 
-    //2. update m_configProperties
-    updateConfig(newConfigProperties, sourceType);
+    //2. update m_configSnapshot
+    updateConfig(newSnapshot, sourceType);
     clearConfigCache();
 
     //3. use getProperty to update configChange's new value and calc the final changes
-    for (ConfigChange change : configChanges) {
-      change.setNewValue(this.getProperty(change.getPropertyName(), change.getNewValue()));
-      switch (change.getChangeType()) {
+    for (int i = 0; i < configChanges.size(); i++) {
+      String key = configChanges.getKey(i);
+      String oldValue = configChanges.getOldValue(i);
+      String newValue = this.getProperty(key, configChanges.getNewValue(i));
+      if (Objects.equals(oldValue, newValue)) {
+        continue;
+      }
+      switch (configChanges.getChangeType(i)) {
         case ADDED:
-          if (Objects.equals(change.getOldValue(), change.getNewValue())) {
-            break;
-          }
-          if (change.getOldValue() != null) {
-            change.setChangeType(PropertyChangeType.MODIFIED);
-          }
-          actualChanges.put(change.getPropertyName(), change);
+          actualChanges.add(key, oldValue, newValue,
+              oldValue != null ? PropertyChangeType.MODIFIED : PropertyChangeType.ADDED);
           break;
         case MODIFIED:
-          if (!Objects.equals(change.getOldValue(), change.getNewValue())) {
-            actualChanges.put(change.getPropertyName(), change);
-          }
+          actualChanges.add(key, oldValue, newValue, PropertyChangeType.MODIFIED);
           break;
         case DELETED:
-          if (Objects.equals(change.getOldValue(), change.getNewValue())) {
-            break;
-          }
-          if (change.getNewValue() != null) {
-            change.setChangeType(PropertyChangeType.MODIFIED);
-          }
-          actualChanges.put(change.getPropertyName(), change);
+          actualChanges.add(key, oldValue, newValue,
+              newValue != null ? PropertyChangeType.MODIFIED : PropertyChangeType.DELETED);
           break;
         default:
           //do nothing
           break;
       }
     }
-    return actualChanges.build();
+    // the ConfigChanges are only created when the listeners ask for them
+    return actualChanges.build(m_namespace);
   }
 
   private Properties loadFromResource(String namespace) {
@@ -21,31 +21,156 @@ import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorCon
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
 import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.ctrip.framework.apollo.spi.ConfigFactory;
 import com.ctrip.framework.apollo.spi.ConfigFactoryManager;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
  */
 public class DefaultConfigManager implements ConfigManager {
+  private static final Logger logger = DeferredLoggerFactory.getLogger(DefaultConfigManager.class);
+  private static final String CONFIG_DIR = "config-cache";
   private ConfigFactoryManager m_factoryManager;
 
   private Map<String, Config> m_configs = Maps.newConcurrentMap();
   private Map<String, Object> m_configLocks = Maps.newConcurrentMap();
   private Map<String, ConfigFile> m_configFiles = Maps.newConcurrentMap();
   private Map<String, Object> m_configFileLocks = Maps.newConcurrentMap();
+  private final ThreadPoolExecutor m_preloadExecutorService;
+  /**
+   * null if the namespaces accessed are not recorded
+   */
+  private final StartupNamespaceRecorder m_startupNamespaceRecorder;
+  private final AtomicBoolean m_startupNamespacesPreloaded = new AtomicBoolean(false);
+  /**
+   * null if the configs are not fetched in batches
+   */
+  private final RemoteConfigBatchFetchService m_batchFetchService;
 
   public DefaultConfigManager() {
     m_factoryManager = ApolloInjector.getInstance(ConfigFactoryManager.class);
+    ConfigUtil configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    int preloadThreads = configUtil.getPreloadThreads();
+    m_preloadExecutorService = new ThreadPoolExecutor(preloadThreads, preloadThreads, 1,
+        TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+        ApolloThreadFactory.create("ConfigManager-preload", true));
+    m_preloadExecutorService.allowCoreThreadTimeOut(true);
+    if (configUtil.isLearnedNamespacesPreloadEnabled() && configUtil.isPropertyFileCacheEnabled()) {
+      String fileName = String.format("%s.namespaces",
+          Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+              .join(configUtil.getAppId(), configUtil.getCluster()));
+      m_startupNamespaceRecorder = new StartupNamespaceRecorder(
+          new File(new File(configUtil.getDefaultLocalCacheDir(), CONFIG_DIR), fileName));
+    } else {
+      m_startupNamespaceRecorder = null;
+    }
+    m_batchFetchService = configUtil.isBatchFetchEnabled() ?
+        ApolloInjector.getInstance(RemoteConfigBatchFetchService.class) : null;
   }
 
   @Override
   public Config getConfig(String namespace) {
+    if (m_startupNamespaceRecorder != null) {
+      preloadStartupNamespaces();
+    }
+    Config config = getOrCreateConfig(namespace);
+
+    if (m_startupNamespaceRecorder != null && m_startupNamespaceRecorder.record(namespace)) {
+      m_preloadExecutorService.execute(m_startupNamespaceRecorder::persist);
+    }
+    if (!ConfigSourceType.NONE.equals(config.getSourceType())) {
+      Tracer.logMetricsForCount(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + namespace);
+    }
+
+    return config;
+  }
+
+  @Override
+  public void preload(Collection<String> namespaces) {
+    List<String> toBeLoaded = Lists.newArrayListWithCapacity(namespaces.size());
+    for (String namespace : namespaces) {
+      if (!m_configs.containsKey(namespace)) {
+        toBeLoaded.add(namespace);
+      }
+    }
+    if (m_batchFetchService != null) {
+      m_batchFetchService.prefetch(toBeLoaded);
+    }
+    List<Future<Config>> futures = Lists.newArrayListWithCapacity(toBeLoaded.size());
+    for (String namespace : toBeLoaded) {
+      futures.add(m_preloadExecutorService.submit(() -> getOrCreateConfig(namespace)));
+    }
+    for (Future<Config> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException ex) {
+        Tracer.logError(ex.getCause());
+        logger.warn("Preload config failed, reason: {}",
+            ExceptionUtil.getDetailMessage(ex.getCause()));
+      }
+    }
+  }
+
+  /**
+   * Load the namespaces accessed during the previous boot in the background on the first access,
+   * so that the later accesses find them loading or loaded already.
+   */
+  private void preloadStartupNamespaces() {
+    if (!m_startupNamespacesPreloaded.compareAndSet(false, true)) {
+      return;
+    }
+    Collection<String> namespaces = m_startupNamespaceRecorder.loadPreviousNamespaces();
+    if (m_batchFetchService != null) {
+      //prefetch in the background, so that the first access is not blocked
+      m_preloadExecutorService.execute(() -> {
+        m_batchFetchService.prefetch(namespaces);
+        preloadInBackground(namespaces);
+      });
+    } else {
+      preloadInBackground(namespaces);
+    }
+  }
+
+  private void preloadInBackground(Collection<String> namespaces) {
+    for (String namespace : namespaces) {
+      m_preloadExecutorService.execute(() -> {
+        try {
+          getOrCreateConfig(namespace);
+        } catch (Throwable ex) {
+          Tracer.logError(ex);
+          logger.warn("Preload config failed - namespace: {}, reason: {}", namespace,
+              ExceptionUtil.getDetailMessage(ex));
+        }
+      });
+    }
+  }
+
+  private Config getOrCreateConfig(String namespace) {
     Config config = m_configs.get(namespace);
     
     if (config == null) {
@@ -61,10 +186,6 @@ public class DefaultConfigManager implements ConfigManager {
         }
       }
     }
-    if (!ConfigSourceType.NONE.equals(config.getSourceType())) {
-      Tracer.logMetricsForCount(APOLLO_CLIENT_NAMESPACE_USAGE + ":" + namespace);
-    }
-
     return config;
   }
 
@@ -107,6 +107,10 @@ public class DefaultInjector implements Injector {
       bind(HttpClient.class).to(DefaultHttpClient.class).in(Singleton.class);
       bind(ConfigServiceLocator.class).in(Singleton.class);
       bind(RemoteConfigLongPollService.class).in(Singleton.class);
+      bind(RemoteConfigBatchFetchService.class).in(Singleton.class);
+      bind(RemoteConfigRefreshScheduler.class).in(Singleton.class);
+      bind(ConfigRepositoryRegistry.class).in(Singleton.class);
+      bind(LocalCacheFilePersister.class).in(Singleton.class);
       bind(YamlParser.class).in(Singleton.class);
       bind(PropertiesFactory.class).to(DefaultPropertiesFactory.class).in(Singleton.class);
       bind(ConfigMonitor.class).to(DefaultConfigMonitor.class).in(Singleton.class);
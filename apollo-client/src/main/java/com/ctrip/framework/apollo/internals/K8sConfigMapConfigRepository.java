@@ -27,6 +27,7 @@ import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import com.ctrip.framework.apollo.util.escape.EscapeUtil;
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
@@ -50,7 +51,7 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
     private final String k8sNamespace;
     private final ConfigUtil configUtil;
     private final KubernetesManager kubernetesManager;
-    private volatile Properties configMapProperties;
+    private volatile ConfigSnapshot configMapSnapshot;
     private volatile ConfigRepository upstream;
     private volatile ConfigSourceType sourceType = ConfigSourceType.CONFIGMAP;
     private static final Gson GSON = new Gson();
@@ -109,11 +110,11 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
 
     @Override
     public Properties getConfig() {
-        if (configMapProperties == null) {
+        if (configMapSnapshot == null) {
             sync();
         }
         Properties result = propertiesFactory.getPropertiesInstance();
-        result.putAll(configMapProperties);
+        result.putAll(configMapSnapshot.getProperties());
         return result;
     }
 
@@ -155,7 +156,7 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
         Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "syncK8sConfigMap");
         Throwable exception = null;
         try {
-            configMapProperties = loadFromK8sConfigMap();
+            configMapSnapshot = new ConfigSnapshot(ImmutableProperties.copyOf(loadFromK8sConfigMap()), null);
             sourceType = ConfigSourceType.CONFIGMAP;
             transaction.setStatus(Transaction.SUCCESS);
         } catch (Throwable ex) {
@@ -166,7 +167,7 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
             transaction.complete();
         }
 
-        if (configMapProperties == null) {
+        if (configMapSnapshot == null) {
             sourceType = ConfigSourceType.NONE;
             throw new ApolloConfigException(
                     "Load config from Kubernetes ConfigMap failed!", exception);
@@ -199,7 +200,12 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
             return false;
         }
         try {
-            updateConfigMapProperties(upstream.getConfig(), upstream.getSourceType());
+            Properties upstreamProperties = upstream.getConfig();
+            if (upstreamProperties != null) {
+                updateConfigMapSnapshot(
+                        new ConfigSnapshot(ImmutableProperties.copyOf(upstreamProperties), null),
+                        upstream.getSourceType());
+            }
             return true;
         } catch (Throwable ex) {
             Tracer.logError(ex);
@@ -209,13 +215,13 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
         return false;
     }
 
-    private synchronized void updateConfigMapProperties(Properties newProperties, ConfigSourceType sourceType) {
+    private synchronized void updateConfigMapSnapshot(ConfigSnapshot newSnapshot, ConfigSourceType sourceType) {
         this.sourceType = sourceType;
-        if (newProperties == null || newProperties.equals(configMapProperties)) {
+        if (newSnapshot.isSameAs(configMapSnapshot)) {
             return;
         }
-        this.configMapProperties = newProperties;
-        persistConfigMap(configMapProperties);
+        this.configMapSnapshot = newSnapshot;
+        persistConfigMap(newSnapshot.getProperties());
     }
 
     /**
@@ -226,13 +232,26 @@ public class K8sConfigMapConfigRepository extends AbstractConfigRepository
      */
     @Override
     public void onRepositoryChange(String namespace, Properties newProperties) {
-        if (newProperties == null || newProperties.equals(configMapProperties)) {
+        if (newProperties == null) {
+            return;
+        }
+        this.onRepositoryChange(namespace,
+                new ConfigSnapshot(ImmutableProperties.copyOf(newProperties), null));
+    }
+
+    /**
+     * Update the memory with the snapshot shared by the upstream
+     *
+     * @param namespace   the namespace of this repository change
+     * @param newSnapshot the config snapshot after change
+     */
+    @Override
+    public void onRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
+        if (newSnapshot == null || newSnapshot.isSameAs(configMapSnapshot)) {
             return;
         }
-        Properties newFileProperties = propertiesFactory.getPropertiesInstance();
-        newFileProperties.putAll(newProperties);
-        updateConfigMapProperties(newFileProperties, upstream.getSourceType());
-        this.fireRepositoryChange(namespace, newProperties);
+        updateConfigMapSnapshot(newSnapshot, upstream.getSourceType());
+        this.fireRepositoryChange(namespace, newSnapshot);
     }
 
     void persistConfigMap(Properties properties) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the execution time of a change listener, with fixed buckets so that recording is
+ * cheap enough for every invocation.
+ */
+public final class ListenerLatencyHistogram {
+
+  private static final long[] BUCKET_UPPER_BOUNDS_IN_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000,
+      2500, 5000, 10000};
+
+  /**
+   * the last bucket holds the time beyond the largest upper bound
+   */
+  private final LongAdder[] m_bucketCounts = new LongAdder[BUCKET_UPPER_BOUNDS_IN_MS.length + 1];
+  private final LongAdder m_count = new LongAdder();
+  private final LongAdder m_totalTimeInNanos = new LongAdder();
+  private final AtomicLong m_maxTimeInNanos = new AtomicLong();
+
+  public ListenerLatencyHistogram() {
+    for (int i = 0; i < m_bucketCounts.length; i++) {
+      m_bucketCounts[i] = new LongAdder();
+    }
+  }
+
+  void record(long timeInNanos) {
+    long timeInMs = TimeUnit.NANOSECONDS.toMillis(timeInNanos);
+    int bucket = 0;
+    while (bucket < BUCKET_UPPER_BOUNDS_IN_MS.length && timeInMs > BUCKET_UPPER_BOUNDS_IN_MS[bucket]) {
+      bucket++;
+    }
+    m_bucketCounts[bucket].increment();
+    m_count.increment();
+    m_totalTimeInNanos.add(timeInNanos);
+    m_maxTimeInNanos.accumulateAndGet(timeInNanos, Math::max);
+  }
+
+  /**
+   * @return the inclusive upper bounds of the buckets in milliseconds, except the last bucket which
+   * is unbounded
+   */
+  public static long[] getBucketUpperBoundsInMs() {
+    return BUCKET_UPPER_BOUNDS_IN_MS.clone();
+  }
+
+  /**
+   * @return the number of the invocations in each bucket, one more than the upper bounds
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[m_bucketCounts.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = m_bucketCounts[i].sum();
+    }
+    return counts;
+  }
+
+  public long getCount() {
+    return m_count.sum();
+  }
+
+  public long getTotalTimeInMs() {
+    return TimeUnit.NANOSECONDS.toMillis(m_totalTimeInNanos.sum());
+  }
+
+  public long getMaxTimeInMs() {
+    return TimeUnit.NANOSECONDS.toMillis(m_maxTimeInNanos.get());
+  }
+
+  /**
+   * @param percentile the percentile between 0 and 100
+   * @return the upper bound of the bucket where the percentile falls in, or the max time if it
+   * falls in the last bucket
+   */
+  public long getPercentileInMs(double percentile) {
+    long[] counts = getBucketCounts();
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long accumulated = 0;
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MS.length; i++) {
+      accumulated += counts[i];
+      if (accumulated >= rank) {
+        return Math.min(BUCKET_UPPER_BOUNDS_IN_MS[i], getMaxTimeInMs());
+      }
+    }
+    return getMaxTimeInMs();
+  }
+}
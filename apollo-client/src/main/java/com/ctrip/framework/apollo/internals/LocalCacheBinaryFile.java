@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.google.common.base.Charsets;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * The binary format of the local cache files.
+ * <p>
+ * A file is laid out as below, all the integers are big-endian and all the strings are
+ * length-prefixed UTF-8, so there is no escaping of the non-ASCII values and no line parsing:
+ * <pre>
+ * magic(int) version(byte) releaseKey(string, length -1 if null) notificationId(long)
+ * entryCount(int) [key(string) value(string)]* crc32(int)
+ * </pre>
+ * The checksum covers all the bytes before it, so a corrupted file is rejected as a whole.
+ *
+ * @since 2.4.0
+ */
+public class LocalCacheBinaryFile {
+  // "APLC"
+  private static final int MAGIC = 0x41504c43;
+  private static final byte VERSION = 1;
+  private static final int NULL_LENGTH = -1;
+  private static final int CHECKSUM_LENGTH = 4;
+  private static final int MIN_LENGTH = 4 + 1 + 4 + 8 + 4 + CHECKSUM_LENGTH;
+
+  private final Properties m_properties;
+  private final String m_releaseKey;
+  private final long m_notificationId;
+
+  private LocalCacheBinaryFile(Properties properties, String releaseKey, long notificationId) {
+    m_properties = properties;
+    m_releaseKey = releaseKey;
+    m_notificationId = notificationId;
+  }
+
+  public Properties getProperties() {
+    return m_properties;
+  }
+
+  /**
+   * @return the release key of the config, or null if unknown
+   */
+  public String getReleaseKey() {
+    return m_releaseKey;
+  }
+
+  public long getNotificationId() {
+    return m_notificationId;
+  }
+
+  /**
+   * Encode the config into the binary format, the entries are sorted by key so that the same
+   * config is always encoded the same.
+   *
+   * @param properties the config
+   * @param releaseKey the release key of the config, may be null
+   * @param notificationId the notification id of the config
+   * @return the content of the file
+   */
+  public static byte[] encode(Properties properties, String releaseKey, long notificationId) {
+    TreeSet<String> keys = new TreeSet<>(properties.stringPropertyNames());
+    byte[][] encoded = new byte[keys.size() * 2][];
+    int length = MIN_LENGTH;
+    int index = 0;
+    for (String key : keys) {
+      encoded[index] = key.getBytes(Charsets.UTF_8);
+      encoded[index + 1] = properties.getProperty(key).getBytes(Charsets.UTF_8);
+      length += 8 + encoded[index].length + encoded[index + 1].length;
+      index += 2;
+    }
+    byte[] encodedReleaseKey = releaseKey == null ? null : releaseKey.getBytes(Charsets.UTF_8);
+    if (encodedReleaseKey != null) {
+      length += encodedReleaseKey.length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.putInt(MAGIC);
+    buffer.put(VERSION);
+    putBytes(buffer, encodedReleaseKey);
+    buffer.putLong(notificationId);
+    buffer.putInt(keys.size());
+    for (byte[] bytes : encoded) {
+      putBytes(buffer, bytes);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, buffer.position());
+    buffer.putInt((int) crc.getValue());
+
+    return buffer.array();
+  }
+
+  /**
+   * Read the file in the binary format. The file is read through its channel in one go, and the
+   * strings are decoded right from the read buffer.
+   *
+   * @param file the file
+   * @param properties the properties to fill with the config
+   * @return the config with its release key and notification id
+   * @throws IOException if the file could not be read or is corrupted
+   */
+  public static LocalCacheBinaryFile read(File file, Properties properties) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < MIN_LENGTH || size > Integer.MAX_VALUE) {
+        throw new IOException(String.format("Invalid length %d of file %s", size,
+            file.getAbsolutePath()));
+      }
+      buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException(String.format("Unexpected end of file %s", file.getAbsolutePath()));
+        }
+      }
+      buffer.flip();
+    }
+
+    int checksumOffset = buffer.limit() - CHECKSUM_LENGTH;
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, checksumOffset);
+    if ((int) crc.getValue() != buffer.getInt(checksumOffset)) {
+      throw new IOException(String.format("Checksum mismatch of file %s", file.getAbsolutePath()));
+    }
+    buffer.limit(checksumOffset);
+
+    try {
+      if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+        throw new IOException(String.format("Unknown format of file %s", file.getAbsolutePath()));
+      }
+      String releaseKey = getString(buffer);
+      long notificationId = buffer.getLong();
+      int entryCount = buffer.getInt();
+      for (int i = 0; i < entryCount; i++) {
+        String key = getString(buffer);
+        String value = getString(buffer);
+        if (key == null || value == null) {
+          throw new IOException(String.format("Null entry in file %s", file.getAbsolutePath()));
+        }
+        properties.setProperty(key, value);
+      }
+      if (buffer.hasRemaining()) {
+        throw new IOException(String.format("Trailing bytes in file %s", file.getAbsolutePath()));
+      }
+      return new LocalCacheBinaryFile(properties, releaseKey, notificationId);
+    } catch (BufferUnderflowException | IllegalArgumentException ex) {
+      throw new IOException(String.format("Corrupted file %s", file.getAbsolutePath()), ex);
+    }
+  }
+
+  private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      buffer.putInt(NULL_LENGTH);
+      return;
+    }
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    int offset = buffer.position();
+    buffer.position(offset + length);
+    return new String(buffer.array(), offset, length, Charsets.UTF_8);
+  }
+}
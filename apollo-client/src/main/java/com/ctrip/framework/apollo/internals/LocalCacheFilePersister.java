@@ -0,0 +1,326 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Persists the local cache files of the namespaces.
+ * <p>
+ * A file is written to a temp file, synced to the disk and renamed onto the target, so a crash never
+ * leaves a truncated cache file behind, and the temp files left by a crash are removed when the
+ * namespace is loaded again. A write whose content is the same as the last one persisted is
+ * skipped. The config is written either as a properties file with a meta file, or as a
+ * {@link LocalCacheBinaryFile}, and the files of the other format are removed.
+ * <p>
+ * When write-behind is enabled, the files are written on a background thread after a short delay,
+ * and the updates of a file within the delay are written once. The pending writes are flushed on
+ * JVM shutdown, so only the updates within the delay before a crash or a kill are lost, and the
+ * config is fetched again at the next startup anyway.
+ *
+ * @since 2.4.0
+ */
+public class LocalCacheFilePersister {
+  private static final Logger logger = DeferredLoggerFactory.getLogger(LocalCacheFilePersister.class);
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final String FILE_COMMENTS = "Persisted by DefaultConfig";
+  static final String RELEASE_KEY = "releaseKey";
+  static final String NOTIFICATION_ID = "notificationId";
+  private final ConfigUtil m_configUtil;
+  private final ScheduledExecutorService m_executorService;
+  private final ConcurrentMap<File, PendingWrite> m_pendingWrites = Maps.newConcurrentMap();
+  private final ConcurrentMap<File, HashCode> m_persistedHashes = Maps.newConcurrentMap();
+  private final ConcurrentMap<File, Object> m_fileLocks = Maps.newConcurrentMap();
+
+  /**
+   * Constructor.
+   */
+  public LocalCacheFilePersister() {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("LocalCacheFilePersister", true));
+    if (m_configUtil.isCacheWriteBehindEnabled()) {
+      Runtime.getRuntime().addShutdownHook(
+          ApolloThreadFactory.create("LocalCacheFilePersister-shutdown", false)
+              .newThread(this::flushAll));
+    }
+  }
+
+  /**
+   * Persist the config of the namespace to the cache files.
+   *
+   * @param namespace the namespace
+   * @param file the cache file in the properties format
+   * @param metaFile the meta file of the cache file in the properties format
+   * @param binaryFile the cache file in the binary format
+   * @param properties the config to persist
+   * @param releaseKey the release key of the config, there is no meta file if null
+   * @param notificationId the notification id of the config
+   */
+  public void persist(String namespace, File file, File metaFile, File binaryFile,
+      Properties properties, String releaseKey, long notificationId) {
+    PendingWrite write = new PendingWrite(namespace, file, metaFile, binaryFile, properties,
+        releaseKey, notificationId, m_configUtil.isCacheBinaryFormatEnabled(),
+        System.currentTimeMillis());
+    PendingWrite pending = m_pendingWrites.merge(file, write, PendingWrite::coalesce);
+
+    if (!m_configUtil.isCacheWriteBehindEnabled()) {
+      flush(file);
+      return;
+    }
+    // only the first update of the file schedules a write, later ones are coalesced into it
+    if (pending == write) {
+      m_executorService.schedule(() -> flush(file),
+          m_configUtil.getCacheWriteBehindDelayInMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Write the pending update of the file at once, if any, so that reading the file afterwards sees
+   * the latest config persisted.
+   *
+   * @param file the cache file
+   */
+  public void flush(File file) {
+    synchronized (lockOf(file)) {
+      PendingWrite write = m_pendingWrites.remove(file);
+      if (write != null) {
+        write(write);
+      }
+    }
+  }
+
+  /**
+   * Write all the pending updates at once, e.g. on JVM shutdown.
+   */
+  public void flushAll() {
+    for (File file : m_pendingWrites.keySet()) {
+      flush(file);
+    }
+  }
+
+  /**
+   * Remove the temp files of the cache files left behind by a crash in the middle of a write.
+   *
+   * @param file the cache file in the properties format
+   * @param metaFile the meta file of the cache file in the properties format
+   * @param binaryFile the cache file in the binary format
+   */
+  public void removeStaleTempFiles(File file, File metaFile, File binaryFile) {
+    synchronized (lockOf(file)) {
+      for (File target : new File[]{file, metaFile, binaryFile}) {
+        File[] tempFiles = target.getParentFile()
+            .listFiles((dir, name) -> isTempFileOf(target, name));
+        if (tempFiles == null) {
+          continue;
+        }
+        for (File tempFile : tempFiles) {
+          try {
+            Files.deleteIfExists(tempFile.toPath());
+          } catch (IOException ex) {
+            logger.warn("Remove stale temp file {} failed, reason: {}.",
+                tempFile.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The temp file of a target is named by the name of the target, random digits and the temp file
+   * suffix, see {@link #writeAtomically(File, byte[])}.
+   */
+  private boolean isTempFileOf(File target, String name) {
+    String prefix = target.getName();
+    if (!name.startsWith(prefix) || !name.endsWith(TEMP_FILE_SUFFIX)) {
+      return false;
+    }
+    String random = name.substring(prefix.length(), name.length() - TEMP_FILE_SUFFIX.length());
+    return !random.isEmpty() && CharMatcher.inRange('0', '9').matchesAllOf(random);
+  }
+
+  private void write(PendingWrite write) {
+    HashCode contentHash = write.contentHash();
+    File target = write.m_binary ? write.m_binaryFile : write.m_file;
+    if (contentHash.equals(m_persistedHashes.get(write.m_file)) && target.isFile()) {
+      logger.debug("Local cache file {} is up to date, skip persisting", target.getAbsolutePath());
+      return;
+    }
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistLocalConfigFile");
+    transaction.addData("LocalConfigFile", target.getAbsolutePath());
+    try {
+      if (write.m_binary) {
+        writeAtomically(write.m_binaryFile, LocalCacheBinaryFile.encode(write.m_properties,
+            write.m_releaseKey, write.m_notificationId));
+        Files.deleteIfExists(write.m_metaFile.toPath());
+        Files.deleteIfExists(write.m_file.toPath());
+      } else {
+        // the binary file is preferred by readers, and the meta file must never describe a stale
+        // properties file, so both are removed first
+        Files.deleteIfExists(write.m_binaryFile.toPath());
+        Files.deleteIfExists(write.m_metaFile.toPath());
+        writeAtomically(write.m_file, toBytes(write.m_properties));
+        Properties meta = write.assembleMeta();
+        if (meta != null) {
+          writeAtomically(write.m_metaFile, toBytes(meta));
+        }
+      }
+      m_persistedHashes.put(write.m_file, contentHash);
+      transaction.setStatus(Transaction.SUCCESS);
+      Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG + ":" + write.m_namespace,
+          String.valueOf(System.currentTimeMillis() - write.m_submitTime));
+    } catch (IOException ex) {
+      m_persistedHashes.remove(write.m_file);
+      ApolloConfigException exception =
+          new ApolloConfigException(
+              String.format("Persist local cache file %s failed", target.getAbsolutePath()), ex);
+      Tracer.logError(exception);
+      Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE, write.m_namespace);
+      transaction.setStatus(exception);
+      logger.warn("Persist local cache file {} failed, reason: {}.", target.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private byte[] toBytes(Properties properties) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    properties.store(out, FILE_COMMENTS);
+    return out.toByteArray();
+  }
+
+  private void writeAtomically(File target, byte[] content) throws IOException {
+    Path temp = Files.createTempFile(target.getParentFile().toPath(), target.getName(),
+        TEMP_FILE_SUFFIX);
+    try {
+      try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+        out.write(content);
+        out.getFD().sync();
+      }
+      try {
+        Files.move(temp, target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private Object lockOf(File file) {
+    return m_fileLocks.computeIfAbsent(file, key -> new Object());
+  }
+
+  private static class PendingWrite {
+    private final String m_namespace;
+    private final File m_file;
+    private final File m_metaFile;
+    private final File m_binaryFile;
+    private final Properties m_properties;
+    private final String m_releaseKey;
+    private final long m_notificationId;
+    private final boolean m_binary;
+    private final long m_submitTime;
+
+    private PendingWrite(String namespace, File file, File metaFile, File binaryFile,
+        Properties properties, String releaseKey, long notificationId, boolean binary,
+        long submitTime) {
+      m_namespace = namespace;
+      m_file = file;
+      m_metaFile = metaFile;
+      m_binaryFile = binaryFile;
+      m_properties = properties;
+      m_releaseKey = releaseKey;
+      m_notificationId = notificationId;
+      m_binary = binary;
+      m_submitTime = submitTime;
+    }
+
+    /**
+     * The latest update replaces the pending one, but the lag is measured since the pending one.
+     */
+    private static PendingWrite coalesce(PendingWrite pending, PendingWrite latest) {
+      return new PendingWrite(latest.m_namespace, latest.m_file, latest.m_metaFile,
+          latest.m_binaryFile, latest.m_properties, latest.m_releaseKey, latest.m_notificationId,
+          latest.m_binary, pending.m_submitTime);
+    }
+
+    private Properties assembleMeta() {
+      if (m_releaseKey == null) {
+        return null;
+      }
+      Properties meta = new Properties();
+      meta.setProperty(RELEASE_KEY, m_releaseKey);
+      if (m_notificationId != ConfigConsts.NOTIFICATION_ID_PLACEHOLDER) {
+        meta.setProperty(NOTIFICATION_ID, String.valueOf(m_notificationId));
+      }
+      return meta;
+    }
+
+    private HashCode contentHash() {
+      Hasher hasher = Hashing.murmur3_128().newHasher();
+      hasher.putBoolean(m_binary);
+      hasher.putInt(m_properties.size());
+      for (String key : new TreeSet<>(m_properties.stringPropertyNames())) {
+        putString(hasher, key);
+        putString(hasher, m_properties.getProperty(key));
+      }
+      if (m_releaseKey != null) {
+        putString(hasher, m_releaseKey);
+        hasher.putLong(m_notificationId);
+      }
+      return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+      hasher.putInt(value.length()).putUnencodedChars(value);
+    }
+  }
+}
@@ -21,25 +21,32 @@ import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 
@@ -53,10 +60,21 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
   private final String m_namespace;
   private File m_baseDir;
   private final ConfigUtil m_configUtil;
-  private volatile Properties m_fileProperties;
+  private final LocalCacheFilePersister m_persister;
+  private volatile ConfigSnapshot m_fileSnapshot;
   private volatile ConfigRepository m_upstream;
 
   private volatile ConfigSourceType m_sourceType = ConfigSourceType.LOCAL;
+  /**
+   * whether the config served at startup is to be revalidated with the upstream
+   */
+  private final AtomicBoolean m_revalidationPending = new AtomicBoolean(false);
+  private static final ExecutorService m_executorService;
+
+  static {
+    m_executorService = Executors.newCachedThreadPool(
+        ApolloThreadFactory.create("LocalFileConfigRepository", true));
+  }
 
   /**
    * Constructor.
@@ -70,6 +88,7 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
   public LocalFileConfigRepository(String namespace, ConfigRepository upstream) {
     m_namespace = namespace;
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_persister = ApolloInjector.getInstance(LocalCacheFilePersister.class);
     this.setLocalCacheDir(findLocalCacheDir(), false);
     this.setUpstreamRepository(upstream);
   }
@@ -77,6 +96,11 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
   void setLocalCacheDir(File baseDir, boolean syncImmediately) {
     m_baseDir = baseDir;
     this.checkLocalConfigCacheDir(m_baseDir);
+    if (m_baseDir.isDirectory()) {
+      m_persister.removeStaleTempFiles(assembleLocalCacheFile(m_baseDir, m_namespace),
+          assembleLocalCacheMetaFile(m_baseDir, m_namespace),
+          assembleLocalCacheBinaryFile(m_baseDir, m_namespace));
+    }
     if (syncImmediately) {
       this.trySync();
     }
@@ -101,11 +125,11 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
 
   @Override
   public Properties getConfig() {
-    if (m_fileProperties == null) {
+    if (m_fileSnapshot == null) {
       sync();
     }
     Properties result = propertiesFactory.getPropertiesInstance();
-    result.putAll(m_fileProperties);
+    result.putAll(m_fileSnapshot.getProperties());
     return result;
   }
 
@@ -120,6 +144,45 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     }
     m_upstream = upstreamConfigRepository;
     upstreamConfigRepository.addChangeListener(this);
+    if (upstreamConfigRepository instanceof RemoteConfigRepository) {
+      restoreUpstreamFromLocalCache((RemoteConfigRepository) upstreamConfigRepository);
+    }
+  }
+
+  /**
+   * Hand the release key and the notification id persisted with the local cache over to the
+   * remote repository, so that the first load and long polling need not download the unchanged
+   * config again.
+   */
+  private void restoreUpstreamFromLocalCache(RemoteConfigRepository remoteConfigRepository) {
+    if (m_baseDir == null) {
+      return;
+    }
+    m_persister.flush(assembleLocalCacheFile(m_baseDir, m_namespace));
+    LocalCacheBinaryFile binaryFile = loadFromLocalCacheBinaryFile(m_baseDir, m_namespace);
+    if (binaryFile != null) {
+      if (binaryFile.getReleaseKey() != null) {
+        remoteConfigRepository.restoreFromLocalCache(binaryFile.getProperties(),
+            binaryFile.getReleaseKey(), binaryFile.getNotificationId());
+      }
+      return;
+    }
+    File metaFile = assembleLocalCacheMetaFile(m_baseDir, m_namespace);
+    if (!metaFile.isFile()) {
+      return;
+    }
+    try {
+      Properties meta = loadProperties(metaFile);
+      Properties properties = loadFromLocalCacheFile(m_baseDir, m_namespace);
+      long notificationId = Long.parseLong(meta.getProperty(LocalCacheFilePersister.NOTIFICATION_ID,
+          String.valueOf(ConfigConsts.NOTIFICATION_ID_PLACEHOLDER)));
+      remoteConfigRepository.restoreFromLocalCache(properties,
+          meta.getProperty(LocalCacheFilePersister.RELEASE_KEY), notificationId);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+      logger.warn("Restore from local cache meta file {} failed, reason: {}.",
+          metaFile.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+    }
   }
 
   @Override
@@ -127,19 +190,54 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     return m_sourceType;
   }
 
+  /**
+   * The revalidation of the config served at startup starts when the first listener is added, so
+   * that the listener, which read the config served, could not miss the revalidated one.
+   */
+  @Override
+  public void addChangeListener(RepositoryChangeListener listener) {
+    super.addChangeListener(listener);
+    if (m_revalidationPending.compareAndSet(true, false)) {
+      m_executorService.execute(this::revalidate);
+    }
+  }
+
+  private void revalidate() {
+    if (trySyncFromUpstream()) {
+      // the listeners ignore the config they hold already
+      this.fireRepositoryChange(m_namespace, m_fileSnapshot);
+    }
+  }
+
   @Override
   public void onRepositoryChange(String namespace, Properties newProperties) {
-    if (newProperties.equals(m_fileProperties)) {
+    this.onRepositoryChange(namespace,
+        new ConfigSnapshot(ImmutableProperties.copyOf(newProperties), null));
+  }
+
+  @Override
+  public void onRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
+    if (newSnapshot.isSameAs(m_fileSnapshot)) {
       return;
     }
-    Properties newFileProperties = propertiesFactory.getPropertiesInstance();
-    newFileProperties.putAll(newProperties);
-    updateFileProperties(newFileProperties, m_upstream.getSourceType());
-    this.fireRepositoryChange(namespace, newProperties);
+    updateFileSnapshot(newSnapshot, m_upstream.getSourceType());
+    this.fireRepositoryChange(namespace, newSnapshot);
   }
 
   @Override
   protected void sync() {
+    boolean startup = m_fileSnapshot == null;
+    if (startup && m_upstream != null && m_configUtil.isCacheStaleWhileRevalidateEnabled()) {
+      syncWithStaleWhileRevalidate();
+    } else {
+      syncWithUpstreamFirst();
+    }
+    if (startup) {
+      logStartup();
+    }
+  }
+
+  private void syncWithUpstreamFirst() {
     //sync with upstream immediately
     boolean syncFromUpstreamResultSuccess = trySyncFromUpstream();
 
@@ -151,7 +249,8 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     Throwable exception = null;
     try {
       transaction.addData("Basedir", m_baseDir.getAbsolutePath());
-      m_fileProperties = this.loadFromLocalCacheFile(m_baseDir, m_namespace);
+      m_fileSnapshot = new ConfigSnapshot(
+          ImmutableProperties.copyOf(this.loadFromLocalCacheFile(m_baseDir, m_namespace)), null);
       m_sourceType = ConfigSourceType.LOCAL;
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
@@ -163,19 +262,78 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
       transaction.complete();
     }
 
-    if (m_fileProperties == null) {
+    if (m_fileSnapshot == null) {
       m_sourceType = ConfigSourceType.NONE;
       throw new ApolloConfigException(
           "Load config from local config failed!", exception);
     }
   }
 
+  /**
+   * Serve the local cache file at once and revalidate it with the upstream asynchronously. If there
+   * is no local cache file, wait for the upstream no longer than the first load timeout.
+   */
+  private void syncWithStaleWhileRevalidate() {
+    m_persister.flush(assembleLocalCacheFile(m_baseDir, m_namespace));
+    File file = findLocalCacheFile(m_baseDir, m_namespace);
+    if (file.isFile()) {
+      try {
+        m_fileSnapshot = new ConfigSnapshot(
+            ImmutableProperties.copyOf(this.loadFromLocalCacheFile(m_baseDir, m_namespace)), null);
+        m_sourceType = ConfigSourceType.LOCAL;
+        m_revalidationPending.set(true);
+        return;
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.warn("Load config from local cache file {} failed, reason: {}",
+            file.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+      }
+    }
+
+    long timeout = m_configUtil.getFirstLoadTimeoutInMillis();
+    Future<Boolean> syncFromUpstream = m_executorService.submit(this::trySyncFromUpstream);
+    try {
+      if (syncFromUpstream.get(timeout, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+    } catch (TimeoutException ex) {
+      // the listeners added later receive the config once it is loaded
+      m_revalidationPending.set(true);
+      Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_TIMEOUT, m_namespace);
+      throw new ApolloConfigException(String.format(
+          "Load config from upstream timed out after %d ms, namespace: %s", timeout, m_namespace));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ApolloConfigException("Load config from upstream interrupted", ex);
+    } catch (ExecutionException ex) {
+      // trySyncFromUpstream catches all the exceptions
+    }
+
+    m_sourceType = ConfigSourceType.NONE;
+    throw new ApolloConfigException("Load config from upstream failed!");
+  }
+
+  private void logStartup() {
+    if (m_fileSnapshot == null) {
+      return;
+    }
+    ConfigSourceType sourceType = m_sourceType;
+    long cacheAgeInMs = 0;
+    if (sourceType == ConfigSourceType.LOCAL && m_baseDir != null) {
+      File file = findLocalCacheFile(m_baseDir, m_namespace);
+      cacheAgeInMs = Math.max(0, System.currentTimeMillis() - file.lastModified());
+    }
+    Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE + ":" + m_namespace, sourceType.name());
+    Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE + ":" + m_namespace,
+        String.valueOf(cacheAgeInMs));
+  }
+
   private boolean trySyncFromUpstream() {
     if (m_upstream == null) {
       return false;
     }
     try {
-      updateFileProperties(m_upstream.getConfig(), m_upstream.getSourceType());
+      updateFileSnapshot(m_upstream.getConfigSnapshot(), m_upstream.getSourceType());
       return true;
     } catch (Throwable ex) {
       Tracer.logError(ex);
@@ -186,12 +344,12 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     return false;
   }
 
-  private synchronized void updateFileProperties(Properties newProperties, ConfigSourceType sourceType) {
+  private synchronized void updateFileSnapshot(ConfigSnapshot newSnapshot, ConfigSourceType sourceType) {
     this.m_sourceType = sourceType;
-    if (newProperties.equals(m_fileProperties)) {
+    if (newSnapshot.isSameAs(m_fileSnapshot)) {
       return;
     }
-    this.m_fileProperties = newProperties;
+    this.m_fileSnapshot = newSnapshot;
     persistLocalCacheFile(m_baseDir, m_namespace);
   }
 
@@ -199,6 +357,42 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     Preconditions.checkNotNull(baseDir, "Basedir cannot be null");
 
     File file = assembleLocalCacheFile(baseDir, namespace);
+    m_persister.flush(file);
+    LocalCacheBinaryFile binaryFile = loadFromLocalCacheBinaryFile(baseDir, namespace);
+    if (binaryFile != null) {
+      return binaryFile.getProperties();
+    }
+    return loadProperties(file);
+  }
+
+  /**
+   * The binary cache file is preferred, whatever the format configured, so that switching the
+   * format keeps the cache. The properties cache file is the fallback if it is missing or corrupted.
+   */
+  private LocalCacheBinaryFile loadFromLocalCacheBinaryFile(File baseDir, String namespace) {
+    File binaryFile = assembleLocalCacheBinaryFile(baseDir, namespace);
+    if (!binaryFile.isFile()) {
+      return null;
+    }
+    try {
+      LocalCacheBinaryFile result = LocalCacheBinaryFile.read(binaryFile,
+          propertiesFactory.getPropertiesInstance());
+      logger.debug("Loading local config file {} successfully!", binaryFile.getAbsolutePath());
+      return result;
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+      logger.warn("Load config from local cache file {} failed, fall back to the properties file, reason: {}",
+          binaryFile.getAbsolutePath(), ExceptionUtil.getDetailMessage(ex));
+    }
+    return null;
+  }
+
+  private File findLocalCacheFile(File baseDir, String namespace) {
+    File binaryFile = assembleLocalCacheBinaryFile(baseDir, namespace);
+    return binaryFile.isFile() ? binaryFile : assembleLocalCacheFile(baseDir, namespace);
+  }
+
+  private Properties loadProperties(File file) {
     Properties properties = null;
 
     if (file.isFile() && file.canRead()) {
@@ -234,34 +428,15 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
     if (baseDir == null) {
       return;
     }
-    File file = assembleLocalCacheFile(baseDir, namespace);
-
-    OutputStream out = null;
-
-    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "persistLocalConfigFile");
-    transaction.addData("LocalConfigFile", file.getAbsolutePath());
-    try {
-      out = new FileOutputStream(file);
-      m_fileProperties.store(out, "Persisted by DefaultConfig");
-      transaction.setStatus(Transaction.SUCCESS);
-    } catch (IOException ex) {
-      ApolloConfigException exception =
-          new ApolloConfigException(
-              String.format("Persist local cache file %s failed", file.getAbsolutePath()), ex);
-      Tracer.logError(exception);
-      transaction.setStatus(exception);
-      logger.warn("Persist local cache file {} failed, reason: {}.", file.getAbsolutePath(),
-          ExceptionUtil.getDetailMessage(ex));
-    } finally {
-      if (out != null) {
-        try {
-          out.close();
-        } catch (IOException ex) {
-          //ignore
-        }
-      }
-      transaction.complete();
+    ConfigSnapshot snapshot = m_fileSnapshot;
+    long notificationId = ConfigConsts.NOTIFICATION_ID_PLACEHOLDER;
+    if (m_upstream instanceof RemoteConfigRepository) {
+      notificationId = ((RemoteConfigRepository) m_upstream).getNotificationId();
     }
+    m_persister.persist(namespace, assembleLocalCacheFile(baseDir, namespace),
+        assembleLocalCacheMetaFile(baseDir, namespace),
+        assembleLocalCacheBinaryFile(baseDir, namespace), snapshot.getProperties(),
+        snapshot.getReleaseKey(), notificationId);
   }
 
   private void checkLocalConfigCacheDir(File baseDir) {
@@ -294,4 +469,18 @@ public class LocalFileConfigRepository extends AbstractConfigRepository
             .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
     return new File(baseDir, fileName);
   }
+
+  File assembleLocalCacheBinaryFile(File baseDir, String namespace) {
+    String fileName =
+        String.format("%s.bin", Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+            .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
+    return new File(baseDir, fileName);
+  }
+
+  File assembleLocalCacheMetaFile(File baseDir, String namespace) {
+    String fileName =
+        String.format("%s.meta", Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+            .join(m_configUtil.getAppId(), m_configUtil.getCluster(), namespace));
+    return new File(baseDir, fileName);
+  }
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The changed properties of a namespace kept in arrays in the order they are added, with an index
+ * sorted by key for the lookups. The {@link ConfigChange}s are only created when they are asked
+ * for, e.g. by {@link ConfigChangeEvent#getChange(String)}, so that listeners only checking the
+ * changed keys don't pay for all the changes.
+ */
+final class PropertyChanges extends AbstractMap<String, ConfigChange> {
+
+  private final String m_namespace;
+  private final String[] m_keys;
+  private final String[] m_oldValues;
+  private final String[] m_newValues;
+  private final PropertyChangeType[] m_changeTypes;
+  /**
+   * the keys sorted, and the index of each sorted key in the arrays above
+   */
+  private final String[] m_sortedKeys;
+  private final int[] m_sortedIndexes;
+  private final AtomicReferenceArray<ConfigChange> m_changes;
+  private final Set<String> m_keySet = new KeySet();
+  private Set<Entry<String, ConfigChange>> m_entrySet;
+
+  private PropertyChanges(String namespace, String[] keys, String[] oldValues, String[] newValues,
+      PropertyChangeType[] changeTypes, String[] sortedKeys, int[] sortedIndexes) {
+    m_namespace = namespace;
+    m_keys = keys;
+    m_oldValues = oldValues;
+    m_newValues = newValues;
+    m_changeTypes = changeTypes;
+    m_sortedKeys = sortedKeys;
+    m_sortedIndexes = sortedIndexes;
+    m_changes = new AtomicReferenceArray<>(keys.length);
+  }
+
+  @Override
+  public int size() {
+    return m_keys.length;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public ConfigChange get(Object key) {
+    int index = indexOf(key);
+    return index < 0 ? null : getChange(index);
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return m_keySet;
+  }
+
+  @Override
+  public Set<Entry<String, ConfigChange>> entrySet() {
+    if (m_entrySet == null) {
+      m_entrySet = new EntrySet();
+    }
+    return m_entrySet;
+  }
+
+  private int indexOf(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    int sortedIndex = Arrays.binarySearch(m_sortedKeys, key);
+    return sortedIndex < 0 ? -1 : m_sortedIndexes[sortedIndex];
+  }
+
+  private ConfigChange getChange(int index) {
+    ConfigChange change = m_changes.get(index);
+    if (change == null) {
+      change = new ConfigChange(m_namespace, m_keys[index], m_oldValues[index],
+          m_newValues[index], m_changeTypes[index]);
+      // all the listeners share the same change instance
+      if (!m_changes.compareAndSet(index, null, change)) {
+        change = m_changes.get(index);
+      }
+    }
+    return change;
+  }
+
+  private abstract class ArrayIterator<E> implements Iterator<E> {
+    private int m_index;
+
+    @Override
+    public boolean hasNext() {
+      return m_index < m_keys.length;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return get(m_index++);
+    }
+
+    abstract E get(int index);
+  }
+
+  private class KeySet extends AbstractSet<String> {
+    @Override
+    public Iterator<String> iterator() {
+      return new ArrayIterator<String>() {
+        @Override
+        String get(int index) {
+          return m_keys[index];
+        }
+      };
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int size() {
+      return m_keys.length;
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, ConfigChange>> {
+    @Override
+    public Iterator<Entry<String, ConfigChange>> iterator() {
+      return new ArrayIterator<Entry<String, ConfigChange>>() {
+        @Override
+        Entry<String, ConfigChange> get(int index) {
+          return new SimpleImmutableEntry<>(m_keys[index], getChange(index));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return m_keys.length;
+    }
+  }
+
+  /**
+   * Collects the changes in any order, the changes could still be modified before being built.
+   */
+  static final class Builder {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private String[] m_keys = new String[DEFAULT_CAPACITY];
+    private String[] m_oldValues = new String[DEFAULT_CAPACITY];
+    private String[] m_newValues = new String[DEFAULT_CAPACITY];
+    private PropertyChangeType[] m_changeTypes = new PropertyChangeType[DEFAULT_CAPACITY];
+    private int m_size;
+
+    void add(String key, String oldValue, String newValue, PropertyChangeType changeType) {
+      if (m_size == m_keys.length) {
+        int capacity = m_size * 2;
+        m_keys = Arrays.copyOf(m_keys, capacity);
+        m_oldValues = Arrays.copyOf(m_oldValues, capacity);
+        m_newValues = Arrays.copyOf(m_newValues, capacity);
+        m_changeTypes = Arrays.copyOf(m_changeTypes, capacity);
+      }
+      m_keys[m_size] = key;
+      m_oldValues[m_size] = oldValue;
+      m_newValues[m_size] = newValue;
+      m_changeTypes[m_size] = changeType;
+      m_size++;
+    }
+
+    int size() {
+      return m_size;
+    }
+
+    String getKey(int index) {
+      return m_keys[index];
+    }
+
+    String getOldValue(int index) {
+      return m_oldValues[index];
+    }
+
+    String getNewValue(int index) {
+      return m_newValues[index];
+    }
+
+    PropertyChangeType getChangeType(int index) {
+      return m_changeTypes[index];
+    }
+
+    void setOldValue(int index, String oldValue) {
+      m_oldValues[index] = oldValue;
+    }
+
+    /**
+     * Add all the changes of the other builder after the ones of this builder.
+     *
+     * @param other the other builder
+     */
+    void addAll(Builder other) {
+      for (int i = 0; i < other.m_size; i++) {
+        add(other.m_keys[i], other.m_oldValues[i], other.m_newValues[i], other.m_changeTypes[i]);
+      }
+    }
+
+    /**
+     * @param namespace the namespace of the changes
+     * @return the changes in the order they are added
+     */
+    PropertyChanges build(String namespace) {
+      Integer[] order = new Integer[m_size];
+      for (int i = 0; i < m_size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> m_keys[a].compareTo(m_keys[b]));
+
+      String[] sortedKeys = new String[m_size];
+      int[] sortedIndexes = new int[m_size];
+      for (int i = 0; i < m_size; i++) {
+        sortedKeys[i] = m_keys[order[i]];
+        sortedIndexes[i] = order[i];
+      }
+      return new PropertyChanges(namespace, Arrays.copyOf(m_keys, m_size),
+          Arrays.copyOf(m_oldValues, m_size), Arrays.copyOf(m_newValues, m_size),
+          Arrays.copyOf(m_changeTypes, m_size), sortedKeys, sortedIndexes);
+    }
+  }
+}
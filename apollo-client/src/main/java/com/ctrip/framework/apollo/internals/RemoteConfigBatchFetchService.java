@@ -0,0 +1,373 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorConstant.*;
+
+import com.ctrip.framework.apollo.Apollo;
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.signature.Signature;
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.http.HttpClient;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.ctrip.framework.apollo.util.http.HttpResponse;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.google.common.escape.Escaper;
+import com.google.common.net.UrlEscapers;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+
+/**
+ * Fetches the configs of multiple namespaces in one request, sending the release keys held by the
+ * client and receiving the configs of the changed namespaces only. The periodic refresh of the
+ * submitted namespaces is done in batches, one per refresh interval so that the intervals
+ * customized per namespace are kept, and falls back to one request per namespace once the config
+ * service is found not supporting the batch api.
+ *
+ * @since 2.4.0
+ */
+public class RemoteConfigBatchFetchService {
+  private static final Logger logger = DeferredLoggerFactory.getLogger(RemoteConfigBatchFetchService.class);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final Joiner.MapJoiner MAP_JOINER = Joiner.on("&").withKeyValueSeparator("=");
+  private static final Escaper pathEscaper = UrlEscapers.urlPathSegmentEscaper();
+  private static final Escaper queryParamEscaper = UrlEscapers.urlFormParameterEscaper();
+  //keep the query url short enough for the common servers and proxies
+  private static final int MAX_NAMESPACES_PER_BATCH = 50;
+  //the prefetched configs not taken by the first load in time are considered stale
+  private static final long PREFETCHED_CONFIG_EXPIRE_IN_SECONDS = 60;
+  private static final Gson GSON = new Gson();
+  private final RemoteConfigRefreshScheduler m_refreshScheduler;
+  private final Set<Integer> m_scheduledRefreshIntervals;
+  private final ConcurrentMap<String, Integer> m_refreshIntervals;
+  private final AtomicBoolean m_batchUnsupported;
+  private final Multimap<String, RemoteConfigRepository> m_batchNamespaces;
+  private final Cache<String, ApolloConfig> m_prefetchedConfigs;
+  private final Type m_responseType;
+  private final ConfigUtil m_configUtil;
+  private final HttpClient m_httpClient;
+  private final ConfigServiceLocator m_serviceLocator;
+
+  /**
+   * Constructor.
+   */
+  public RemoteConfigBatchFetchService() {
+    m_scheduledRefreshIntervals = Sets.newConcurrentHashSet();
+    m_refreshIntervals = Maps.newConcurrentMap();
+    m_batchUnsupported = new AtomicBoolean(false);
+    m_batchNamespaces =
+        Multimaps.synchronizedSetMultimap(HashMultimap.<String, RemoteConfigRepository>create());
+    m_prefetchedConfigs = CacheBuilder.newBuilder()
+        .expireAfterWrite(PREFETCHED_CONFIG_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
+    m_responseType = new TypeToken<List<ApolloConfig>>() {
+    }.getType();
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_httpClient = ApolloInjector.getInstance(HttpClient.class);
+    m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
+    m_refreshScheduler = ApolloInjector.getInstance(RemoteConfigRefreshScheduler.class);
+  }
+
+  /**
+   * Refresh the namespace periodically in batches with the other namespaces submitted with the
+   * same refresh interval.
+   *
+   * @param namespace the namespace
+   * @param remoteConfigRepository the repository of the namespace
+   * @return true if the repository is not submitted before
+   */
+  public boolean submit(String namespace, RemoteConfigRepository remoteConfigRepository) {
+    int refreshInterval = m_refreshIntervals.computeIfAbsent(namespace,
+        m_configUtil::getRefreshInterval);
+    boolean added = m_batchNamespaces.put(namespace, remoteConfigRepository);
+    if (m_scheduledRefreshIntervals.add(refreshInterval)) {
+      schedulePeriodicRefresh(refreshInterval);
+    }
+    return added;
+  }
+
+  /**
+   * Fetch the configs of the namespaces in batches, so that the repositories created for them
+   * later take the configs on the first load instead of requesting them one by one.
+   *
+   * @param namespaces the namespaces to prefetch
+   */
+  public void prefetch(Collection<String> namespaces) {
+    if (m_batchUnsupported.get()) {
+      return;
+    }
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    for (String namespace : namespaces) {
+      if (!m_batchNamespaces.containsKey(namespace)) {
+        //no release key means the config is always returned
+        releaseKeys.put(namespace, "");
+      }
+    }
+    if (releaseKeys.isEmpty()) {
+      return;
+    }
+    try {
+      for (ApolloConfig config : fetch(releaseKeys)) {
+        m_prefetchedConfigs.put(config.getNamespaceName(), config);
+      }
+    } catch (Throwable ex) {
+      //the namespaces will be loaded one by one
+      Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
+      logger.warn("Prefetch configs failed, namespaces will be loaded one by one. reason: {}",
+          ExceptionUtil.getDetailMessage(ex));
+    }
+  }
+
+  /**
+   * @param namespace the namespace
+   * @return the config prefetched for the namespace, or null if not prefetched or taken already
+   */
+  ApolloConfig takePrefetchedConfig(String namespace) {
+    return m_prefetchedConfigs.asMap().remove(namespace);
+  }
+
+  private void schedulePeriodicRefresh(final int refreshInterval) {
+    m_refreshScheduler.schedule(refreshInterval,
+        new Runnable() {
+          @Override
+          public void run() {
+            Tracer.logEvent(APOLLO_CONFIGSERVICE, "periodicBatchRefresh");
+            refresh(refreshInterval);
+            Tracer.logEvent(APOLLO_CLIENT_VERSION, Apollo.VERSION);
+          }
+        });
+  }
+
+  /**
+   * Refresh all the submitted namespaces.
+   */
+  void refresh() {
+    refresh(namespace -> true);
+  }
+
+  /**
+   * Refresh the submitted namespaces with the given refresh interval.
+   */
+  void refresh(int refreshInterval) {
+    refresh(namespace -> Objects.equals(m_refreshIntervals.get(namespace), refreshInterval));
+  }
+
+  private void refresh(Predicate<String> namespaceFilter) {
+    Map<String, List<RemoteConfigRepository>> repositories = Maps.newLinkedHashMap();
+    synchronized (m_batchNamespaces) {
+      for (Map.Entry<String, Collection<RemoteConfigRepository>> entry : m_batchNamespaces.asMap()
+          .entrySet()) {
+        if (namespaceFilter.test(entry.getKey())) {
+          repositories.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+        }
+      }
+    }
+    if (repositories.isEmpty()) {
+      return;
+    }
+
+    if (!m_batchUnsupported.get()) {
+      Map<String, String> releaseKeys = Maps.newLinkedHashMapWithExpectedSize(repositories.size());
+      for (Map.Entry<String, List<RemoteConfigRepository>> entry : repositories.entrySet()) {
+        releaseKeys.put(entry.getKey(), assembleReleaseKey(entry.getValue()));
+      }
+      try {
+        for (ApolloConfig config : fetch(releaseKeys)) {
+          List<RemoteConfigRepository> toBeUpdated = repositories.get(config.getNamespaceName());
+          if (toBeUpdated == null) {
+            continue;
+          }
+          for (RemoteConfigRepository repository : toBeUpdated) {
+            try {
+              repository.onBatchFetched(config);
+            } catch (Throwable ex) {
+              Tracer.logError(ex);
+            }
+          }
+        }
+        return;
+      } catch (Throwable ex) {
+        Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
+        logger.warn("Batch refresh failed, will refresh namespaces one by one. reason: {}",
+            ExceptionUtil.getDetailMessage(ex));
+      }
+    }
+
+    for (List<RemoteConfigRepository> toBeSynced : repositories.values()) {
+      for (RemoteConfigRepository repository : toBeSynced) {
+        repository.trySyncInBackground();
+      }
+    }
+  }
+
+  /**
+   * the release key is sent only if all the repositories of the namespace hold the same one, so
+   * that none of them misses the change
+   */
+  private String assembleReleaseKey(List<RemoteConfigRepository> repositories) {
+    String releaseKey = null;
+    for (RemoteConfigRepository repository : repositories) {
+      String current = Strings.nullToEmpty(repository.getReleaseKey());
+      if (releaseKey != null && !Objects.equals(releaseKey, current)) {
+        return "";
+      }
+      releaseKey = current;
+    }
+    return Strings.nullToEmpty(releaseKey);
+  }
+
+  private List<ApolloConfig> fetch(Map<String, String> releaseKeys) {
+    List<ApolloConfig> result = Lists.newArrayList();
+    for (List<Map.Entry<String, String>> batch : Iterables.partition(releaseKeys.entrySet(),
+        MAX_NAMESPACES_PER_BATCH)) {
+      Map<String, String> batchReleaseKeys = Maps.newLinkedHashMap();
+      for (Map.Entry<String, String> entry : batch) {
+        batchReleaseKeys.put(entry.getKey(), entry.getValue());
+      }
+      result.addAll(fetchBatch(batchReleaseKeys));
+    }
+    return result;
+  }
+
+  private List<ApolloConfig> fetchBatch(Map<String, String> releaseKeys) {
+    String appId = m_configUtil.getAppId();
+    String cluster = m_configUtil.getCluster();
+    String dataCenter = m_configUtil.getDataCenter();
+    String secret = m_configUtil.getAccessKeySecret();
+    Throwable exception = null;
+
+    List<ServiceDTO> randomConfigServices = Lists.newLinkedList(getConfigServices());
+    Collections.shuffle(randomConfigServices);
+    String url = null;
+    for (ServiceDTO configService : randomConfigServices) {
+      url = assembleBatchQueryConfigUrl(configService.getHomepageUrl(), appId, cluster, dataCenter,
+          releaseKeys);
+
+      logger.debug("Loading configs in batch from {}", url);
+
+      HttpRequest request = new HttpRequest(url);
+      if (!StringUtils.isBlank(secret)) {
+        Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
+        request.setHeaders(headers);
+      }
+
+      Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "queryConfigBatch");
+      transaction.addData("Url", url);
+      try {
+        HttpResponse<List<ApolloConfig>> response = m_httpClient.doGet(request, m_responseType);
+
+        transaction.addData("StatusCode", response.getStatusCode());
+        transaction.setStatus(Transaction.SUCCESS);
+
+        if (response.getStatusCode() == 304 || response.getBody() == null) {
+          return Collections.emptyList();
+        }
+        return response.getBody();
+      } catch (ApolloConfigStatusCodeException ex) {
+        transaction.setStatus(ex);
+        exception = ex;
+        //the config service doesn't provide the batch api
+        if (ex.getStatusCode() == 404 || ex.getStatusCode() == 405) {
+          if (m_batchUnsupported.compareAndSet(false, true)) {
+            logger.info(
+                "Config service doesn't support batch fetch, will load namespaces one by one. appId: {}, cluster: {}",
+                appId, cluster);
+          }
+          break;
+        }
+      } catch (Throwable ex) {
+        transaction.setStatus(ex);
+        exception = ex;
+      } finally {
+        transaction.complete();
+      }
+    }
+    String message = String.format(
+        "Load Apollo Configs in batch failed - appId: %s, cluster: %s, namespaces: %s, url: %s",
+        appId, cluster, STRING_JOINER.join(releaseKeys.keySet()), url);
+    throw new ApolloConfigException(message, exception);
+  }
+
+  String assembleBatchQueryConfigUrl(String uri, String appId, String cluster, String dataCenter,
+      Map<String, String> releaseKeys) {
+    String path = "batch/configs/%s/%s";
+    List<String> pathParams =
+        Lists.newArrayList(pathEscaper.escape(appId), pathEscaper.escape(cluster));
+    Map<String, String> queryParams = Maps.newHashMap();
+    queryParams.put("namespaces", queryParamEscaper.escape(GSON.toJson(releaseKeys)));
+
+    if (!Strings.isNullOrEmpty(dataCenter)) {
+      queryParams.put("dataCenter", queryParamEscaper.escape(dataCenter));
+    }
+
+    String localIp = m_configUtil.getLocalIp();
+    if (!Strings.isNullOrEmpty(localIp)) {
+      queryParams.put("ip", queryParamEscaper.escape(localIp));
+    }
+
+    String label = m_configUtil.getApolloLabel();
+    if (!Strings.isNullOrEmpty(label)) {
+      queryParams.put("label", queryParamEscaper.escape(label));
+    }
+
+    String pathExpanded = String.format(path, pathParams.toArray()) + "?" + MAP_JOINER.join(queryParams);
+    if (!uri.endsWith("/")) {
+      uri += "/";
+    }
+    return uri + pathExpanded;
+  }
+
+  private List<ServiceDTO> getConfigServices() {
+    List<ServiceDTO> services = m_serviceLocator.getConfigServices();
+    if (services.size() == 0) {
+      throw new ApolloConfigException("No available config service");
+    }
+
+    return services;
+  }
+}
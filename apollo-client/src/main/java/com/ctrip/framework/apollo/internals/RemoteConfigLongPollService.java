@@ -120,6 +120,23 @@ public class RemoteConfigLongPollService {
     return added;
   }
 
+  /**
+   * Resume long polling of the namespace from the notification id persisted before, unless a newer
+   * notification is received already.
+   */
+  void restoreNotificationId(String namespace, long notificationId) {
+    m_notifications.replace(namespace, INIT_NOTIFICATION_ID, notificationId);
+  }
+
+  /**
+   * @return the notification id of the namespace, or {@link ConfigConsts#NOTIFICATION_ID_PLACEHOLDER}
+   * if no notification is received yet
+   */
+  long getNotificationId(String namespace) {
+    Long notificationId = m_notifications.get(namespace);
+    return notificationId == null ? INIT_NOTIFICATION_ID : notificationId;
+  }
+
   private void startLongPolling() {
     if (!m_longPollStarted.compareAndSet(false, true)) {
       //already started
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+/**
+ * Schedules the periodic refresh of the remote namespaces on a small bounded pool.
+ * <p>
+ * The namespaces are spread evenly over the refresh interval, starting from a random phase of
+ * this instance, so that neither the namespaces of one instance nor the instances of one app
+ * refresh at the same moment. The config loads after the first one share one token budget, which
+ * is taken without waiting, so that the refresh pool is never blocked by the budget.
+ * <p>
+ * The loads waited for by the callers, e.g. the first load, run on a separate load pool instead, so
+ * that they are neither queued behind nor holding the threads of the periodic refresh.
+ *
+ * @since 2.4.0
+ */
+public class RemoteConfigRefreshScheduler {
+  private static final Logger logger = DeferredLoggerFactory.getLogger(RemoteConfigRefreshScheduler.class);
+  //the offsets of the golden ratio sequence stay evenly spread however many namespaces are added
+  private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+  private final ScheduledThreadPoolExecutor m_executorService;
+  private final ExecutorService m_loadExecutorService;
+  private final RateLimiter m_loadConfigRateLimiter;
+  private final ConfigUtil m_configUtil;
+  private final double m_phase;
+  private final AtomicLong m_scheduledCount;
+
+  /**
+   * Constructor.
+   */
+  public RemoteConfigRefreshScheduler() {
+    m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_executorService = new ScheduledThreadPoolExecutor(m_configUtil.getRefreshThreads(),
+        ApolloThreadFactory.create("RemoteConfigRepository", true));
+    // one thread per waiting caller at most, as the callers are blocked meanwhile
+    m_loadExecutorService = Executors.newCachedThreadPool(
+        ApolloThreadFactory.create("RemoteConfigLoader", true));
+    m_loadConfigRateLimiter = RateLimiter.create(m_configUtil.getRefreshQPS());
+    m_phase = ThreadLocalRandom.current().nextDouble();
+    m_scheduledCount = new AtomicLong();
+  }
+
+  /**
+   * Refresh the namespace periodically, after the interval plus the offset of the namespace.
+   *
+   * @param namespace the namespace
+   * @param refreshTask the task refreshing the namespace
+   * @return the future of the periodic refresh
+   */
+  public ScheduledFuture<?> schedule(String namespace, Runnable refreshTask) {
+    logger.debug("Schedule periodic refresh for namespace: {}", namespace);
+    return schedule(m_configUtil.getRefreshInterval(namespace), refreshTask);
+  }
+
+  /**
+   * Refresh periodically with the given interval, after the interval plus the offset of the task.
+   *
+   * @param interval the refresh interval in {@link ConfigUtil#getRefreshIntervalTimeUnit()}
+   * @param refreshTask the task refreshing the namespaces
+   * @return the future of the periodic refresh
+   */
+  public ScheduledFuture<?> schedule(int interval, Runnable refreshTask) {
+    long intervalInMillis = m_configUtil.getRefreshIntervalTimeUnit().toMillis(interval);
+    long offsetInMillis = nextOffsetInMillis(intervalInMillis);
+    logger.debug("Schedule periodic refresh with interval: {} ms, offset: {} ms", intervalInMillis,
+        offsetInMillis);
+    return m_executorService.scheduleAtFixedRate(refreshTask, intervalInMillis + offsetInMillis,
+        intervalInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Run the task on the refresh pool once after the delay, e.g. a retry.
+   *
+   * @param task the task
+   * @param delay the delay
+   * @param timeUnit the time unit of the delay
+   * @return the future of the task
+   */
+  public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit timeUnit) {
+    return m_executorService.schedule(task, delay, timeUnit);
+  }
+
+  /**
+   * Run the task on the refresh pool.
+   *
+   * @param task the task
+   */
+  public void execute(Runnable task) {
+    m_executorService.execute(task);
+  }
+
+  /**
+   * Run the load waited for by a caller on the load pool.
+   *
+   * @param task the task
+   */
+  public void executeLoad(Runnable task) {
+    m_loadExecutorService.execute(task);
+  }
+
+  /**
+   * Take a token from the budget shared by all namespaces without waiting.
+   *
+   * @return false if no token is available, try again after {@link #getLoadPermitIntervalInMillis()}
+   */
+  public boolean tryAcquireLoadPermit() {
+    return m_loadConfigRateLimiter.tryAcquire();
+  }
+
+  /**
+   * @return the interval between two tokens of the budget in milliseconds
+   */
+  public long getLoadPermitIntervalInMillis() {
+    return Math.max(1, (long) (1000 / m_loadConfigRateLimiter.getRate()));
+  }
+
+  /**
+   * @return the pool running the refresh, for monitoring only
+   */
+  public ThreadPoolExecutor getExecutorService() {
+    return m_executorService;
+  }
+
+  long nextOffsetInMillis(long intervalInMillis) {
+    double fraction = (m_phase + m_scheduledCount.getAndIncrement() * GOLDEN_RATIO_CONJUGATE) % 1;
+    return (long) (fraction * intervalInMillis);
+  }
+}
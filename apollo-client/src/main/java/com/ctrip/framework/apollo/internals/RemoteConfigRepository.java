@@ -24,10 +24,7 @@ import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
-import com.ctrip.framework.apollo.core.schedule.ExponentialSchedulePolicy;
-import com.ctrip.framework.apollo.core.schedule.SchedulePolicy;
 import com.ctrip.framework.apollo.core.signature.Signature;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
@@ -37,6 +34,7 @@ import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import com.ctrip.framework.apollo.util.http.HttpClient;
 import com.ctrip.framework.apollo.util.http.HttpRequest;
 import com.ctrip.framework.apollo.util.http.HttpResponse;
@@ -46,15 +44,17 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.escape.Escaper;
 import com.google.common.net.UrlEscapers;
-import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
@@ -73,21 +73,32 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   private final HttpClient m_httpClient;
   private final ConfigUtil m_configUtil;
   private final RemoteConfigLongPollService remoteConfigLongPollService;
+  /**
+   * null if the configs are not fetched in batches
+   */
+  private final RemoteConfigBatchFetchService m_batchFetchService;
   private volatile AtomicReference<ApolloConfig> m_configCache;
+  /**
+   * the config restored from the local cache, only used to query the config conditionally before
+   * the first load
+   */
+  private final AtomicReference<ApolloConfig> m_localCacheConfig;
   private final String m_namespace;
-  protected final static ScheduledExecutorService m_executorService;
+  private final RemoteConfigRefreshScheduler m_refreshScheduler;
   private final AtomicReference<ServiceDTO> m_longPollServiceDto;
   private final AtomicReference<ApolloNotificationMessages> m_remoteMessages;
-  private final RateLimiter m_loadConfigRateLimiter;
   private final AtomicBoolean m_configNeedForceRefresh;
-  private final SchedulePolicy m_loadConfigFailSchedulePolicy;
+  private final Object m_syncStateLock = new Object();
+  /**
+   * the sync running, null if none, guarded by m_syncStateLock
+   */
+  private CompletableFuture<ApolloConfig> m_runningSync;
+  /**
+   * the sync requested while another one is running, guarded by m_syncStateLock
+   */
+  private CompletableFuture<ApolloConfig> m_pendingSync;
   private static final Gson GSON = new Gson();
 
-  static {
-    m_executorService = Executors.newScheduledThreadPool(1,
-        ApolloThreadFactory.create("RemoteConfigRepository", true));
-  }
-
   /**
    * Constructor.
    *
@@ -96,17 +107,22 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   public RemoteConfigRepository(String namespace) {
     m_namespace = namespace;
     m_configCache = new AtomicReference<>();
+    m_localCacheConfig = new AtomicReference<>();
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
     m_httpClient = ApolloInjector.getInstance(HttpClient.class);
     m_serviceLocator = ApolloInjector.getInstance(ConfigServiceLocator.class);
     remoteConfigLongPollService = ApolloInjector.getInstance(RemoteConfigLongPollService.class);
+    m_batchFetchService = m_configUtil.isBatchFetchEnabled() ?
+        ApolloInjector.getInstance(RemoteConfigBatchFetchService.class) : null;
     m_longPollServiceDto = new AtomicReference<>();
     m_remoteMessages = new AtomicReference<>();
-    m_loadConfigRateLimiter = RateLimiter.create(m_configUtil.getLoadConfigQPS());
+    m_refreshScheduler = ApolloInjector.getInstance(RemoteConfigRefreshScheduler.class);
     m_configNeedForceRefresh = new AtomicBoolean(true);
-    m_loadConfigFailSchedulePolicy = new ExponentialSchedulePolicy(m_configUtil.getOnErrorRetryInterval(),
-        m_configUtil.getOnErrorRetryInterval() * 8);
-    this.schedulePeriodicRefresh();
+    if (m_batchFetchService != null) {
+      m_batchFetchService.submit(m_namespace, this);
+    } else {
+      this.schedulePeriodicRefresh();
+    }
     this.scheduleLongPollingRefresh();
   }
 
@@ -121,59 +137,283 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     return transformApolloConfigToProperties(m_configCache.get());
   }
 
+  @Override
+  public ConfigSnapshot getConfigSnapshot() {
+    if (m_configCache.get() == null) {
+      getConfig();
+    }
+    return transformApolloConfigToSnapshot(m_configCache.get());
+  }
+
   @Override
   public void setUpstreamRepository(ConfigRepository upstreamConfigRepository) {
     //remote config doesn't need upstream
   }
 
+  /**
+   * Restore the release key and the notification id persisted with the local cache, so that the
+   * first load is answered with 304 if the release is not changed, and long polling resumes from
+   * the last known notification instead of the initial one.
+   *
+   * @param properties the cached properties of the release
+   * @param releaseKey the release key of the cached properties
+   * @param notificationId the last known notification id
+   */
+  void restoreFromLocalCache(Properties properties, String releaseKey, long notificationId) {
+    if (m_configCache.get() == null && !Strings.isNullOrEmpty(releaseKey)) {
+      ApolloConfig localCacheConfig = new ApolloConfig(m_configUtil.getAppId(),
+          m_configUtil.getCluster(), m_namespace, releaseKey);
+      Map<String, String> configurations = Maps.newHashMapWithExpectedSize(properties.size());
+      for (String key : properties.stringPropertyNames()) {
+        configurations.put(key, properties.getProperty(key));
+      }
+      localCacheConfig.setConfigurations(configurations);
+      m_localCacheConfig.set(localCacheConfig);
+    }
+    if (notificationId != ConfigConsts.NOTIFICATION_ID_PLACEHOLDER) {
+      remoteConfigLongPollService.restoreNotificationId(m_namespace, notificationId);
+    }
+  }
+
+  /**
+   * @return the notification id of this namespace received by long polling
+   */
+  long getNotificationId() {
+    return remoteConfigLongPollService.getNotificationId(m_namespace);
+  }
+
+  /**
+   * @return the release key of the config held, or null if none
+   */
+  String getReleaseKey() {
+    ApolloConfig config = m_configCache.get();
+    if (config == null) {
+      config = m_localCacheConfig.get();
+    }
+    return config == null ? null : config.getReleaseKey();
+  }
+
+  /**
+   * Apply the config fetched in a batch with the other namespaces.
+   *
+   * @param current the config of this namespace
+   */
+  synchronized void onBatchFetched(ApolloConfig current) {
+    ApolloConfig previous = m_configCache.get();
+    if (previous != null && Objects.equals(previous.getReleaseKey(), current.getReleaseKey())) {
+      return;
+    }
+    logger.debug("Remote Config refreshed in batch!");
+    m_localCacheConfig.set(null);
+    m_configCache.set(current);
+    this.fireRepositoryChange(m_namespace, transformApolloConfigToSnapshot(current));
+    Tracer.logEvent(String.format(APOLLO_CLIENT_CONFIGS+"%s", current.getNamespaceName()),
+        current.getReleaseKey());
+  }
+
   @Override
   public ConfigSourceType getSourceType() {
     return ConfigSourceType.REMOTE;
   }
 
   private void schedulePeriodicRefresh() {
-    logger.debug("Schedule periodic refresh with interval: {} {}",
-        m_configUtil.getRefreshInterval(), m_configUtil.getRefreshIntervalTimeUnit());
-    m_executorService.scheduleAtFixedRate(
+    m_refreshScheduler.schedule(m_namespace,
         new Runnable() {
           @Override
           public void run() {
             Tracer.logEvent(APOLLO_CONFIGSERVICE, String.format("periodicRefresh: %s", m_namespace));
             logger.debug("refresh config for namespace: {}", m_namespace);
-            trySync();
+            trySyncInBackground();
             Tracer.logEvent(APOLLO_CLIENT_VERSION, Apollo.VERSION);
           }
-        }, m_configUtil.getRefreshInterval(), m_configUtil.getRefreshInterval(),
-        m_configUtil.getRefreshIntervalTimeUnit());
+        });
   }
 
+  /**
+   * Sync the config and wait for it, at most the sync timeout, the readers are never blocked as
+   * they get the config synced last.
+   */
   @Override
-  protected synchronized void sync() {
-    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "syncRemoteConfig");
-
+  protected void sync() {
+    long timeoutInMillis = m_configUtil.getSyncTimeoutInMillis();
+    Future<ApolloConfig> future = requestSync(true);
     try {
-      ApolloConfig previous = m_configCache.get();
-      ApolloConfig current = loadApolloConfig();
-
-      //reference equals means HTTP 304
-      if (previous != current) {
-        logger.debug("Remote Config refreshed!");
-        m_configCache.set(current);
-        this.fireRepositoryChange(m_namespace, this.getConfig());
+      future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      throw new ApolloConfigException(
+          String.format("Load Apollo Config failed - namespace: %s", m_namespace), cause);
+    } catch (TimeoutException ex) {
+      Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_TIMEOUT, m_namespace);
+      throw new ApolloConfigException(
+          String.format("Load Apollo Config timeout in %d ms - namespace: %s", timeoutInMillis,
+              m_namespace));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ApolloConfigException(
+          String.format("Load Apollo Config interrupted - namespace: %s", m_namespace), ex);
+    }
+  }
 
-      if (current != null) {
-        Tracer.logEvent(String.format(APOLLO_CLIENT_CONFIGS+"%s", current.getNamespaceName()),
-            current.getReleaseKey());
+  /**
+   * Sync the config without waiting for it, the failure is logged only.
+   */
+  void trySyncInBackground() {
+    requestSync().whenComplete((config, ex) -> {
+      if (ex != null) {
+        Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
+        logger.warn("Sync config failed, will retry. Repository {}, reason: {}", this.getClass(),
+            ExceptionUtil.getDetailMessage(ex));
       }
+    });
+  }
+
+  /**
+   * Request a sync of the config in the background.
+   *
+   * @return the future completed with the config synced
+   * @see #requestSync(boolean)
+   */
+  CompletableFuture<ApolloConfig> requestSync() {
+    return requestSync(false);
+  }
 
+  /**
+   * Request a sync of the config. Only one sync runs at a time, the syncs requested meanwhile are
+   * merged into one which starts after the running one completes, as the config might be released
+   * in between. The retries are scheduled on the refresh pool instead of sleeping.
+   * <p>
+   * The first attempt of a background sync runs in the calling thread if no sync is running. The
+   * one of a waiting caller runs on the load pool, so that the caller gives up after the sync
+   * timeout without holding a refresh thread, and the waiting callers join the running sync as long
+   * as no config is loaded.
+   *
+   * @param waiting whether the caller waits for the sync, e.g. the first load
+   * @return the future completed with the config synced
+   */
+  private CompletableFuture<ApolloConfig> requestSync(boolean waiting) {
+    final CompletableFuture<ApolloConfig> future;
+    synchronized (m_syncStateLock) {
+      if (m_runningSync != null) {
+        if (waiting && m_configCache.get() == null) {
+          return m_runningSync;
+        }
+        if (m_pendingSync == null) {
+          m_pendingSync = new CompletableFuture<>();
+        }
+        return m_pendingSync;
+      }
+      future = new CompletableFuture<>();
+      m_runningSync = future;
+    }
+    if (waiting) {
+      m_refreshScheduler.executeLoad(new Runnable() {
+        @Override
+        public void run() {
+          startSync(future);
+        }
+      });
+    } else {
+      startSync(future);
+    }
+    return future;
+  }
+
+  private void startSync(CompletableFuture<ApolloConfig> future) {
+    int maxAttempts = m_configNeedForceRefresh.get() ? 2 : 1;
+    runSyncAttempt(future, 1, maxAttempts);
+  }
+
+  private void runSyncAttempt(final CompletableFuture<ApolloConfig> future, final int attempt,
+      final int maxAttempts) {
+    //the first load is not limited, so that the startup with many namespaces is not slowed down
+    if (m_configCache.get() != null && !m_refreshScheduler.tryAcquireLoadPermit()) {
+      //not waiting for the budget in the thread, which might be one of the refresh pool
+      m_refreshScheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          runSyncAttempt(future, attempt, maxAttempts);
+        }
+      }, m_refreshScheduler.getLoadPermitIntervalInMillis(), TimeUnit.MILLISECONDS);
+      return;
+    }
+
+    Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "syncRemoteConfig");
+    ApolloConfig current;
+    try {
+      current = loadApolloConfig();
+      applyConfig(current);
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       transaction.setStatus(ex);
-      throw ex;
+      if (attempt < maxAttempts && !isConfigNotFound(ex)) {
+        //only the force refresh is retried, the normal one is done by the next periodic refresh
+        long retryDelay = m_configUtil.getOnErrorRetryInterval();
+        logger.warn("Load config failed, will retry in {} {}. namespace: {}, reason: {}",
+            retryDelay, m_configUtil.getOnErrorRetryIntervalTimeUnit(), m_namespace,
+            ExceptionUtil.getDetailMessage(ex));
+        m_refreshScheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            runSyncAttempt(future, attempt + 1, maxAttempts);
+          }
+        }, retryDelay, m_configUtil.getOnErrorRetryIntervalTimeUnit());
+      } else {
+        completeSync(future, null, ex);
+      }
+      return;
     } finally {
       transaction.complete();
     }
+    completeSync(future, current, null);
+  }
+
+  private void completeSync(CompletableFuture<ApolloConfig> future, ApolloConfig config,
+      Throwable ex) {
+    final CompletableFuture<ApolloConfig> next;
+    synchronized (m_syncStateLock) {
+      next = m_pendingSync;
+      m_pendingSync = null;
+      m_runningSync = next;
+    }
+    if (ex == null) {
+      future.complete(config);
+    } else {
+      future.completeExceptionally(ex);
+    }
+    if (next != null) {
+      //not in the calling thread, which might be waiting for the sync completed
+      m_refreshScheduler.execute(new Runnable() {
+        @Override
+        public void run() {
+          startSync(next);
+        }
+      });
+    }
+  }
+
+  private synchronized void applyConfig(ApolloConfig current) {
+    m_localCacheConfig.set(null);
+
+    //reference equals means HTTP 304
+    if (m_configCache.get() != current) {
+      logger.debug("Remote Config refreshed!");
+      m_configCache.set(current);
+      this.fireRepositoryChange(m_namespace, transformApolloConfigToSnapshot(current));
+    }
+
+    if (current != null) {
+      Tracer.logEvent(String.format(APOLLO_CLIENT_CONFIGS+"%s", current.getNamespaceName()),
+          current.getReleaseKey());
+    }
+  }
+
+  private boolean isConfigNotFound(Throwable ex) {
+    return ex.getCause() instanceof ApolloConfigStatusCodeException
+        && ((ApolloConfigStatusCodeException) ex.getCause()).getStatusCode() == 404;
   }
 
   private Properties transformApolloConfigToProperties(ApolloConfig apolloConfig) {
@@ -182,12 +422,18 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     return result;
   }
 
+  private ConfigSnapshot transformApolloConfigToSnapshot(ApolloConfig apolloConfig) {
+    return new ConfigSnapshot(ImmutableProperties.copyOf(apolloConfig.getConfigurations()),
+        apolloConfig.getReleaseKey());
+  }
+
   private ApolloConfig loadApolloConfig() {
-    if (!m_loadConfigRateLimiter.tryAcquire(5, TimeUnit.SECONDS)) {
-      //wait at most 5 seconds
-      try {
-        TimeUnit.SECONDS.sleep(5);
-      } catch (InterruptedException e) {
+    if (m_batchFetchService != null && m_configCache.get() == null) {
+      ApolloConfig prefetched = m_batchFetchService.takePrefetchedConfig(m_namespace);
+      if (prefetched != null) {
+        logger.debug("Loaded prefetched config for {}: {}", m_namespace, prefetched);
+        m_configNeedForceRefresh.set(false);
+        return prefetched;
       }
     }
     String appId = m_configUtil.getAppId();
@@ -195,98 +441,79 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
     String dataCenter = m_configUtil.getDataCenter();
     String secret = m_configUtil.getAccessKeySecret();
     Tracer.logEvent(APOLLO_CLIENT_CONFIGMETA, STRING_JOINER.join(appId, cluster, m_namespace));
-    int maxRetries = m_configNeedForceRefresh.get() ? 2 : 1;
-    long onErrorSleepTime = 0; // 0 means no sleep
     Throwable exception = null;
 
-    List<ServiceDTO> configServices = getConfigServices();
+    List<ServiceDTO> randomConfigServices = Lists.newLinkedList(getConfigServices());
+    Collections.shuffle(randomConfigServices);
+    //Access the server which notifies the client first
+    if (m_longPollServiceDto.get() != null) {
+      randomConfigServices.add(0, m_longPollServiceDto.getAndSet(null));
+    }
+
     String url = null;
-    retryLoopLabel:
-    for (int i = 0; i < maxRetries; i++) {
-      List<ServiceDTO> randomConfigServices = Lists.newLinkedList(configServices);
-      Collections.shuffle(randomConfigServices);
-      //Access the server which notifies the client first
-      if (m_longPollServiceDto.get() != null) {
-        randomConfigServices.add(0, m_longPollServiceDto.getAndSet(null));
+    for (ServiceDTO configService : randomConfigServices) {
+      ApolloConfig previousConfig = m_configCache.get();
+      if (previousConfig == null) {
+        previousConfig = m_localCacheConfig.get();
       }
+      url = assembleQueryConfigUrl(configService.getHomepageUrl(), appId, cluster, m_namespace,
+              dataCenter, m_remoteMessages.get(), previousConfig);
 
-      for (ServiceDTO configService : randomConfigServices) {
-        if (onErrorSleepTime > 0) {
-          logger.warn(
-              "Load config failed, will retry in {} {}. appId: {}, cluster: {}, namespaces: {}",
-              onErrorSleepTime, m_configUtil.getOnErrorRetryIntervalTimeUnit(), appId, cluster, m_namespace);
+      logger.debug("Loading config from {}", url);
 
-          try {
-            m_configUtil.getOnErrorRetryIntervalTimeUnit().sleep(onErrorSleepTime);
-          } catch (InterruptedException e) {
-            //ignore
-          }
-        }
+      HttpRequest request = new HttpRequest(url);
+      if (!StringUtils.isBlank(secret)) {
+        Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
+        request.setHeaders(headers);
+      }
 
-        url = assembleQueryConfigUrl(configService.getHomepageUrl(), appId, cluster, m_namespace,
-                dataCenter, m_remoteMessages.get(), m_configCache.get());
+      Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "queryConfig");
+      transaction.addData("Url", url);
+      try {
+
+        HttpResponse<ApolloConfig> response = m_httpClient.doGet(request, ApolloConfig.class);
+        m_configNeedForceRefresh.set(false);
 
-        logger.debug("Loading config from {}", url);
+        transaction.addData("StatusCode", response.getStatusCode());
+        transaction.setStatus(Transaction.SUCCESS);
 
-        HttpRequest request = new HttpRequest(url);
-        if (!StringUtils.isBlank(secret)) {
-          Map<String, String> headers = Signature.buildHttpHeaders(url, appId, secret);
-          request.setHeaders(headers);
+        if (response.getStatusCode() == 304) {
+          logger.debug("Config server responds with 304 HTTP status code.");
+          // the config restored from the local cache is still the latest release
+          return previousConfig;
         }
 
-        Transaction transaction = Tracer.newTransaction("Apollo.ConfigService", "queryConfig");
-        transaction.addData("Url", url);
-        try {
+        ApolloConfig result = response.getBody();
 
-          HttpResponse<ApolloConfig> response = m_httpClient.doGet(request, ApolloConfig.class);
-          m_configNeedForceRefresh.set(false);
-          m_loadConfigFailSchedulePolicy.success();
+        logger.debug("Loaded config for {}: {}", m_namespace, result);
 
-          transaction.addData("StatusCode", response.getStatusCode());
-          transaction.setStatus(Transaction.SUCCESS);
+        return result;
+      } catch (ApolloConfigStatusCodeException ex) {
+        ApolloConfigStatusCodeException statusCodeException = ex;
+        //config not found
+        if (ex.getStatusCode() == 404) {
+          String message = String.format(
+              "Could not find config for namespace - appId: %s, cluster: %s, namespace: %s, " +
+                  "please check whether the configs are released in Apollo!",
+              appId, cluster, m_namespace);
+          statusCodeException = new ApolloConfigStatusCodeException(ex.getStatusCode(),
+              message);
+          Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_NOT_FOUND,m_namespace);
 
-          if (response.getStatusCode() == 304) {
-            logger.debug("Config server responds with 304 HTTP status code.");
-            return m_configCache.get();
-          }
-
-          ApolloConfig result = response.getBody();
-
-          logger.debug("Loaded config for {}: {}", m_namespace, result);
-
-          return result;
-        } catch (ApolloConfigStatusCodeException ex) {
-          ApolloConfigStatusCodeException statusCodeException = ex;
-          //config not found
-          if (ex.getStatusCode() == 404) {
-            String message = String.format(
-                "Could not find config for namespace - appId: %s, cluster: %s, namespace: %s, " +
-                    "please check whether the configs are released in Apollo!",
-                appId, cluster, m_namespace);
-            statusCodeException = new ApolloConfigStatusCodeException(ex.getStatusCode(),
-                message);
-            Tracer.logEvent(APOLLO_CLIENT_NAMESPACE_NOT_FOUND,m_namespace);
-            
-          }
-          Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(statusCodeException));
-          transaction.setStatus(statusCodeException);
-          exception = statusCodeException;
-          if(ex.getStatusCode() == 404) {
-            break retryLoopLabel;
-          }
-        } catch (Throwable ex) {
-          Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
-          transaction.setStatus(ex);
-          exception = ex;
-        } finally {
-          transaction.complete();
         }
-
-        // if force refresh, do normal sleep, if normal config load, do exponential sleep
-        onErrorSleepTime = m_configNeedForceRefresh.get() ? m_configUtil.getOnErrorRetryInterval() :
-            m_loadConfigFailSchedulePolicy.fail();
+        Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(statusCodeException));
+        transaction.setStatus(statusCodeException);
+        exception = statusCodeException;
+        if(ex.getStatusCode() == 404) {
+          break;
+        }
+      } catch (Throwable ex) {
+        Tracer.logEvent(APOLLO_CONFIG_EXCEPTION, ExceptionUtil.getDetailMessage(ex));
+        transaction.setStatus(ex);
+        exception = ex;
+      } finally {
+        transaction.complete();
       }
-
     }
     String message = String.format(
         "Load Apollo Config failed - appId: %s, cluster: %s, namespace: %s, url: %s",
@@ -343,11 +570,11 @@ public class RemoteConfigRepository extends AbstractConfigRepository {
   public void onLongPollNotified(ServiceDTO longPollNotifiedServiceDto, ApolloNotificationMessages remoteMessages) {
     m_longPollServiceDto.set(longPollNotifiedServiceDto);
     m_remoteMessages.set(remoteMessages);
-    m_executorService.submit(new Runnable() {
+    m_refreshScheduler.execute(new Runnable() {
       @Override
       public void run() {
         m_configNeedForceRefresh.set(true);
-        trySync();
+        trySyncInBackground();
       }
     });
   }
@@ -16,6 +16,8 @@
  */
 package com.ctrip.framework.apollo.internals;
 
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import java.util.Properties;
 
 /**
@@ -28,4 +30,18 @@ public interface RepositoryChangeListener {
    * @param newProperties the properties after change
    */
   void onRepositoryChange(String namespace, Properties newProperties);
+
+  /**
+   * Invoked when config repository changes, the snapshot is shared with the repository and other
+   * listeners. Listeners not aware of snapshots receive a copy of the properties.
+   * @param namespace the namespace of this repository change
+   * @param newSnapshot the config snapshot after change
+   * @since 2.4.0
+   */
+  default void onRepositoryChange(String namespace, ConfigSnapshot newSnapshot) {
+    Properties newProperties = ApolloInjector.getInstance(PropertiesFactory.class)
+        .getPropertiesInstance();
+    newProperties.putAll(newSnapshot.getProperties());
+    onRepositoryChange(namespace, newProperties);
+  }
 }
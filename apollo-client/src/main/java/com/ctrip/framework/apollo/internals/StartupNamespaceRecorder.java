@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.core.utils.DeferredLoggerFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.ExceptionUtil;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+
+/**
+ * Records the namespaces accessed during this boot in a file along with the local cache, so that
+ * the next boot could preload them in parallel.
+ */
+class StartupNamespaceRecorder {
+  private static final Logger logger = DeferredLoggerFactory.getLogger(
+      StartupNamespaceRecorder.class);
+  private final File m_file;
+  private final Set<String> m_accessedNamespaces = Sets.newConcurrentHashSet();
+
+  StartupNamespaceRecorder(File file) {
+    m_file = file;
+  }
+
+  /**
+   * @return the namespaces accessed during the previous boot
+   */
+  Set<String> loadPreviousNamespaces() {
+    if (!m_file.isFile()) {
+      return Collections.emptySet();
+    }
+    try {
+      Set<String> namespaces = Sets.newLinkedHashSet();
+      for (String line : Files.readAllLines(m_file.toPath(), StandardCharsets.UTF_8)) {
+        String namespace = line.trim();
+        if (!namespace.isEmpty()) {
+          namespaces.add(namespace);
+        }
+      }
+      return namespaces;
+    } catch (IOException ex) {
+      Tracer.logError(ex);
+      logger.warn("Load startup namespaces from {} failed, reason: {}", m_file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+      return Collections.emptySet();
+    }
+  }
+
+  /**
+   * @return true if the namespace is not accessed before during this boot
+   */
+  boolean record(String namespace) {
+    return m_accessedNamespaces.add(namespace);
+  }
+
+  synchronized void persist() {
+    List<String> namespaces = Lists.newArrayList(m_accessedNamespaces);
+    try {
+      Files.createDirectories(m_file.getParentFile().toPath());
+      Files.write(m_file.toPath(), namespaces, StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      Tracer.logError(ex);
+      logger.warn("Persist startup namespaces to {} failed, reason: {}", m_file.getAbsolutePath(),
+          ExceptionUtil.getDetailMessage(ex));
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only view of the properties with a specific key prefix, keys are relative to the prefix.
+ *
+ * @see Config#subset(String)
+ */
+public class SubsetConfig extends AbstractConfig {
+
+  private final Config m_parent;
+  private final String m_prefix;
+  private volatile PropertyNames m_propertyNames;
+
+  /**
+   * The view of an {@link AbstractConfig}, which refreshes the view by
+   * {@link #applyParentChange(ConfigChangeEvent)} and notifies its listeners by
+   * {@link #publishParentChange(ConfigChangeEvent)}.
+   */
+  SubsetConfig(Config parent, String prefix) {
+    m_parent = parent;
+    m_prefix = prefix;
+  }
+
+  /**
+   * Create the view of a config which doesn't manage its views, e.g. a third-party one, the view is
+   * notified by a change listener of the prefix.
+   *
+   * @param parent the config
+   * @param prefix the key prefix
+   * @return the subset view
+   */
+  public static Config of(Config parent, String prefix) {
+    final SubsetConfig subset = new SubsetConfig(parent, prefix);
+    parent.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        subset.onParentChange(changeEvent);
+      }
+    }, null, Collections.singleton(prefix));
+    return subset;
+  }
+
+  @Override
+  public String getProperty(String key, String defaultValue) {
+    return m_parent.getProperty(m_prefix + key, defaultValue);
+  }
+
+  /**
+   * The relative property names are built once per parent config version, like the sorted index of
+   * the parent.
+   */
+  @Override
+  public Set<String> getPropertyNames() {
+    if (!(m_parent instanceof AbstractConfig)) {
+      return stripPrefix(sortedPropertyNamesWithPrefix(m_parent.getPropertyNames()));
+    }
+
+    AbstractConfig parent = (AbstractConfig) m_parent;
+    long parentVersion = parent.getVersion();
+    PropertyNames propertyNames = m_propertyNames;
+
+    if (propertyNames == null || propertyNames.m_parentVersion != parentVersion) {
+      m_propertyNames = propertyNames = new PropertyNames(parentVersion,
+          stripPrefix(parent.getSortedPropertyNames(m_prefix)));
+    }
+
+    return propertyNames.m_names;
+  }
+
+  private List<String> sortedPropertyNamesWithPrefix(Set<String> parentPropertyNames) {
+    List<String> keys = Lists.newArrayList();
+    for (String key : parentPropertyNames) {
+      if (key.startsWith(m_prefix)) {
+        keys.add(key);
+      }
+    }
+    Collections.sort(keys);
+    return keys;
+  }
+
+  private Set<String> stripPrefix(List<String> keys) {
+    if (keys.isEmpty()) {
+      return Collections.emptySet();
+    }
+    Set<String> propertyNames = Sets.newLinkedHashSetWithExpectedSize(keys.size());
+    for (String key : keys) {
+      propertyNames.add(key.substring(m_prefix.length()));
+    }
+    return Collections.unmodifiableSet(propertyNames);
+  }
+
+  @Override
+  public ConfigSourceType getSourceType() {
+    return m_parent.getSourceType();
+  }
+
+  String getPrefix() {
+    return m_prefix;
+  }
+
+  /**
+   * Invoked by the config which doesn't manage its views, applies and publishes the change at once.
+   */
+  CompletableFuture<Void> onParentChange(ConfigChangeEvent changeEvent) {
+    applyParentChange(changeEvent);
+    return publishParentChange(changeEvent);
+  }
+
+  /**
+   * Invoked by the parent config synchronously when the change is applied, so that the typed caches,
+   * property handles and bindings of this view are refreshed before the parent config change returns.
+   */
+  void applyParentChange(ConfigChangeEvent changeEvent) {
+    Map<String, ConfigChange> changes = toRelativeChanges(changeEvent);
+    if (changes == null) {
+      return;
+    }
+
+    clearConfigCache();
+    this.applyConfigChange(new ConfigChangeEvent(changeEvent.getNamespace(), changes));
+  }
+
+  /**
+   * Invoked by the parent config when the change is published to the listeners, which may be later
+   * than it is applied, e.g. when the changes are debounced.
+   */
+  CompletableFuture<Void> publishParentChange(ConfigChangeEvent changeEvent) {
+    Map<String, ConfigChange> changes = toRelativeChanges(changeEvent);
+    if (changes == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return this.publishConfigChange(changeEvent.getNamespace(), changes);
+  }
+
+  /**
+   * @return the changes of the keys with the prefix, keyed by the relative keys, or null if none
+   */
+  private Map<String, ConfigChange> toRelativeChanges(ConfigChangeEvent changeEvent) {
+    Map<String, ConfigChange> changes = null;
+    for (String changedKey : changeEvent.changedKeys()) {
+      if (!changedKey.startsWith(m_prefix)) {
+        continue;
+      }
+      if (changes == null) {
+        changes = Maps.newHashMap();
+      }
+      ConfigChange change = changeEvent.getChange(changedKey);
+      String key = changedKey.substring(m_prefix.length());
+      changes.put(key, new ConfigChange(change.getNamespace(), key, change.getOldValue(),
+          change.getNewValue(), change.getChangeType()));
+    }
+    return changes;
+  }
+
+  private static class PropertyNames {
+    private final long m_parentVersion;
+    private final Set<String> m_names;
+
+    PropertyNames(long parentVersion, Set<String> names) {
+      m_parentVersion = parentVersion;
+      m_names = names;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The net changes of a namespace's config between two config versions.
+ *
+ * @since 2.4.0
+ */
+public class VersionedConfigChanges {
+  private final long m_fromVersion;
+  private final long m_version;
+  private final boolean m_fullReloadRequired;
+  private final Map<String, ConfigChange> m_changes;
+
+  /**
+   * Constructor.
+   * @param fromVersion the config version the changes are calculated from
+   * @param version the config version the changes lead to
+   * @param fullReloadRequired whether the changes are no longer known
+   * @param changes the net changes
+   */
+  public VersionedConfigChanges(long fromVersion, long version, boolean fullReloadRequired,
+      Map<String, ConfigChange> changes) {
+    this.m_fromVersion = fromVersion;
+    this.m_version = version;
+    this.m_fullReloadRequired = fullReloadRequired;
+    this.m_changes = changes;
+  }
+
+  /**
+   * Create the changes telling the caller to reload the whole config, e.g. when the changes since
+   * the from version are evicted from the journal.
+   */
+  public static VersionedConfigChanges fullReload(long fromVersion, long version) {
+    return new VersionedConfigChanges(fromVersion, version, true,
+        Collections.<String, ConfigChange>emptyMap());
+  }
+
+  /**
+   * Get the config version the changes are calculated from.
+   * @return the from version
+   */
+  public long getFromVersion() {
+    return m_fromVersion;
+  }
+
+  /**
+   * Get the config version the changes lead to, which could be passed to the next query.
+   * @return the version
+   */
+  public long getVersion() {
+    return m_version;
+  }
+
+  /**
+   * Check whether the changes since the from version are unknown, then the caller should reload
+   * the whole config instead of applying the changes.
+   * @return true if a full reload is required, false otherwise.
+   */
+  public boolean isFullReloadRequired() {
+    return m_fullReloadRequired;
+  }
+
+  /**
+   * Get the keys changed.
+   * @return the list of the keys
+   */
+  public Set<String> changedKeys() {
+    return m_changes.keySet();
+  }
+
+  /**
+   * Get a specific change instance for the key specified.
+   * @param key the changed key
+   * @return the change instance
+   */
+  public ConfigChange getChange(String key) {
+    return m_changes.get(key);
+  }
+
+  /**
+   * Check whether the specified key is changed
+   * @param key the key
+   * @return true if the key is changed, false otherwise.
+   */
+  public boolean isChanged(String key) {
+    return m_changes.containsKey(key);
+  }
+}
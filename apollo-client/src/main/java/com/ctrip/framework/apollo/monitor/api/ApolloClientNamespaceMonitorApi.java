@@ -28,6 +28,8 @@ public interface ApolloClientNamespaceMonitorApi {
 
   /**
    * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey
+   * 5.latestApplySpend 6.startupSource 7.startupCacheAge 8.latestCachePersistLag
+   * 9.cachePersistFailureCount
    */
   Map<String, NamespaceMetrics> getNamespaceMetrics();
 
@@ -51,6 +53,11 @@ public interface ApolloClientNamespaceMonitorApi {
 
     private AtomicInteger usageCount = new AtomicInteger(0);
     private long firstLoadTimeSpendInMs;
+    private long latestApplyTimeSpendInMs;
+    private String startupSource = "";
+    private long startupCacheAgeInMs;
+    private long latestCachePersistLagInMs;
+    private AtomicInteger cachePersistFailureCount = new AtomicInteger(0);
     private LocalDateTime latestUpdateTime = LocalDateTime.now();
     private String releaseKey = "";
 
@@ -78,6 +85,46 @@ public interface ApolloClientNamespaceMonitorApi {
       this.firstLoadTimeSpendInMs = firstLoadTimeSpendInMs;
     }
 
+    public long getLatestApplyTimeSpendInMs() {
+      return latestApplyTimeSpendInMs;
+    }
+
+    public void setLatestApplyTimeSpendInMs(long latestApplyTimeSpendInMs) {
+      this.latestApplyTimeSpendInMs = latestApplyTimeSpendInMs;
+    }
+
+    public String getStartupSource() {
+      return startupSource;
+    }
+
+    public void setStartupSource(String startupSource) {
+      this.startupSource = startupSource;
+    }
+
+    public long getStartupCacheAgeInMs() {
+      return startupCacheAgeInMs;
+    }
+
+    public void setStartupCacheAgeInMs(long startupCacheAgeInMs) {
+      this.startupCacheAgeInMs = startupCacheAgeInMs;
+    }
+
+    public long getLatestCachePersistLagInMs() {
+      return latestCachePersistLagInMs;
+    }
+
+    public void setLatestCachePersistLagInMs(long latestCachePersistLagInMs) {
+      this.latestCachePersistLagInMs = latestCachePersistLagInMs;
+    }
+
+    public int getCachePersistFailureCount() {
+      return cachePersistFailureCount.get();
+    }
+
+    public void incrementCachePersistFailureCount() {
+      cachePersistFailureCount.incrementAndGet();
+    }
+
     public LocalDateTime getLatestUpdateTime() {
       return latestUpdateTime;
     }
@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.monitor.api;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -30,7 +31,7 @@ public interface ApolloClientThreadPoolMonitorApi {
   Map<String, ApolloThreadPoolInfo> getThreadPoolInfo();
 
   /**
-   * RemoteConfigRepository.m_executorService
+   * RemoteConfigRefreshScheduler.m_executorService
    */
   ApolloThreadPoolInfo getRemoteConfigRepositoryThreadPoolInfo();
 
@@ -49,6 +50,21 @@ public interface ApolloClientThreadPoolMonitorApi {
    */
   ApolloThreadPoolInfo getMetricsExporterThreadPoolInfo();
 
+  /**
+   * get change listener dispatch info key "AbstractConfig","AbstractConfigFile";
+   */
+  default Map<String, ApolloListenerDispatchInfo> getListenerDispatchInfo() {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * get change listener execution time info key "AbstractConfig","AbstractConfigFile", then the
+   * listener class name;
+   */
+  default Map<String, Map<String, ApolloListenerLatencyInfo>> getListenerLatencyInfo() {
+    return Collections.emptyMap();
+  }
+
 
   class ApolloThreadPoolInfo {
 
@@ -99,4 +115,107 @@ public interface ApolloClientThreadPoolMonitorApi {
     }
 
   }
+
+  class ApolloListenerDispatchInfo {
+
+    private int pendingEventCount;
+    private long maxPendingEventLagInMs;
+    private int activeListenerCount;
+    private long dispatchedEventCount;
+    private long coalescedEventCount;
+
+    public ApolloListenerDispatchInfo(int pendingEventCount, long maxPendingEventLagInMs,
+        int activeListenerCount, long dispatchedEventCount, long coalescedEventCount) {
+      this.pendingEventCount = pendingEventCount;
+      this.maxPendingEventLagInMs = maxPendingEventLagInMs;
+      this.activeListenerCount = activeListenerCount;
+      this.dispatchedEventCount = dispatchedEventCount;
+      this.coalescedEventCount = coalescedEventCount;
+    }
+
+    public ApolloListenerDispatchInfo() {
+    }
+
+    /**
+     * the number of the change events waiting for the listeners
+     */
+    public int getPendingEventCount() {
+      return pendingEventCount;
+    }
+
+    /**
+     * how long the oldest pending change event has been waiting
+     */
+    public long getMaxPendingEventLagInMs() {
+      return maxPendingEventLagInMs;
+    }
+
+    /**
+     * the number of the listeners with change events in progress or pending
+     */
+    public int getActiveListenerCount() {
+      return activeListenerCount;
+    }
+
+    public long getDispatchedEventCount() {
+      return dispatchedEventCount;
+    }
+
+    /**
+     * the number of the change events merged into their next events of the same listener
+     */
+    public long getCoalescedEventCount() {
+      return coalescedEventCount;
+    }
+  }
+
+  class ApolloListenerLatencyInfo {
+
+    private long invocationCount;
+    private long totalTimeInMs;
+    private long maxTimeInMs;
+    private long p50TimeInMs;
+    private long p90TimeInMs;
+    private long p99TimeInMs;
+
+    public ApolloListenerLatencyInfo(long invocationCount, long totalTimeInMs, long maxTimeInMs,
+        long p50TimeInMs, long p90TimeInMs, long p99TimeInMs) {
+      this.invocationCount = invocationCount;
+      this.totalTimeInMs = totalTimeInMs;
+      this.maxTimeInMs = maxTimeInMs;
+      this.p50TimeInMs = p50TimeInMs;
+      this.p90TimeInMs = p90TimeInMs;
+      this.p99TimeInMs = p99TimeInMs;
+    }
+
+    public ApolloListenerLatencyInfo() {
+    }
+
+    public long getInvocationCount() {
+      return invocationCount;
+    }
+
+    public long getTotalTimeInMs() {
+      return totalTimeInMs;
+    }
+
+    public long getMaxTimeInMs() {
+      return maxTimeInMs;
+    }
+
+    /**
+     * the percentiles are the upper bounds of the histogram buckets they fall in
+     */
+    public long getP50TimeInMs() {
+      return p50TimeInMs;
+    }
+
+    public long getP90TimeInMs() {
+      return p90TimeInMs;
+    }
+
+    public long getP99TimeInMs() {
+      return p99TimeInMs;
+    }
+  }
 }
@@ -29,6 +29,7 @@ public class ApolloClientMonitorConstant {
   public static final String TIMESTAMP = "timestamp";
   public static final String THROWABLE = "throwable";
   public static final String NAMESPACE_RELEASE_KEY = "releaseKey";
+  public static final String NAMESPACE_STARTUP_SOURCE = "startupSource";
   public static final String ENV = "env";
   public static final String VERSION = "version";
   public static final String META_FRESH = "metaFreshTime";
@@ -50,6 +51,11 @@ public class ApolloClientMonitorConstant {
   public static final String APOLLO_CLIENT_NAMESPACE_TIMEOUT = "Apollo.Client.NamespaceTimeout";
   public static final String APOLLO_CLIENT_NAMESPACE_USAGE = "Apollo.Client.NamespaceUsage";
   public static final String APOLLO_CLIENT_NAMESPACE_FIRST_LOAD_SPEND = "Apollo.Client.NamespaceFirstLoadSpendTime";
+  public static final String APOLLO_CLIENT_NAMESPACE_APPLY_SPEND = "Apollo.Client.NamespaceApplySpendTime";
+  public static final String APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE = "Apollo.Client.NamespaceStartupSource";
+  public static final String APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE = "Apollo.Client.NamespaceStartupCacheAge";
+  public static final String APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG = "Apollo.Client.NamespaceCachePersistLag";
+  public static final String APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE = "Apollo.Client.NamespaceCachePersistFailure";
 
   /**
    * listener tag
@@ -66,6 +72,11 @@ public class ApolloClientMonitorConstant {
   public static final String METRICS_NAMESPACE_ITEM_NUM = "apollo_client_namespace_item_num";
   public static final String METRICS_EXCEPTION_NUM = "apollo_client_exception_num";
   public static final String METRICS_NAMESPACE_FIRST_LOAD_SPEND = "apollo_client_namespace_first_load_time_spend_in_ms";
+  public static final String METRICS_NAMESPACE_APPLY_SPEND = "apollo_client_namespace_latest_apply_time_spend_in_ms";
+  public static final String METRICS_NAMESPACE_STARTUP_SOURCE = "startup_source";
+  public static final String METRICS_NAMESPACE_STARTUP_CACHE_AGE = "apollo_client_namespace_startup_cache_age_in_ms";
+  public static final String METRICS_NAMESPACE_CACHE_PERSIST_LAG = "apollo_client_namespace_cache_persist_lag_in_ms";
+  public static final String METRICS_NAMESPACE_CACHE_PERSIST_FAILURE = "apollo_client_namespace_cache_persist_failure";
   public static final String METRICS_NAMESPACE_USAGE = "apollo_client_namespace_usage";
   public static final String METRICS_NAMESPACE_NOT_FOUND = "apollo_client_namespace_not_found";
   public static final String METRICS_NAMESPACE_TIMEOUT = "apollo_client_namespace_timeout";
@@ -79,4 +90,15 @@ public class ApolloClientMonitorConstant {
   public static final String METRICS_THREAD_POOL_MAXIMUM_POOL_SIZE = "apollo_client_thread_pool_maximum_pool_size";
   public static final String METRICS_THREAD_POOL_LARGEST_POOL_SIZE = "apollo_client_thread_pool_largest_pool_size";
   public static final String METRICS_THREAD_POOL_QUEUE_REMAINING_CAPACITY = "apollo_client_thread_pool_queue_remaining_capacity";
+  public static final String METRICS_LISTENER_DISPATCH_PENDING_EVENT_COUNT = "apollo_client_listener_dispatch_pending_event_count";
+  public static final String METRICS_LISTENER_DISPATCH_MAX_PENDING_EVENT_LAG = "apollo_client_listener_dispatch_max_pending_event_lag_in_ms";
+  public static final String METRICS_LISTENER_DISPATCH_ACTIVE_LISTENER_COUNT = "apollo_client_listener_dispatch_active_listener_count";
+  public static final String METRICS_LISTENER_DISPATCH_DISPATCHED_EVENT_COUNT = "apollo_client_listener_dispatch_dispatched_event_count";
+  public static final String METRICS_LISTENER_DISPATCH_COALESCED_EVENT_COUNT = "apollo_client_listener_dispatch_coalesced_event_count";
+  public static final String METRICS_LISTENER_CLASS = "listener_class";
+  public static final String METRICS_LISTENER_EXECUTION_TIME_BUCKET_BOUND = "le";
+  public static final String METRICS_LISTENER_EXECUTION_TIME_BUCKET = "apollo_client_listener_execution_time_in_ms_bucket";
+  public static final String METRICS_LISTENER_EXECUTION_TIME_COUNT = "apollo_client_listener_execution_time_in_ms_count";
+  public static final String METRICS_LISTENER_EXECUTION_TIME_SUM = "apollo_client_listener_execution_time_in_ms_sum";
+  public static final String METRICS_LISTENER_EXECUTION_TIME_MAX = "apollo_client_listener_execution_time_in_ms_max";
 }
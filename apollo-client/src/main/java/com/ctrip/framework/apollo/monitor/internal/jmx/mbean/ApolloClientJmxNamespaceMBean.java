@@ -30,6 +30,8 @@ public interface ApolloClientJmxNamespaceMBean {
 
   /**
    * NamespaceMetrics: 1.usageCount 2.firstLoadSpend 3.latestUpdateTime 4.releaseKey
+   * 5.latestApplySpend 6.startupSource 7.startupCacheAge 8.latestCachePersistLag
+   * 9.cachePersistFailureCount
    */
   Map<String, NamespaceMetricsString> getNamespaceMetricsString();
 
@@ -53,6 +55,11 @@ public interface ApolloClientJmxNamespaceMBean {
 
     private int usageCount;
     private long firstLoadTimeSpendInMs;
+    private long latestApplyTimeSpendInMs;
+    private String startupSource = "";
+    private long startupCacheAgeInMs;
+    private long latestCachePersistLagInMs;
+    private int cachePersistFailureCount;
     private String latestUpdateTime;
     private String releaseKey = "";
 
@@ -72,6 +79,46 @@ public interface ApolloClientJmxNamespaceMBean {
       this.firstLoadTimeSpendInMs = firstLoadTimeSpendInMs;
     }
 
+    public long getLatestApplyTimeSpendInMs() {
+      return latestApplyTimeSpendInMs;
+    }
+
+    public void setLatestApplyTimeSpendInMs(long latestApplyTimeSpendInMs) {
+      this.latestApplyTimeSpendInMs = latestApplyTimeSpendInMs;
+    }
+
+    public String getStartupSource() {
+      return startupSource;
+    }
+
+    public void setStartupSource(String startupSource) {
+      this.startupSource = startupSource;
+    }
+
+    public long getStartupCacheAgeInMs() {
+      return startupCacheAgeInMs;
+    }
+
+    public void setStartupCacheAgeInMs(long startupCacheAgeInMs) {
+      this.startupCacheAgeInMs = startupCacheAgeInMs;
+    }
+
+    public long getLatestCachePersistLagInMs() {
+      return latestCachePersistLagInMs;
+    }
+
+    public void setLatestCachePersistLagInMs(long latestCachePersistLagInMs) {
+      this.latestCachePersistLagInMs = latestCachePersistLagInMs;
+    }
+
+    public int getCachePersistFailureCount() {
+      return cachePersistFailureCount;
+    }
+
+    public void setCachePersistFailureCount(int cachePersistFailureCount) {
+      this.cachePersistFailureCount = cachePersistFailureCount;
+    }
+
     public String getLatestUpdateTime() {
       return latestUpdateTime;
     }
@@ -97,6 +97,21 @@ public class DefaultApolloClientNamespaceApi extends
       case APOLLO_CLIENT_NAMESPACE_FIRST_LOAD_SPEND:
         handleFirstLoadSpendEvent(event, namespaceMetrics);
         break;
+      case APOLLO_CLIENT_NAMESPACE_APPLY_SPEND:
+        handleApplySpendEvent(event, namespaceMetrics);
+        break;
+      case APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE:
+        handleStartupSourceEvent(event, namespaceMetrics);
+        break;
+      case APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE:
+        handleStartupCacheAgeEvent(event, namespaceMetrics);
+        break;
+      case APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG:
+        handleCachePersistLagEvent(event, namespaceMetrics);
+        break;
+      case APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE:
+        handleCachePersistFailureEvent(namespaceMetrics, namespace);
+        break;
       case NAMESPACE_RELEASE_KEY:
         handleReleaseKeyEvent(event, namespaceMetrics);
         break;
@@ -132,6 +147,37 @@ public class DefaultApolloClientNamespaceApi extends
     namespaceMetrics.setFirstLoadTimeSpendInMs(firstLoadSpendTime);
   }
 
+  private void handleApplySpendEvent(ApolloClientMonitorEvent event,
+      NamespaceMetrics namespaceMetrics) {
+    long applySpendTime = event.getAttachmentValue(ApolloClientMonitorConstant.TIMESTAMP);
+    namespaceMetrics.setLatestApplyTimeSpendInMs(applySpendTime);
+  }
+
+  private void handleStartupSourceEvent(ApolloClientMonitorEvent event,
+      NamespaceMetrics namespaceMetrics) {
+    String startupSource = event.getAttachmentValue(NAMESPACE_STARTUP_SOURCE);
+    namespaceMetrics.setStartupSource(startupSource);
+  }
+
+  private void handleStartupCacheAgeEvent(ApolloClientMonitorEvent event,
+      NamespaceMetrics namespaceMetrics) {
+    long startupCacheAge = event.getAttachmentValue(ApolloClientMonitorConstant.TIMESTAMP);
+    namespaceMetrics.setStartupCacheAgeInMs(startupCacheAge);
+  }
+
+  private void handleCachePersistLagEvent(ApolloClientMonitorEvent event,
+      NamespaceMetrics namespaceMetrics) {
+    long persistLag = event.getAttachmentValue(ApolloClientMonitorConstant.TIMESTAMP);
+    namespaceMetrics.setLatestCachePersistLagInMs(persistLag);
+  }
+
+  private void handleCachePersistFailureEvent(NamespaceMetrics namespaceMetrics,
+      String namespace) {
+    namespaceMetrics.incrementCachePersistFailureCount();
+    createOrUpdateCounterSample(METRICS_NAMESPACE_CACHE_PERSIST_FAILURE,
+        new String[]{NAMESPACE}, new String[]{namespace}, 1);
+  }
+
   private void handleReleaseKeyEvent(ApolloClientMonitorEvent event,
       NamespaceMetrics namespaceMetrics) {
     String releaseKey = event.getAttachmentValue(NAMESPACE_RELEASE_KEY);
@@ -147,6 +193,22 @@ public class DefaultApolloClientNamespaceApi extends
           new String[]{NAMESPACE}, new String[]{namespace},
           metrics.getFirstLoadTimeSpendInMs());
 
+      createOrUpdateGaugeSample(
+          METRICS_NAMESPACE_APPLY_SPEND,
+          new String[]{NAMESPACE}, new String[]{namespace},
+          metrics.getLatestApplyTimeSpendInMs());
+
+      createOrUpdateGaugeSample(
+          METRICS_NAMESPACE_STARTUP_CACHE_AGE,
+          new String[]{NAMESPACE, METRICS_NAMESPACE_STARTUP_SOURCE},
+          new String[]{namespace, metrics.getStartupSource()},
+          metrics.getStartupCacheAgeInMs());
+
+      createOrUpdateGaugeSample(
+          METRICS_NAMESPACE_CACHE_PERSIST_LAG,
+          new String[]{NAMESPACE}, new String[]{namespace},
+          metrics.getLatestCachePersistLagInMs());
+
       createOrUpdateGaugeSample(
           METRICS_NAMESPACE_ITEM_NUM,
           new String[]{NAMESPACE}, new String[]{namespace},
@@ -182,6 +244,11 @@ public class DefaultApolloClientNamespaceApi extends
     namespaces.forEach((namespace, metrics) -> {
       NamespaceMetricsString namespaceMetricsString = new NamespaceMetricsString();
       namespaceMetricsString.setFirstLoadTimeSpendInMs(metrics.getFirstLoadTimeSpendInMs());
+      namespaceMetricsString.setLatestApplyTimeSpendInMs(metrics.getLatestApplyTimeSpendInMs());
+      namespaceMetricsString.setStartupSource(metrics.getStartupSource());
+      namespaceMetricsString.setStartupCacheAgeInMs(metrics.getStartupCacheAgeInMs());
+      namespaceMetricsString.setLatestCachePersistLagInMs(metrics.getLatestCachePersistLagInMs());
+      namespaceMetricsString.setCachePersistFailureCount(metrics.getCachePersistFailureCount());
       namespaceMetricsString.setLatestUpdateTime(metrics.getLatestUpdateTime().toString());
       namespaceMetricsString.setUsageCount(metrics.getUsageCount());
       namespaceMetricsString.setReleaseKey(metrics.getReleaseKey());
@@ -20,6 +20,8 @@ import static com.ctrip.framework.apollo.monitor.internal.ApolloClientMonitorCon
 
 import com.ctrip.framework.apollo.internals.AbstractConfig;
 import com.ctrip.framework.apollo.internals.AbstractConfigFile;
+import com.ctrip.framework.apollo.internals.ConfigChangeDispatcher;
+import com.ctrip.framework.apollo.internals.ListenerLatencyHistogram;
 import com.ctrip.framework.apollo.internals.RemoteConfigRepository;
 import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi;
 import com.ctrip.framework.apollo.monitor.internal.exporter.AbstractApolloClientMetricsExporter;
@@ -42,6 +44,7 @@ public class DefaultApolloClientThreadPoolApi extends
   public static final String ABSTRACT_CONFIG_FILE = AbstractConfigFile.class.getSimpleName();
   public static final String METRICS_EXPORTER = AbstractApolloClientMetricsExporter.class.getSimpleName();
   private final Map<String, ApolloThreadPoolInfo> executorMap = Maps.newHashMap();
+  private final Map<String, ConfigChangeDispatcher> dispatcherMap = Maps.newHashMap();
 
   public DefaultApolloClientThreadPoolApi(
       ExecutorService remoteConfigRepositoryExecutorService,
@@ -58,10 +61,68 @@ public class DefaultApolloClientThreadPoolApi extends
     executorMap.put(METRICS_EXPORTER,
         new ApolloThreadPoolInfo((ThreadPoolExecutor) metricsExporterExecutorService));
   }
+  public DefaultApolloClientThreadPoolApi(
+      ExecutorService remoteConfigRepositoryExecutorService,
+      ConfigChangeDispatcher abstractConfigChangeDispatcher,
+      ConfigChangeDispatcher abstractConfigFileChangeDispatcher,
+      ExecutorService metricsExporterExecutorService) {
+    this(remoteConfigRepositoryExecutorService,
+        abstractConfigChangeDispatcher.getExecutorService(),
+        abstractConfigFileChangeDispatcher.getExecutorService(), metricsExporterExecutorService);
+    dispatcherMap.put(ABSTRACT_CONFIG, abstractConfigChangeDispatcher);
+    dispatcherMap.put(ABSTRACT_CONFIG_FILE, abstractConfigFileChangeDispatcher);
+  }
+
 
   @Override
   public void export0() {
     executorMap.forEach((key, value) -> exportThreadPoolMetrics(value, key));
+    dispatcherMap.forEach((key, value) -> exportListenerDispatchMetrics(value, key));
+    dispatcherMap.forEach((key, value) -> value.getListenerLatencies().forEach(
+        (listenerName, histogram) -> exportListenerLatencyMetrics(histogram, key, listenerName)));
+  }
+
+  private void exportListenerLatencyMetrics(ListenerLatencyHistogram histogram,
+      String threadPoolName, String listenerName) {
+    String[] tagKeys = new String[]{METRICS_THREAD_POOL_NAME, METRICS_LISTENER_CLASS};
+    String[] tagValues = new String[]{threadPoolName, listenerName};
+    long[] upperBounds = ListenerLatencyHistogram.getBucketUpperBoundsInMs();
+    long[] bucketCounts = histogram.getBucketCounts();
+    long cumulativeCount = 0;
+    // cumulative buckets, as the prometheus histogram
+    for (int i = 0; i < bucketCounts.length; i++) {
+      cumulativeCount += bucketCounts[i];
+      String upperBound = i < upperBounds.length ? String.valueOf(upperBounds[i]) : "+Inf";
+      createOrUpdateGaugeSample(METRICS_LISTENER_EXECUTION_TIME_BUCKET,
+          new String[]{METRICS_THREAD_POOL_NAME, METRICS_LISTENER_CLASS,
+              METRICS_LISTENER_EXECUTION_TIME_BUCKET_BOUND},
+          new String[]{threadPoolName, listenerName, upperBound}, (double) cumulativeCount);
+    }
+    createOrUpdateGaugeSample(METRICS_LISTENER_EXECUTION_TIME_COUNT, tagKeys, tagValues,
+        (double) histogram.getCount());
+    createOrUpdateGaugeSample(METRICS_LISTENER_EXECUTION_TIME_SUM, tagKeys, tagValues,
+        (double) histogram.getTotalTimeInMs());
+    createOrUpdateGaugeSample(METRICS_LISTENER_EXECUTION_TIME_MAX, tagKeys, tagValues,
+        (double) histogram.getMaxTimeInMs());
+  }
+
+  private void exportListenerDispatchMetrics(ConfigChangeDispatcher dispatcher,
+      String threadPoolName) {
+    createOrUpdateGaugeSample(METRICS_LISTENER_DISPATCH_PENDING_EVENT_COUNT,
+        new String[]{METRICS_THREAD_POOL_NAME}, new String[]{threadPoolName},
+        dispatcher.getPendingEventCount());
+    createOrUpdateGaugeSample(METRICS_LISTENER_DISPATCH_MAX_PENDING_EVENT_LAG,
+        new String[]{METRICS_THREAD_POOL_NAME}, new String[]{threadPoolName},
+        dispatcher.getMaxPendingEventLagInMs());
+    createOrUpdateGaugeSample(METRICS_LISTENER_DISPATCH_ACTIVE_LISTENER_COUNT,
+        new String[]{METRICS_THREAD_POOL_NAME}, new String[]{threadPoolName},
+        dispatcher.getActiveListenerCount());
+    createOrUpdateGaugeSample(METRICS_LISTENER_DISPATCH_DISPATCHED_EVENT_COUNT,
+        new String[]{METRICS_THREAD_POOL_NAME}, new String[]{threadPoolName},
+        (double) dispatcher.getDispatchedEventCount());
+    createOrUpdateGaugeSample(METRICS_LISTENER_DISPATCH_COALESCED_EVENT_COUNT,
+        new String[]{METRICS_THREAD_POOL_NAME}, new String[]{threadPoolName},
+        (double) dispatcher.getCoalescedEventCount());
   }
 
   private void exportThreadPoolMetrics(ApolloThreadPoolInfo info, String threadPoolName) {
@@ -106,6 +167,31 @@ public class DefaultApolloClientThreadPoolApi extends
     return executorMap;
   }
 
+  @Override
+  public Map<String, ApolloListenerDispatchInfo> getListenerDispatchInfo() {
+    Map<String, ApolloListenerDispatchInfo> dispatchInfo = Maps.newHashMap();
+    dispatcherMap.forEach((key, value) -> dispatchInfo.put(key,
+        new ApolloListenerDispatchInfo(value.getPendingEventCount(),
+            value.getMaxPendingEventLagInMs(), value.getActiveListenerCount(),
+            value.getDispatchedEventCount(), value.getCoalescedEventCount())));
+    return dispatchInfo;
+  }
+
+  @Override
+  public Map<String, Map<String, ApolloListenerLatencyInfo>> getListenerLatencyInfo() {
+    Map<String, Map<String, ApolloListenerLatencyInfo>> latencyInfo = Maps.newHashMap();
+    dispatcherMap.forEach((key, value) -> {
+      Map<String, ApolloListenerLatencyInfo> listenerLatencyInfo = Maps.newHashMap();
+      value.getListenerLatencies().forEach((listenerName, histogram) -> listenerLatencyInfo.put(
+          listenerName, new ApolloListenerLatencyInfo(histogram.getCount(),
+              histogram.getTotalTimeInMs(), histogram.getMaxTimeInMs(),
+              histogram.getPercentileInMs(50), histogram.getPercentileInMs(90),
+              histogram.getPercentileInMs(99))));
+      latencyInfo.put(key, listenerLatencyInfo);
+    });
+    return latencyInfo;
+  }
+
   @Override
   public ApolloThreadPoolInfo getRemoteConfigRepositoryThreadPoolInfo() {
     return executorMap.get(REMOTE_CONFIG_REPOSITORY);
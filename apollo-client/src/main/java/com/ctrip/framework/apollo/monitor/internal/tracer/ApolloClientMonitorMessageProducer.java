@@ -46,7 +46,8 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
       APOLLO_CLIENT_CONFIGMETA,
       APOLLO_CLIENT_NAMESPACE_TIMEOUT,
       APOLLO_CLIENT_NAMESPACE_USAGE,
-      APOLLO_CLIENT_NAMESPACE_NOT_FOUND
+      APOLLO_CLIENT_NAMESPACE_NOT_FOUND,
+      APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE
   ));
 
   @Override
@@ -67,6 +68,14 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
       handleClientConfigEvent(type, name);
     } else if (type.startsWith(APOLLO_CLIENT_NAMESPACE_FIRST_LOAD_SPEND)) {
       handleFirstLoadTimeEvent(type, name);
+    } else if (type.startsWith(APOLLO_CLIENT_NAMESPACE_APPLY_SPEND)) {
+      handleApplyTimeEvent(type, name);
+    } else if (type.startsWith(APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE)) {
+      handleStartupSourceEvent(type, name);
+    } else if (type.startsWith(APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE)) {
+      handleStartupCacheAgeEvent(type, name);
+    } else if (type.startsWith(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG)) {
+      handleCachePersistLagEvent(type, name);
     }
   }
 
@@ -96,6 +105,9 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
       case APOLLO_CLIENT_NAMESPACE_NOT_FOUND:
         publishNamespaceNotFoundEvent(name);
         break;
+      case APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE:
+        publishCachePersistFailureEvent(name);
+        break;
       case APOLLO_CLIENT_CONFIGMETA:
         // 不需要收集
         break;
@@ -155,6 +167,14 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
             .putAttachment(NAMESPACE, name));
   }
 
+  private void publishCachePersistFailureEvent(String name) {
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE)
+            .withTag(TAG_NAMESPACE)
+            .putAttachment(NAMESPACE, name));
+  }
+
   private void handleClientConfigEvent(String type, String name) {
     String namespace = type.substring(APOLLO_CLIENT_CONFIGS.length());
     ApolloClientMonitorEventPublisher.publish(
@@ -176,6 +196,53 @@ public class ApolloClientMonitorMessageProducer implements MessageProducer {
             .withTag(TAG_NAMESPACE));
   }
 
+  private void handleApplyTimeEvent(String type, String name) {
+    String[] split = type.split(":");
+    String namespace = split[1];
+    long applyTime = Long.parseLong(name);
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_APPLY_SPEND)
+            .putAttachment(NAMESPACE, namespace)
+            .putAttachment(TIMESTAMP, applyTime)
+            .withTag(TAG_NAMESPACE));
+  }
+
+  private void handleStartupSourceEvent(String type, String name) {
+    String[] split = type.split(":");
+    String namespace = split[1];
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE)
+            .putAttachment(NAMESPACE, namespace)
+            .putAttachment(NAMESPACE_STARTUP_SOURCE, name)
+            .withTag(TAG_NAMESPACE));
+  }
+
+  private void handleStartupCacheAgeEvent(String type, String name) {
+    String[] split = type.split(":");
+    String namespace = split[1];
+    long cacheAge = Long.parseLong(name);
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE)
+            .putAttachment(NAMESPACE, namespace)
+            .putAttachment(TIMESTAMP, cacheAge)
+            .withTag(TAG_NAMESPACE));
+  }
+
+  private void handleCachePersistLagEvent(String type, String name) {
+    String[] split = type.split(":");
+    String namespace = split[1];
+    long persistLag = Long.parseLong(name);
+    ApolloClientMonitorEventPublisher.publish(
+        ApolloClientMonitorEventFactory.getInstance()
+            .createEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG)
+            .putAttachment(NAMESPACE, namespace)
+            .putAttachment(TIMESTAMP, persistLag)
+            .withTag(TAG_NAMESPACE));
+  }
+
   @Override
   public void logEvent(String type, String name, String status, String nameValuePairs) {
     // ignore
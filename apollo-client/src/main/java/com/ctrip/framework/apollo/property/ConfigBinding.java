@@ -0,0 +1,342 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.property;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.util.function.Functions;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A live binding of the properties with a specific prefix to a POJO. The POJO is populated by its
+ * setters, or fields if there are no setters, which are resolved once into {@link MethodHandle}s.
+ * <p>
+ * Whenever any bound property is changed, only the changed properties are parsed again and a new
+ * POJO is published, so the POJO returned by {@link #get()} should be treated as immutable.
+ *
+ * @see Config#bind(String, Class)
+ * @since 2.4.0
+ */
+public class ConfigBinding<T> {
+
+  private static final MethodType SETTER_TYPE = MethodType
+      .methodType(void.class, Object.class, Object.class);
+  private static final Map<Class<?>, Function<String, ?>> PARSERS = ImmutableMap
+      .<Class<?>, Function<String, ?>>builder()
+      .put(String.class, input -> input)
+      .put(int.class, Functions.TO_INT_FUNCTION)
+      .put(Integer.class, Functions.TO_INT_FUNCTION)
+      .put(long.class, Functions.TO_LONG_FUNCTION)
+      .put(Long.class, Functions.TO_LONG_FUNCTION)
+      .put(short.class, Functions.TO_SHORT_FUNCTION)
+      .put(Short.class, Functions.TO_SHORT_FUNCTION)
+      .put(float.class, Functions.TO_FLOAT_FUNCTION)
+      .put(Float.class, Functions.TO_FLOAT_FUNCTION)
+      .put(double.class, Functions.TO_DOUBLE_FUNCTION)
+      .put(Double.class, Functions.TO_DOUBLE_FUNCTION)
+      .put(byte.class, Functions.TO_BYTE_FUNCTION)
+      .put(Byte.class, Functions.TO_BYTE_FUNCTION)
+      .put(boolean.class, Functions.TO_BOOLEAN_FUNCTION)
+      .put(Boolean.class, Functions.TO_BOOLEAN_FUNCTION)
+      .build();
+
+  private final String m_prefix;
+  private final Class<T> m_type;
+  private final MethodHandle m_constructor;
+  /**
+   * bound properties keyed by the full property key
+   */
+  private final Map<String, BoundProperty> m_properties;
+  /**
+   * parsed values of the bound properties, null means the value of a new POJO is kept
+   */
+  private final Object[] m_values;
+  private final List<ConfigChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
+  private volatile T m_value;
+
+  public ConfigBinding(String prefix, Class<T> type) {
+    m_prefix = prefix;
+    m_type = type;
+    m_constructor = resolveConstructor(type);
+    m_properties = resolveProperties(prefix, type);
+    m_values = new Object[m_properties.size()];
+    m_value = newInstance();
+  }
+
+  /**
+   * @return the POJO of current config, never null
+   */
+  public T get() {
+    return m_value;
+  }
+
+  public String getPrefix() {
+    return m_prefix;
+  }
+
+  public Class<T> getType() {
+    return m_type;
+  }
+
+  /**
+   * @return the full keys of the bound properties
+   */
+  public Set<String> getPropertyKeys() {
+    return m_properties.keySet();
+  }
+
+  /**
+   * Add change listener to this binding, will be notified after a new POJO is published.
+   *
+   * @param listener the config change listener
+   */
+  public void addChangeListener(ConfigChangeListener listener) {
+    if (!m_listeners.contains(listener)) {
+      m_listeners.add(listener);
+    }
+  }
+
+  /**
+   * Remove the change listener
+   *
+   * @param listener the specific config change listener to remove
+   * @return true if the specific config change listener is found and removed
+   */
+  public boolean removeChangeListener(ConfigChangeListener listener) {
+    return m_listeners.remove(listener);
+  }
+
+  /**
+   * @return the change listeners of this binding
+   */
+  public List<ConfigChangeListener> getChangeListeners() {
+    return Collections.unmodifiableList(m_listeners);
+  }
+
+  /**
+   * Parse all the bound properties and publish a new POJO, invoked by the config when the binding is
+   * created.
+   *
+   * @param config the config to read from
+   */
+  public synchronized void bind(Config config) {
+    for (BoundProperty property : m_properties.values()) {
+      m_values[property.m_index] = property.parse(config.getProperty(property.m_key, null));
+    }
+    m_value = newInstance();
+  }
+
+  /**
+   * Bind to the config and keep the POJO refreshed by a change listener of the bound properties,
+   * for the configs which don't refresh the bindings themselves, see
+   * {@link Config#bind(String, Class)}.
+   *
+   * @param config the config to read from
+   */
+  public void subscribe(final Config config) {
+    bind(config);
+    if (m_properties.isEmpty()) {
+      return;
+    }
+    config.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        if (update(config, changeEvent.changedKeys())) {
+          for (ConfigChangeListener listener : m_listeners) {
+            listener.onChange(changeEvent);
+          }
+        }
+      }
+    }, m_properties.keySet());
+  }
+
+  /**
+   * Parse the changed properties and publish a new POJO if any bound property is changed, invoked by
+   * the config when properties are changed. If the new POJO could not be created, e.g. its setter
+   * throws, the previous POJO and values are kept.
+   *
+   * @param config      the config to read from
+   * @param changedKeys the changed keys
+   * @return true if a new POJO is published
+   */
+  public synchronized boolean update(Config config, Set<String> changedKeys) {
+    Object[] values = null;
+    for (String changedKey : changedKeys) {
+      BoundProperty property = m_properties.get(changedKey);
+      if (property != null) {
+        if (values == null) {
+          values = m_values.clone();
+        }
+        values[property.m_index] = property.parse(config.getProperty(changedKey, null));
+      }
+    }
+    if (values == null) {
+      return false;
+    }
+
+    T value;
+    try {
+      value = newInstance(values);
+    } catch (ApolloConfigException ex) {
+      Tracer.logError(new ApolloConfigException(
+          String.format("Rebinding %s for prefix %s failed, keep the previous one",
+              m_type.getName(), m_prefix), ex));
+      return false;
+    }
+    System.arraycopy(values, 0, m_values, 0, values.length);
+    m_value = value;
+    return true;
+  }
+
+  private T newInstance() {
+    return newInstance(m_values);
+  }
+
+  private T newInstance(Object[] values) {
+    try {
+      @SuppressWarnings("unchecked")
+      T instance = (T) m_constructor.invoke();
+      for (BoundProperty property : m_properties.values()) {
+        Object value = values[property.m_index];
+        if (value != null) {
+          property.m_setter.invokeExact(instance, value);
+        }
+      }
+      return instance;
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(
+          String.format("Failed to create %s for prefix %s", m_type.getName(), m_prefix), ex);
+    }
+  }
+
+  private static MethodHandle resolveConstructor(Class<?> type) {
+    try {
+      Constructor<?> constructor = type.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      return MethodHandles.lookup().unreflectConstructor(constructor)
+          .asType(MethodType.methodType(Object.class));
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(
+          String.format("%s should have a no-arg constructor to be bound", type.getName()), ex);
+    }
+  }
+
+  private static Map<String, BoundProperty> resolveProperties(String prefix, Class<?> type) {
+    Map<String, BoundProperty> properties = Maps.newLinkedHashMap();
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    try {
+      // setters first
+      for (Method method : type.getMethods()) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+            || !method.getName().startsWith("set") || method.getName().length() == 3) {
+          continue;
+        }
+        Class<?> valueType = method.getParameterTypes()[0];
+        Function<String, ?> parser = resolveParser(valueType);
+        if (parser == null) {
+          continue;
+        }
+        String key = prefix + Introspector.decapitalize(method.getName().substring(3));
+        method.setAccessible(true);
+        properties.put(key, new BoundProperty(key, properties.size(),
+            lookup.unreflect(method).asType(SETTER_TYPE), parser));
+      }
+
+      // then fields without setters
+      for (Class<?> clazz = type; clazz != null && clazz != Object.class;
+          clazz = clazz.getSuperclass()) {
+        for (Field field : clazz.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          String key = prefix + field.getName();
+          if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()
+              || properties.containsKey(key)) {
+            continue;
+          }
+          Function<String, ?> parser = resolveParser(field.getType());
+          if (parser == null) {
+            continue;
+          }
+          field.setAccessible(true);
+          properties.put(key, new BoundProperty(key, properties.size(),
+              lookup.unreflectSetter(field).asType(SETTER_TYPE), parser));
+        }
+      }
+    } catch (Throwable ex) {
+      throw new ApolloConfigException(
+          String.format("Failed to resolve properties of %s", type.getName()), ex);
+    }
+
+    return Collections.unmodifiableMap(properties);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Function<String, ?> resolveParser(final Class<?> valueType) {
+    if (valueType.isEnum()) {
+      return input -> Enum.valueOf((Class<Enum>) valueType, input);
+    }
+    return PARSERS.get(valueType);
+  }
+
+  private static class BoundProperty {
+    private final String m_key;
+    private final int m_index;
+    private final MethodHandle m_setter;
+    private final Function<String, ?> m_parser;
+
+    BoundProperty(String key, int index, MethodHandle setter, Function<String, ?> parser) {
+      m_key = key;
+      m_index = index;
+      m_setter = setter;
+      m_parser = parser;
+    }
+
+    /**
+     * @return the parsed value, or null if the property doesn't exist or could not be parsed
+     */
+    Object parse(String value) {
+      if (value == null) {
+        return null;
+      }
+      try {
+        return m_parser.apply(value);
+      } catch (Throwable ex) {
+        Tracer.logError(new ApolloConfigException(
+            String.format("Binding %s failed, use the default value", m_key), ex));
+        return null;
+      }
+    }
+  }
+}
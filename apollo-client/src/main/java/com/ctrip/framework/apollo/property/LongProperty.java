@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.property;
+
+import com.ctrip.framework.apollo.Config;
+
+/**
+ * Long handle of a single property.
+ *
+ * @see Config#longHandle(String, long)
+ * @since 2.4.0
+ */
+public class LongProperty extends PropertyHandle {
+
+  private final long m_defaultValue;
+  private volatile long m_value;
+
+  public LongProperty(String key, long defaultValue) {
+    super(key);
+    this.m_defaultValue = defaultValue;
+    this.m_value = defaultValue;
+  }
+
+  /**
+   * @return the current property value, or the default value if the key doesn't exist or could not
+   * be parsed
+   */
+  public long get() {
+    return m_value;
+  }
+
+  public long getDefaultValue() {
+    return m_defaultValue;
+  }
+
+  @Override
+  protected void doUpdate(String value) {
+    m_value = value == null ? m_defaultValue : Long.parseLong(value);
+  }
+
+  @Override
+  protected void useDefaultValue() {
+    m_value = m_defaultValue;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.property;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A handle to a single property of a {@link Config}, which keeps the parsed value and is refreshed
+ * by the config only when the property is changed, so reading it costs neither lookup nor
+ * allocation.
+ * <p>
+ * Handles are supposed to be created once and held by the caller, e.g. as a field.
+ *
+ * @since 2.4.0
+ */
+public abstract class PropertyHandle {
+
+  private final String m_key;
+  private final List<ConfigChangeListener> m_listeners = Lists.newCopyOnWriteArrayList();
+
+  protected PropertyHandle(String key) {
+    this.m_key = key;
+  }
+
+  /**
+   * @return the property key of this handle
+   */
+  public String getKey() {
+    return m_key;
+  }
+
+  /**
+   * Add change listener to this handle, will be notified after the handle value is refreshed. The
+   * change event only contains the key of this handle.
+   *
+   * @param listener the config change listener
+   */
+  public void addChangeListener(ConfigChangeListener listener) {
+    if (!m_listeners.contains(listener)) {
+      m_listeners.add(listener);
+    }
+  }
+
+  /**
+   * Remove the change listener
+   *
+   * @param listener the specific config change listener to remove
+   * @return true if the specific config change listener is found and removed
+   */
+  public boolean removeChangeListener(ConfigChangeListener listener) {
+    return m_listeners.remove(listener);
+  }
+
+  /**
+   * @return the change listeners of this handle
+   */
+  public List<ConfigChangeListener> getChangeListeners() {
+    return Collections.unmodifiableList(m_listeners);
+  }
+
+  /**
+   * Keep this handle refreshed by a change listener of its key, for the configs which don't refresh
+   * the handles themselves, see {@link Config#intHandle(String, int)}.
+   *
+   * @param config the config of the property
+   */
+  public void subscribe(final Config config) {
+    update(config.getProperty(m_key, null));
+    config.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        update(config.getProperty(m_key, null));
+        ConfigChangeEvent handleChangeEvent = new ConfigChangeEvent(changeEvent.getNamespace(),
+            Collections.singletonMap(m_key, changeEvent.getChange(m_key)));
+        for (ConfigChangeListener listener : m_listeners) {
+          listener.onChange(handleChangeEvent);
+        }
+      }
+    }, Collections.singleton(m_key));
+  }
+
+  /**
+   * Refresh the handle value, invoked by the config when the property is changed. The default
+   * value is used if the property doesn't exist or could not be parsed.
+   *
+   * @param value the current property value, null if the property doesn't exist
+   */
+  public void update(String value) {
+    try {
+      doUpdate(value);
+    } catch (Throwable ex) {
+      useDefaultValue();
+      Tracer.logError(new ApolloConfigException(
+          String.format("%s for %s failed, use default value", getClass().getSimpleName(), m_key),
+          ex));
+    }
+  }
+
+  /**
+   * Parse the value and store it.
+   *
+   * @param value the property value, null if the property doesn't exist
+   */
+  protected abstract void doUpdate(String value);
+
+  /**
+   * Store the default value.
+   */
+  protected abstract void useDefaultValue();
+}
@@ -23,6 +23,7 @@ import com.ctrip.framework.apollo.PropertiesCompatibleConfigFile;
 import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.internals.ConfigRepository;
+import com.ctrip.framework.apollo.internals.ConfigRepositoryRegistry;
 import com.ctrip.framework.apollo.internals.DefaultConfig;
 import com.ctrip.framework.apollo.internals.JsonConfigFile;
 import com.ctrip.framework.apollo.internals.LocalFileConfigRepository;
@@ -58,9 +59,11 @@ public class DefaultConfigFactory implements ConfigFactory {
 
   private static final Logger logger = LoggerFactory.getLogger(DefaultConfigFactory.class);
   private final ConfigUtil m_configUtil;
+  private final ConfigRepositoryRegistry m_repositoryRegistry;
 
   public DefaultConfigFactory() {
     m_configUtil = ApolloInjector.getInstance(ConfigUtil.class);
+    m_repositoryRegistry = ApolloInjector.getInstance(ConfigRepositoryRegistry.class);
   }
 
   @Override
@@ -77,13 +80,18 @@ public class DefaultConfigFactory implements ConfigFactory {
         format != ConfigFileFormat.Properties) {
       configRepository = createPropertiesCompatibleFileConfigRepository(namespace, format);
     } else {
-      configRepository = createConfigRepository(namespace);
+      configRepository = acquireConfigRepository(namespace);
     }
 
     logger.debug("Created a configuration repository of type [{}] for namespace [{}]",
         configRepository.getClass().getName(), namespace);
 
-    return this.createRepositoryConfig(namespace, configRepository);
+    try {
+      return this.createRepositoryConfig(namespace, configRepository);
+    } catch (RuntimeException ex) {
+      releaseConfigRepository(namespace, configRepository);
+      throw ex;
+    }
   }
 
   protected Config createRepositoryConfig(String namespace, ConfigRepository configRepository) {
@@ -92,7 +100,22 @@ public class DefaultConfigFactory implements ConfigFactory {
 
   @Override
   public ConfigFile createConfigFile(String namespace, ConfigFileFormat configFileFormat) {
-    ConfigRepository configRepository = createConfigRepository(namespace);
+    ConfigRepository configRepository = acquireConfigRepository(namespace);
+    try {
+      ConfigFile configFile = createRepositoryConfigFile(namespace, configFileFormat,
+          configRepository);
+      if (configFile == null) {
+        releaseConfigRepository(namespace, configRepository);
+      }
+      return configFile;
+    } catch (RuntimeException ex) {
+      releaseConfigRepository(namespace, configRepository);
+      throw ex;
+    }
+  }
+
+  private ConfigFile createRepositoryConfigFile(String namespace,
+      ConfigFileFormat configFileFormat, ConfigRepository configRepository) {
     switch (configFileFormat) {
       case Properties:
         return new PropertiesConfigFile(namespace, configRepository);
@@ -111,6 +134,31 @@ public class DefaultConfigFactory implements ConfigFactory {
     return null;
   }
 
+  /**
+   * Acquire the repository shared by all the configs and config files of the namespace, so that
+   * e.g. namespace x and x.properties are loaded by one repository chain.
+   *
+   * @param namespace the namespace of the config or config file
+   * @return the shared repository of the namespace
+   */
+  ConfigRepository acquireConfigRepository(String namespace) {
+    // the config service serves x.properties as x, other formats keep their extension
+    final String effectiveNamespace = trimNamespaceFormat(namespace, ConfigFileFormat.Properties);
+    return m_repositoryRegistry.acquire(effectiveNamespace,
+        () -> createConfigRepository(effectiveNamespace));
+  }
+
+  /**
+   * Release the repository acquired for a config or config file which is not created.
+   *
+   * @param namespace the namespace of the config or config file
+   * @param configRepository the repository acquired before
+   */
+  void releaseConfigRepository(String namespace, ConfigRepository configRepository) {
+    m_repositoryRegistry.release(trimNamespaceFormat(namespace, ConfigFileFormat.Properties),
+        configRepository);
+  }
+
   ConfigRepository createConfigRepository(String namespace) {
     if (m_configUtil.isPropertyKubernetesCacheEnabled()) {
       return createConfigMapConfigRepository(namespace);
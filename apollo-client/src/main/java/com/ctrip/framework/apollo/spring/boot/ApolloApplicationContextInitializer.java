@@ -147,6 +147,7 @@ public class ApolloApplicationContextInitializer implements
     } else {
       composite = new CompositePropertySource(PropertySourcesConstants.APOLLO_BOOTSTRAP_PROPERTY_SOURCE_NAME);
     }
+    ConfigService.preload(namespaceList);
     for (String namespace : namespaceList) {
       Config config = ConfigService.getConfig(namespace);
 
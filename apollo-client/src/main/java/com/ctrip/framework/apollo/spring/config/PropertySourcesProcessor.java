@@ -26,6 +26,7 @@ import com.ctrip.framework.apollo.spring.util.SpringInjector;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.util.Collection;
@@ -89,6 +90,14 @@ public class PropertySourcesProcessor implements BeanFactoryPostProcessor, Envir
 
     //sort by order asc
     ImmutableSortedSet<Integer> orders = ImmutableSortedSet.copyOf(NAMESPACE_NAMES.keySet());
+
+    //load the namespaces in parallel before adding them in order
+    List<String> namespaces = Lists.newArrayList();
+    for (Integer order : orders) {
+      namespaces.addAll(NAMESPACE_NAMES.get(order));
+    }
+    ConfigService.preload(namespaces);
+
     Iterator<Integer> iterator = orders.iterator();
 
     while (iterator.hasNext()) {
@@ -72,11 +72,31 @@ public class ConfigUtil {
   private boolean propertyFileCacheEnabled = true;
   private boolean overrideSystemProperties = true;
   private boolean propertyKubernetesCacheEnabled = false;
+  private boolean propertySnapshotEnabled = false;
+  private boolean propertyNegativeCacheEnabled = false;
   private boolean clientMonitorEnabled = false;
   private boolean clientMonitorJmxEnabled = false;
   private String monitorExternalType = "NONE";
   private long monitorExternalExportPeriod = 10;
   private int monitorExceptionQueueSize = 25;
+  private int listenerDispatchThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+  private int listenerDispatchQueueSize = 1000;
+  private boolean listenerEventCoalescingEnabled = false;
+  private long configChangeDebounceWindowInMillis = 0; //disabled
+  private long configChangeDebounceMaxDelayInMillis = 1000; //1 second
+  private long slowListenerThresholdInMillis = 1000; //1 second
+  private int configChangeJournalSize = 64;
+  private boolean cacheStaleWhileRevalidateEnabled = false;
+  private long firstLoadTimeoutInMillis = 5000; //5 seconds
+  private long syncTimeoutInMillis = 10000; //10 seconds, twice the default read timeout
+  private int preloadThreads = 8;
+  private boolean learnedNamespacesPreloadEnabled = false;
+  private boolean batchFetchEnabled = false;
+  private int refreshThreads = 2;
+  private int refreshQPS = 20; //20 times per second
+  private boolean cacheWriteBehindEnabled = false;
+  private long cacheWriteBehindDelayInMillis = 100; //100 milliseconds
+  private boolean cacheBinaryFormatEnabled = false;
 
   public ConfigUtil() {
     warnLogRateLimiter = RateLimiter.create(0.017); // 1 warning log output per minute
@@ -93,11 +113,29 @@ public class ConfigUtil {
     initPropertyFileCacheEnabled();
     initOverrideSystemProperties();
     initPropertyKubernetesCacheEnabled();
+    initPropertySnapshotEnabled();
+    initPropertyNegativeCacheEnabled();
     initClientMonitorEnabled();
     initClientMonitorJmxEnabled();
     initClientMonitorExternalType();
     initClientMonitorExternalExportPeriod();
     initClientMonitorExceptionQueueSize();
+    initListenerDispatchThreads();
+    initListenerDispatchQueueSize();
+    initListenerEventCoalescingEnabled();
+    initConfigChangeDebounce();
+    initSlowListenerThreshold();
+    initConfigChangeJournalSize();
+    initCacheStaleWhileRevalidateEnabled();
+    initFirstLoadTimeout();
+    initSyncTimeout();
+    initPreloadThreads();
+    initLearnedNamespacesPreloadEnabled();
+    initBatchFetchEnabled();
+    initRefreshThreads();
+    initRefreshQPS();
+    initCacheWriteBehind();
+    initCacheBinaryFormatEnabled();
   }
 
   /**
@@ -230,6 +268,23 @@ public class ConfigUtil {
     return refreshInterval;
   }
 
+  /**
+   * @param namespace the namespace
+   * @return the refresh interval of the namespace if customized, otherwise the default one
+   */
+  public int getRefreshInterval(String namespace) {
+    String propertyName = ApolloClientSystemConsts.APOLLO_REFRESH_INTERVAL_PREFIX + namespace;
+    Integer value = getCustomizedIntegerValue(propertyName);
+    if (value != null) {
+      if (value > 0) {
+        return value;
+      }
+      logger.warn("Config for {} is invalid: {}, remain default value: {}", propertyName, value,
+          getRefreshInterval());
+    }
+    return getRefreshInterval();
+  }
+
   public TimeUnit getRefreshIntervalTimeUnit() {
     return refreshIntervalTimeUnit;
   }
@@ -293,6 +348,10 @@ public class ConfigUtil {
     return discoveryReadTimeout;
   }
 
+  /**
+   * @deprecated the config loads share the budget of {@link #getRefreshQPS()} instead
+   */
+  @Deprecated
   public int getLoadConfigQPS() {
     return loadConfigQPS;
   }
@@ -513,6 +572,14 @@ public class ConfigUtil {
     return propertyKubernetesCacheEnabled;
   }
 
+  public boolean isPropertySnapshotEnabled() {
+    return propertySnapshotEnabled;
+  }
+
+  public boolean isPropertyNegativeCacheEnabled() {
+    return propertyNegativeCacheEnabled;
+  }
+
   public boolean isOverrideSystemProperties() {
     return overrideSystemProperties;
   }
@@ -541,6 +608,18 @@ public class ConfigUtil {
             propertyKubernetesCacheEnabled);
   }
 
+  private void initPropertySnapshotEnabled() {
+    propertySnapshotEnabled = getPropertyBoolean(ApolloClientSystemConsts.APOLLO_PROPERTY_SNAPSHOT_ENABLE,
+            ApolloClientSystemConsts.APOLLO_PROPERTY_SNAPSHOT_ENABLE_ENVIRONMENT_VARIABLES,
+            propertySnapshotEnabled);
+  }
+
+  private void initPropertyNegativeCacheEnabled() {
+    propertyNegativeCacheEnabled = getPropertyBoolean(ApolloClientSystemConsts.APOLLO_PROPERTY_NEGATIVE_CACHE_ENABLE,
+            ApolloClientSystemConsts.APOLLO_PROPERTY_NEGATIVE_CACHE_ENABLE_ENVIRONMENT_VARIABLES,
+            propertyNegativeCacheEnabled);
+  }
+
   private void initClientMonitorExternalType() {
     monitorExternalType = System.getProperty(ApolloClientSystemConsts.APOLLO_CLIENT_MONITOR_EXTERNAL_TYPE);
     if (Strings.isNullOrEmpty(monitorExternalType)) {
@@ -606,6 +685,337 @@ public class ConfigUtil {
   public int getMonitorExceptionQueueSize() {
     return monitorExceptionQueueSize;
   }
+
+  private void initListenerDispatchThreads() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_THREADS);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_THREADS, value, listenerDispatchThreads);
+      } else {
+        listenerDispatchThreads = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of the threads invoking the change listeners
+   */
+  public int getListenerDispatchThreads() {
+    return listenerDispatchThreads;
+  }
+
+  private void initListenerDispatchQueueSize() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_QUEUE_SIZE);
+
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_QUEUE_SIZE, value, listenerDispatchQueueSize);
+      } else {
+        listenerDispatchQueueSize = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of the listeners waiting for a dispatch thread, beyond which the thread
+   * firing the change invokes the listener itself
+   */
+  public int getListenerDispatchQueueSize() {
+    return listenerDispatchQueueSize;
+  }
+
+  private void initListenerEventCoalescingEnabled() {
+    listenerEventCoalescingEnabled = getPropertyBoolean(ApolloClientSystemConsts.APOLLO_LISTENER_EVENT_COALESCE_ENABLE,
+            ApolloClientSystemConsts.APOLLO_LISTENER_EVENT_COALESCE_ENABLE_ENVIRONMENT_VARIABLES,
+            listenerEventCoalescingEnabled);
+  }
+
+  /**
+   * @return whether the pending change events of a slow listener are coalesced into one event, off
+   * by default so that the listeners see one event per change
+   */
+  public boolean isListenerEventCoalescingEnabled() {
+    return listenerEventCoalescingEnabled;
+  }
+
+  private void initConfigChangeDebounce() {
+    Integer window = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_WINDOW);
+    if (window != null) {
+      if (window < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_WINDOW, window,
+                configChangeDebounceWindowInMillis);
+      } else {
+        configChangeDebounceWindowInMillis = window;
+      }
+    }
+
+    Integer maxDelay = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_MAX_DELAY);
+    if (maxDelay != null) {
+      if (maxDelay <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_MAX_DELAY, maxDelay,
+                configChangeDebounceMaxDelayInMillis);
+      } else {
+        configChangeDebounceMaxDelayInMillis = maxDelay;
+      }
+    }
+    // the max delay bounds the window
+    configChangeDebounceMaxDelayInMillis = Math.max(configChangeDebounceMaxDelayInMillis,
+            configChangeDebounceWindowInMillis);
+  }
+
+  /**
+   * @return the quiet period before the accumulated config changes of a namespace are published, 0
+   * means the changes are published immediately
+   */
+  public long getConfigChangeDebounceWindowInMillis() {
+    return configChangeDebounceWindowInMillis;
+  }
+
+  /**
+   * @return the max delay of publishing the accumulated config changes of a namespace
+   */
+  public long getConfigChangeDebounceMaxDelayInMillis() {
+    return configChangeDebounceMaxDelayInMillis;
+  }
+
+  private void initSlowListenerThreshold() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_LISTENER_SLOW_THRESHOLD);
+    if (value != null) {
+      if (value < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_LISTENER_SLOW_THRESHOLD, value,
+                slowListenerThresholdInMillis);
+      } else {
+        slowListenerThresholdInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the execution time beyond which a change listener is reported as slow, 0 means no
+   * report
+   */
+  public long getSlowListenerThresholdInMillis() {
+    return slowListenerThresholdInMillis;
+  }
+
+  private void initConfigChangeJournalSize() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_JOURNAL_SIZE);
+    if (value != null) {
+      if (value < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_JOURNAL_SIZE, value,
+                configChangeJournalSize);
+      } else {
+        configChangeJournalSize = value;
+      }
+    }
+  }
+
+  /**
+   * @return the number of the recent config changes kept per namespace for pulling, 0 means no
+   * journal
+   */
+  public int getConfigChangeJournalSize() {
+    return configChangeJournalSize;
+  }
+
+  private void initCacheStaleWhileRevalidateEnabled() {
+    cacheStaleWhileRevalidateEnabled = getPropertyBoolean(
+            ApolloClientSystemConsts.APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE,
+            ApolloClientSystemConsts.APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE_ENVIRONMENT_VARIABLES,
+            cacheStaleWhileRevalidateEnabled);
+  }
+
+  /**
+   * @return whether the local cache is served at startup and refreshed from the config service
+   * asynchronously
+   */
+  public boolean isCacheStaleWhileRevalidateEnabled() {
+    return cacheStaleWhileRevalidateEnabled;
+  }
+
+  private void initFirstLoadTimeout() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CACHE_FIRST_LOAD_TIMEOUT);
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_CACHE_FIRST_LOAD_TIMEOUT, value,
+                firstLoadTimeoutInMillis);
+      } else {
+        firstLoadTimeoutInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max time waiting for the first load from the config service when there is no local
+   * cache to serve at startup
+   */
+  public long getFirstLoadTimeoutInMillis() {
+    return firstLoadTimeoutInMillis;
+  }
+
+  private void initSyncTimeout() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_SYNC_TIMEOUT);
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_SYNC_TIMEOUT, value, syncTimeoutInMillis);
+      } else {
+        syncTimeoutInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max time waiting for a sync from the config service, e.g. the first load of a
+   * remote namespace, the sync keeps running in the background after the timeout
+   */
+  public long getSyncTimeoutInMillis() {
+    return syncTimeoutInMillis;
+  }
+
+  private void initPreloadThreads() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_PRELOAD_THREADS);
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_PRELOAD_THREADS, value, preloadThreads);
+      } else {
+        preloadThreads = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of the threads loading namespaces in parallel
+   */
+  public int getPreloadThreads() {
+    return preloadThreads;
+  }
+
+  private void initLearnedNamespacesPreloadEnabled() {
+    learnedNamespacesPreloadEnabled = getPropertyBoolean(
+            ApolloClientSystemConsts.APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE,
+            ApolloClientSystemConsts.APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE_ENVIRONMENT_VARIABLES,
+            learnedNamespacesPreloadEnabled);
+  }
+
+  /**
+   * @return whether the namespaces accessed during the previous boot are recorded with the local
+   * cache and preloaded in parallel at startup
+   */
+  public boolean isLearnedNamespacesPreloadEnabled() {
+    return learnedNamespacesPreloadEnabled;
+  }
+
+  private void initBatchFetchEnabled() {
+    batchFetchEnabled = getPropertyBoolean(
+            ApolloClientSystemConsts.APOLLO_BATCH_FETCH_ENABLE,
+            ApolloClientSystemConsts.APOLLO_BATCH_FETCH_ENABLE_ENVIRONMENT_VARIABLES,
+            batchFetchEnabled);
+  }
+
+  /**
+   * @return whether the configs of multiple namespaces are fetched in one batch request, falling
+   * back to one request per namespace if the config service doesn't support it
+   */
+  public boolean isBatchFetchEnabled() {
+    return batchFetchEnabled;
+  }
+
+  private void initRefreshThreads() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_REFRESH_THREADS);
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_REFRESH_THREADS, value, refreshThreads);
+      } else {
+        refreshThreads = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of the threads refreshing namespaces periodically
+   */
+  public int getRefreshThreads() {
+    return refreshThreads;
+  }
+
+  private void initRefreshQPS() {
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_REFRESH_QPS);
+    if (value != null) {
+      if (value <= 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_REFRESH_QPS, value, refreshQPS);
+      } else {
+        refreshQPS = value;
+      }
+    }
+  }
+
+  /**
+   * @return the max number of the config loads per second, shared by all namespaces, the first
+   * load of a namespace is not counted
+   */
+  public int getRefreshQPS() {
+    return refreshQPS;
+  }
+
+  private void initCacheWriteBehind() {
+    cacheWriteBehindEnabled = getPropertyBoolean(
+            ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_ENABLE,
+            ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_ENABLE_ENVIRONMENT_VARIABLES,
+            cacheWriteBehindEnabled);
+    Integer value = getCustomizedIntegerValue(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_DELAY);
+    if (value != null) {
+      if (value < 0) {
+        logger.warn("Config for {} is invalid: {}, remain default value: {}",
+                ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_DELAY, value,
+                cacheWriteBehindDelayInMillis);
+      } else {
+        cacheWriteBehindDelayInMillis = value;
+      }
+    }
+  }
+
+  /**
+   * @return whether the local cache files are written on a background thread instead of the
+   * thread updating the config
+   */
+  public boolean isCacheWriteBehindEnabled() {
+    return cacheWriteBehindEnabled;
+  }
+
+  /**
+   * @return the delay of a background local cache file write, the updates of a namespace within
+   * the delay are written once
+   */
+  public long getCacheWriteBehindDelayInMillis() {
+    return cacheWriteBehindDelayInMillis;
+  }
+
+  private void initCacheBinaryFormatEnabled() {
+    cacheBinaryFormatEnabled = getPropertyBoolean(
+            ApolloClientSystemConsts.APOLLO_CACHE_BINARY_FORMAT_ENABLE,
+            ApolloClientSystemConsts.APOLLO_CACHE_BINARY_FORMAT_ENABLE_ENVIRONMENT_VARIABLES,
+            cacheBinaryFormatEnabled);
+  }
+
+  /**
+   * @return whether the local cache files are written in the binary format instead of the
+   * properties format
+   */
+  public boolean isCacheBinaryFormatEnabled() {
+    return cacheBinaryFormatEnabled;
+  }
   
   private boolean getPropertyBoolean(String propertyName, String envName, boolean defaultVal) {
     String enablePropertyNamesCache = System.getProperty(propertyName);
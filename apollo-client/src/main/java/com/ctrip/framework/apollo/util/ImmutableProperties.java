@@ -0,0 +1,304 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * An immutable {@link Properties} backed by an {@link ImmutableMap}, which keeps the order of the
+ * source properties. Unlike {@link Properties} and {@link OrderedProperties}, reads don't acquire
+ * any lock and iterations don't copy, so it is used to hold the config shared across threads.
+ *
+ * <strong>
+ * Warnings: all the mutations throw {@link UnsupportedOperationException}, copy it into a new
+ * {@link Properties} before modifying.
+ * </strong>
+ *
+ * @since 2.4.0
+ */
+public final class ImmutableProperties extends Properties {
+
+  private static final long serialVersionUID = 4263453289766612530L;
+  private static final ImmutableProperties EMPTY = new ImmutableProperties(ImmutableMap.of());
+
+  private final ImmutableMap<Object, Object> m_map;
+  private final Set<String> m_stringPropertyNames;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private ImmutableProperties(ImmutableMap<Object, Object> map) {
+    m_map = map;
+
+    boolean allStrings = true;
+    for (Map.Entry<Object, Object> entry : map.entrySet()) {
+      if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String)) {
+        allStrings = false;
+        break;
+      }
+    }
+    if (allStrings) {
+      m_stringPropertyNames = (Set) map.keySet();
+    } else {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (Map.Entry<Object, Object> entry : map.entrySet()) {
+        if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+          builder.add((String) entry.getKey());
+        }
+      }
+      m_stringPropertyNames = builder.build();
+    }
+  }
+
+  /**
+   * Copy the entries of the source in its iteration order.
+   *
+   * @param source the source properties or map, null means empty
+   * @return the immutable properties, or the source itself if it is already immutable
+   */
+  public static ImmutableProperties copyOf(Map<?, ?> source) {
+    if (source instanceof ImmutableProperties) {
+      return (ImmutableProperties) source;
+    }
+    if (source == null || source.isEmpty()) {
+      return EMPTY;
+    }
+    ImmutableMap.Builder<Object, Object> builder =
+        ImmutableMap.builderWithExpectedSize(source.size());
+    for (Map.Entry<?, ?> entry : source.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue());
+    }
+    return new ImmutableProperties(builder.buildOrThrow());
+  }
+
+  @Override
+  public String getProperty(String key) {
+    Object value = m_map.get(key);
+    return value instanceof String ? (String) value : null;
+  }
+
+  @Override
+  public String getProperty(String key, String defaultValue) {
+    String value = getProperty(key);
+    return value == null ? defaultValue : value;
+  }
+
+  @Override
+  public Object get(Object key) {
+    return m_map.get(key);
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    return m_map.getOrDefault(key, defaultValue);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return m_map.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return m_map.containsValue(value);
+  }
+
+  @Override
+  public boolean contains(Object value) {
+    return m_map.containsValue(value);
+  }
+
+  @Override
+  public int size() {
+    return m_map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return m_map.isEmpty();
+  }
+
+  @Override
+  public Enumeration<Object> keys() {
+    return Iterators.asEnumeration(m_map.keySet().iterator());
+  }
+
+  @Override
+  public Enumeration<Object> elements() {
+    return Iterators.asEnumeration(m_map.values().iterator());
+  }
+
+  @Override
+  public Set<Object> keySet() {
+    return m_map.keySet();
+  }
+
+  @Override
+  public Set<Map.Entry<Object, Object>> entrySet() {
+    return m_map.entrySet();
+  }
+
+  @Override
+  public Collection<Object> values() {
+    return m_map.values();
+  }
+
+  @Override
+  public Set<String> stringPropertyNames() {
+    return m_stringPropertyNames;
+  }
+
+  @Override
+  public Enumeration<?> propertyNames() {
+    return Iterators.asEnumeration(m_map.keySet().iterator());
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super Object, ? super Object> action) {
+    m_map.forEach(action);
+  }
+
+  @Override
+  public Object clone() {
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o == this || m_map.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return m_map.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return m_map.toString();
+  }
+
+  @Override
+  public Object setProperty(String key, String value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void load(Reader reader) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void load(InputStream inStream) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void loadFromXML(InputStream in) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void putAll(Map<?, ?> t) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object putIfAbsent(Object key, Object value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object remove(Object key) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean replace(Object key, Object oldValue, Object newValue) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object replace(Object key, Object value) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object computeIfPresent(Object key,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object compute(Object key,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object merge(Object key, Object value,
+      BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  protected void rehash() {
+    // nothing to rehash
+  }
+
+  private Object writeReplace() throws ObjectStreamException {
+    Properties properties = new Properties();
+    properties.putAll(m_map);
+    return properties;
+  }
+}
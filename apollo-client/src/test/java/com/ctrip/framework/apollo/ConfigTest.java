@@ -0,0 +1,324 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.property.ConfigBinding;
+import com.ctrip.framework.apollo.property.ConfigBindingTest.SomeDataSourceConfig;
+import com.ctrip.framework.apollo.property.IntProperty;
+import com.ctrip.framework.apollo.property.StringProperty;
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the default methods of {@link Config} with a config implementing only the abstract ones,
+ * like the third-party implementations.
+ */
+public class ConfigTest {
+  private SimpleConfig config;
+
+  @Before
+  public void setUp() throws Exception {
+    config = new SimpleConfig("someNamespace");
+  }
+
+  @Test
+  public void testDefaultPropertyHandles() throws Exception {
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+    int someDefaultValue = -1;
+    config.setProperty(someKey, "1");
+    final List<ConfigChangeEvent> events = Lists.newArrayList();
+
+    IntProperty intHandle = config.intHandle(someKey, someDefaultValue);
+    StringProperty stringHandle = config.stringHandle(anotherKey, "someDefault");
+    intHandle.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        events.add(changeEvent);
+      }
+    });
+
+    assertEquals(1, intHandle.get());
+    assertEquals("someDefault", stringHandle.get());
+
+    config.setProperty(someKey, "2");
+    config.setProperty(anotherKey, "anotherValue");
+
+    assertEquals(2, intHandle.get());
+    assertEquals("anotherValue", stringHandle.get());
+    assertEquals(1, events.size());
+    assertEquals(Collections.singleton(someKey), events.get(0).changedKeys());
+
+    config.setProperty(someKey, null);
+
+    assertEquals(someDefaultValue, intHandle.get());
+    assertEquals(2, events.size());
+  }
+
+  @Test
+  public void testDefaultSubset() throws Exception {
+    config.setProperty("datasource.url", "someUrl");
+    config.setProperty("datasource.timeout", "1");
+    config.setProperty("someKey", "someValue");
+    final List<ConfigChangeEvent> events = Lists.newCopyOnWriteArrayList();
+
+    Config subset = config.subset("datasource.");
+    subset.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        events.add(changeEvent);
+      }
+    });
+
+    assertEquals("someUrl", subset.getProperty("url", null));
+    assertEquals(1, subset.getIntProperty("timeout", 0).intValue());
+    assertEquals(Sets.newHashSet("url", "timeout"), subset.getPropertyNames());
+    assertSame(config, config.subset(""));
+
+    config.setProperty("datasource.timeout", "2");
+    config.setProperty("someKey", "anotherValue");
+    subset.awaitApplied().get(5, TimeUnit.SECONDS);
+
+    assertEquals(2, subset.getIntProperty("timeout", 0).intValue());
+    assertEquals(1, events.size());
+    assertEquals(Collections.singleton("timeout"), events.get(0).changedKeys());
+  }
+
+  @Test
+  public void testDefaultBind() throws Exception {
+    config.setProperty("datasource.url", "someUrl");
+    config.setProperty("datasource.maxActive", "10");
+    final List<ConfigChangeEvent> events = Lists.newArrayList();
+
+    ConfigBinding<SomeDataSourceConfig> binding =
+        config.bind("datasource.", SomeDataSourceConfig.class);
+    binding.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        events.add(changeEvent);
+      }
+    });
+
+    assertEquals("someUrl", binding.get().getUrl());
+    assertEquals(10, binding.get().getMaxActive());
+
+    config.setProperty("datasource.maxActive", "20");
+    config.setProperty("someKey", "someValue");
+
+    assertEquals("someUrl", binding.get().getUrl());
+    assertEquals(20, binding.get().getMaxActive());
+    assertEquals(1, events.size());
+  }
+
+  /**
+   * A config implementing only the abstract methods of {@link Config}, the listeners are notified
+   * synchronously by {@link #setProperty(String, String)}.
+   */
+  private static class SimpleConfig implements Config {
+    private final String m_namespace;
+    private final Properties m_properties = new Properties();
+    private final List<ListenerRegistration> m_listeners = Lists.newCopyOnWriteArrayList();
+
+    SimpleConfig(String namespace) {
+      m_namespace = namespace;
+    }
+
+    void setProperty(String key, String value) {
+      String oldValue = m_properties.getProperty(key);
+      PropertyChangeType changeType;
+      if (value == null) {
+        m_properties.remove(key);
+        changeType = PropertyChangeType.DELETED;
+      } else {
+        m_properties.setProperty(key, value);
+        changeType = oldValue == null ? PropertyChangeType.ADDED : PropertyChangeType.MODIFIED;
+      }
+
+      ConfigChangeEvent changeEvent = new ConfigChangeEvent(m_namespace, Collections.singletonMap(
+          key, new ConfigChange(m_namespace, key, oldValue, value, changeType)));
+      for (ListenerRegistration registration : m_listeners) {
+        if (registration.isInterestedIn(key)) {
+          registration.m_listener.onChange(changeEvent);
+        }
+      }
+    }
+
+    @Override
+    public String getProperty(String key, String defaultValue) {
+      return m_properties.getProperty(key, defaultValue);
+    }
+
+    @Override
+    public Integer getIntProperty(String key, Integer defaultValue) {
+      return parse(key, Integer::valueOf, defaultValue);
+    }
+
+    @Override
+    public Long getLongProperty(String key, Long defaultValue) {
+      return parse(key, Long::valueOf, defaultValue);
+    }
+
+    @Override
+    public Short getShortProperty(String key, Short defaultValue) {
+      return parse(key, Short::valueOf, defaultValue);
+    }
+
+    @Override
+    public Float getFloatProperty(String key, Float defaultValue) {
+      return parse(key, Float::valueOf, defaultValue);
+    }
+
+    @Override
+    public Double getDoubleProperty(String key, Double defaultValue) {
+      return parse(key, Double::valueOf, defaultValue);
+    }
+
+    @Override
+    public Byte getByteProperty(String key, Byte defaultValue) {
+      return parse(key, Byte::valueOf, defaultValue);
+    }
+
+    @Override
+    public Boolean getBooleanProperty(String key, Boolean defaultValue) {
+      return parse(key, Boolean::valueOf, defaultValue);
+    }
+
+    @Override
+    public String[] getArrayProperty(String key, String delimiter, String[] defaultValue) {
+      return parse(key, value -> value.split(delimiter), defaultValue);
+    }
+
+    @Override
+    public Date getDateProperty(String key, Date defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public Date getDateProperty(String key, String format, Date defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public Date getDateProperty(String key, String format, Locale locale, Date defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public <T extends Enum<T>> T getEnumProperty(String key, Class<T> enumType, T defaultValue) {
+      return parse(key, value -> Enum.valueOf(enumType, value), defaultValue);
+    }
+
+    @Override
+    public long getDurationProperty(String key, long defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public void addChangeListener(ConfigChangeListener listener) {
+      addChangeListener(listener, null, null);
+    }
+
+    @Override
+    public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys) {
+      addChangeListener(listener, interestedKeys, null);
+    }
+
+    @Override
+    public void addChangeListener(ConfigChangeListener listener, Set<String> interestedKeys,
+        Set<String> interestedKeyPrefixes) {
+      m_listeners.add(new ListenerRegistration(listener, interestedKeys, interestedKeyPrefixes));
+    }
+
+    @Override
+    public boolean removeChangeListener(ConfigChangeListener listener) {
+      for (ListenerRegistration registration : m_listeners) {
+        if (registration.m_listener == listener) {
+          return m_listeners.remove(registration);
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      return m_properties.stringPropertyNames();
+    }
+
+    @Override
+    public <T> T getProperty(String key, Function<String, T> function, T defaultValue) {
+      return parse(key, function::apply, defaultValue);
+    }
+
+    @Override
+    public ConfigSourceType getSourceType() {
+      return ConfigSourceType.NONE;
+    }
+
+    private <T> T parse(String key, java.util.function.Function<String, T> parser,
+        T defaultValue) {
+      String value = m_properties.getProperty(key);
+      return value == null ? defaultValue : parser.apply(value);
+    }
+  }
+
+  private static class ListenerRegistration {
+    private final ConfigChangeListener m_listener;
+    private final Set<String> m_interestedKeys;
+    private final Set<String> m_interestedKeyPrefixes;
+
+    ListenerRegistration(ConfigChangeListener listener, Set<String> interestedKeys,
+        Set<String> interestedKeyPrefixes) {
+      m_listener = listener;
+      m_interestedKeys = interestedKeys;
+      m_interestedKeyPrefixes = interestedKeyPrefixes;
+    }
+
+    boolean isInterestedIn(String key) {
+      if (m_interestedKeys == null && m_interestedKeyPrefixes == null) {
+        return true;
+      }
+      if (m_interestedKeys != null && m_interestedKeys.contains(key)) {
+        return true;
+      }
+      if (m_interestedKeyPrefixes != null) {
+        for (String prefix : m_interestedKeyPrefixes) {
+          if (key.startsWith(prefix)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -17,22 +17,39 @@
 package com.ctrip.framework.apollo.internals;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigChangeListener;
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.property.ConfigBinding;
+import com.ctrip.framework.apollo.property.IntProperty;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -164,6 +181,285 @@ public class AbstractConfigTest {
     verify(configChangeListener2, times(1)).onChange(any());
   }
 
+  @Test
+  public void testCalcPropertyChanges() {
+    AbstractConfig abstractConfig = new ErrorConfig();
+    final String namespace = "app-namespace-2";
+
+    Properties previous = new Properties();
+    previous.setProperty("unchanged", "someValue");
+    previous.setProperty("modified", "someValue");
+    previous.setProperty("deleted", "someValue");
+    Properties current = new Properties();
+    current.setProperty("unchanged", "someValue");
+    current.setProperty("modified", "anotherValue");
+    current.setProperty("added", "anotherValue");
+
+    Map<String, ConfigChange> changes = new HashMap<>();
+    List<PropertyChangeType> changeTypes = new ArrayList<>();
+    for (ConfigChange change : abstractConfig.calcPropertyChanges(namespace,
+        ImmutableProperties.copyOf(previous), current)) {
+      changes.put(change.getPropertyName(), change);
+      changeTypes.add(change.getChangeType());
+    }
+
+    assertEquals(Sets.newHashSet("modified", "deleted", "added"), changes.keySet());
+    assertChange(changes.get("modified"), "someValue", "anotherValue",
+        PropertyChangeType.MODIFIED);
+    assertChange(changes.get("deleted"), "someValue", null, PropertyChangeType.DELETED);
+    assertChange(changes.get("added"), null, "anotherValue", PropertyChangeType.ADDED);
+    // ordered as before, the added keys first, then the deleted and the modified ones
+    assertEquals(Arrays.asList(PropertyChangeType.ADDED, PropertyChangeType.DELETED,
+        PropertyChangeType.MODIFIED), changeTypes);
+
+    assertTrue(abstractConfig.calcPropertyChanges(namespace, previous, previous).isEmpty());
+    assertEquals(3, abstractConfig.calcPropertyChanges(namespace, null, previous).size());
+    assertEquals(3, abstractConfig.calcPropertyChanges(namespace, previous, null).size());
+  }
+
+  @Test
+  public void testPropertyChanges() {
+    final String namespace = "app-namespace-3";
+
+    PropertyChanges.Builder builder = new PropertyChanges.Builder();
+    List<String> keys = new ArrayList<>();
+    for (int i = 20; i > 0; i--) {
+      builder.add("key" + i, "old" + i, "new" + i, PropertyChangeType.MODIFIED);
+      keys.add("key" + i);
+    }
+    builder.add("addedKey", null, "someValue", PropertyChangeType.ADDED);
+    keys.add("addedKey");
+    PropertyChanges changes = builder.build(namespace);
+
+    assertEquals(21, changes.size());
+    // the keys keep the order they are added
+    assertEquals(keys, new ArrayList<>(changes.keySet()));
+    assertTrue(changes.containsKey("key10"));
+    assertTrue(changes.keySet().contains("addedKey"));
+    assertFalse(changes.containsKey("key21"));
+    assertNull(changes.get("key21"));
+
+    ConfigChange change = changes.get("key10");
+    assertChange(change, "old10", "new10", PropertyChangeType.MODIFIED);
+    assertSame(change, changes.get("key10"));
+    assertChange(changes.get("addedKey"), null, "someValue", PropertyChangeType.ADDED);
+
+    Map<String, ConfigChange> copy = new HashMap<>(changes);
+    assertEquals(changes, copy);
+    assertSame(change, copy.get("key10"));
+  }
+
+  @Test
+  public void testMergeConfigChangeEvents() {
+    final String namespace = "app-namespace";
+    Map<String, ConfigChange> previousChanges = new HashMap<>();
+    previousChanges.put("a", new ConfigChange(namespace, "a", null, "1", PropertyChangeType.ADDED));
+    previousChanges.put("b", new ConfigChange(namespace, "b", "1", "2", PropertyChangeType.MODIFIED));
+    previousChanges.put("c", new ConfigChange(namespace, "c", "1", "2", PropertyChangeType.MODIFIED));
+    Map<String, ConfigChange> nextChanges = new HashMap<>();
+    nextChanges.put("a", new ConfigChange(namespace, "a", "1", "2", PropertyChangeType.MODIFIED));
+    nextChanges.put("b", new ConfigChange(namespace, "b", "2", "1", PropertyChangeType.MODIFIED));
+    nextChanges.put("c", new ConfigChange(namespace, "c", "2", null, PropertyChangeType.DELETED));
+    nextChanges.put("d", new ConfigChange(namespace, "d", "1", "2", PropertyChangeType.MODIFIED));
+
+    ConfigChangeEvent merged = AbstractConfig.mergeConfigChangeEvents(
+        new InterestedConfigChangeEvent(namespace, previousChanges, Sets.newHashSet("a", "b")),
+        new InterestedConfigChangeEvent(namespace, nextChanges, Sets.newHashSet("a", "b", "d")));
+
+    assertEquals(Sets.newHashSet("a", "c", "d"), merged.changedKeys());
+    assertChange(merged.getChange("a"), null, "2", PropertyChangeType.ADDED);
+    assertChange(merged.getChange("c"), "1", null, PropertyChangeType.DELETED);
+    assertChange(merged.getChange("d"), "1", "2", PropertyChangeType.MODIFIED);
+    assertEquals(Sets.newHashSet("a", "d"), merged.interestedChangedKeys());
+
+    assertNull(AbstractConfig.mergeConfigChangeEvents(new ConfigChangeEvent(namespace, previousChanges),
+        new ConfigChangeEvent("another-namespace", nextChanges)));
+  }
+
+  @Test
+  public void testMergeRevertedConfigChangeEvents() {
+    final String namespace = "app-namespace";
+    Map<String, ConfigChange> previousChanges = new HashMap<>();
+    previousChanges.put("a", new ConfigChange(namespace, "a", "1", "2", PropertyChangeType.MODIFIED));
+    previousChanges.put("b", new ConfigChange(namespace, "b", "1", "2", PropertyChangeType.MODIFIED));
+    Map<String, ConfigChange> nextChanges = new HashMap<>();
+    nextChanges.put("a", new ConfigChange(namespace, "a", "2", "1", PropertyChangeType.MODIFIED));
+
+    ConfigChangeEvent merged = AbstractConfig.mergeConfigChangeEvents(
+        new InterestedConfigChangeEvent(namespace, previousChanges, Sets.newHashSet("a")),
+        new InterestedConfigChangeEvent(namespace, nextChanges, Sets.newHashSet("a")));
+
+    // the interested key is changed back, so nothing is left for the listener
+    assertTrue(merged.changedKeys().isEmpty());
+  }
+
+  @Test
+  public void testAwaitApplied() throws Exception {
+    AbstractConfig abstractConfig = new ErrorConfig();
+    final String namespace = "app-namespace";
+    final String key = "some-key";
+    final CountDownLatch blocked = new CountDownLatch(1);
+    abstractConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        try {
+          blocked.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    assertEquals(0, abstractConfig.getAppliedVersion());
+    assertTrue(abstractConfig.awaitApplied().isDone());
+
+    abstractConfig.clearConfigCache();
+    Map<String, ConfigChange> changes = new HashMap<>();
+    changes.put(key, new ConfigChange(namespace, key, "1", "2", PropertyChangeType.MODIFIED));
+    CompletableFuture<Void> completion = abstractConfig.fireConfigChange(namespace, changes);
+    CompletableFuture<Long> applied = abstractConfig.awaitApplied();
+
+    assertFalse(completion.isDone());
+    assertFalse(applied.isDone());
+    assertEquals(0, abstractConfig.getAppliedVersion());
+
+    blocked.countDown();
+
+    completion.get(500, TimeUnit.MILLISECONDS);
+    assertEquals(1, (long) applied.get(500, TimeUnit.MILLISECONDS));
+    assertEquals(1, abstractConfig.getAppliedVersion());
+  }
+
+  @Test
+  public void testAwaitAppliedWhenRefreshFailed() throws Exception {
+    final String namespace = "app-namespace";
+    final String key = "some-key";
+    FailingConfig abstractConfig = new FailingConfig();
+    abstractConfig.intHandle(key, 0);
+    final CountDownLatch notified = new CountDownLatch(1);
+    abstractConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        notified.countDown();
+      }
+    });
+
+    abstractConfig.failing = true;
+    abstractConfig.clearConfigCache();
+    Map<String, ConfigChange> changes = new HashMap<>();
+    changes.put(key, new ConfigChange(namespace, key, "1", "2", PropertyChangeType.MODIFIED));
+    CompletableFuture<Void> completion = abstractConfig.fireConfigChange(namespace, changes);
+
+    completion.get(500, TimeUnit.MILLISECONDS);
+    assertEquals(1, (long) abstractConfig.awaitApplied().get(500, TimeUnit.MILLISECONDS));
+    assertTrue(notified.await(500, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testSkipConfigChange() throws Exception {
+    AbstractConfig abstractConfig = new ErrorConfig();
+
+    abstractConfig.clearConfigCache();
+    CompletableFuture<Long> applied = abstractConfig.awaitAppliedVersion(1);
+    assertFalse(applied.isDone());
+
+    abstractConfig.skipConfigChange();
+
+    assertEquals(1, (long) applied.get(500, TimeUnit.MILLISECONDS));
+    assertEquals(1, abstractConfig.getAppliedVersion());
+  }
+
+  @Test
+  public void testApplyConfigChangeBeforePublish() throws Exception {
+    final String namespace = "app-namespace";
+    final String key = "some.timeout";
+    MapConfig abstractConfig = new MapConfig();
+    abstractConfig.properties.put(key, "1");
+    IntProperty handle = abstractConfig.intHandle(key, 0);
+    ConfigBinding<SomeBoundConfig> binding = abstractConfig.bind("some.", SomeBoundConfig.class);
+    Config subset = abstractConfig.subset("some.");
+    assertEquals(1, subset.getIntProperty("timeout", 0).intValue());
+    final List<ConfigChangeEvent> changeEvents = new CopyOnWriteArrayList<>();
+    ConfigChangeListener listener = new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    };
+    handle.addChangeListener(listener);
+    binding.addChangeListener(listener);
+    subset.addChangeListener(listener);
+
+    abstractConfig.properties.put(key, "2");
+    abstractConfig.clearConfigCache();
+    Map<String, ConfigChange> changes = new HashMap<>();
+    changes.put(key, new ConfigChange(namespace, key, "1", "2", PropertyChangeType.MODIFIED));
+    abstractConfig.applyConfigChange(new ConfigChangeEvent(namespace, changes));
+
+    // the derived values are refreshed, while the listeners are not notified yet
+    assertEquals(2, handle.get());
+    assertEquals(2, binding.get().timeout);
+    assertEquals(2, subset.getIntProperty("timeout", 0).intValue());
+    assertTrue(changeEvents.isEmpty());
+
+    abstractConfig.publishConfigChange(namespace, changes).get(500, TimeUnit.MILLISECONDS);
+
+    assertEquals(3, changeEvents.size());
+  }
+
+  private void assertChange(ConfigChange change, String oldValue, String newValue,
+      PropertyChangeType changeType) {
+    assertEquals(oldValue, change.getOldValue());
+    assertEquals(newValue, change.getNewValue());
+    assertEquals(changeType, change.getChangeType());
+  }
+
+  public static class SomeBoundConfig {
+    private int timeout;
+  }
+
+  private static class MapConfig extends AbstractConfig {
+    private final Map<String, String> properties = new ConcurrentHashMap<>();
+
+    @Override
+    public String getProperty(String key, String defaultValue) {
+      String value = properties.get(key);
+      return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      return properties.keySet();
+    }
+
+    @Override
+    public ConfigSourceType getSourceType() {
+      return ConfigSourceType.NONE;
+    }
+  }
+
+  private static class FailingConfig extends AbstractConfig {
+    private volatile boolean failing;
+
+    @Override
+    public String getProperty(String key, String defaultValue) {
+      if (failing) {
+        throw new IllegalStateException("some failure");
+      }
+      return defaultValue;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public ConfigSourceType getSourceType() {
+      return ConfigSourceType.NONE;
+    }
+  }
+
   /**
    * Only for current test usage.
    *
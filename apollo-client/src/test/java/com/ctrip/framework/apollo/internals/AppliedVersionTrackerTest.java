@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+public class AppliedVersionTrackerTest {
+
+  @Test
+  public void testAppliedInOrder() throws Exception {
+    AppliedVersionTracker tracker = new AppliedVersionTracker();
+    CompletableFuture<Long> firstApplied = tracker.await(1);
+    CompletableFuture<Long> secondApplied = tracker.await(2);
+
+    tracker.begin(1);
+    tracker.begin(2);
+    assertEquals(0, tracker.getAppliedVersion());
+
+    // version 2 is handled before version 1, the watermark is still held by version 1
+    tracker.end(2);
+    assertEquals(0, tracker.getAppliedVersion());
+    assertFalse(firstApplied.isDone());
+    assertFalse(secondApplied.isDone());
+
+    tracker.end(1);
+    assertEquals(2, tracker.getAppliedVersion());
+    assertEquals(2, (long) firstApplied.get());
+    assertEquals(2, (long) secondApplied.get());
+  }
+
+  @Test
+  public void testSameVersionInProgress() throws Exception {
+    AppliedVersionTracker tracker = new AppliedVersionTracker();
+
+    tracker.begin(1);
+    tracker.begin(1);
+    tracker.end(1);
+    assertEquals(0, tracker.getAppliedVersion());
+
+    tracker.end(1);
+    assertEquals(1, tracker.getAppliedVersion());
+  }
+
+  @Test
+  public void testSkip() throws Exception {
+    AppliedVersionTracker tracker = new AppliedVersionTracker();
+    CompletableFuture<Long> applied = tracker.await(3);
+
+    tracker.begin(1);
+    tracker.skip(3);
+    assertEquals(0, tracker.getAppliedVersion());
+    assertFalse(applied.isDone());
+
+    tracker.end(1);
+    assertEquals(3, tracker.getAppliedVersion());
+    assertEquals(3, (long) applied.get());
+  }
+
+  @Test
+  public void testAwaitAppliedVersion() throws Exception {
+    AppliedVersionTracker tracker = new AppliedVersionTracker();
+    tracker.skip(2);
+
+    CompletableFuture<Long> applied = tracker.await(1);
+
+    assertTrue(applied.isDone());
+    assertEquals(2, (long) applied.get());
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import org.junit.Test;
+
+public class ConfigChangeDispatcherTest {
+
+  private static final BinaryOperator<String> CONCAT = (previous, next) -> previous + "," + next;
+  private static final BinaryOperator<String> NOT_MERGEABLE = (previous, next) -> null;
+
+  private final Object someSource = new Object();
+
+  @Test
+  public void testDispatchInOrder() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 4, false);
+    Object someListener = new Object();
+    List<Integer> received = Collections.synchronizedList(Lists.<Integer>newArrayList());
+    int someCount = 1000;
+
+    for (int i = 0; i < someCount; i++) {
+      dispatcher.dispatch(someSource, someListener, i, received::add, null);
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == someCount);
+    for (int i = 0; i < someCount; i++) {
+      assertEquals(i, (int) received.get(i));
+    }
+    assertEquals(0, dispatcher.getCoalescedEventCount());
+    await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.getActiveListenerCount() == 0);
+  }
+
+  @Test
+  public void testCoalescePendingEvents() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 1, true);
+    Object someListener = new Object();
+    CountDownLatch blocked = new CountDownLatch(1);
+    List<String> received = Collections.synchronizedList(Lists.<String>newArrayList());
+    Consumer<String> handler = event -> {
+      received.add(event);
+      try {
+        blocked.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    };
+
+    dispatcher.dispatch(someSource, someListener, "a", handler, CONCAT);
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    dispatcher.dispatch(someSource, someListener, "b", handler, CONCAT);
+    dispatcher.dispatch(someSource, someListener, "c", handler, CONCAT);
+    dispatcher.dispatch(someSource, someListener, "d", handler, NOT_MERGEABLE);
+    dispatcher.dispatch(someSource, someListener, "e", handler, NOT_MERGEABLE);
+
+    assertEquals(4, dispatcher.getPendingEventCount());
+    blocked.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 4);
+    assertEquals(Lists.newArrayList("a", "b,c", "d", "e"), received);
+    assertEquals(1, dispatcher.getCoalescedEventCount());
+    assertEquals(5, dispatcher.getDispatchedEventCount());
+    assertEquals(0, dispatcher.getPendingEventCount());
+  }
+
+  @Test
+  public void testDispatchInLanesPerSource() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 2, true);
+    Object anotherSource = new Object();
+    Object someListener = new Object();
+    CountDownLatch blocked = new CountDownLatch(1);
+    List<String> received = Collections.synchronizedList(Lists.<String>newArrayList());
+    Consumer<String> blockingHandler = event -> {
+      received.add(event);
+      try {
+        blocked.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    };
+
+    dispatcher.dispatch(someSource, someListener, "a", blockingHandler, CONCAT);
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    dispatcher.dispatch(someSource, someListener, "b", received::add, CONCAT);
+
+    // the listener of another source is not delayed by the blocked one
+    dispatcher.dispatch(anotherSource, someListener, "c", received::add, CONCAT)
+        .get(5, TimeUnit.SECONDS);
+    assertEquals(Lists.newArrayList("a", "c"), received);
+
+    blocked.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 3);
+    assertEquals(Lists.newArrayList("a", "c", "b"), received);
+    assertEquals(0, dispatcher.getCoalescedEventCount());
+  }
+
+  @Test
+  public void testCompleteCoalescedEvents() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 1, true);
+    Object someListener = new Object();
+    CountDownLatch blocked = new CountDownLatch(1);
+    List<String> received = Collections.synchronizedList(Lists.<String>newArrayList());
+    Consumer<String> handler = event -> {
+      received.add(event);
+      try {
+        blocked.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    };
+
+    CompletableFuture<Void> first = dispatcher.dispatch(someSource, someListener, "a", handler, CONCAT);
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    CompletableFuture<Void> second = dispatcher.dispatch(someSource, someListener, "b", handler, CONCAT);
+    CompletableFuture<Void> third = dispatcher.dispatch(someSource, someListener, "c", handler, CONCAT);
+
+    assertFalse(first.isDone());
+    assertFalse(second.isDone());
+    assertFalse(third.isDone());
+    blocked.countDown();
+
+    CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+    assertEquals(Lists.newArrayList("a", "b,c"), received);
+  }
+
+  @Test
+  public void testRecordListenerLatency() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 1, false, 10);
+    Object someListener = new Object();
+
+    dispatcher.dispatch(someSource, someListener, "a", event -> {
+    }, null);
+    dispatcher.dispatch(someSource, someListener, "b", event -> {
+      try {
+        TimeUnit.MILLISECONDS.sleep(30);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }, null).get(5, TimeUnit.SECONDS);
+
+    ListenerLatencyHistogram histogram = dispatcher.getListenerLatencies()
+        .get(someListener.getClass().getName());
+    assertEquals(2, histogram.getCount());
+    assertTrue(histogram.getMaxTimeInMs() >= 30);
+    assertTrue(histogram.getTotalTimeInMs() >= 30);
+  }
+
+  @Test
+  public void testBoundedConcurrency() throws Exception {
+    int someMaxThreads = 2;
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", someMaxThreads, true);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger received = new AtomicInteger();
+    int someListenerCount = 50;
+
+    for (int i = 0; i < someListenerCount; i++) {
+      dispatcher.dispatch(someSource, new Object(), i, event -> {
+        threads.add(Thread.currentThread());
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          TimeUnit.MILLISECONDS.sleep(5);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        received.incrementAndGet();
+      }, null);
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.get() == someListenerCount);
+    assertTrue(threads.size() <= someMaxThreads);
+    assertTrue(maxRunning.get() <= someMaxThreads);
+  }
+
+  @Test
+  public void testCallerRunsWhenQueueIsFull() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 1, 1, false, 0);
+    int someListenerCount = 10;
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread callerThread = Thread.currentThread();
+    AtomicInteger callerRuns = new AtomicInteger();
+    AtomicInteger received = new AtomicInteger();
+
+    dispatcher.dispatch(someSource, new Object(), "blocking", event -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      received.incrementAndGet();
+    }, null);
+    blocked.await(5, TimeUnit.SECONDS);
+
+    for (int i = 0; i < someListenerCount; i++) {
+      dispatcher.dispatch(someSource, new Object(), "some", event -> {
+        if (Thread.currentThread() == callerThread) {
+          callerRuns.incrementAndGet();
+        }
+        received.incrementAndGet();
+      }, null);
+    }
+    release.countDown();
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.get() == someListenerCount + 1);
+    // the only thread is busy and the queue holds 1 lane, the others run on the caller thread
+    assertEquals(someListenerCount - 1, callerRuns.get());
+    assertEquals(someListenerCount - 1, dispatcher.getCallerRunCount());
+  }
+
+  @Test
+  public void testHandlerError() throws Exception {
+    ConfigChangeDispatcher dispatcher = new ConfigChangeDispatcher("test", 1, false);
+    Object someListener = new Object();
+    List<String> received = Collections.synchronizedList(Lists.<String>newArrayList());
+
+    CompletableFuture<Void> failed = dispatcher.dispatch(someSource, someListener, "a", event -> {
+      throw new IllegalStateException("some error");
+    }, null);
+    dispatcher.dispatch(someSource, someListener, "b", received::add, null);
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    assertEquals("b", received.get(0));
+    // the error is logged by the dispatcher, the change is still regarded as handled
+    assertTrue(failed.isDone());
+    assertFalse(failed.isCompletedExceptionally());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConfigChangeJournalTest {
+
+  private static final String SOME_NAMESPACE = "someNamespace";
+
+  @Test
+  public void testGetChangesSince() {
+    ConfigChangeJournal journal = new ConfigChangeJournal(SOME_NAMESPACE, 8, 0);
+
+    journal.append(1, change("a", null, "1", PropertyChangeType.ADDED));
+    journal.append(2, change("b", "1", "2", PropertyChangeType.MODIFIED));
+    journal.append(3, change("a", "1", "2", PropertyChangeType.MODIFIED));
+
+    VersionedConfigChanges changes = journal.getChangesSince(0);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals(0, changes.getFromVersion());
+    assertEquals(3, changes.getVersion());
+    assertEquals(Sets.newHashSet("a", "b"), changes.changedKeys());
+    assertNull(changes.getChange("a").getOldValue());
+    assertEquals("2", changes.getChange("a").getNewValue());
+    assertEquals(PropertyChangeType.ADDED, changes.getChange("a").getChangeType());
+
+    changes = journal.getChangesSince(2);
+    assertEquals(Sets.newHashSet("a"), changes.changedKeys());
+    assertEquals("1", changes.getChange("a").getOldValue());
+
+    changes = journal.getChangesSince(3);
+    assertFalse(changes.isFullReloadRequired());
+    assertTrue(changes.changedKeys().isEmpty());
+
+    assertNull(journal.getChangesSince(4));
+  }
+
+  @Test
+  public void testRevertedChanges() {
+    ConfigChangeJournal journal = new ConfigChangeJournal(SOME_NAMESPACE, 8, 0);
+
+    journal.append(1, change("a", "1", "2", PropertyChangeType.MODIFIED));
+    journal.append(2, change("a", "2", "1", PropertyChangeType.MODIFIED));
+
+    VersionedConfigChanges changes = journal.getChangesSince(0);
+    assertFalse(changes.isFullReloadRequired());
+    assertTrue(changes.changedKeys().isEmpty());
+  }
+
+  @Test
+  public void testEvictedChanges() {
+    ConfigChangeJournal journal = new ConfigChangeJournal(SOME_NAMESPACE, 2, 0);
+
+    journal.append(1, change("a", "1", "2", PropertyChangeType.MODIFIED));
+    journal.append(2, change("a", "2", "3", PropertyChangeType.MODIFIED));
+    journal.append(3, change("a", "3", "4", PropertyChangeType.MODIFIED));
+
+    assertTrue(journal.getChangesSince(0).isFullReloadRequired());
+    assertEquals(3, journal.getChangesSince(0).getVersion());
+    assertEquals("2", journal.getChangesSince(1).getChange("a").getOldValue());
+  }
+
+  @Test
+  public void testSkippedVersions() {
+    ConfigChangeJournal journal = new ConfigChangeJournal(SOME_NAMESPACE, 8, 0);
+
+    journal.append(1, change("a", "1", "2", PropertyChangeType.MODIFIED));
+    // version 2 is not journaled
+    journal.append(3, change("a", "2", "3", PropertyChangeType.MODIFIED));
+
+    assertTrue(journal.getChangesSince(1).isFullReloadRequired());
+    assertEquals("2", journal.getChangesSince(2).getChange("a").getOldValue());
+  }
+
+  @Test
+  public void testEmptyChanges() {
+    ConfigChangeJournal journal = new ConfigChangeJournal(SOME_NAMESPACE, 2, 0);
+
+    journal.append(1, change("a", "1", "2", PropertyChangeType.MODIFIED));
+    // the empty changes take no entry, so the changes of version 1 are not evicted
+    journal.append(2, Collections.<String, ConfigChange>emptyMap());
+    journal.append(3, Collections.<String, ConfigChange>emptyMap());
+    journal.append(4, change("b", "1", "2", PropertyChangeType.MODIFIED));
+
+    VersionedConfigChanges changes = journal.getChangesSince(0);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals(4, changes.getVersion());
+    assertEquals(Sets.newHashSet("a", "b"), changes.changedKeys());
+
+    changes = journal.getChangesSince(2);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals(Sets.newHashSet("b"), changes.changedKeys());
+
+    journal.append(5, Collections.<String, ConfigChange>emptyMap());
+
+    changes = journal.getChangesSince(4);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals(5, changes.getVersion());
+    assertTrue(changes.changedKeys().isEmpty());
+  }
+
+  private Map<String, ConfigChange> change(String key, String oldValue, String newValue,
+      PropertyChangeType changeType) {
+    return Collections.singletonMap(key,
+        new ConfigChange(SOME_NAMESPACE, key, oldValue, newValue, changeType));
+  }
+}
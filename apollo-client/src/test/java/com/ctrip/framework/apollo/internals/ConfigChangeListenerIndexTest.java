@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigChangeListenerIndexTest {
+
+  private ConfigChangeListenerIndex listenerIndex;
+  private ConfigChangeListener allKeysListener;
+  private ConfigChangeListener keyListener;
+  private ConfigChangeListener prefixListener;
+  private ConfigChangeListener keyAndPrefixListener;
+
+  @Before
+  public void setUp() throws Exception {
+    listenerIndex = new ConfigChangeListenerIndex();
+    allKeysListener = mock(ConfigChangeListener.class);
+    keyListener = mock(ConfigChangeListener.class);
+    prefixListener = mock(ConfigChangeListener.class);
+    keyAndPrefixListener = mock(ConfigChangeListener.class);
+
+    assertTrue(listenerIndex.add(allKeysListener, null, Collections.<String>emptySet()));
+    assertTrue(listenerIndex.add(keyListener, Sets.newHashSet("a.b", "c"), null));
+    assertTrue(listenerIndex.add(prefixListener, null, Sets.newHashSet("a.", "a.b")));
+    assertTrue(listenerIndex.add(keyAndPrefixListener, Sets.newHashSet("d"), Sets.newHashSet("c.")));
+  }
+
+  @Test
+  public void testMatch() throws Exception {
+    Map<ConfigChangeListener, Set<String>> matched =
+        listenerIndex.match(Sets.newHashSet("a.b", "a.bc", "c", "c.d", "e"));
+
+    assertEquals(
+        Lists.newArrayList(allKeysListener, keyListener, prefixListener, keyAndPrefixListener),
+        Lists.newArrayList(matched.keySet()));
+    assertTrue(matched.get(allKeysListener).isEmpty());
+    assertEquals(Sets.newHashSet("a.b", "c"), matched.get(keyListener));
+    assertEquals(Sets.newHashSet("a.b", "a.bc"), matched.get(prefixListener));
+    assertEquals(Sets.newHashSet("c.d"), matched.get(keyAndPrefixListener));
+  }
+
+  @Test
+  public void testMatchWithoutInterestedKeys() throws Exception {
+    Map<ConfigChangeListener, Set<String>> matched = listenerIndex.match(Sets.newHashSet("e", "a"));
+
+    assertEquals(Collections.singleton(allKeysListener), matched.keySet());
+  }
+
+  @Test
+  public void testMatchWithEmptyPrefix() throws Exception {
+    ConfigChangeListener emptyPrefixListener = mock(ConfigChangeListener.class);
+    listenerIndex.add(emptyPrefixListener, null, Collections.singleton(""));
+
+    Map<ConfigChangeListener, Set<String>> matched = listenerIndex.match(Sets.newHashSet("e", "a"));
+
+    assertEquals(Sets.newHashSet("e", "a"), matched.get(emptyPrefixListener));
+  }
+
+  @Test
+  public void testAddDuplicateListener() throws Exception {
+    assertFalse(listenerIndex.add(keyListener, Sets.newHashSet("e"), null));
+
+    Map<ConfigChangeListener, Set<String>> matched = listenerIndex.match(Sets.newHashSet("e"));
+
+    assertFalse(matched.containsKey(keyListener));
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    assertTrue(listenerIndex.remove(keyListener));
+    assertTrue(listenerIndex.remove(prefixListener));
+    assertFalse(listenerIndex.remove(prefixListener));
+
+    Map<ConfigChangeListener, Set<String>> matched =
+        listenerIndex.match(Sets.newHashSet("a.b", "c", "c.d"));
+
+    assertEquals(Lists.newArrayList(allKeysListener, keyAndPrefixListener),
+        Lists.newArrayList(matched.keySet()));
+  }
+
+  @Test
+  public void testRemovePrunesPrefixNodes() throws Exception {
+    int prefixNodeCount = listenerIndex.getPrefixNodeCount();
+    ConfigChangeListener anotherPrefixListener = mock(ConfigChangeListener.class);
+
+    for (int i = 0; i < 10; i++) {
+      listenerIndex.add(anotherPrefixListener, null, Sets.newHashSet("a.bcd", "x.y" + i));
+      listenerIndex.remove(anotherPrefixListener);
+    }
+
+    assertEquals(prefixNodeCount, listenerIndex.getPrefixNodeCount());
+
+    // the nodes of the remaining prefixes are kept
+    assertTrue(listenerIndex.remove(prefixListener));
+
+    Map<ConfigChangeListener, Set<String>> matched = listenerIndex.match(Sets.newHashSet("c.d"));
+
+    assertEquals(Sets.newHashSet("c.d"), matched.get(keyAndPrefixListener));
+    // the root and the nodes of "c."
+    assertEquals(3, listenerIndex.getPrefixNodeCount());
+  }
+}
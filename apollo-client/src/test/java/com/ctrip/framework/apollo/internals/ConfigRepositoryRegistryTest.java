@@ -0,0 +1,169 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigRepositoryRegistryTest {
+  private ConfigRepositoryRegistry registry;
+  private String someNamespace;
+
+  @Before
+  public void setUp() throws Exception {
+    registry = new ConfigRepositoryRegistry();
+    someNamespace = "someNamespace";
+  }
+
+  @Test
+  public void testAcquireSharesRepository() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+
+    ConfigRepository repository = registry.acquire(someNamespace, () -> {
+      created.incrementAndGet();
+      return mock(ConfigRepository.class);
+    });
+    ConfigRepository anotherRepository = registry.acquire(someNamespace, () -> {
+      created.incrementAndGet();
+      return mock(ConfigRepository.class);
+    });
+
+    assertSame(repository, anotherRepository);
+    assertEquals(1, created.get());
+    assertEquals(2, registry.getReferenceCount(someNamespace));
+  }
+
+  @Test
+  public void testAcquireDifferentNamespaces() throws Exception {
+    String anotherNamespace = "anotherNamespace";
+
+    ConfigRepository repository = registry.acquire(someNamespace,
+        () -> mock(ConfigRepository.class));
+    ConfigRepository anotherRepository = registry.acquire(anotherNamespace,
+        () -> mock(ConfigRepository.class));
+
+    assertNotSame(repository, anotherRepository);
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+    assertEquals(1, registry.getReferenceCount(anotherNamespace));
+  }
+
+  @Test
+  public void testReleaseLastReference() throws Exception {
+    ConfigRepository repository = registry.acquire(someNamespace,
+        () -> mock(ConfigRepository.class));
+    registry.acquire(someNamespace, () -> mock(ConfigRepository.class));
+
+    assertFalse(registry.release(someNamespace, repository));
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+
+    assertTrue(registry.release(someNamespace, repository));
+    assertEquals(0, registry.getReferenceCount(someNamespace));
+
+    ConfigRepository newRepository = registry.acquire(someNamespace,
+        () -> mock(ConfigRepository.class));
+    assertNotSame(repository, newRepository);
+  }
+
+  @Test
+  public void testReleaseUnknownRepository() throws Exception {
+    registry.acquire(someNamespace, () -> mock(ConfigRepository.class));
+
+    assertFalse(registry.release(someNamespace, mock(ConfigRepository.class)));
+    assertFalse(registry.release("anotherNamespace", mock(ConfigRepository.class)));
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+  }
+
+  @Test
+  public void testCreateNamespacesInParallel() throws Exception {
+    String anotherNamespace = "anotherNamespace";
+    CountDownLatch anotherCreated = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    try {
+      // the creation of some namespace waits for the one of another namespace in another thread
+      Future<ConfigRepository> repository = executorService.submit(
+          () -> registry.acquire(someNamespace, () -> {
+            try {
+              assertTrue(anotherCreated.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException ex) {
+              throw new IllegalStateException(ex);
+            }
+            return mock(ConfigRepository.class);
+          }));
+
+      registry.acquire(anotherNamespace, () -> {
+        anotherCreated.countDown();
+        return mock(ConfigRepository.class);
+      });
+
+      repository.get(5, TimeUnit.SECONDS);
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+    assertEquals(1, registry.getReferenceCount(anotherNamespace));
+  }
+
+  @Test
+  public void testAcquireAnotherNamespaceWhileCreating() throws Exception {
+    String anotherNamespace = "anotherNamespace";
+
+    registry.acquire(someNamespace, () -> {
+      registry.acquire(anotherNamespace, () -> mock(ConfigRepository.class));
+      return mock(ConfigRepository.class);
+    });
+
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+    assertEquals(1, registry.getReferenceCount(anotherNamespace));
+  }
+
+  @Test
+  public void testAcquireAfterCreationFailed() throws Exception {
+    try {
+      registry.acquire(someNamespace, () -> {
+        throw new IllegalStateException("some failure");
+      });
+      fail("IllegalStateException is expected");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+    assertEquals(0, registry.getReferenceCount(someNamespace));
+
+    AtomicInteger created = new AtomicInteger();
+    registry.acquire(someNamespace, () -> {
+      created.incrementAndGet();
+      return mock(ConfigRepository.class);
+    });
+
+    assertEquals(1, created.get());
+    assertEquals(1, registry.getReferenceCount(someNamespace));
+  }
+}
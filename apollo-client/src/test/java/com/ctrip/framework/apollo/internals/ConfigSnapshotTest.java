@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import org.junit.Test;
+
+public class ConfigSnapshotTest {
+
+  @Test
+  public void testIsSameAs() {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    Properties sameProperties = new Properties();
+    sameProperties.setProperty("someKey", "someValue");
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("someKey", "anotherValue");
+
+    ConfigSnapshot someSnapshot = new ConfigSnapshot(someProperties, "someReleaseKey");
+
+    assertTrue(someSnapshot.isSameAs(someSnapshot));
+    assertTrue(someSnapshot.isSameAs(new ConfigSnapshot(someProperties, "anotherReleaseKey")));
+    assertTrue(someSnapshot.isSameAs(new ConfigSnapshot(sameProperties, null)));
+    assertTrue(someSnapshot.isSameAs(new ConfigSnapshot(sameProperties, "someReleaseKey")));
+    assertFalse(someSnapshot.isSameAs(null));
+    assertFalse(someSnapshot.isSameAs(new ConfigSnapshot(sameProperties, "anotherReleaseKey")));
+    assertFalse(someSnapshot.isSameAs(new ConfigSnapshot(anotherProperties, null)));
+    // the same release key identifies the same release, so the content is not compared
+    assertTrue(someSnapshot.isSameAs(new ConfigSnapshot(anotherProperties, "someReleaseKey")));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testWithNullProperties() {
+    new ConfigSnapshot(null, "someReleaseKey");
+  }
+}
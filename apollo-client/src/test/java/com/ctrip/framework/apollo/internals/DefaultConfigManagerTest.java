@@ -17,13 +17,25 @@
 package com.ctrip.framework.apollo.internals;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.mock;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.google.common.collect.Sets;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -43,6 +55,7 @@ import com.ctrip.framework.apollo.util.ConfigUtil;
 public class DefaultConfigManagerTest {
   private DefaultConfigManager defaultConfigManager;
   private static String someConfigContent;
+  private static List<String> someCreatedNamespaces;
 
   @Before
   public void setUp() throws Exception {
@@ -50,6 +63,7 @@ public class DefaultConfigManagerTest {
     MockInjector.setInstance(ConfigUtil.class, new ConfigUtil());
     defaultConfigManager = new DefaultConfigManager();
     someConfigContent = "someContent";
+    someCreatedNamespaces = Collections.synchronizedList(new ArrayList<String>());
   }
 
   @After
@@ -80,6 +94,58 @@ public class DefaultConfigManagerTest {
         config, equalTo(anotherConfig));
   }
 
+  @Test
+  public void testPreload() throws Exception {
+    String someNamespace = "someName";
+    String anotherNamespace = "anotherName";
+
+    defaultConfigManager.preload(Arrays.asList(someNamespace, anotherNamespace));
+
+    assertEquals(Sets.newHashSet(someNamespace, anotherNamespace),
+        Sets.newHashSet(someCreatedNamespaces));
+
+    Config config = defaultConfigManager.getConfig(someNamespace);
+    defaultConfigManager.preload(Collections.singletonList(someNamespace));
+
+    assertEquals(2, someCreatedNamespaces.size());
+    assertSame(config, defaultConfigManager.getConfig(someNamespace));
+  }
+
+  @Test
+  public void testPreloadLearnedNamespaces() throws Exception {
+    File someCacheDir = new File("src/test/resources/learned-namespaces");
+    try {
+      MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLearnedNamespaces(someCacheDir));
+      String someNamespace = "someName";
+      String anotherNamespace = "anotherName";
+
+      DefaultConfigManager someConfigManager = new DefaultConfigManager();
+      someConfigManager.getConfig(someNamespace);
+      someConfigManager.getConfig(anotherNamespace);
+
+      final File file = new File(someCacheDir, "config-cache/someAppId+someCluster.namespaces");
+      await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+          assertEquals(Sets.newHashSet(someNamespace, anotherNamespace),
+              Sets.newHashSet(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))));
+
+      someCreatedNamespaces.clear();
+      DefaultConfigManager anotherConfigManager = new DefaultConfigManager();
+      anotherConfigManager.getConfig(someNamespace);
+
+      await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+          assertTrue(someCreatedNamespaces.contains(anotherNamespace)));
+      assertEquals(2, someCreatedNamespaces.size());
+      await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+          assertEquals(Collections.singletonList(someNamespace),
+              Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)));
+    } finally {
+      File file = new File(someCacheDir, "config-cache/someAppId+someCluster.namespaces");
+      file.delete();
+      file.getParentFile().delete();
+      someCacheDir.delete();
+    }
+  }
+
   @Test
   public void testGetConfigFile() throws Exception {
     String someNamespace = "someName";
@@ -108,6 +174,34 @@ public class DefaultConfigManagerTest {
 
   }
 
+  private static class MockConfigUtilWithLearnedNamespaces extends ConfigUtil {
+    private final File cacheDir;
+
+    private MockConfigUtilWithLearnedNamespaces(File cacheDir) {
+      this.cacheDir = cacheDir;
+    }
+
+    @Override
+    public String getAppId() {
+      return "someAppId";
+    }
+
+    @Override
+    public String getCluster() {
+      return "someCluster";
+    }
+
+    @Override
+    public String getDefaultLocalCacheDir() {
+      return cacheDir.getPath();
+    }
+
+    @Override
+    public boolean isLearnedNamespacesPreloadEnabled() {
+      return true;
+    }
+  }
+
   public static class MockConfigFactoryManager implements ConfigFactoryManager {
 
     @Override
@@ -115,6 +209,7 @@ public class DefaultConfigManagerTest {
       return new ConfigFactory() {
         @Override
         public Config create(final String namespace) {
+          someCreatedNamespaces.add(namespace);
           return new AbstractConfig() {
             @Override
             public String getProperty(String key, String defaultValue) {
@@ -20,6 +20,8 @@ import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -39,12 +41,12 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
-import org.awaitility.core.ThrowingRunnable;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -56,6 +58,12 @@ import com.ctrip.framework.apollo.core.utils.ClassLoaderUtil;
 import com.ctrip.framework.apollo.enums.PropertyChangeType;
 import com.ctrip.framework.apollo.model.ConfigChange;
 import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.ctrip.framework.apollo.model.VersionedConfigChanges;
+import com.ctrip.framework.apollo.property.BooleanProperty;
+import com.ctrip.framework.apollo.property.ConfigBinding;
+import com.ctrip.framework.apollo.property.IntProperty;
+import com.ctrip.framework.apollo.property.LongProperty;
+import com.ctrip.framework.apollo.property.StringProperty;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
@@ -161,6 +169,157 @@ public class DefaultConfigTest {
     assertEquals(someSourceType, defaultConfig.getSourceType());
   }
 
+  @Test
+  public void testGetPropertyWithPropertySnapshot() throws Exception {
+    String someKey = "someKey";
+    String someSystemPropertyValue = "system-property-value";
+
+    String anotherKey = "anotherKey";
+    String someLocalFileValue = "local-file-value";
+
+    String lastKey = "lastKey";
+    String someResourceValue = "resource-value";
+
+    String missingKey = "missingKey";
+    String someDefaultValue = "default-value";
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithPropertySnapshot());
+
+    //set up system property
+    System.setProperty(someKey, someSystemPropertyValue);
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someLocalFileValue);
+    someProperties.setProperty(anotherKey, someLocalFileValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    //set up resource file
+    File resourceFile = new File(someResourceDir, someNamespace + ".properties");
+    Files.write(anotherKey + "=" + someResourceValue, resourceFile, Charsets.UTF_8);
+    Files.append(System.getProperty("line.separator"), resourceFile, Charsets.UTF_8);
+    Files.append(lastKey + "=" + someResourceValue, resourceFile, Charsets.UTF_8);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    String someKeyValue = defaultConfig.getProperty(someKey, null);
+    String anotherKeyValue = defaultConfig.getProperty(anotherKey, null);
+    String lastKeyValue = defaultConfig.getProperty(lastKey, null);
+    String missingKeyValue = defaultConfig.getProperty(missingKey, someDefaultValue);
+
+    //clean up
+    System.clearProperty(someKey);
+
+    assertEquals(someSystemPropertyValue, someKeyValue);
+    assertEquals(someLocalFileValue, anotherKeyValue);
+    assertEquals(someResourceValue, lastKeyValue);
+    assertEquals(someDefaultValue, missingKeyValue);
+  }
+
+  @Test
+  public void testOnRepositoryChangeWithPropertySnapshot() throws Exception {
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String anotherValue = "anotherValue";
+
+    String newKey = "newKey";
+    String newValue = "newValue";
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithPropertySnapshot());
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someValue, defaultConfig.getProperty(someKey, null));
+    assertEquals(null, defaultConfig.getProperty(newKey, null));
+
+    final SettableFuture<ConfigChangeEvent> configChangeFuture = SettableFuture.create();
+    defaultConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        configChangeFuture.set(changeEvent);
+      }
+    });
+
+    Properties newProperties = new Properties();
+    newProperties.setProperty(someKey, anotherValue);
+    newProperties.setProperty(newKey, newValue);
+
+    defaultConfig.onRepositoryChange(someNamespace, newProperties);
+
+    ConfigChangeEvent changeEvent = configChangeFuture.get(500, TimeUnit.MILLISECONDS);
+
+    assertEquals(2, changeEvent.changedKeys().size());
+    assertEquals(someValue, changeEvent.getChange(someKey).getOldValue());
+    assertEquals(anotherValue, changeEvent.getChange(someKey).getNewValue());
+    assertEquals(PropertyChangeType.ADDED, changeEvent.getChange(newKey).getChangeType());
+
+    assertEquals(anotherValue, defaultConfig.getProperty(someKey, null));
+    assertEquals(newValue, defaultConfig.getProperty(newKey, null));
+  }
+
+  @Test
+  public void testGetPropertyWithNegativeCache() throws Exception {
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String someDefaultValue = "someDefaultValue";
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithNegativeCache());
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someDefaultValue, defaultConfig.getProperty(someKey, someDefaultValue));
+    assertEquals(someDefaultValue, defaultConfig.getProperty(someKey, someDefaultValue));
+    assertEquals(null, defaultConfig.getProperty(someKey, null));
+
+    verify(someProperties, times(1)).getProperty(someKey);
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, someValue);
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertEquals(someValue, defaultConfig.getProperty(someKey, someDefaultValue));
+  }
+
+  @Test
+  public void testGetPropertyWithNegativeCacheAndSystemPropertySetLater() throws Exception {
+    String someKey = "someKeyForNegativeCache";
+    String someSystemPropertyValue = "someSystemPropertyValue";
+    String someDefaultValue = "someDefaultValue";
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithNegativeCache());
+
+    //set up config repo
+    someProperties = new Properties();
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someDefaultValue, defaultConfig.getProperty(someKey, someDefaultValue));
+
+    System.setProperty(someKey, someSystemPropertyValue);
+    try {
+      assertEquals(someSystemPropertyValue, defaultConfig.getProperty(someKey, someDefaultValue));
+    } finally {
+      System.clearProperty(someKey);
+    }
+
+    assertEquals(someDefaultValue, defaultConfig.getProperty(someKey, someDefaultValue));
+  }
+
   @Test
   public void testGetIntProperty() throws Exception {
     String someStringKey = "someStringKey";
@@ -290,15 +449,12 @@ public class DefaultConfigTest {
 
     verify(someProperties, times(1)).getProperty(someKey);
 
-    await().atMost(500, TimeUnit.MILLISECONDS).untilAsserted(new ThrowingRunnable() {
-      @Override
-      public void run() throws Throwable {
-        assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
-        assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+    // the cached values don't expire, they are only replaced after the config is changed
+    TimeUnit.MILLISECONDS.sleep(100);
 
-        verify(someProperties, times(2)).getProperty(someKey);
-      }
-    });
+    assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+
+    verify(someProperties, times(1)).getProperty(someKey);
   }
 
   @Test
@@ -597,6 +753,108 @@ public class DefaultConfigTest {
     assertEquals(someDefaultValue, defaultConfig.getEnumProperty("stringProperty", SomeEnum.class, someDefaultValue));
   }
 
+  @Test
+  public void testGetEnumPropertyMultipleTimesWithCache() throws Exception {
+    String someKey = "someKey";
+    SomeEnum someDefaultValue = SomeEnum.defaultValue;
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(someProperties.getProperty(someKey)).thenReturn("someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(SomeEnum.someValue, defaultConfig.getEnumProperty(someKey, SomeEnum.class, someDefaultValue));
+    assertEquals(SomeEnum.someValue, defaultConfig.getEnumProperty(someKey, SomeEnum.class, someDefaultValue));
+
+    verify(someProperties, times(1)).getProperty(someKey);
+  }
+
+  @Test
+  public void testGetDatePropertyWithFormatMultipleTimesWithCache() throws Exception {
+    String someKey = "someKey";
+    Date someDefaultValue = new Date();
+    Date someDate = assembleDate(2016, 9, 28, 15, 10, 10, 0);
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(someProperties.getProperty(someKey)).thenReturn("2016-09-28 15:10:10");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    assertEquals(someDate, defaultConfig.getDateProperty(someKey, "yyyy-MM-dd HH:mm:ss", someDefaultValue));
+    assertEquals(someDate, defaultConfig.getDateProperty(someKey, "yyyy-MM-dd HH:mm:ss", someDefaultValue));
+
+    verify(someProperties, times(1)).getProperty(someKey);
+
+    assertEquals(someDate, defaultConfig.getDateProperty(someKey, "yyyy-MM-dd HH:mm:ss", Locale.US,
+        someDefaultValue));
+    assertEquals(someDefaultValue, defaultConfig.getDateProperty(someKey, "HH:mm:ss", someDefaultValue));
+
+    verify(someProperties, times(3)).getProperty(someKey);
+  }
+
+  @Test
+  public void testGetPropertyWithFunctionMultipleTimesWithPropertyChanges() throws Exception {
+    String someKey = "someKey";
+    Function<String, List<String>> someFunction = new Function<String, List<String>>() {
+      @Override
+      public List<String> apply(String s) {
+        return Splitter.on(",").splitToList(s);
+      }
+    };
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "a,b");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    List<String> someResult = defaultConfig.getProperty(someKey, someFunction, null);
+    assertEquals(Lists.newArrayList("a", "b"), someResult);
+    assertSame(someResult, defaultConfig.getProperty(someKey, someFunction, null));
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, "c,d");
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertEquals(Lists.newArrayList("c", "d"), defaultConfig.getProperty(someKey, someFunction, null));
+  }
+
+  @Test
+  public void testGetIntPropertyWithCacheAfterNewFunctionsPassed() throws Exception {
+    String someKey = "someKey";
+    Integer someValue = 2;
+    Integer someDefaultValue = -1;
+
+    //set up config repo
+    someProperties = mock(Properties.class);
+    when(someProperties.getProperty(someKey)).thenReturn(String.valueOf(someValue));
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    // a new function on every call, e.g. a capturing lambda
+    for (int i = 0; i < 100; i++) {
+      final int offset = i;
+      assertEquals(someValue + offset, (int) defaultConfig.getProperty(someKey,
+          input -> Integer.parseInt(input) + offset, someDefaultValue));
+    }
+
+    assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+    assertEquals(someValue, defaultConfig.getIntProperty(someKey, someDefaultValue));
+
+    verify(someProperties, times(101)).getProperty(someKey);
+  }
+
   @Test
   public void testGetDurationProperty() throws Exception {
     long someDefaultValue = 1000;
@@ -705,6 +963,250 @@ public class DefaultConfigTest {
     assertEquals(anotherSourceType, defaultConfig.getSourceType());
   }
 
+  @Test
+  public void testOnRepositoryChangeWithSnapshot() throws Exception {
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String anotherValue = "anotherValue";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, someValue);
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    final List<ConfigChangeEvent> changeEvents = Lists.newCopyOnWriteArrayList();
+    defaultConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    });
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, anotherValue);
+    ConfigSnapshot someSnapshot = new ConfigSnapshot(anotherProperties, "someReleaseKey");
+
+    defaultConfig.onRepositoryChange(someNamespace, someSnapshot);
+    defaultConfig.onRepositoryChange(someNamespace, someSnapshot);
+
+    assertEquals(anotherValue, defaultConfig.getProperty(someKey, null));
+
+    await().atMost(500, TimeUnit.MILLISECONDS).until(() -> !changeEvents.isEmpty());
+    Thread.sleep(100);
+
+    assertEquals(1, changeEvents.size());
+    assertEquals(someValue, changeEvents.get(0).getChange(someKey).getOldValue());
+    assertEquals(anotherValue, changeEvents.get(0).getChange(someKey).getNewValue());
+  }
+
+  @Test
+  public void testGetChangesSince() throws Exception {
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "v1");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someNamespace, configRepository);
+    long someVersion = defaultConfig.getVersion();
+
+    VersionedConfigChanges noChanges = defaultConfig.getChangesSince(someVersion);
+    assertFalse(noChanges.isFullReloadRequired());
+    assertTrue(noChanges.changedKeys().isEmpty());
+
+    Properties secondProperties = new Properties();
+    secondProperties.setProperty(someKey, "v2");
+    secondProperties.setProperty(anotherKey, "v2");
+    Properties thirdProperties = new Properties();
+    thirdProperties.setProperty(someKey, "v3");
+
+    defaultConfig.onRepositoryChange(someNamespace, secondProperties);
+    long secondVersion = defaultConfig.getVersion();
+    defaultConfig.onRepositoryChange(someNamespace, thirdProperties);
+
+    VersionedConfigChanges changes = defaultConfig.getChangesSince(someVersion);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals(defaultConfig.getVersion(), changes.getVersion());
+    // anotherKey is added then deleted
+    assertEquals(Sets.newHashSet(someKey), changes.changedKeys());
+    assertEquals("v1", changes.getChange(someKey).getOldValue());
+    assertEquals("v3", changes.getChange(someKey).getNewValue());
+
+    changes = defaultConfig.getChangesSince(secondVersion);
+    assertEquals(Sets.newHashSet(someKey, anotherKey), changes.changedKeys());
+    assertEquals(PropertyChangeType.DELETED, changes.getChange(anotherKey).getChangeType());
+
+    assertTrue(defaultConfig.getChangesSince(defaultConfig.getVersion() + 1).isFullReloadRequired());
+  }
+
+  @Test
+  public void testGetChangesSinceBeforeFirstPull() throws Exception {
+    String someKey = "someKey";
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "v0");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someNamespace, configRepository);
+    long someVersion = defaultConfig.getVersion();
+
+    Properties newProperties = new Properties();
+    newProperties.setProperty(someKey, "v1");
+    defaultConfig.onRepositoryChange(someNamespace, newProperties);
+
+    // the changes before the first pull are not journaled
+    VersionedConfigChanges changes = defaultConfig.getChangesSince(someVersion);
+    assertTrue(changes.isFullReloadRequired());
+    assertEquals(defaultConfig.getVersion(), changes.getVersion());
+
+    long currentVersion = defaultConfig.getVersion();
+    newProperties = new Properties();
+    newProperties.setProperty(someKey, "v2");
+    defaultConfig.onRepositoryChange(someNamespace, newProperties);
+
+    changes = defaultConfig.getChangesSince(currentVersion);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals("v1", changes.getChange(someKey).getOldValue());
+    assertEquals("v2", changes.getChange(someKey).getNewValue());
+  }
+
+  @Test
+  public void testGetChangesSinceEvicted() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithSmallJournal());
+    String someKey = "someKey";
+
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "v0");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig = new DefaultConfig(someNamespace, configRepository);
+    long someVersion = defaultConfig.getVersion();
+    // the journal starts with the first pull
+    assertFalse(defaultConfig.getChangesSince(someVersion).isFullReloadRequired());
+
+    for (int i = 1; i <= 3; i++) {
+      Properties newProperties = new Properties();
+      newProperties.setProperty(someKey, "v" + i);
+      defaultConfig.onRepositoryChange(someNamespace, newProperties);
+    }
+
+    VersionedConfigChanges changes = defaultConfig.getChangesSince(someVersion);
+    assertTrue(changes.isFullReloadRequired());
+    assertEquals(defaultConfig.getVersion(), changes.getVersion());
+
+    changes = defaultConfig.getChangesSince(defaultConfig.getVersion() - 2);
+    assertFalse(changes.isFullReloadRequired());
+    assertEquals("v1", changes.getChange(someKey).getOldValue());
+    assertEquals("v3", changes.getChange(someKey).getNewValue());
+  }
+
+  @Test
+  public void testOnRepositoryChangeWithDebounce() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithDebounce());
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+    String yetAnotherKey = "yetAnotherKey";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "v1");
+    someProperties.setProperty(anotherKey, "v1");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+    StringProperty someHandle = defaultConfig.stringHandle(someKey, null);
+    Config someSubset = defaultConfig.subset("some");
+    assertEquals("v1", someSubset.getProperty("Key", null));
+
+    final List<ConfigChangeEvent> changeEvents = Lists.newCopyOnWriteArrayList();
+    defaultConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    });
+    final List<ConfigChangeEvent> handleChangeEvents = Lists.newCopyOnWriteArrayList();
+    someHandle.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        handleChangeEvents.add(changeEvent);
+      }
+    });
+
+    Properties secondProperties = new Properties();
+    secondProperties.setProperty(someKey, "v2");
+    secondProperties.setProperty(anotherKey, "v2");
+    Properties thirdProperties = new Properties();
+    thirdProperties.setProperty(someKey, "v3");
+    thirdProperties.setProperty(anotherKey, "v1");
+    thirdProperties.setProperty(yetAnotherKey, "v3");
+
+    defaultConfig.onRepositoryChange(someNamespace, secondProperties);
+    defaultConfig.onRepositoryChange(someNamespace, thirdProperties);
+
+    // the values are applied immediately, only the events are deferred
+    assertEquals("v3", defaultConfig.getProperty(someKey, null));
+    assertEquals("v3", someHandle.get());
+    assertEquals("v3", someSubset.getProperty("Key", null));
+    assertTrue(handleChangeEvents.isEmpty());
+
+    await().atMost(1, TimeUnit.SECONDS).until(() -> !changeEvents.isEmpty());
+    Thread.sleep(200);
+
+    assertEquals(1, changeEvents.size());
+    ConfigChangeEvent changeEvent = changeEvents.get(0);
+    assertEquals(Sets.newHashSet(someKey, yetAnotherKey), changeEvent.changedKeys());
+    assertEquals("v1", changeEvent.getChange(someKey).getOldValue());
+    assertEquals("v3", changeEvent.getChange(someKey).getNewValue());
+    assertEquals(PropertyChangeType.MODIFIED, changeEvent.getChange(someKey).getChangeType());
+    assertEquals(PropertyChangeType.ADDED, changeEvent.getChange(yetAnotherKey).getChangeType());
+    assertEquals(1, handleChangeEvents.size());
+    assertEquals(Collections.singleton(someKey), handleChangeEvents.get(0).changedKeys());
+  }
+
+  @Test
+  public void testOnRepositoryChangeWithDebounceMaxDelay() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithDebounce());
+    String someKey = "someKey";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "0");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    final List<ConfigChangeEvent> changeEvents = Lists.newCopyOnWriteArrayList();
+    defaultConfig.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    });
+
+    // keep changing within the debounce window, longer than the max delay
+    long start = System.currentTimeMillis();
+    for (int i = 1; i <= 20; i++) {
+      Properties newProperties = new Properties();
+      newProperties.setProperty(someKey, String.valueOf(i));
+      defaultConfig.onRepositoryChange(someNamespace, newProperties);
+      TimeUnit.MILLISECONDS.sleep(50);
+      if (!changeEvents.isEmpty()) {
+        break;
+      }
+    }
+
+    assertFalse(changeEvents.isEmpty());
+    assertTrue(System.currentTimeMillis() - start < 1000);
+    assertEquals("0", changeEvents.get(0).getChange(someKey).getOldValue());
+  }
+
   @Test
   public void testFireConfigChangeWithInterestedKeys() throws Exception {
     String someKeyChanged = "someKeyChanged";
@@ -881,6 +1383,226 @@ public class DefaultConfigTest {
     assertEquals(Collections.emptySet(), propertyNames);
   }
 
+  @Test
+  public void testPropertyHandles() throws Exception {
+    String someIntKey = "someIntKey";
+    String someLongKey = "someLongKey";
+    String someBooleanKey = "someBooleanKey";
+    String someStringKey = "someStringKey";
+    String someInvalidKey = "someInvalidKey";
+    String someMissingKey = "someMissingKey";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someIntKey, "2");
+    someProperties.setProperty(someLongKey, "3");
+    someProperties.setProperty(someBooleanKey, "true");
+    someProperties.setProperty(someStringKey, "someValue");
+    someProperties.setProperty(someInvalidKey, "notANumber");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    IntProperty intProperty = defaultConfig.intHandle(someIntKey, -1);
+    LongProperty longProperty = defaultConfig.longHandle(someLongKey, -1L);
+    BooleanProperty booleanProperty = defaultConfig.booleanHandle(someBooleanKey, false);
+    StringProperty stringProperty = defaultConfig.stringHandle(someStringKey, null);
+
+    assertEquals(2, intProperty.get());
+    assertEquals(3L, longProperty.get());
+    assertTrue(booleanProperty.get());
+    assertEquals("someValue", stringProperty.get());
+    assertEquals(-1, defaultConfig.intHandle(someInvalidKey, -1).get());
+    assertEquals(-1, defaultConfig.intHandle(someMissingKey, -1).get());
+
+    assertSame(intProperty, defaultConfig.intHandle(someIntKey, -1));
+    assertEquals(-2, defaultConfig.intHandle(someIntKey, -2).getDefaultValue());
+  }
+
+  @Test
+  public void testPropertyHandleWithPropertyChanges() throws Exception {
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty(someKey, "2");
+    someProperties.setProperty(anotherKey, "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    IntProperty intProperty = defaultConfig.intHandle(someKey, -1);
+
+    final SettableFuture<ConfigChangeEvent> handleChangeFuture = SettableFuture.create();
+    intProperty.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        handleChangeFuture.set(changeEvent);
+      }
+    });
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, "3");
+    anotherProperties.setProperty(anotherKey, "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertEquals(3, intProperty.get());
+
+    ConfigChangeEvent changeEvent = handleChangeFuture.get(500, TimeUnit.MILLISECONDS);
+    assertEquals(Collections.singleton(someKey), changeEvent.changedKeys());
+    assertEquals("2", changeEvent.getChange(someKey).getOldValue());
+    assertEquals("3", changeEvent.getChange(someKey).getNewValue());
+
+    Properties yetAnotherProperties = new Properties();
+    yetAnotherProperties.setProperty(anotherKey, "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, yetAnotherProperties);
+
+    assertEquals(-1, intProperty.get());
+  }
+
+  @Test
+  public void testSubset() throws Exception {
+    String somePrefix = "datasource.orders.";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty("datasource.orders.url", "someUrl");
+    someProperties.setProperty("datasource.orders.maxActive", "10");
+    someProperties.setProperty("datasource.orders", "someValue");
+    someProperties.setProperty("datasource.users.url", "anotherUrl");
+    someProperties.setProperty("someKey", "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    Config subset = defaultConfig.subset(somePrefix);
+
+    assertSame(subset, defaultConfig.subset(somePrefix));
+    assertEquals(Sets.newHashSet("url", "maxActive"), subset.getPropertyNames());
+    assertSame(subset.getPropertyNames(), subset.getPropertyNames());
+    assertEquals("someUrl", subset.getProperty("url", null));
+    assertEquals(10, subset.getIntProperty("maxActive", -1).intValue());
+    assertEquals(null, subset.getProperty("someKey", null));
+    assertEquals(Collections.singleton("url"), defaultConfig.subset("datasource.").subset("users.")
+        .getPropertyNames());
+  }
+
+  @Test
+  public void testSubsetWithPropertyChanges() throws Exception {
+    String somePrefix = "datasource.orders.";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty("datasource.orders.maxActive", "10");
+    someProperties.setProperty("someKey", "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    Config subset = defaultConfig.subset(somePrefix);
+    assertEquals(10, subset.getIntProperty("maxActive", -1).intValue());
+    assertEquals(Collections.singleton("maxActive"), subset.getPropertyNames());
+
+    final List<ConfigChangeEvent> changeEvents = Lists.newCopyOnWriteArrayList();
+    subset.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    });
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("datasource.orders.maxActive", "10");
+    anotherProperties.setProperty("someKey", "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    Properties yetAnotherProperties = new Properties();
+    yetAnotherProperties.setProperty("datasource.orders.maxActive", "20");
+    yetAnotherProperties.setProperty("datasource.orders.url", "someUrl");
+    yetAnotherProperties.setProperty("someKey", "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, yetAnotherProperties);
+
+    assertEquals(20, subset.getIntProperty("maxActive", -1).intValue());
+    assertEquals(Sets.newHashSet("url", "maxActive"), subset.getPropertyNames());
+
+    await().atMost(500, TimeUnit.MILLISECONDS).until(() -> !changeEvents.isEmpty());
+    Thread.sleep(100);
+
+    assertEquals(1, changeEvents.size());
+    ConfigChangeEvent changeEvent = changeEvents.get(0);
+    assertEquals(Sets.newHashSet("url", "maxActive"), changeEvent.changedKeys());
+    assertEquals("10", changeEvent.getChange("maxActive").getOldValue());
+    assertEquals("20", changeEvent.getChange("maxActive").getNewValue());
+  }
+
+  @Test
+  public void testBindWithPropertyChanges() throws Exception {
+    String somePrefix = "datasource.orders.";
+
+    //set up config repo
+    someProperties = new Properties();
+    someProperties.setProperty("datasource.orders.maxActive", "10");
+    someProperties.setProperty("datasource.orders.url", "someUrl");
+    someProperties.setProperty("someKey", "someValue");
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    DefaultConfig defaultConfig =
+        new DefaultConfig(someNamespace, configRepository);
+
+    ConfigBinding<SomeBoundConfig> binding = defaultConfig.bind(somePrefix, SomeBoundConfig.class);
+    assertSame(binding, defaultConfig.bind(somePrefix, SomeBoundConfig.class));
+
+    SomeBoundConfig boundConfig = binding.get();
+    assertEquals(10, boundConfig.getMaxActive());
+    assertEquals("someUrl", boundConfig.url);
+
+    final List<ConfigChangeEvent> changeEvents = Lists.newCopyOnWriteArrayList();
+    binding.addChangeListener(new ConfigChangeListener() {
+      @Override
+      public void onChange(ConfigChangeEvent changeEvent) {
+        changeEvents.add(changeEvent);
+      }
+    });
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty("datasource.orders.maxActive", "10");
+    anotherProperties.setProperty("datasource.orders.url", "someUrl");
+    anotherProperties.setProperty("someKey", "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, anotherProperties);
+
+    assertSame(boundConfig, binding.get());
+
+    Properties yetAnotherProperties = new Properties();
+    yetAnotherProperties.setProperty("datasource.orders.maxActive", "20");
+    yetAnotherProperties.setProperty("datasource.orders.url", "someUrl");
+    yetAnotherProperties.setProperty("someKey", "anotherValue");
+
+    defaultConfig.onRepositoryChange(someNamespace, yetAnotherProperties);
+
+    SomeBoundConfig anotherBoundConfig = binding.get();
+    assertNotSame(boundConfig, anotherBoundConfig);
+    assertEquals(20, anotherBoundConfig.getMaxActive());
+    assertEquals("someUrl", anotherBoundConfig.url);
+    assertEquals(10, boundConfig.getMaxActive());
+
+    await().atMost(500, TimeUnit.MILLISECONDS).until(() -> !changeEvents.isEmpty());
+    Thread.sleep(100);
+
+    assertEquals(1, changeEvents.size());
+    assertEquals(Sets.newHashSet("datasource.orders.maxActive"),
+        changeEvents.get(0).changedKeys());
+  }
+
   @Test
   public void testGetPropertyWithFunction() throws Exception {
 
@@ -977,6 +1699,39 @@ public class DefaultConfigTest {
     }
   }
 
+  public static class MockConfigUtilWithPropertySnapshot extends MockConfigUtil {
+    @Override
+    public boolean isPropertySnapshotEnabled() {
+      return true;
+    }
+  }
+
+  public static class MockConfigUtilWithNegativeCache extends MockConfigUtil {
+    @Override
+    public boolean isPropertyNegativeCacheEnabled() {
+      return true;
+    }
+  }
+
+  public static class MockConfigUtilWithDebounce extends MockConfigUtil {
+    @Override
+    public long getConfigChangeDebounceWindowInMillis() {
+      return 100;
+    }
+
+    @Override
+    public long getConfigChangeDebounceMaxDelayInMillis() {
+      return 300;
+    }
+  }
+
+  public static class MockConfigUtilWithSmallJournal extends MockConfigUtil {
+    @Override
+    public int getConfigChangeJournalSize() {
+      return 2;
+    }
+  }
+
   public static class MockConfigUtilWithSmallCache extends MockConfigUtil {
     @Override
     public long getMaxConfigCacheSize() {
@@ -995,4 +1750,17 @@ public class DefaultConfigTest {
       return TimeUnit.MILLISECONDS;
     }
   }
+
+  public static class SomeBoundConfig {
+    private int maxActive;
+    private String url;
+
+    public int getMaxActive() {
+      return maxActive;
+    }
+
+    public void setMaxActive(int maxActive) {
+      this.maxActive = maxActive;
+    }
+  }
 }
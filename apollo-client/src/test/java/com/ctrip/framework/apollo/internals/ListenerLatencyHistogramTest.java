@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ListenerLatencyHistogramTest {
+
+  @Test
+  public void testRecord() {
+    ListenerLatencyHistogram histogram = new ListenerLatencyHistogram();
+
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(7));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(20000));
+
+    long[] bucketCounts = histogram.getBucketCounts();
+    assertEquals(ListenerLatencyHistogram.getBucketUpperBoundsInMs().length + 1,
+        bucketCounts.length);
+    assertEquals(2, bucketCounts[0]);
+    assertEquals(1, bucketCounts[2]);
+    assertEquals(1, bucketCounts[bucketCounts.length - 1]);
+    assertEquals(4, histogram.getCount());
+    assertEquals(20008, histogram.getTotalTimeInMs());
+    assertEquals(20000, histogram.getMaxTimeInMs());
+  }
+
+  @Test
+  public void testPercentile() {
+    ListenerLatencyHistogram histogram = new ListenerLatencyHistogram();
+    assertEquals(0, histogram.getPercentileInMs(99));
+
+    for (int i = 0; i < 98; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+    }
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(80));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(30000));
+
+    assertEquals(5, histogram.getPercentileInMs(50));
+    assertEquals(100, histogram.getPercentileInMs(99));
+    // beyond the largest bucket
+    assertEquals(30000, histogram.getPercentileInMs(100));
+  }
+
+  @Test
+  public void testPercentileBoundedByMax() {
+    ListenerLatencyHistogram histogram = new ListenerLatencyHistogram();
+
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(120));
+
+    assertEquals(120, histogram.getPercentileInMs(50));
+    assertArrayEquals(new long[]{1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000},
+        ListenerLatencyHistogram.getBucketUpperBoundsInMs());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalCacheBinaryFileTest {
+  private File someFile;
+
+  @Before
+  public void setUp() throws Exception {
+    someFile = File.createTempFile("LocalCacheBinaryFileTest", ".bin");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    someFile.delete();
+  }
+
+  @Test
+  public void testEncodeAndRead() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue\nxxx\nyyy");
+    someProperties.setProperty("someJson", "{\"name\": \"阿波罗\", \"items\": [1, 2, 3]}");
+    someProperties.setProperty("中文键", "中文值");
+    someProperties.setProperty("someEmptyKey", "");
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 100;
+
+    Files.write(someFile.toPath(),
+        LocalCacheBinaryFile.encode(someProperties, someReleaseKey, someNotificationId));
+    LocalCacheBinaryFile result = LocalCacheBinaryFile.read(someFile, new Properties());
+
+    assertEquals(someProperties, result.getProperties());
+    assertEquals(someReleaseKey, result.getReleaseKey());
+    assertEquals(someNotificationId, result.getNotificationId());
+  }
+
+  @Test
+  public void testEncodeWithoutReleaseKey() throws Exception {
+    Properties someProperties = new Properties();
+
+    Files.write(someFile.toPath(), LocalCacheBinaryFile.encode(someProperties, null, -1));
+    LocalCacheBinaryFile result = LocalCacheBinaryFile.read(someFile, new Properties());
+
+    assertEquals(someProperties, result.getProperties());
+    assertNull(result.getReleaseKey());
+    assertEquals(-1, result.getNotificationId());
+  }
+
+  @Test
+  public void testEncodeIsStable() throws Exception {
+    Properties someProperties = new Properties();
+    Properties anotherProperties = new Properties();
+    for (int i = 0; i < 100; i++) {
+      someProperties.setProperty("someKey" + i, "someValue" + i);
+      anotherProperties.setProperty("someKey" + (99 - i), "someValue" + (99 - i));
+    }
+
+    assertArrayEquals(LocalCacheBinaryFile.encode(someProperties, "someReleaseKey", 1),
+        LocalCacheBinaryFile.encode(anotherProperties, "someReleaseKey", 1));
+  }
+
+  @Test
+  public void testReadCorruptedFile() throws Exception {
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+    byte[] content = LocalCacheBinaryFile.encode(someProperties, "someReleaseKey", 1);
+
+    byte[] corrupted = content.clone();
+    corrupted[corrupted.length / 2] ^= 1;
+    assertReadFails(corrupted);
+
+    assertReadFails(Arrays.copyOf(content, content.length - 1));
+    assertReadFails(new byte[0]);
+  }
+
+  private void assertReadFails(byte[] content) throws IOException {
+    Files.write(someFile.toPath(), content);
+    try {
+      LocalCacheBinaryFile.read(someFile, new Properties());
+      fail("Reading a corrupted file should fail");
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+}
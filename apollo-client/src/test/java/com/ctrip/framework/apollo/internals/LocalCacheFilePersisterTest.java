@@ -0,0 +1,259 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalCacheFilePersisterTest {
+  private File someBaseDir;
+  private File someFile;
+  private File someMetaFile;
+  private File someBinaryFile;
+  private String someNamespace;
+
+  @Before
+  public void setUp() throws Exception {
+    someBaseDir = new File("src/test/resources/config-cache");
+    someBaseDir.mkdir();
+    someNamespace = "someNamespace";
+    someFile = new File(someBaseDir, someNamespace + ".properties");
+    someMetaFile = new File(someBaseDir, someNamespace + ".meta");
+    someBinaryFile = new File(someBaseDir, someNamespace + ".bin");
+    MockInjector.setInstance(ConfigUtil.class, new ConfigUtil());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MockInjector.reset();
+    recursiveDelete(someBaseDir);
+  }
+
+  @Test
+  public void testPersist() throws Exception {
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 1;
+    Properties someMeta = assembleProperties("releaseKey", someReleaseKey);
+    someMeta.setProperty("notificationId", String.valueOf(someNotificationId));
+
+    persister.persist(someNamespace, someFile, someMetaFile, someBinaryFile, someProperties,
+        someReleaseKey, someNotificationId);
+
+    assertEquals(someProperties, loadProperties(someFile));
+    assertEquals(someMeta, loadProperties(someMetaFile));
+    // no temp file is left behind
+    assertEquals(2, someBaseDir.listFiles().length);
+
+    persist(persister, someProperties);
+
+    assertEquals(someProperties, loadProperties(someFile));
+    assertFalse(someMetaFile.exists());
+  }
+
+  @Test
+  public void testSkipUnchangedContent() throws Exception {
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+    Properties anotherProperties = assembleProperties("someKey", "anotherValue");
+
+    persist(persister, someProperties);
+    storeProperties(someFile, anotherProperties);
+    persist(persister, assembleProperties("someKey", "someValue"));
+
+    // the same content as the last one persisted is not written again
+    assertEquals(anotherProperties, loadProperties(someFile));
+
+    assertTrue(someFile.delete());
+    persist(persister, someProperties);
+
+    // unless the file is gone
+    assertEquals(someProperties, loadProperties(someFile));
+  }
+
+  @Test
+  public void testWriteBehind() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithWriteBehind());
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+    Properties anotherProperties = assembleProperties("someKey", "anotherValue");
+
+    persist(persister, someProperties);
+    persist(persister, anotherProperties);
+
+    assertFalse(someFile.exists());
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!someFile.exists() && System.currentTimeMillis() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    assertEquals(anotherProperties, loadProperties(someFile));
+  }
+
+  @Test
+  public void testFlushPendingWrite() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithWriteBehind());
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+
+    persist(persister, someProperties);
+    persister.flush(someFile);
+
+    assertEquals(someProperties, loadProperties(someFile));
+  }
+
+  @Test
+  public void testFlushAllPendingWrites() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithWriteBehind());
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+    Properties anotherProperties = assembleProperties("anotherKey", "anotherValue");
+    File anotherFile = new File(someBaseDir, "anotherNamespace.properties");
+
+    persist(persister, someProperties);
+    persister.persist("anotherNamespace", anotherFile,
+        new File(someBaseDir, "anotherNamespace.meta"),
+        new File(someBaseDir, "anotherNamespace.bin"), anotherProperties, null, -1);
+
+    assertFalse(someFile.exists());
+    assertFalse(anotherFile.exists());
+
+    // what the shutdown hook does
+    persister.flushAll();
+
+    assertEquals(someProperties, loadProperties(someFile));
+    assertEquals(anotherProperties, loadProperties(anotherFile));
+  }
+
+  @Test
+  public void testRemoveStaleTempFiles() throws Exception {
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    File someTempFile = new File(someBaseDir, someFile.getName() + "123456789.tmp");
+    File someMetaTempFile = new File(someBaseDir, someMetaFile.getName() + "987654321.tmp");
+    File anotherTempFile = new File(someBaseDir, "anotherNamespace.properties123456789.tmp");
+    File someUnrelatedFile = new File(someBaseDir, someFile.getName() + "backup.tmp");
+    for (File file : new File[]{someTempFile, someMetaTempFile, anotherTempFile,
+        someUnrelatedFile}) {
+      assertTrue(file.createNewFile());
+    }
+    persist(persister, assembleProperties("someKey", "someValue"));
+
+    persister.removeStaleTempFiles(someFile, someMetaFile, someBinaryFile);
+
+    assertFalse(someTempFile.exists());
+    assertFalse(someMetaTempFile.exists());
+    // the temp files of the other namespaces and the files not named as temp files are kept
+    assertTrue(anotherTempFile.exists());
+    assertTrue(someUnrelatedFile.exists());
+    assertTrue(someFile.exists());
+  }
+
+  @Test
+  public void testPersistBinary() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithBinaryFormat());
+    LocalCacheFilePersister persister = new LocalCacheFilePersister();
+    Properties someProperties = assembleProperties("someKey", "someValue");
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 1;
+    storeProperties(someFile, someProperties);
+    storeProperties(someMetaFile, assembleProperties("releaseKey", someReleaseKey));
+
+    persister.persist(someNamespace, someFile, someMetaFile, someBinaryFile, someProperties,
+        someReleaseKey, someNotificationId);
+
+    LocalCacheBinaryFile binaryFile = LocalCacheBinaryFile.read(someBinaryFile, new Properties());
+    assertEquals(someProperties, binaryFile.getProperties());
+    assertEquals(someReleaseKey, binaryFile.getReleaseKey());
+    assertEquals(someNotificationId, binaryFile.getNotificationId());
+    // the files of the properties format are removed
+    assertFalse(someFile.exists());
+    assertFalse(someMetaFile.exists());
+  }
+
+  private void persist(LocalCacheFilePersister persister, Properties properties) {
+    persister.persist(someNamespace, someFile, someMetaFile, someBinaryFile, properties, null, -1);
+  }
+
+  private Properties assembleProperties(String key, String value) {
+    Properties properties = new Properties();
+    properties.setProperty(key, value);
+    return properties;
+  }
+
+  private Properties loadProperties(File file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = new FileInputStream(file)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+
+  private void storeProperties(File file, Properties properties) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      properties.store(out, "Persisted by LocalCacheFilePersisterTest");
+    }
+  }
+
+  //helper method to clean created files
+  private void recursiveDelete(File file) {
+    if (!file.exists()) {
+      return;
+    }
+    if (file.isDirectory()) {
+      for (File f : file.listFiles()) {
+        recursiveDelete(f);
+      }
+    }
+    file.delete();
+  }
+
+  public static class MockConfigUtilWithBinaryFormat extends ConfigUtil {
+    @Override
+    public boolean isCacheBinaryFormatEnabled() {
+      return true;
+    }
+  }
+
+  public static class MockConfigUtilWithWriteBehind extends ConfigUtil {
+    @Override
+    public boolean isCacheWriteBehindEnabled() {
+      return true;
+    }
+
+    @Override
+    public long getCacheWriteBehindDelayInMillis() {
+      return 1000;
+    }
+  }
+}
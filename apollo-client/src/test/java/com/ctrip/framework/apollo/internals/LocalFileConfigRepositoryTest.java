@@ -17,18 +17,28 @@
 package com.ctrip.framework.apollo.internals;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
 import com.ctrip.framework.apollo.util.factory.PropertiesFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -38,6 +48,7 @@ import org.mockito.ArgumentCaptor;
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.ImmutableProperties;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.io.Files;
@@ -71,6 +82,8 @@ public class LocalFileConfigRepositoryTest {
     someSourceType = ConfigSourceType.REMOTE;
     upstreamRepo = mock(ConfigRepository.class);
     when(upstreamRepo.getConfig()).thenReturn(someProperties);
+    when(upstreamRepo.getConfigSnapshot())
+        .thenReturn(new ConfigSnapshot(ImmutableProperties.copyOf(someProperties), null));
     when(upstreamRepo.getSourceType()).thenReturn(someSourceType);
 
     MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
@@ -203,14 +216,214 @@ public class LocalFileConfigRepositoryTest {
 
     localFileConfigRepository.onRepositoryChange(someNamespace, anotherProperties);
 
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     verify(someListener, times(1)).onRepositoryChange(eq(someNamespace), captor.capture());
 
-    assertEquals(anotherProperties, captor.getValue());
+    assertEquals(anotherProperties, captor.getValue().getProperties());
     assertEquals(anotherSourceType, localFileConfigRepository.getSourceType());
   }
 
+  @Test
+  public void testPersistAndRestoreLocalCacheMeta() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 5;
+    RemoteConfigRepository remoteRepo = mock(RemoteConfigRepository.class);
+    when(remoteRepo.getConfigSnapshot())
+        .thenReturn(new ConfigSnapshot(ImmutableProperties.copyOf(someProperties), someReleaseKey));
+    when(remoteRepo.getSourceType()).thenReturn(someSourceType);
+    when(remoteRepo.getNotificationId()).thenReturn(someNotificationId);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+    localRepo.setUpstreamRepository(remoteRepo);
+    localRepo.initialize();
+
+    Properties meta = new Properties();
+    try (Reader reader = Files.newReader(
+        localRepo.assembleLocalCacheMetaFile(someBaseDir, someNamespace), Charsets.UTF_8)) {
+      meta.load(reader);
+    }
+    assertEquals(someReleaseKey, meta.getProperty("releaseKey"));
+    assertEquals(String.valueOf(someNotificationId), meta.getProperty("notificationId"));
+
+    RemoteConfigRepository anotherRemoteRepo = mock(RemoteConfigRepository.class);
+    LocalFileConfigRepository anotherLocalRepo = new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, false);
+    anotherLocalRepo.setUpstreamRepository(anotherRemoteRepo);
+
+    verify(anotherRemoteRepo, times(1))
+        .restoreFromLocalCache(someProperties, someReleaseKey, someNotificationId);
+  }
+
+  @Test
+  public void testNoLocalCacheMetaWithoutReleaseKey() throws Exception {
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+    localRepo.setUpstreamRepository(upstreamRepo);
+    localRepo.initialize();
+
+    assertFalse(localRepo.assembleLocalCacheMetaFile(someBaseDir, someNamespace).exists());
+
+    RemoteConfigRepository remoteRepo = mock(RemoteConfigRepository.class);
+    LocalFileConfigRepository anotherLocalRepo = new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, false);
+    anotherLocalRepo.setUpstreamRepository(remoteRepo);
+
+    verify(remoteRepo, never()).restoreFromLocalCache(any(Properties.class), any(String.class),
+        anyLong());
+  }
+
+  @Test
+  public void testStaleWhileRevalidateWithLocalFile() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithStaleWhileRevalidate());
+    Properties cachedProperties = new Properties();
+    cachedProperties.setProperty(defaultKey, "cachedValue");
+    createLocalCachePropertyFile(cachedProperties);
+    RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(cachedProperties, localRepo.getConfig());
+    assertEquals(ConfigSourceType.LOCAL, localRepo.getSourceType());
+    verify(upstreamRepo, never()).getConfigSnapshot();
+
+    localRepo.addChangeListener(someListener);
+
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
+    verify(someListener, timeout(5000).times(1)).onRepositoryChange(eq(someNamespace),
+        captor.capture());
+    assertEquals(someProperties, captor.getValue().getProperties());
+    assertEquals(someProperties, localRepo.getConfig());
+    assertEquals(someSourceType, localRepo.getSourceType());
+  }
+
+  @Test
+  public void testStaleWhileRevalidateFirstLoadTimeout() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithStaleWhileRevalidate());
+    RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
+    when(upstreamRepo.getConfigSnapshot()).thenAnswer(new Answer<ConfigSnapshot>() {
+      @Override
+      public ConfigSnapshot answer(InvocationOnMock invocation) throws Throwable {
+        TimeUnit.MILLISECONDS.sleep(500);
+        return new ConfigSnapshot(ImmutableProperties.copyOf(someProperties), null);
+      }
+    });
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+
+    try {
+      localRepo.initialize();
+      fail("The first load should time out");
+    } catch (ApolloConfigException ex) {
+      // expected
+    }
+
+    localRepo.addChangeListener(someListener);
+
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
+    verify(someListener, timeout(5000).atLeast(1)).onRepositoryChange(eq(someNamespace),
+        captor.capture());
+    assertEquals(someProperties, captor.getValue().getProperties());
+  }
+
+  @Test
+  public void testWriteBehindLocalCacheFile() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithWriteBehind());
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace, upstreamRepo);
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertFalse(new File(someBaseDir, assembleLocalCacheFileName()).exists());
+
+    // reading the local cache file writes the pending update first
+    LocalFileConfigRepository anotherLocalRepoWithNoFallback =
+        new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepoWithNoFallback.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(someProperties, anotherLocalRepoWithNoFallback.getConfig());
+  }
+
+  @Test
+  public void testBinaryLocalCacheFile() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithBinaryFormat());
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 5;
+    RemoteConfigRepository remoteRepo = mock(RemoteConfigRepository.class);
+    when(remoteRepo.getConfigSnapshot())
+        .thenReturn(new ConfigSnapshot(ImmutableProperties.copyOf(someProperties), someReleaseKey));
+    when(remoteRepo.getSourceType()).thenReturn(someSourceType);
+    when(remoteRepo.getNotificationId()).thenReturn(someNotificationId);
+
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    localRepo.setLocalCacheDir(someBaseDir, false);
+    localRepo.setUpstreamRepository(remoteRepo);
+    localRepo.initialize();
+
+    assertTrue(localRepo.assembleLocalCacheBinaryFile(someBaseDir, someNamespace).isFile());
+    assertFalse(new File(someBaseDir, assembleLocalCacheFileName()).exists());
+
+    RemoteConfigRepository anotherRemoteRepo = mock(RemoteConfigRepository.class);
+    LocalFileConfigRepository anotherLocalRepo = new LocalFileConfigRepository(someNamespace);
+    anotherLocalRepo.setLocalCacheDir(someBaseDir, false);
+    anotherLocalRepo.setUpstreamRepository(anotherRemoteRepo);
+
+    verify(anotherRemoteRepo, times(1))
+        .restoreFromLocalCache(someProperties, someReleaseKey, someNotificationId);
+
+    LocalFileConfigRepository localRepoWithNoFallback = new LocalFileConfigRepository(someNamespace);
+    localRepoWithNoFallback.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(someProperties, localRepoWithNoFallback.getConfig());
+  }
+
+  @Test
+  public void testCorruptedBinaryLocalCacheFileFallback() throws Exception {
+    Properties cachedProperties = new Properties();
+    cachedProperties.setProperty(defaultKey, "cachedValue");
+    createLocalCachePropertyFile(cachedProperties);
+    LocalFileConfigRepository localRepo = new LocalFileConfigRepository(someNamespace);
+    Files.write(new byte[]{1, 2, 3},
+        localRepo.assembleLocalCacheBinaryFile(someBaseDir, someNamespace));
+
+    localRepo.setLocalCacheDir(someBaseDir, true);
+
+    assertEquals(cachedProperties, localRepo.getConfig());
+  }
+
+  public static class MockConfigUtilWithBinaryFormat extends MockConfigUtil {
+    @Override
+    public boolean isCacheBinaryFormatEnabled() {
+      return true;
+    }
+  }
+
+  public static class MockConfigUtilWithWriteBehind extends MockConfigUtil {
+    @Override
+    public boolean isCacheWriteBehindEnabled() {
+      return true;
+    }
+
+    @Override
+    public long getCacheWriteBehindDelayInMillis() {
+      return 60000;
+    }
+  }
+
+  public static class MockConfigUtilWithStaleWhileRevalidate extends MockConfigUtil {
+    @Override
+    public boolean isCacheStaleWhileRevalidateEnabled() {
+      return true;
+    }
+
+    @Override
+    public long getFirstLoadTimeoutInMillis() {
+      return 100;
+    }
+  }
+
   public static class MockConfigUtil extends ConfigUtil {
     @Override
     public String getAppId() {
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.internals;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -30,6 +31,7 @@ import java.util.Properties;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -129,6 +131,8 @@ public class PropertiesCompatibleFileConfigRepositoryTest {
     configFileRepository.onChange(someChangeEvent);
 
     assertSame(anotherProperties, configFileRepository.getConfig());
-    verify(someListener, times(1)).onRepositoryChange(someNamespaceName, anotherProperties);
+    ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
+    verify(someListener, times(1)).onRepositoryChange(eq(someNamespaceName), captor.capture());
+    assertSame(anotherProperties, captor.getValue().getProperties());
   }
 }
@@ -148,6 +148,45 @@ public class PropertiesConfigFileTest {
     assertEquals(PropertyChangeType.MODIFIED, changeEvent.getChangeType());
   }
 
+  @Test
+  public void testOnRepositoryChangeWithReleaseKey() throws Exception {
+    Properties someProperties = new Properties();
+    String someKey = "someKey";
+    String someValue = "someValue";
+    String anotherValue = "anotherValue";
+    String someReleaseKey = "someReleaseKey";
+    someProperties.setProperty(someKey, someValue);
+
+    when(configRepository.getConfig()).thenReturn(someProperties);
+
+    PropertiesConfigFile configFile = new PropertiesConfigFile(someNamespace, configRepository);
+
+    Properties sameProperties = new Properties();
+    sameProperties.setProperty(someKey, someValue);
+
+    // the content is compared only if the release key is unknown
+    configFile.onRepositoryChange(someNamespace, new ConfigSnapshot(sameProperties, someReleaseKey));
+
+    assertEquals(0, configFile.awaitApplied().get(500, TimeUnit.MILLISECONDS).longValue());
+
+    Properties anotherProperties = new Properties();
+    anotherProperties.setProperty(someKey, anotherValue);
+
+    configFile.onRepositoryChange(someNamespace,
+        new ConfigSnapshot(anotherProperties, "anotherReleaseKey"));
+
+    assertEquals(1, configFile.awaitApplied().get(500, TimeUnit.MILLISECONDS).longValue());
+
+    Properties yetAnotherProperties = new Properties();
+    yetAnotherProperties.setProperty(someKey, anotherValue);
+
+    configFile.onRepositoryChange(someNamespace,
+        new ConfigSnapshot(yetAnotherProperties, "anotherReleaseKey"));
+
+    assertEquals(1, configFile.awaitApplied().get(500, TimeUnit.MILLISECONDS).longValue());
+    assertTrue(configFile.getContent().contains(String.format("%s=%s", someKey, anotherValue)));
+  }
+
   @Test
   public void testWhenConfigRepositoryHasErrorAndThenRecovered() throws Exception {
     Properties someProperties = new Properties();
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigStatusCodeException;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.ctrip.framework.apollo.util.http.HttpClient;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.ctrip.framework.apollo.util.http.HttpResponse;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteConfigBatchFetchServiceTest {
+  private RemoteConfigBatchFetchService remoteConfigBatchFetchService;
+  @Mock
+  private HttpResponse<List<ApolloConfig>> batchResponse;
+  @Mock
+  private HttpClient httpClient;
+  @Mock
+  private ConfigServiceLocator configServiceLocator;
+  private Type responseType;
+
+  private static String someServerUrl;
+  private static String someAppId;
+  private static String someCluster;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.setInstance(HttpClient.class, httpClient);
+
+    someServerUrl = "http://someServer";
+    ServiceDTO serviceDTO = mock(ServiceDTO.class);
+    when(serviceDTO.getHomepageUrl()).thenReturn(someServerUrl);
+    when(configServiceLocator.getConfigServices()).thenReturn(Lists.newArrayList(serviceDTO));
+    MockInjector.setInstance(ConfigServiceLocator.class, configServiceLocator);
+
+    someAppId = "someAppId";
+    someCluster = "someCluster";
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+
+    remoteConfigBatchFetchService = new RemoteConfigBatchFetchService();
+
+    responseType =
+        (Type) ReflectionTestUtils.getField(remoteConfigBatchFetchService, "m_responseType");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testRefreshChangedNamespacesOnly() throws Exception {
+    String someNamespace = "someNamespace";
+    String anotherNamespace = "anotherNamespace";
+    RemoteConfigRepository someRepository = mock(RemoteConfigRepository.class);
+    RemoteConfigRepository anotherRepository = mock(RemoteConfigRepository.class);
+    when(someRepository.getReleaseKey()).thenReturn("someReleaseKey");
+    when(anotherRepository.getReleaseKey()).thenReturn("anotherReleaseKey");
+    ApolloConfig someConfig =
+        new ApolloConfig(someAppId, someCluster, someNamespace, "someNewReleaseKey");
+
+    when(batchResponse.getStatusCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(batchResponse.getBody()).thenReturn(Lists.newArrayList(someConfig));
+    when(httpClient.<List<ApolloConfig>>doGet(any(HttpRequest.class), eq(responseType)))
+        .thenReturn(batchResponse);
+
+    remoteConfigBatchFetchService.submit(someNamespace, someRepository);
+    remoteConfigBatchFetchService.submit(anotherNamespace, anotherRepository);
+    remoteConfigBatchFetchService.refresh();
+
+    ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpClient, times(1)).doGet(request.capture(), eq(responseType));
+    String url = request.getValue().getUrl();
+    assertTrue(url.startsWith(someServerUrl + "/batch/configs/" + someAppId + "/" + someCluster + "?"));
+    assertTrue(url.contains("someReleaseKey"));
+    assertTrue(url.contains("anotherReleaseKey"));
+
+    verify(someRepository, times(1)).onBatchFetched(someConfig);
+    verify(anotherRepository, never()).onBatchFetched(any(ApolloConfig.class));
+    verify(someRepository, never()).trySyncInBackground();
+    verify(anotherRepository, never()).trySyncInBackground();
+  }
+
+  @Test
+  public void testRefreshOneByOneIfBatchNotSupported() throws Exception {
+    String someNamespace = "someNamespace";
+    RemoteConfigRepository someRepository = mock(RemoteConfigRepository.class);
+
+    when(httpClient.<List<ApolloConfig>>doGet(any(HttpRequest.class), eq(responseType)))
+        .thenThrow(new ApolloConfigStatusCodeException(HttpServletResponse.SC_NOT_FOUND, "some error"));
+
+    remoteConfigBatchFetchService.submit(someNamespace, someRepository);
+    remoteConfigBatchFetchService.refresh();
+    remoteConfigBatchFetchService.refresh();
+
+    verify(httpClient, times(1)).doGet(any(HttpRequest.class), eq(responseType));
+    verify(someRepository, times(2)).trySyncInBackground();
+    verify(someRepository, never()).onBatchFetched(any(ApolloConfig.class));
+  }
+
+  @Test
+  public void testRefreshByRefreshInterval() throws Exception {
+    String someNamespace = "someNamespace";
+    String anotherNamespace = "anotherNamespace";
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithCustomizedRefreshInterval());
+    remoteConfigBatchFetchService = new RemoteConfigBatchFetchService();
+    RemoteConfigRepository someRepository = mock(RemoteConfigRepository.class);
+    RemoteConfigRepository anotherRepository = mock(RemoteConfigRepository.class);
+    when(someRepository.getReleaseKey()).thenReturn("someReleaseKey");
+    when(anotherRepository.getReleaseKey()).thenReturn("anotherReleaseKey");
+
+    when(batchResponse.getStatusCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(batchResponse.getBody()).thenReturn(Lists.<ApolloConfig>newArrayList());
+    when(httpClient.<List<ApolloConfig>>doGet(any(HttpRequest.class), eq(responseType)))
+        .thenReturn(batchResponse);
+
+    remoteConfigBatchFetchService.submit(someNamespace, someRepository);
+    remoteConfigBatchFetchService.submit(anotherNamespace, anotherRepository);
+    remoteConfigBatchFetchService
+        .refresh(MockConfigUtilWithCustomizedRefreshInterval.SOME_REFRESH_INTERVAL);
+
+    ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpClient, times(1)).doGet(request.capture(), eq(responseType));
+    String url = request.getValue().getUrl();
+    assertTrue(url.contains("someReleaseKey"));
+    assertFalse(url.contains("anotherReleaseKey"));
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    String someNamespace = "someNamespace";
+    ApolloConfig someConfig =
+        new ApolloConfig(someAppId, someCluster, someNamespace, "someReleaseKey");
+
+    when(batchResponse.getStatusCode()).thenReturn(HttpServletResponse.SC_OK);
+    when(batchResponse.getBody()).thenReturn(Lists.newArrayList(someConfig));
+    when(httpClient.<List<ApolloConfig>>doGet(any(HttpRequest.class), eq(responseType)))
+        .thenReturn(batchResponse);
+
+    remoteConfigBatchFetchService.prefetch(Lists.newArrayList(someNamespace));
+
+    assertSame(someConfig, remoteConfigBatchFetchService.takePrefetchedConfig(someNamespace));
+    assertNull(remoteConfigBatchFetchService.takePrefetchedConfig(someNamespace));
+  }
+
+  @Test
+  public void testAssembleBatchQueryConfigUrl() throws Exception {
+    String someUri = "http://someServer/";
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    releaseKeys.put("someNamespace", "someReleaseKey");
+
+    String url = remoteConfigBatchFetchService.assembleBatchQueryConfigUrl(someUri, someAppId,
+        someCluster, null, releaseKeys);
+
+    assertTrue(url.startsWith("http://someServer/batch/configs/someAppId/someCluster?"));
+    assertTrue(url.contains("namespaces=%7B%22someNamespace%22%3A%22someReleaseKey%22%7D"));
+  }
+
+  public static class MockConfigUtil extends ConfigUtil {
+    @Override
+    public String getAppId() {
+      return someAppId;
+    }
+
+    @Override
+    public String getCluster() {
+      return someCluster;
+    }
+
+    @Override
+    public String getDataCenter() {
+      return null;
+    }
+  }
+
+  public static class MockConfigUtilWithCustomizedRefreshInterval extends MockConfigUtil {
+    private static final int SOME_REFRESH_INTERVAL = 1;
+
+    @Override
+    public int getRefreshInterval(String namespace) {
+      return "someNamespace".equals(namespace) ? SOME_REFRESH_INTERVAL : getRefreshInterval();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemoteConfigRefreshSchedulerTest {
+  private RemoteConfigRefreshScheduler remoteConfigRefreshScheduler;
+
+  @Before
+  public void setUp() throws Exception {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+    remoteConfigRefreshScheduler = new RemoteConfigRefreshScheduler();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    System.clearProperty("apollo.refreshInterval.someNamespace");
+    MockInjector.reset();
+  }
+
+  @Test
+  public void testOffsetsSpreadEvenly() throws Exception {
+    long someInterval = 10000;
+    int someCount = 100;
+    long[] offsets = new long[someCount];
+    for (int i = 0; i < someCount; i++) {
+      offsets[i] = remoteConfigRefreshScheduler.nextOffsetInMillis(someInterval);
+      assertTrue(offsets[i] >= 0 && offsets[i] < someInterval);
+    }
+    Arrays.sort(offsets);
+
+    long maxGap = someInterval - offsets[someCount - 1] + offsets[0];
+    for (int i = 1; i < someCount; i++) {
+      maxGap = Math.max(maxGap, offsets[i] - offsets[i - 1]);
+    }
+    // the gaps of the golden ratio sequence are at most 2.618 times of the even ones
+    assertTrue(maxGap <= someInterval / someCount * 3);
+  }
+
+  @Test
+  public void testScheduleWithNamespaceInterval() throws Exception {
+    System.setProperty("apollo.refreshInterval.someNamespace", "10");
+    final CountDownLatch refreshed = new CountDownLatch(3);
+
+    remoteConfigRefreshScheduler.schedule("someNamespace", new Runnable() {
+      @Override
+      public void run() {
+        refreshed.countDown();
+      }
+    });
+
+    // the default interval is 1 day, so it would not be refreshed in time without the override
+    assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testTryAcquireLoadPermit() throws Exception {
+    assertEquals(50, remoteConfigRefreshScheduler.getLoadPermitIntervalInMillis());
+
+    assertTrue(remoteConfigRefreshScheduler.tryAcquireLoadPermit());
+    // the budget is used up, the caller is not blocked
+    assertFalse(remoteConfigRefreshScheduler.tryAcquireLoadPermit());
+
+    TimeUnit.MILLISECONDS.sleep(remoteConfigRefreshScheduler.getLoadPermitIntervalInMillis() * 2);
+    assertTrue(remoteConfigRefreshScheduler.tryAcquireLoadPermit());
+  }
+
+  @Test
+  public void testExecuteLoadWhenRefreshPoolIsBusy() throws Exception {
+    int refreshThreads = remoteConfigRefreshScheduler.getExecutorService().getCorePoolSize();
+    final CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < refreshThreads; i++) {
+      remoteConfigRefreshScheduler.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+
+    final CountDownLatch loaded = new CountDownLatch(1);
+    remoteConfigRefreshScheduler.executeLoad(new Runnable() {
+      @Override
+      public void run() {
+        loaded.countDown();
+      }
+    });
+
+    try {
+      assertTrue(loaded.await(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+    }
+  }
+
+  public static class MockConfigUtil extends ConfigUtil {
+    @Override
+    public int getRefreshInterval() {
+      return 24 * 3600 * 1000;
+    }
+
+    @Override
+    public TimeUnit getRefreshIntervalTimeUnit() {
+      return TimeUnit.MILLISECONDS;
+    }
+  }
+}
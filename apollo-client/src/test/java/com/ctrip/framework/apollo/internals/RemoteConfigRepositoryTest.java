@@ -16,10 +16,14 @@
  */
 package com.ctrip.framework.apollo.internals;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeast;
@@ -56,7 +60,14 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.After;
 import org.junit.Before;
@@ -253,7 +264,7 @@ public class RemoteConfigRepositoryTest {
     RepositoryChangeListener someListener = mock(RepositoryChangeListener.class);
     RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
     remoteConfigRepository.addChangeListener(someListener);
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     Map<String, String> newConfigurations = ImmutableMap.of("someKey", "anotherValue");
     ApolloConfig newApolloConfig = assembleApolloConfig(newConfigurations);
@@ -264,7 +275,8 @@ public class RemoteConfigRepositoryTest {
 
     verify(someListener, times(1)).onRepositoryChange(eq(someNamespace), captor.capture());
 
-    assertEquals(newConfigurations, captor.getValue());
+    assertEquals(newConfigurations, captor.getValue().getProperties());
+    assertEquals(newApolloConfig.getReleaseKey(), captor.getValue().getReleaseKey());
   }
 
   @Test
@@ -285,11 +297,11 @@ public class RemoteConfigRepositoryTest {
         return null;
       }
 
-    }).when(someListener).onRepositoryChange(any(String.class), any(Properties.class));
+    }).when(someListener).onRepositoryChange(any(String.class), any(ConfigSnapshot.class));
 
     RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
     remoteConfigRepository.addChangeListener(someListener);
-    final ArgumentCaptor<Properties> captor = ArgumentCaptor.forClass(Properties.class);
+    final ArgumentCaptor<ConfigSnapshot> captor = ArgumentCaptor.forClass(ConfigSnapshot.class);
 
     Map<String, String> newConfigurations = ImmutableMap.of("someKey", "anotherValue");
     ApolloConfig newApolloConfig = assembleApolloConfig(newConfigurations);
@@ -312,7 +324,7 @@ public class RemoteConfigRepositoryTest {
     remoteConfigLongPollService.stopLongPollingRefresh();
 
     verify(someListener, times(1)).onRepositoryChange(eq(someNamespace), captor.capture());
-    assertEquals(newConfigurations, captor.getValue());
+    assertEquals(newConfigurations, captor.getValue().getProperties());
 
     final ArgumentCaptor<HttpRequest> httpRequestArgumentCaptor = ArgumentCaptor
         .forClass(HttpRequest.class);
@@ -323,6 +335,106 @@ public class RemoteConfigRepositoryTest {
     assertTrue(request.getUrl().contains("messages=%7B%22details%22%3A%7B%22someKey%22%3A1%7D%7D"));
   }
 
+  @Test
+  public void testLoadConfigRestoredFromLocalCache() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    long someNotificationId = 5;
+    Properties someProperties = new Properties();
+    someProperties.setProperty("someKey", "someValue");
+
+    when(someResponse.getStatusCode()).thenReturn(304);
+
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+    remoteConfigRepository.restoreFromLocalCache(someProperties, someReleaseKey,
+        someNotificationId);
+
+    ConfigSnapshot snapshot = remoteConfigRepository.getConfigSnapshot();
+
+    assertEquals(someProperties, snapshot.getProperties());
+    assertEquals(someReleaseKey, snapshot.getReleaseKey());
+    assertEquals(someNotificationId, remoteConfigRepository.getNotificationId());
+
+    final ArgumentCaptor<HttpRequest> httpRequestArgumentCaptor = ArgumentCaptor
+        .forClass(HttpRequest.class);
+    verify(httpClient, times(1)).doGet(httpRequestArgumentCaptor.capture(), eq(ApolloConfig.class));
+
+    assertTrue(httpRequestArgumentCaptor.getValue().getUrl()
+        .contains("releaseKey=" + someReleaseKey));
+  }
+
+  @Test
+  public void testGetConfigNotBlockedBySyncRunning() throws Exception {
+    ApolloConfig someApolloConfig = assembleApolloConfig(ImmutableMap.of("someKey", "someValue"));
+    ApolloConfig anotherApolloConfig =
+        assembleApolloConfig(ImmutableMap.of("someKey", "anotherValue"));
+    BlockingHttpClient blockingHttpClient = new BlockingHttpClient();
+    MockInjector.setInstance(HttpClient.class, blockingHttpClient);
+
+    final RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+    blockingHttpClient.respond(someApolloConfig);
+    assertEquals("someValue", remoteConfigRepository.getConfig().getProperty("someKey"));
+
+    blockingHttpClient.block();
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      Future<CompletableFuture<ApolloConfig>> running =
+          executorService.submit(remoteConfigRepository::requestSync);
+      assertTrue(blockingHttpClient.awaitRequests(2));
+
+      // readers get the config synced last while the sync is running
+      assertEquals("someValue", remoteConfigRepository.getConfig().getProperty("someKey"));
+
+      // the syncs requested meanwhile are merged into one
+      CompletableFuture<ApolloConfig> pending = remoteConfigRepository.requestSync();
+      assertSame(pending, remoteConfigRepository.requestSync());
+      assertFalse(pending.isDone());
+
+      blockingHttpClient.respond(anotherApolloConfig);
+
+      assertSame(anotherApolloConfig, running.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+      assertSame(anotherApolloConfig, pending.get(5, TimeUnit.SECONDS));
+      assertEquals(3, blockingHttpClient.getRequestCount());
+      assertEquals("anotherValue", remoteConfigRepository.getConfig().getProperty("someKey"));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSyncTimeout() throws Exception {
+    BlockingHttpClient blockingHttpClient = new BlockingHttpClient();
+    blockingHttpClient.block();
+    MockInjector.setInstance(HttpClient.class, blockingHttpClient);
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithSyncTimeout());
+
+    RemoteConfigRepository remoteConfigRepository = new RemoteConfigRepository(someNamespace);
+
+    // the first load is not run in the calling thread, so the caller waits at most the sync timeout
+    long start = System.currentTimeMillis();
+    try {
+      remoteConfigRepository.getConfig();
+      fail("ApolloConfigException is expected");
+    } catch (ApolloConfigException ex) {
+      // expected
+    }
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertTrue(blockingHttpClient.awaitRequests(1));
+
+    // another reader joins the first load running instead of waiting for another sync
+    try {
+      remoteConfigRepository.getConfig();
+      fail("ApolloConfigException is expected");
+    } catch (ApolloConfigException ex) {
+      // expected
+    }
+
+    blockingHttpClient.respond(assembleApolloConfig(ImmutableMap.of("someKey", "someValue")));
+
+    await().atMost(5, TimeUnit.SECONDS).ignoreExceptions().untilAsserted(() ->
+        assertEquals("someValue", remoteConfigRepository.getConfig().getProperty("someKey")));
+    assertEquals(1, blockingHttpClient.getRequestCount());
+  }
+
   @Test
   public void testAssembleQueryConfigUrl() throws Exception {
     Gson gson = new Gson();
@@ -418,6 +530,60 @@ public class RemoteConfigRepositoryTest {
     }
   }
 
+  public static class MockConfigUtilWithSyncTimeout extends MockConfigUtil {
+    @Override
+    public long getSyncTimeoutInMillis() {
+      return 100;
+    }
+  }
+
+  /**
+   * responds the config queries only after released
+   */
+  public static class BlockingHttpClient implements HttpClient {
+    private final Semaphore requests = new Semaphore(0);
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile CountDownLatch released = new CountDownLatch(0);
+    private volatile ApolloConfig config;
+
+    void block() {
+      released = new CountDownLatch(1);
+    }
+
+    void respond(ApolloConfig config) {
+      this.config = config;
+      released.countDown();
+    }
+
+    boolean awaitRequests(int count) throws InterruptedException {
+      return requests.tryAcquire(count, 5, TimeUnit.SECONDS);
+    }
+
+    int getRequestCount() {
+      return requestCount.get();
+    }
+
+    @Override
+    public <T> HttpResponse<T> doGet(HttpRequest httpRequest, Class<T> responseType) {
+      requestCount.incrementAndGet();
+      requests.release();
+      try {
+        released.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+      }
+      return (HttpResponse<T>) new HttpResponse<>(200, config);
+    }
+
+    @Override
+    public <T> HttpResponse<T> doGet(HttpRequest httpRequest, Type responseType) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(50);
+      } catch (InterruptedException e) {
+      }
+      return (HttpResponse<T>) pollResponse;
+    }
+  }
+
   public static class MockHttpClient implements HttpClient {
 
     @Override
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals.stress;
+
+import com.ctrip.framework.apollo.ConfigChangeListener;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.enums.PropertyChangeType;
+import com.ctrip.framework.apollo.internals.AbstractConfig;
+import com.ctrip.framework.apollo.model.ConfigChange;
+import com.ctrip.framework.apollo.model.ConfigChangeEvent;
+import com.github.noconnor.junitperf.JUnitPerfRule;
+import com.github.noconnor.junitperf.JUnitPerfTest;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Stress the matching of the change listeners with interested keys and key prefixes, e.g. 1k
+ * listeners against 10k changed keys.
+ */
+@Ignore("Stress test")
+public class ConfigChangeListenerStressTest {
+
+  private static final String SOME_NAMESPACE = "someNamespace";
+  private static final int LISTENER_COUNT = 1000;
+  private static final int CHANGED_KEY_COUNT = 10000;
+
+  private static ListenerConfig config;
+  private static Map<String, ConfigChange> changes;
+
+  @Rule
+  public JUnitPerfRule perfTestRule = new JUnitPerfRule();
+
+  @BeforeClass
+  public static void beforeClass() {
+    config = new ListenerConfig();
+    for (int i = 0; i < LISTENER_COUNT; i++) {
+      Set<String> interestedKeys = Sets.newHashSet(key(i), key(i * 7));
+      Set<String> interestedKeyPrefixes = Collections.singleton(prefix(i));
+      config.addChangeListener(new ConfigChangeListener() {
+        @Override
+        public void onChange(ConfigChangeEvent changeEvent) {
+        }
+      }, interestedKeys, interestedKeyPrefixes);
+    }
+
+    changes = Maps.newHashMapWithExpectedSize(CHANGED_KEY_COUNT);
+    for (int i = 0; i < CHANGED_KEY_COUNT; i++) {
+      // half of the changed keys are matched by key, the others by prefix or not matched at all
+      String key = i % 2 == 0 ? key(i) : prefix(i % (2 * LISTENER_COUNT)) + i;
+      changes.put(key, new ConfigChange(SOME_NAMESPACE, key, String.valueOf(i),
+          String.valueOf(i + 1), PropertyChangeType.MODIFIED));
+    }
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 4, durationMs = 10000, warmUpMs = 1000)
+  public void testFireConfigChange() {
+    config.fireConfigChange(new ConfigChangeEvent(SOME_NAMESPACE, changes));
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 4, durationMs = 10000, warmUpMs = 1000)
+  public void testFireConfigChangeWithInterestedChangedKeys() {
+    config.fireConfigChange(SOME_NAMESPACE, changes);
+  }
+
+  private static String key(int i) {
+    return "some.key." + i;
+  }
+
+  private static String prefix(int i) {
+    return "some.prefix." + i + ".";
+  }
+
+  private static class ListenerConfig extends AbstractConfig {
+
+    @Override
+    protected CompletableFuture<Void> fireConfigChange(ConfigChangeEvent changeEvent) {
+      return super.fireConfigChange(changeEvent);
+    }
+
+    @Override
+    protected CompletableFuture<Void> fireConfigChange(String namespace,
+        Map<String, ConfigChange> changes) {
+      return super.fireConfigChange(namespace, changes);
+    }
+
+    @Override
+    public String getProperty(String key, String defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public ConfigSourceType getSourceType() {
+      return ConfigSourceType.NONE;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals.stress;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.internals.ConfigRepository;
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import com.ctrip.framework.apollo.internals.DefaultConfigTest.MockConfigUtil;
+import com.ctrip.framework.apollo.internals.DefaultConfigTest.MockConfigUtilWithPropertySnapshot;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.github.noconnor.junitperf.JUnitPerfRule;
+import com.github.noconnor.junitperf.JUnitPerfTest;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Stress the read paths of {@link DefaultConfig}, e.g. with and without property snapshot, and the
+ * typed value cache under contention.
+ */
+@Ignore("Stress test")
+public class DefaultConfigStressTest {
+
+  private static final String SOME_NAMESPACE = "someNamespace";
+  private static final int KEY_COUNT = 1000;
+
+  private static DefaultConfig defaultConfig;
+  private static DefaultConfig snapshotConfig;
+  private static DefaultConfig changingConfig;
+  private static ScheduledExecutorService changeExecutor;
+
+  @Rule
+  public JUnitPerfRule perfTestRule = new JUnitPerfRule();
+
+  @BeforeClass
+  public static void beforeClass() {
+    Properties someProperties = new Properties();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      someProperties.setProperty(key(i), String.valueOf(i));
+    }
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLargeCache());
+    defaultConfig = new DefaultConfig(SOME_NAMESPACE, mockConfigRepository(someProperties));
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithPropertySnapshot());
+    snapshotConfig = new DefaultConfig(SOME_NAMESPACE, mockConfigRepository(someProperties));
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithLargeCache());
+    changingConfig = new DefaultConfig(SOME_NAMESPACE, mockConfigRepository(someProperties));
+
+    final Properties anotherProperties = new Properties();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      anotherProperties.setProperty(key(i), String.valueOf(i + 1));
+    }
+    final Properties[] versions = {someProperties, anotherProperties};
+    changeExecutor = Executors.newSingleThreadScheduledExecutor();
+    changeExecutor.scheduleAtFixedRate(new Runnable() {
+      private int count;
+
+      @Override
+      public void run() {
+        changingConfig.onRepositoryChange(SOME_NAMESPACE, versions[++count % 2]);
+      }
+    }, 10, 10, TimeUnit.MILLISECONDS);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    changeExecutor.shutdownNow();
+    MockInjector.reset();
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 32, durationMs = 10000, warmUpMs = 1000)
+  public void testGetProperty() {
+    readAll(defaultConfig);
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 32, durationMs = 10000, warmUpMs = 1000)
+  public void testGetPropertyWithPropertySnapshot() {
+    readAll(snapshotConfig);
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 64, durationMs = 10000, warmUpMs = 1000)
+  public void testGetIntProperty() {
+    readAllAsInt(defaultConfig);
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 64, durationMs = 10000, warmUpMs = 1000)
+  public void testGetIntPropertyWithConfigChanges() {
+    readAllAsInt(changingConfig);
+  }
+
+  private static void readAllAsInt(DefaultConfig config) {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      config.getIntProperty(key(i), -1);
+      config.getLongProperty(key(i), -1L);
+    }
+  }
+
+  private static void readAll(DefaultConfig config) {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      config.getProperty(key(i), null);
+    }
+    // missing keys
+    for (int i = KEY_COUNT; i < 2 * KEY_COUNT; i++) {
+      config.getProperty(key(i), null);
+    }
+  }
+
+  private static String key(int i) {
+    return "some.key." + i;
+  }
+
+  private static ConfigRepository mockConfigRepository(Properties properties) {
+    ConfigRepository configRepository = mock(ConfigRepository.class);
+    when(configRepository.getConfig()).thenReturn(properties);
+    when(configRepository.getSourceType()).thenReturn(ConfigSourceType.LOCAL);
+    return configRepository;
+  }
+
+  private static class MockConfigUtilWithLargeCache extends MockConfigUtil {
+    @Override
+    public long getMaxConfigCacheSize() {
+      return KEY_COUNT;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.internals.stress;
+
+import com.ctrip.framework.apollo.internals.LocalCacheBinaryFile;
+import com.github.noconnor.junitperf.JUnitPerfRule;
+import com.github.noconnor.junitperf.JUnitPerfTest;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Compare loading and storing a large namespace, with JSON values and Chinese text, in the
+ * properties format and in the {@link LocalCacheBinaryFile} format.
+ */
+@Ignore("Stress test")
+public class LocalCacheFileStressTest {
+
+  private static final int KEY_COUNT = 2000;
+  private static final String SOME_RELEASE_KEY = "20240101000000-release-key";
+
+  private static Properties someProperties;
+  private static File propertiesFile;
+  private static File binaryFile;
+
+  @Rule
+  public JUnitPerfRule perfTestRule = new JUnitPerfRule();
+
+  @BeforeClass
+  public static void beforeClass() throws IOException {
+    someProperties = new Properties();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      someProperties.setProperty("some.key." + i, String.format(
+          "{\"id\": %d, \"name\": \"配置中心-%d\", \"description\": \"阿波罗配置项，支持实时推送\", "
+              + "\"tags\": [\"a\", \"b\", \"c\"], \"enabled\": true}", i, i));
+    }
+
+    propertiesFile = File.createTempFile("LocalCacheFileStressTest", ".properties");
+    binaryFile = File.createTempFile("LocalCacheFileStressTest", ".bin");
+    storeProperties(propertiesFile);
+    storeBinary(binaryFile);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    propertiesFile.delete();
+    binaryFile.delete();
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 2000)
+  public void testLoadProperties() throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = new FileInputStream(propertiesFile)) {
+      properties.load(in);
+    }
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 2000)
+  public void testLoadBinary() throws IOException {
+    LocalCacheBinaryFile.read(binaryFile, new Properties());
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 2000)
+  public void testStoreProperties() throws IOException {
+    storeProperties(propertiesFile);
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 2000)
+  public void testStoreBinary() throws IOException {
+    storeBinary(binaryFile);
+  }
+
+  private static void storeProperties(File file) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      someProperties.store(out, "Persisted by LocalCacheFileStressTest");
+    }
+  }
+
+  private static void storeBinary(File file) throws IOException {
+    Files.write(file.toPath(), LocalCacheBinaryFile.encode(someProperties, SOME_RELEASE_KEY, 1));
+  }
+}
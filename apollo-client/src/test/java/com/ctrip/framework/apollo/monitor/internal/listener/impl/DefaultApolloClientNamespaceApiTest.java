@@ -84,6 +84,42 @@ public class DefaultApolloClientNamespaceApiTest {
     assertEquals(1, namespaceApi.getNamespaceMetrics().get("testNamespace").getUsageCount());
   }
 
+  @Test
+  public void testCollectStartupEvents() {
+    namespaceApi.collect0(ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_SOURCE)
+        .putAttachment(NAMESPACE, "testNamespace")
+        .putAttachment(NAMESPACE_STARTUP_SOURCE, "LOCAL"));
+    namespaceApi.collect0(ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_NAMESPACE_STARTUP_CACHE_AGE)
+        .putAttachment(NAMESPACE, "testNamespace")
+        .putAttachment(TIMESTAMP, 1000L));
+
+    assertEquals("LOCAL", namespaceApi.getNamespaceMetrics().get("testNamespace").getStartupSource());
+    assertEquals(1000L,
+        namespaceApi.getNamespaceMetrics().get("testNamespace").getStartupCacheAgeInMs());
+    assertEquals(1000L,
+        namespaceApi.getNamespaceMetricsString().get("testNamespace").getStartupCacheAgeInMs());
+  }
+
+  @Test
+  public void testCollectCachePersistEvents() {
+    namespaceApi.collect0(ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_LAG)
+        .putAttachment(NAMESPACE, "testNamespace")
+        .putAttachment(TIMESTAMP, 100L));
+    namespaceApi.collect0(ApolloClientMonitorEventFactory
+        .getInstance().createEvent(APOLLO_CLIENT_NAMESPACE_CACHE_PERSIST_FAILURE)
+        .putAttachment(NAMESPACE, "testNamespace"));
+
+    assertEquals(100L,
+        namespaceApi.getNamespaceMetrics().get("testNamespace").getLatestCachePersistLagInMs());
+    assertEquals(1,
+        namespaceApi.getNamespaceMetrics().get("testNamespace").getCachePersistFailureCount());
+    assertEquals(1,
+        namespaceApi.getNamespaceMetricsString().get("testNamespace").getCachePersistFailureCount());
+  }
+
   @Test
   public void testGetNamespacePropertySize() {
     when(config.getPropertyNames()).thenReturn(Collections.singleton("property1"));
@@ -18,13 +18,19 @@ package com.ctrip.framework.apollo.monitor.internal.listener.impl;
 
 import static org.junit.Assert.*;
 
+import com.ctrip.framework.apollo.internals.ConfigChangeDispatcher;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi.ApolloListenerDispatchInfo;
+import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi.ApolloListenerLatencyInfo;
 import com.ctrip.framework.apollo.monitor.api.ApolloClientThreadPoolMonitorApi.ApolloThreadPoolInfo;
 import lombok.SneakyThrows;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultApolloClientThreadPoolApiTest {
 
@@ -89,4 +95,71 @@ public class DefaultApolloClientThreadPoolApiTest {
   }
 
 
+  @SneakyThrows
+  @Test
+  public void testGetListenerDispatchInfo() throws Exception {
+    assertTrue(threadPoolApi.getListenerDispatchInfo().isEmpty());
+
+    ConfigChangeDispatcher configDispatcher = new ConfigChangeDispatcher("Config", 1, true);
+    ConfigChangeDispatcher configFileDispatcher = new ConfigChangeDispatcher("ConfigFile", 1, true);
+    threadPoolApi = new DefaultApolloClientThreadPoolApi(remoteConfigExecutor, configDispatcher,
+        configFileDispatcher, metricsExporterExecutor);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch latch = new CountDownLatch(1);
+    Object someSource = new Object();
+    Object someListener = new Object();
+    configDispatcher.dispatch(someSource, someListener, "someEvent", event -> {
+      started.countDown();
+      try {
+        latch.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }, null);
+    // the next event is pending only after the lane has taken the first one
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    configDispatcher.dispatch(someSource, someListener, "anotherEvent", event -> {
+    }, null);
+    threadPoolApi.export0();
+
+    Map<String, ApolloListenerDispatchInfo> dispatchInfo = threadPoolApi.getListenerDispatchInfo();
+    assertEquals(2, dispatchInfo.size());
+    ApolloListenerDispatchInfo info = dispatchInfo.get(DefaultApolloClientThreadPoolApi.ABSTRACT_CONFIG);
+    assertEquals(2, info.getDispatchedEventCount());
+    assertEquals(1, info.getActiveListenerCount());
+    assertEquals(1, info.getPendingEventCount());
+    assertEquals(0, dispatchInfo.get(DefaultApolloClientThreadPoolApi.ABSTRACT_CONFIG_FILE)
+        .getDispatchedEventCount());
+
+    latch.countDown();
+  }
+
+  @Test
+  public void testGetListenerLatencyInfo() throws Exception {
+    assertTrue(threadPoolApi.getListenerLatencyInfo().isEmpty());
+
+    ConfigChangeDispatcher configDispatcher = new ConfigChangeDispatcher("Config", 1, true);
+    ConfigChangeDispatcher configFileDispatcher = new ConfigChangeDispatcher("ConfigFile", 1, true);
+    threadPoolApi = new DefaultApolloClientThreadPoolApi(remoteConfigExecutor, configDispatcher,
+        configFileDispatcher, metricsExporterExecutor);
+
+    Object someSource = new Object();
+    Object someListener = new Object();
+    configDispatcher.dispatch(someSource, someListener, "someEvent", event -> {
+    }, null).get(5, TimeUnit.SECONDS);
+    threadPoolApi.export0();
+
+    Map<String, Map<String, ApolloListenerLatencyInfo>> latencyInfo =
+        threadPoolApi.getListenerLatencyInfo();
+    assertEquals(2, latencyInfo.size());
+    ApolloListenerLatencyInfo info = latencyInfo.get(DefaultApolloClientThreadPoolApi.ABSTRACT_CONFIG)
+        .get(someListener.getClass().getName());
+    assertEquals(1, info.getInvocationCount());
+    assertTrue(latencyInfo.get(DefaultApolloClientThreadPoolApi.ABSTRACT_CONFIG_FILE).isEmpty());
+    assertTrue(threadPoolApi.export().stream().anyMatch(sample -> sample.getName()
+        .equals("apollo_client_listener_execution_time_in_ms_count")));
+  }
+
+
 }
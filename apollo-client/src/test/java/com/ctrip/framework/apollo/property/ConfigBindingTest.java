@@ -0,0 +1,194 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.property;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.Config;
+import com.ctrip.framework.apollo.exceptions.ApolloConfigException;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigBindingTest {
+
+  private static final String SOME_PREFIX = "datasource.orders.";
+
+  private Config config;
+
+  @Before
+  public void setUp() throws Exception {
+    config = mock(Config.class);
+  }
+
+  @Test
+  public void testBind() {
+    when(config.getProperty(SOME_PREFIX + "url", null)).thenReturn("someUrl");
+    when(config.getProperty(SOME_PREFIX + "maxActive", null)).thenReturn("20");
+    when(config.getProperty(SOME_PREFIX + "testOnBorrow", null)).thenReturn("true");
+    when(config.getProperty(SOME_PREFIX + "level", null)).thenReturn("HIGH");
+
+    ConfigBinding<SomeDataSourceConfig> binding = new ConfigBinding<>(SOME_PREFIX,
+        SomeDataSourceConfig.class);
+    binding.bind(config);
+
+    SomeDataSourceConfig dataSourceConfig = binding.get();
+    assertEquals("someUrl", dataSourceConfig.getUrl());
+    assertEquals(20, dataSourceConfig.getMaxActive());
+    assertTrue(dataSourceConfig.testOnBorrow);
+    assertEquals(SomeLevel.HIGH, dataSourceConfig.level);
+    assertEquals(Sets.newHashSet(SOME_PREFIX + "url", SOME_PREFIX + "maxActive",
+        SOME_PREFIX + "testOnBorrow", SOME_PREFIX + "level"), binding.getPropertyKeys());
+  }
+
+  @Test
+  public void testBindWithDefaultValues() {
+    when(config.getProperty(SOME_PREFIX + "maxActive", null)).thenReturn("notANumber");
+
+    ConfigBinding<SomeDataSourceConfig> binding = new ConfigBinding<>(SOME_PREFIX,
+        SomeDataSourceConfig.class);
+    binding.bind(config);
+
+    SomeDataSourceConfig dataSourceConfig = binding.get();
+    assertNull(dataSourceConfig.getUrl());
+    assertEquals(8, dataSourceConfig.getMaxActive());
+    assertEquals(SomeLevel.LOW, dataSourceConfig.level);
+  }
+
+  @Test
+  public void testUpdate() {
+    when(config.getProperty(SOME_PREFIX + "url", null)).thenReturn("someUrl");
+    when(config.getProperty(SOME_PREFIX + "maxActive", null)).thenReturn("20");
+
+    ConfigBinding<SomeDataSourceConfig> binding = new ConfigBinding<>(SOME_PREFIX,
+        SomeDataSourceConfig.class);
+    binding.bind(config);
+
+    SomeDataSourceConfig dataSourceConfig = binding.get();
+
+    assertFalse(binding.update(config, Collections.singleton("someOtherKey")));
+    assertSame(dataSourceConfig, binding.get());
+
+    when(config.getProperty(SOME_PREFIX + "maxActive", null)).thenReturn("30");
+    when(config.getProperty(SOME_PREFIX + "url", null)).thenReturn("anotherUrl");
+
+    assertTrue(binding.update(config, Collections.singleton(SOME_PREFIX + "maxActive")));
+
+    SomeDataSourceConfig anotherDataSourceConfig = binding.get();
+    assertNotSame(dataSourceConfig, anotherDataSourceConfig);
+    assertEquals(30, anotherDataSourceConfig.getMaxActive());
+    // only the changed properties are parsed again
+    assertEquals("someUrl", anotherDataSourceConfig.getUrl());
+    assertEquals(20, dataSourceConfig.getMaxActive());
+  }
+
+  @Test
+  public void testUpdateWithSetterThrowing() {
+    when(config.getProperty(SOME_PREFIX + "timeout", null)).thenReturn("10");
+
+    ConfigBinding<SomeValidatedConfig> binding = new ConfigBinding<>(SOME_PREFIX,
+        SomeValidatedConfig.class);
+    binding.bind(config);
+
+    SomeValidatedConfig validatedConfig = binding.get();
+    assertEquals(10, validatedConfig.getTimeout());
+
+    when(config.getProperty(SOME_PREFIX + "timeout", null)).thenReturn("-1");
+
+    assertFalse(binding.update(config, Collections.singleton(SOME_PREFIX + "timeout")));
+    assertSame(validatedConfig, binding.get());
+
+    // the previous values are kept, so the rebinding of other keys is not affected
+    when(config.getProperty(SOME_PREFIX + "name", null)).thenReturn("someName");
+
+    assertTrue(binding.update(config, Collections.singleton(SOME_PREFIX + "name")));
+    assertEquals(10, binding.get().getTimeout());
+    assertEquals("someName", binding.get().getName());
+  }
+
+  @Test(expected = ApolloConfigException.class)
+  public void testBindWithoutNoArgConstructor() {
+    new ConfigBinding<>(SOME_PREFIX, NoArgConstructorMissing.class);
+  }
+
+  public enum SomeLevel {
+    LOW, HIGH
+  }
+
+  public static class SomeDataSourceConfig {
+    private String url;
+    private int maxActive = 8;
+    private boolean testOnBorrow;
+    private SomeLevel level = SomeLevel.LOW;
+
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    public int getMaxActive() {
+      return maxActive;
+    }
+
+    public void setMaxActive(int maxActive) {
+      this.maxActive = maxActive;
+    }
+  }
+
+  public static class SomeValidatedConfig {
+    private int timeout;
+    private String name;
+
+    public int getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(int timeout) {
+      if (timeout < 0) {
+        throw new IllegalArgumentException("timeout should not be negative");
+      }
+      this.timeout = timeout;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class NoArgConstructorMissing {
+    private final String url;
+
+    public NoArgConstructorMissing(String url) {
+      this.url = url;
+    }
+  }
+}
@@ -24,6 +24,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.internals.PropertiesCompatibleFileConfigRepository;
@@ -36,9 +38,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import com.ctrip.framework.apollo.Config;
 import com.ctrip.framework.apollo.ConfigFile;
+import com.ctrip.framework.apollo.build.ApolloInjector;
 import com.ctrip.framework.apollo.build.MockInjector;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.core.enums.Env;
+import com.ctrip.framework.apollo.internals.ConfigRepositoryRegistry;
 import com.ctrip.framework.apollo.internals.DefaultConfig;
 import com.ctrip.framework.apollo.internals.JsonConfigFile;
 import com.ctrip.framework.apollo.internals.LocalFileConfigRepository;
@@ -89,6 +93,31 @@ public class DefaultConfigFactoryTest {
     assertEquals(someValue, result.getProperty(someKey, null));
   }
 
+  @Test
+  public void testConfigAndConfigFileShareRepository() throws Exception {
+    String someNamespace = "someName";
+    String someNamespaceFileName = someNamespace + "." + ConfigFileFormat.Properties.getValue();
+    Properties someProperties = new Properties();
+    String someKey = "someKey";
+    String someValue = "someValue";
+    someProperties.setProperty(someKey, someValue);
+
+    LocalFileConfigRepository someLocalConfigRepo = mock(LocalFileConfigRepository.class);
+    when(someLocalConfigRepo.getConfig()).thenReturn(someProperties);
+
+    doReturn(someLocalConfigRepo).when(defaultConfigFactory).createConfigRepository(someNamespace);
+
+    Config config = defaultConfigFactory.create(someNamespace);
+    ConfigFile configFile =
+        defaultConfigFactory.createConfigFile(someNamespaceFileName, ConfigFileFormat.Properties);
+
+    verify(defaultConfigFactory, times(1)).createConfigRepository(someNamespace);
+    assertEquals(2, ApolloInjector.getInstance(ConfigRepositoryRegistry.class)
+        .getReferenceCount(someNamespace));
+    assertEquals(someValue, config.getProperty(someKey, null));
+    assertEquals(someNamespaceFileName, configFile.getNamespace());
+  }
+
   @Test
   public void testCreateLocalConfigRepositoryInLocalDev() throws Exception {
     String someNamespace = "someName";
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.spring.stress;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.build.MockInjector;
+import com.ctrip.framework.apollo.enums.ConfigSourceType;
+import com.ctrip.framework.apollo.internals.ConfigRepository;
+import com.ctrip.framework.apollo.internals.DefaultConfig;
+import com.ctrip.framework.apollo.internals.DefaultConfigTest.MockConfigUtil;
+import com.ctrip.framework.apollo.internals.DefaultConfigTest.MockConfigUtilWithNegativeCache;
+import com.ctrip.framework.apollo.spring.config.CachedCompositePropertySource;
+import com.ctrip.framework.apollo.spring.config.ConfigPropertySourceFactory;
+import com.ctrip.framework.apollo.util.ConfigUtil;
+import com.github.noconnor.junitperf.JUnitPerfRule;
+import com.github.noconnor.junitperf.JUnitPerfTest;
+import java.util.Properties;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.core.env.CompositePropertySource;
+
+/**
+ * Simulate the property resolution of a spring boot startup, i.e. lots of keys not held by apollo
+ * are resolved against the composite property source of 20 namespaces.
+ */
+@Ignore("Stress test")
+public class CompositePropertySourceStressTest {
+
+  private static final int NAMESPACE_COUNT = 20;
+  private static final int KEY_COUNT = 100;
+  private static final String[] ABSENT_KEY_PREFIXES = {"spring.", "server.", "logging.",
+      "management."};
+
+  private static CompositePropertySource compositePropertySource;
+  private static CompositePropertySource negativeCachedCompositePropertySource;
+
+  @Rule
+  public JUnitPerfRule perfTestRule = new JUnitPerfRule();
+
+  @BeforeClass
+  public static void beforeClass() {
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtil());
+    compositePropertySource = assembleCompositePropertySource();
+
+    MockInjector.setInstance(ConfigUtil.class, new MockConfigUtilWithNegativeCache());
+    negativeCachedCompositePropertySource = assembleCompositePropertySource();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    MockInjector.reset();
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 1000)
+  public void testResolveProperties() {
+    resolveAll(compositePropertySource);
+  }
+
+  @Test
+  @JUnitPerfTest(threads = 1, durationMs = 10000, warmUpMs = 1000)
+  public void testResolvePropertiesWithNegativeCache() {
+    resolveAll(negativeCachedCompositePropertySource);
+  }
+
+  private static void resolveAll(CompositePropertySource propertySource) {
+    for (String prefix : ABSENT_KEY_PREFIXES) {
+      for (int i = 0; i < KEY_COUNT; i++) {
+        propertySource.getProperty(prefix + i);
+      }
+    }
+  }
+
+  private static CompositePropertySource assembleCompositePropertySource() {
+    ConfigPropertySourceFactory configPropertySourceFactory = new ConfigPropertySourceFactory();
+    CompositePropertySource composite = new CachedCompositePropertySource("ApolloPropertySources");
+    for (int i = 0; i < NAMESPACE_COUNT; i++) {
+      String namespace = "namespace" + i;
+      Properties properties = new Properties();
+      for (int j = 0; j < KEY_COUNT; j++) {
+        properties.setProperty(namespace + ".key." + j, String.valueOf(j));
+      }
+      ConfigRepository configRepository = mock(ConfigRepository.class);
+      when(configRepository.getConfig()).thenReturn(properties);
+      when(configRepository.getSourceType()).thenReturn(ConfigSourceType.LOCAL);
+      composite.addPropertySource(configPropertySourceFactory
+          .getConfigPropertySource(namespace, new DefaultConfig(namespace, configRepository)));
+    }
+    return composite;
+  }
+}
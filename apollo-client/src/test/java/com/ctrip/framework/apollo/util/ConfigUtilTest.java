@@ -49,6 +49,25 @@ public class ConfigUtilTest {
     System.clearProperty(ApolloClientSystemConsts.APOLLO_PROPERTY_NAMES_CACHE_ENABLE);
     System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_KUBERNETES_NAMESPACE);
     System.clearProperty(ApolloClientSystemConsts.APOLLO_KUBERNETES_CACHE_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_THREADS);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_QUEUE_SIZE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_LISTENER_EVENT_COALESCE_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_WINDOW);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_MAX_DELAY);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_LISTENER_SLOW_THRESHOLD);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_JOURNAL_SIZE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_FIRST_LOAD_TIMEOUT);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_PRELOAD_THREADS);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_BATCH_FETCH_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_REFRESH_INTERVAL_PREFIX + "someNamespace");
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_REFRESH_THREADS);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_REFRESH_QPS);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_DELAY);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_CACHE_BINARY_FORMAT_ENABLE);
+    System.clearProperty(ApolloClientSystemConsts.APOLLO_SYNC_TIMEOUT);
   }
 
   @Test
@@ -372,6 +391,195 @@ public class ConfigUtilTest {
     assertEquals(25, configUtil.getMonitorExceptionQueueSize()); // Default value
   }
 
+  @Test
+  public void testCustomizeListenerDispatchThreads() {
+    int someThreads = 3;
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_THREADS, String.valueOf(someThreads));
+
+    ConfigUtil configUtil = new ConfigUtil();
+
+    assertEquals(someThreads, configUtil.getListenerDispatchThreads());
+  }
+
+  @Test
+  public void testCustomizeInvalidListenerDispatchThreads() {
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_THREADS, "0");
+
+    ConfigUtil configUtil = new ConfigUtil();
+
+    assertEquals(Math.max(2, Runtime.getRuntime().availableProcessors()),
+        configUtil.getListenerDispatchThreads()); // Default value
+  }
+
+  @Test
+  public void testCustomizeListenerDispatchQueueSize() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getListenerDispatchQueueSize()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_QUEUE_SIZE, "10");
+    configUtil = new ConfigUtil();
+    assertEquals(10, configUtil.getListenerDispatchQueueSize());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_DISPATCH_QUEUE_SIZE, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getListenerDispatchQueueSize()); // Default value
+  }
+
+  @Test
+  public void testListenerEventCoalescingEnabled() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isListenerEventCoalescingEnabled());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_EVENT_COALESCE_ENABLE, "true");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isListenerEventCoalescingEnabled());
+  }
+
+  @Test
+  public void testConfigChangeDebounce() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getConfigChangeDebounceWindowInMillis()); // Default value
+    assertEquals(1000, configUtil.getConfigChangeDebounceMaxDelayInMillis()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_WINDOW, "200");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_DEBOUNCE_MAX_DELAY, "100");
+    configUtil = new ConfigUtil();
+
+    assertEquals(200, configUtil.getConfigChangeDebounceWindowInMillis());
+    // the max delay is never shorter than the window
+    assertEquals(200, configUtil.getConfigChangeDebounceMaxDelayInMillis());
+  }
+
+  @Test
+  public void testSlowListenerThreshold() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getSlowListenerThresholdInMillis()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_SLOW_THRESHOLD, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getSlowListenerThresholdInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_LISTENER_SLOW_THRESHOLD, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getSlowListenerThresholdInMillis());
+  }
+
+  @Test
+  public void testConfigChangeJournalSize() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(64, configUtil.getConfigChangeJournalSize()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_JOURNAL_SIZE, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(64, configUtil.getConfigChangeJournalSize());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CONFIG_CHANGE_JOURNAL_SIZE, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getConfigChangeJournalSize());
+  }
+
+  @Test
+  public void testCacheStaleWhileRevalidate() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isCacheStaleWhileRevalidateEnabled()); // Default value
+    assertEquals(5000, configUtil.getFirstLoadTimeoutInMillis()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE, "true");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_FIRST_LOAD_TIMEOUT, "0");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isCacheStaleWhileRevalidateEnabled());
+    assertEquals(5000, configUtil.getFirstLoadTimeoutInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_FIRST_LOAD_TIMEOUT, "1000");
+    configUtil = new ConfigUtil();
+    assertEquals(1000, configUtil.getFirstLoadTimeoutInMillis());
+  }
+
+  @Test
+  public void testSyncTimeout() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(10000, configUtil.getSyncTimeoutInMillis()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_SYNC_TIMEOUT, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(10000, configUtil.getSyncTimeoutInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_SYNC_TIMEOUT, "3000");
+    configUtil = new ConfigUtil();
+    assertEquals(3000, configUtil.getSyncTimeoutInMillis());
+  }
+
+  @Test
+  public void testPreload() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getPreloadThreads()); // Default value
+    assertFalse(configUtil.isLearnedNamespacesPreloadEnabled()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_PRELOAD_THREADS, "0");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE, "true");
+    configUtil = new ConfigUtil();
+    assertEquals(8, configUtil.getPreloadThreads());
+    assertTrue(configUtil.isLearnedNamespacesPreloadEnabled());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_PRELOAD_THREADS, "2");
+    configUtil = new ConfigUtil();
+    assertEquals(2, configUtil.getPreloadThreads());
+  }
+
+  @Test
+  public void testBatchFetch() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isBatchFetchEnabled()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_BATCH_FETCH_ENABLE, "true");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isBatchFetchEnabled());
+  }
+
+  @Test
+  public void testRefresh() {
+    String someNamespace = "someNamespace";
+    ConfigUtil configUtil = new ConfigUtil();
+    assertEquals(configUtil.getRefreshInterval(), configUtil.getRefreshInterval(someNamespace));
+    assertEquals(2, configUtil.getRefreshThreads()); // Default value
+    assertEquals(20, configUtil.getRefreshQPS()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_REFRESH_INTERVAL_PREFIX + someNamespace, "1");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_REFRESH_THREADS, "4");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_REFRESH_QPS, "-1");
+    configUtil = new ConfigUtil();
+    assertEquals(1, configUtil.getRefreshInterval(someNamespace));
+    assertEquals(4, configUtil.getRefreshThreads());
+    assertEquals(20, configUtil.getRefreshQPS());
+  }
+
+  @Test
+  public void testCacheWriteBehind() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isCacheWriteBehindEnabled()); // Default value
+    assertEquals(100, configUtil.getCacheWriteBehindDelayInMillis()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_ENABLE, "true");
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_DELAY, "-1");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isCacheWriteBehindEnabled());
+    assertEquals(100, configUtil.getCacheWriteBehindDelayInMillis());
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_WRITE_BEHIND_DELAY, "0");
+    configUtil = new ConfigUtil();
+    assertEquals(0, configUtil.getCacheWriteBehindDelayInMillis());
+  }
+
+  @Test
+  public void testCacheBinaryFormat() {
+    ConfigUtil configUtil = new ConfigUtil();
+    assertFalse(configUtil.isCacheBinaryFormatEnabled()); // Default value
+
+    System.setProperty(ApolloClientSystemConsts.APOLLO_CACHE_BINARY_FORMAT_ENABLE, "true");
+    configUtil = new ConfigUtil();
+    assertTrue(configUtil.isCacheBinaryFormatEnabled());
+  }
+
   @Test
   public void test() {
     ConfigUtil configUtil = new ConfigUtil();
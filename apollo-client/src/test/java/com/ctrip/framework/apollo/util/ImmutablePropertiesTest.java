@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Properties;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImmutablePropertiesTest {
+
+  private OrderedProperties orderedProperties;
+  private ImmutableProperties immutableProperties;
+
+  @Before
+  public void setUp() {
+    orderedProperties = new OrderedProperties();
+    orderedProperties.setProperty("key2", "value2");
+    orderedProperties.setProperty("key1", "value1");
+    orderedProperties.setProperty("key3", "value3");
+    immutableProperties = ImmutableProperties.copyOf(orderedProperties);
+  }
+
+  @Test
+  public void testImmutablePropertiesInvokedAsLegacyProperties() {
+    Properties legacyProperties = immutableProperties;
+
+    assertEquals(3, legacyProperties.size());
+    assertEquals("value1", legacyProperties.getProperty("key1"));
+    assertEquals("value1", legacyProperties.get("key1"));
+    assertEquals("someDefault", legacyProperties.getProperty("key4", "someDefault"));
+    assertNull(legacyProperties.getProperty("key4"));
+    assertTrue(legacyProperties.containsKey("key2"));
+    assertFalse(legacyProperties.containsValue("key2"));
+    assertTrue(legacyProperties.containsValue("value2"));
+
+    assertEquals(orderedProperties, legacyProperties);
+    assertEquals(legacyProperties, orderedProperties);
+    assertEquals(orderedProperties.hashCode(), legacyProperties.hashCode());
+    assertEquals(orderedProperties.entrySet(), legacyProperties.entrySet());
+    assertEquals(orderedProperties.keySet(), legacyProperties.keySet());
+  }
+
+  @Test
+  public void testKeepOrder() {
+    assertArrayEquals(new String[]{"key2", "key1", "key3"},
+        immutableProperties.keySet().toArray(new String[0]));
+    assertArrayEquals(new String[]{"key2", "key1", "key3"},
+        immutableProperties.stringPropertyNames().toArray(new String[0]));
+    assertArrayEquals(new String[]{"key2", "key1", "key3"},
+        Collections.list(immutableProperties.keys()).toArray(new String[0]));
+    assertArrayEquals(new String[]{"value2", "value1", "value3"},
+        immutableProperties.values().toArray(new String[0]));
+  }
+
+  @Test
+  public void testCopyOf() {
+    assertSame(immutableProperties, ImmutableProperties.copyOf(immutableProperties));
+    assertTrue(ImmutableProperties.copyOf(null).isEmpty());
+    assertTrue(ImmutableProperties.copyOf(new Properties()).isEmpty());
+  }
+
+  @Test
+  public void testStringPropertyNames() {
+    Properties properties = new Properties();
+    properties.put("someKey", "someValue");
+    properties.put("anotherKey", 1);
+
+    assertEquals(Collections.singleton("someKey"),
+        ImmutableProperties.copyOf(properties).stringPropertyNames());
+  }
+
+  @Test
+  public void testStore() throws Exception {
+    StringWriter writer = new StringWriter();
+    immutableProperties.store(writer, null);
+
+    Properties properties = new Properties();
+    properties.load(new StringReader(writer.toString()));
+
+    assertEquals(orderedProperties, properties);
+  }
+
+  @Test
+  public void testSerialize() throws Exception {
+    ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+    out.writeObject(immutableProperties);
+    out.close();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetProperty() {
+    immutableProperties.setProperty("key4", "value4");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testPutAll() {
+    immutableProperties.putAll(orderedProperties);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testRemove() {
+    immutableProperties.remove("key1");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testClear() {
+    immutableProperties.clear();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testEntrySetRemove() {
+    immutableProperties.entrySet().clear();
+  }
+}
@@ -177,6 +177,26 @@ public class ApolloClientSystemConsts {
    */
   public static final String APOLLO_KUBERNETES_CACHE_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_KUBERNETES_CACHE_ENABLE";
 
+  /**
+   * enable property snapshot
+   */
+  public static final String APOLLO_PROPERTY_SNAPSHOT_ENABLE = "apollo.property.snapshot.enable";
+
+  /**
+   * enable property snapshot environment variables
+   */
+  public static final String APOLLO_PROPERTY_SNAPSHOT_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_PROPERTY_SNAPSHOT_ENABLE";
+
+  /**
+   * enable property negative cache
+   */
+  public static final String APOLLO_PROPERTY_NEGATIVE_CACHE_ENABLE = "apollo.property.negative.cache.enable";
+
+  /**
+   * enable property negative cache environment variables
+   */
+  public static final String APOLLO_PROPERTY_NEGATIVE_CACHE_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_PROPERTY_NEGATIVE_CACHE_ENABLE";
+
   /**
    * enable apollo overrideSystemProperties
    */
@@ -205,4 +225,130 @@ public class ApolloClientSystemConsts {
    * apollo client monitor collect period
    */
   public static final String APOLLO_CLIENT_MONITOR_EXTERNAL_EXPORT_PERIOD = "apollo.client.monitor.external.export-period";
+
+  /**
+   * max number of the threads invoking config change listeners
+   */
+  public static final String APOLLO_LISTENER_DISPATCH_THREADS = "apollo.listener.dispatch.threads";
+
+  /**
+   * max number of the listeners waiting for a dispatch thread, beyond which the thread firing the
+   * change invokes the listener itself
+   */
+  public static final String APOLLO_LISTENER_DISPATCH_QUEUE_SIZE = "apollo.listener.dispatch.queue-size";
+
+  /**
+   * enable coalescing the pending change events of a config change listener
+   */
+  public static final String APOLLO_LISTENER_EVENT_COALESCE_ENABLE = "apollo.listener.event.coalesce.enable";
+
+  /**
+   * enable coalescing the pending change events of a config change listener environment variables
+   */
+  public static final String APOLLO_LISTENER_EVENT_COALESCE_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_LISTENER_EVENT_COALESCE_ENABLE";
+
+  /**
+   * debounce window of the config change events of a namespace, in milliseconds
+   */
+  public static final String APOLLO_CONFIG_CHANGE_DEBOUNCE_WINDOW = "apollo.config.change.debounce.window";
+
+  /**
+   * max delay of the debounced config change events of a namespace, in milliseconds
+   */
+  public static final String APOLLO_CONFIG_CHANGE_DEBOUNCE_MAX_DELAY = "apollo.config.change.debounce.max.delay";
+
+  /**
+   * execution time of a config change listener beyond which it is reported as slow, in milliseconds
+   */
+  public static final String APOLLO_LISTENER_SLOW_THRESHOLD = "apollo.listener.slow.threshold";
+
+  /**
+   * number of the recent config changes kept per namespace for pulling
+   */
+  public static final String APOLLO_CONFIG_CHANGE_JOURNAL_SIZE = "apollo.config.change.journal.size";
+
+  /**
+   * enable serving the local cache at startup and refreshing it from the config service asynchronously
+   */
+  public static final String APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE = "apollo.cache.stale-while-revalidate.enable";
+
+  /**
+   * enable serving the local cache at startup and refreshing it from the config service asynchronously environment variables
+   */
+  public static final String APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_CACHE_STALE_WHILE_REVALIDATE_ENABLE";
+
+  /**
+   * max time waiting for the first load from the config service when there is no local cache, in milliseconds
+   */
+  public static final String APOLLO_CACHE_FIRST_LOAD_TIMEOUT = "apollo.cache.first-load.timeout";
+
+  /**
+   * max time waiting for a sync from the config service, e.g. the first load of a namespace without local cache, in milliseconds
+   */
+  public static final String APOLLO_SYNC_TIMEOUT = "apollo.sync.timeout";
+
+  /**
+   * max number of the threads loading namespaces in parallel
+   */
+  public static final String APOLLO_PRELOAD_THREADS = "apollo.preload.threads";
+
+  /**
+   * enable preloading the namespaces accessed during the previous boot
+   */
+  public static final String APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE = "apollo.preload.learned-namespaces.enable";
+
+  /**
+   * enable preloading the namespaces accessed during the previous boot environment variables
+   */
+  public static final String APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_PRELOAD_LEARNED_NAMESPACES_ENABLE";
+
+  /**
+   * enable fetching the configs of multiple namespaces in one batch request
+   */
+  public static final String APOLLO_BATCH_FETCH_ENABLE = "apollo.batch-fetch.enable";
+
+  /**
+   * enable fetching the configs of multiple namespaces in one batch request environment variables
+   */
+  public static final String APOLLO_BATCH_FETCH_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_BATCH_FETCH_ENABLE";
+
+  /**
+   * refresh interval of a namespace overriding apollo.refreshInterval, followed by the namespace name
+   */
+  public static final String APOLLO_REFRESH_INTERVAL_PREFIX = "apollo.refreshInterval.";
+
+  /**
+   * max number of the threads refreshing namespaces periodically
+   */
+  public static final String APOLLO_REFRESH_THREADS = "apollo.refresh.threads";
+
+  /**
+   * max number of the config loads per second, shared by all namespaces
+   */
+  public static final String APOLLO_REFRESH_QPS = "apollo.refresh.qps";
+
+  /**
+   * enable writing the local cache files on a background thread
+   */
+  public static final String APOLLO_CACHE_WRITE_BEHIND_ENABLE = "apollo.cache.write-behind.enable";
+
+  /**
+   * enable writing the local cache files on a background thread environment variables
+   */
+  public static final String APOLLO_CACHE_WRITE_BEHIND_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_CACHE_WRITE_BEHIND_ENABLE";
+
+  /**
+   * delay of a background local cache file write, in milliseconds
+   */
+  public static final String APOLLO_CACHE_WRITE_BEHIND_DELAY = "apollo.cache.write-behind.delay";
+
+  /**
+   * enable writing the local cache files in the binary format
+   */
+  public static final String APOLLO_CACHE_BINARY_FORMAT_ENABLE = "apollo.cache.binary-format.enable";
+
+  /**
+   * enable writing the local cache files in the binary format environment variables
+   */
+  public static final String APOLLO_CACHE_BINARY_FORMAT_ENABLE_ENVIRONMENT_VARIABLES = "APOLLO_CACHE_BINARY_FORMAT_ENABLE";
 }
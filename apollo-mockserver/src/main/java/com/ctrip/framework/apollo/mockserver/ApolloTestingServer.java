@@ -26,6 +26,7 @@ import com.ctrip.framework.apollo.internals.LocalFileConfigRepository;
 import com.ctrip.framework.apollo.util.ConfigUtil;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import okhttp3.mockwebserver.Dispatcher;
@@ -39,18 +40,22 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Objects;
+import java.util.TreeMap;
 
 public class ApolloTestingServer implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(ApolloTestingServer.class);
     private static final Type notificationType = new TypeToken<List<ApolloConfigNotification>>() {
     }.getType();
+    private static final Type releaseKeysType = new TypeToken<Map<String, String>>() {
+    }.getType();
 
     private static Method CONFIG_SERVICE_LOCATOR_CLEAR;
     private static ConfigServiceLocator CONFIG_SERVICE_LOCATOR;
@@ -98,6 +103,10 @@ public class ApolloTestingServer implements AutoCloseable {
                     String notifications = request.getRequestUrl().queryParameter("notifications");
                     return new MockResponse().setResponseCode(200).setBody(mockLongPollBody(notifications));
                 }
+                if (request.getPath().startsWith("/batch/configs")) {
+                    String namespaces = request.getRequestUrl().queryParameter("namespaces");
+                    return new MockResponse().setResponseCode(200).setBody(loadChangedConfigsFor(namespaces));
+                }
                 if (request.getPath().startsWith("/configs")) {
                     List<String> pathSegments = request.getRequestUrl().pathSegments();
                     // appId and cluster might be used in the future
@@ -136,6 +145,13 @@ public class ApolloTestingServer implements AutoCloseable {
         return started;
     }
 
+    /**
+     * @return the number of the requests received, to compare the requests made by the client
+     */
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
     private void clear() {
         resetOverriddenProperties();
     }
@@ -151,16 +167,43 @@ public class ApolloTestingServer implements AutoCloseable {
     }
 
     private String loadConfigFor(String namespace) {
+        return GSON.toJson(assembleConfig(namespace));
+    }
+
+    /**
+     * 批量加载namespace的配置，只返回releaseKey有变化的namespace
+     */
+    private String loadChangedConfigsFor(String releaseKeysStr) {
+        Map<String, String> releaseKeys = GSON.fromJson(releaseKeysStr, releaseKeysType);
+        List<ApolloConfig> changedConfigs = new ArrayList<>();
+        for (Map.Entry<String, String> entry : releaseKeys.entrySet()) {
+            ApolloConfig apolloConfig = assembleConfig(entry.getKey());
+            if (!Objects.equals(apolloConfig.getReleaseKey(), entry.getValue())) {
+                changedConfigs.add(apolloConfig);
+            }
+        }
+        return GSON.toJson(changedConfigs);
+    }
+
+    private ApolloConfig assembleConfig(String namespace) {
         final Properties prop = loadPropertiesOfNamespace(namespace);
         Map<String, String> configurations = Maps.newHashMap();
         for (String propertyName : prop.stringPropertyNames()) {
             configurations.put(propertyName, prop.getProperty(propertyName));
         }
-        ApolloConfig apolloConfig = new ApolloConfig("someAppId", "someCluster", namespace, "someReleaseKey");
-
         Map<String, String> mergedConfigurations = mergeOverriddenProperties(namespace, configurations);
+        ApolloConfig apolloConfig = new ApolloConfig("someAppId", "someCluster", namespace,
+                assembleReleaseKey(mergedConfigurations));
         apolloConfig.setConfigurations(mergedConfigurations);
-        return GSON.toJson(apolloConfig);
+        return apolloConfig;
+    }
+
+    /**
+     * releaseKey由配置内容计算得出，配置不变时releaseKey也不变
+     */
+    private String assembleReleaseKey(Map<String, String> configurations) {
+        return Hashing.sha1().hashString(GSON.toJson(new TreeMap<>(configurations)), StandardCharsets.UTF_8)
+                .toString();
     }
 
     private Properties loadPropertiesOfNamespace(String namespace) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.mockserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.build.ApolloInjector;
+import com.ctrip.framework.apollo.core.ApolloClientSystemConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.util.http.HttpClient;
+import com.ctrip.framework.apollo.util.http.HttpRequest;
+import com.google.common.collect.Maps;
+import com.google.common.net.UrlEscapers;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApolloMockServerBatchFetchTest {
+
+  private static final String anotherNamespace = "anotherNamespace";
+  private static final Type responseType = new TypeToken<List<ApolloConfig>>() {
+  }.getType();
+  private static final Gson GSON = new Gson();
+
+  private ApolloTestingServer apolloTestingServer;
+
+  @Before
+  public void setUp() throws Exception {
+    apolloTestingServer = new ApolloTestingServer();
+    apolloTestingServer.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    apolloTestingServer.close();
+  }
+
+  @Test
+  public void testFetchChangedConfigsOnly() throws Exception {
+    Map<String, String> releaseKeys = Maps.newLinkedHashMap();
+    releaseKeys.put("application", "");
+    releaseKeys.put(anotherNamespace, "");
+
+    List<ApolloConfig> configs = fetch(releaseKeys);
+
+    assertEquals(2, configs.size());
+    assertEquals("value1", configs.get(0).getConfigurations().get("key1"));
+    assertEquals("otherValue1", configs.get(1).getConfigurations().get("key1"));
+
+    releaseKeys.put("application", configs.get(0).getReleaseKey());
+    releaseKeys.put(anotherNamespace, configs.get(1).getReleaseKey());
+
+    assertTrue(fetch(releaseKeys).isEmpty());
+
+    apolloTestingServer.addOrModifyProperty(anotherNamespace, "key1", "someNewValue");
+
+    configs = fetch(releaseKeys);
+
+    assertEquals(1, configs.size());
+    assertEquals(anotherNamespace, configs.get(0).getNamespaceName());
+    assertEquals("someNewValue", configs.get(0).getConfigurations().get("key1"));
+  }
+
+  private List<ApolloConfig> fetch(Map<String, String> releaseKeys) {
+    String url = String.format("%s/batch/configs/someAppId/someCluster?namespaces=%s",
+        System.getProperty(ApolloClientSystemConsts.APOLLO_CONFIG_SERVICE),
+        UrlEscapers.urlFormParameterEscaper().escape(GSON.toJson(releaseKeys)));
+    HttpClient httpClient = ApolloInjector.getInstance(HttpClient.class);
+    return httpClient.<List<ApolloConfig>>doGet(new HttpRequest(url), responseType).getBody();
+  }
+}